@@ -4,8 +4,16 @@ import Model.DroneFactory;
 import controller.DroneMonitorApp;
 import service.SimulationEngine;
 import database.AnomalyDB;
+import database.AnomalyStore;
+import database.FlightRecorder;
+import database.HistoryConfig;
+import database.RetentionManager;
+import database.StorageBackend;
+import database.StorageProfile;
+import database.TelemetryStore;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import java.util.Properties;
 import service.AnomalyDetector;
 import service.DroneFleetManager;
 import service.TelemetryGenerator;
@@ -49,11 +57,31 @@ public class Simulation extends Application {
      */
     private static DroneMonitorApp createDroneMonitorApp(final TelemetryGenerator theTelemetryGen) {
         TimerManager timerManager = new TimerManager();
-        AnomalyDB anomalyDB = new AnomalyDB();
+        Properties dbProperties = StorageBackend.loadConfiguration();
+        StorageBackend backend = StorageBackend.configured(dbProperties);
+        AnomalyStore anomalyStore = backend.open(dbProperties);
+        // Only the SQLite backend keeps rows long enough to need rolling up, the memory ring bounds itself
+        RetentionManager retentionManager = null;
+        if (anomalyStore instanceof AnomalyDB anomalyDB) {
+            retentionManager = new RetentionManager(anomalyDB, anomalyDB.getRetentionPolicy());
+            retentionManager.start();
+        }
         AnomalyDetector anomalyDetector = new AnomalyDetector();
         DroneFactory droneFactory = new DroneFactory();
         DroneFleetManager fleetManager = new DroneFleetManager(theTelemetryGen, droneFactory);
-        SimulationEngine scheduler = new SimulationEngine(timerManager, fleetManager, anomalyDetector, anomalyDB);
-        return new DroneMonitorApp(timerManager, scheduler, fleetManager, anomalyDB);
+        SimulationEngine scheduler = new SimulationEngine(timerManager, fleetManager, anomalyDetector, anomalyStore,
+                backend.spillFile(dbProperties));
+        // The telemetry history and the flight recorder are both opt in, through db.properties or -D
+        HistoryConfig history = HistoryConfig.fromProperties(dbProperties);
+        if (history.telemetryEnabled()) {
+            scheduler.setTelemetryStore(new TelemetryStore(history.telemetryUrl(), StorageProfile.TUNED));
+        }
+        if (history.recorderEnabled()) {
+            scheduler.setFlightRecorder(new FlightRecorder(history.recorderDirectory(),
+                    FlightRecorder.DEFAULT_SEGMENT_BYTES, history.recorderSegments()));
+        }
+        DroneMonitorApp controller = new DroneMonitorApp(timerManager, scheduler, fleetManager, anomalyStore);
+        controller.setRetentionManager(retentionManager);
+        return controller;
     }
 }
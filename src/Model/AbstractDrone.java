@@ -60,6 +60,16 @@ abstract class AbstractDrone implements Drone {
         return new TelemetryData(myTelemetryData);
     }
 
+    @Override
+    public void copyTelemetryInto(final TelemetryData theTarget) {
+        Objects.requireNonNull(theTarget, "Target telemetry data cannot be null");
+        theTarget.setLatitude(myTelemetryData.getLatitude());
+        theTarget.setLongitude(myTelemetryData.getLongitude());
+        theTarget.setAltitude(myTelemetryData.getAltitude());
+        theTarget.setOrientation(myTelemetryData.getOrientation());
+        theTarget.setVelocity(myTelemetryData.getVelocity());
+    }
+
     @Override
     public DroneState isDroneOn() {
         return myDroneState;
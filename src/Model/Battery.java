@@ -212,6 +212,21 @@ public class Battery {
         0-10 m/s: Low (min = 1)
          */
 
+        myBatteryLevel -= drainAmount(theVelocity);
+
+        if (myBatteryLevel < MIN_BATTERY_LEVEL) {
+            myBatteryLevel = MIN_BATTERY_LEVEL;
+        }
+    }
+
+    /**
+     * Calculates how much a single drain takes off the battery at the given velocity.
+     * Used by drain, and by anything that needs to predict how fast a battery can empty.
+     *
+     * @param theVelocity is the velocity of the drone.
+     * @return the battery percentage a single drain removes.
+     */
+    public static int drainAmount(final double theVelocity) {
         // Battery Decrease Formula
         int batteryDecrease = (int) (DRAIN_COEFFICIENT * Math.pow(theVelocity, VELOCITY_EXPONENT));
 
@@ -221,10 +236,6 @@ public class Battery {
         } else if (batteryDecrease > MAX_DRAIN_AMOUNT) {
             batteryDecrease = MAX_DRAIN_AMOUNT;
         }
-        myBatteryLevel -= batteryDecrease;
-
-        if (myBatteryLevel < MIN_BATTERY_LEVEL) {
-            myBatteryLevel = MIN_BATTERY_LEVEL;
-        }
+        return batteryDecrease;
     }
 }
\ No newline at end of file
@@ -40,6 +40,15 @@ public interface Drone {
      */
     TelemetryData getDroneTelemetry();
 
+    /**
+     * Copies the drone Telemetry Data into an existing object, so recording every drone each tick
+     * doesn't create a new copy per drone.
+     *
+     * @param theTarget represent the telemetry data that receives the drone values.
+     * @throws NullPointerException if theTarget is null.
+     */
+    void copyTelemetryInto(final TelemetryData theTarget);
+
     /**
      * A getter to get whether the drone is on or not.
      *
@@ -1,11 +1,22 @@
 package controller;
 
-import database.AnomalyDB;
+import database.AnomalyExport;
+import database.AnomalyPage;
+import database.AnomalyQuery;
+import database.AnomalyRow;
+import database.AnomalySearch;
+import database.AnomalyStore;
+import database.RetentionManager;
+import service.AnomalyRateAggregator;
 import service.SimulationEngine;
 import service.DroneFleetManager;
 import service.TimerManager;
 import view.SimulationListener;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.LongConsumer;
 
 /**
  * A Controller class that handles and manage the core system of the simulation.
@@ -15,6 +26,12 @@ import java.util.Objects;
  * @version Fall 2025
  */
 public class DroneMonitorApp {
+    /*-- Constant --*/
+
+    /** The number of anomaly rows the database manager shows per page. */
+    public static final int DATABASE_PAGE_SIZE = 200;
+
+
     /*-- Dependency Injection --*/
 
     /* A class object that help manage the time system of the simulation. */
@@ -29,8 +46,11 @@ public class DroneMonitorApp {
     /** A class that is used to push data to the front end. */
     private SimulationListener myListener;
 
-    /** Our simulation's database **/
-    private final AnomalyDB myAnomalyDB;
+    /** Our simulation's database, in whichever backend was picked at startup **/
+    private final AnomalyStore myAnomalyStore;
+
+    /** The background retention passes over the anomaly database, null when the backend doesn't need them. */
+    private RetentionManager myRetentionManager;
 
 
     /*-- Constructor --*/
@@ -44,11 +64,11 @@ public class DroneMonitorApp {
      * @throws NullPointerException if any of the parameters are null.
      */
     public DroneMonitorApp(final TimerManager theTimerManager, final SimulationEngine theSimulationController,
-                           final DroneFleetManager theDroneFleet, final AnomalyDB theAnomalyDatabase) {
+                           final DroneFleetManager theDroneFleet, final AnomalyStore theAnomalyDatabase) {
         myTimerManager = Objects.requireNonNull(theTimerManager, "TimeManager can't be null");
         mySimulationController = Objects.requireNonNull(theSimulationController, "SimulationEngine can't be null");
         myDroneFleet = Objects.requireNonNull(theDroneFleet, "DroneFleet can't be null");
-        myAnomalyDB = Objects.requireNonNull(theAnomalyDatabase, "AnomalyDB can't be null");
+        myAnomalyStore = Objects.requireNonNull(theAnomalyDatabase, "AnomalyStore can't be null");
     }
 
 
@@ -65,6 +85,15 @@ public class DroneMonitorApp {
         myTimerManager.setListener(theListener);
     }
 
+    /**
+     * Method that hands over the retention passes, so they are stopped before the database is closed.
+     *
+     * @param theRetentionManager represents the started retention passes, null if there are none.
+     */
+    public void setRetentionManager(final RetentionManager theRetentionManager) {
+        myRetentionManager = theRetentionManager;
+    }
+
 
     /*-- Different Simulation "Stages/Phases" Methods --*/
 
@@ -107,13 +136,96 @@ public class DroneMonitorApp {
     }
 
 
+    /*-- Getters --*/
+
+    /**
+     * Getter method that returns the live anomaly rates for dashboards and alerting.
+     *
+     * @return the aggregator holding the rolling anomaly counts.
+     */
+    public AnomalyRateAggregator getAnomalyRates() {
+        return mySimulationController.getAnomalyRates();
+    }
+
+
     /*-- Configuration --*/
 
     /**
      * Called when the menu item "Database Manager" is pressed.
      */
     public void databaseManagerButtonPushed() {
-        myListener.databaseManagerButtonPushed(myAnomalyDB.getAnomalyDetails());
+        myListener.databaseManagerButtonPushed(myAnomalyStore.queryAnomalies(AnomalyQuery.latest(DATABASE_PAGE_SIZE)));
+    }
+
+    /**
+     * Fetches a page of stored anomalies for the database manager.
+     *
+     * @param theQuery represents the filters and the page to fetch.
+     * @return the matching page of anomalies, newest first.
+     */
+    public AnomalyPage queryAnomalies(final AnomalyQuery theQuery) {
+        return myAnomalyStore.queryAnomalies(Objects.requireNonNull(theQuery, "Query can't be null"));
+    }
+
+    /**
+     * Runs a full-text search over the stored anomalies for the database manager.
+     * This can take a while on a large run, so it should not be called from the UI thread.
+     *
+     * @param theSearch represents the search text, column and limit.
+     * @return the matching anomalies, best match first.
+     */
+    public List<AnomalyRow> searchAnomalies(final AnomalySearch theSearch) {
+        return myAnomalyStore.searchAnomalies(Objects.requireNonNull(theSearch, "Search can't be null"));
+    }
+
+    /**
+     * Streams the stored anomalies of the current run into a file, without loading them into memory.
+     * This can take a while on a large run, so it should not be called from the UI thread.
+     *
+     * @param theExport represents the format and filters of the export, which can be cancelled.
+     * @param theFile represents the file to write.
+     * @param theProgress represents what is told the number of rows written so far, may be null.
+     * @return the number of rows written, or -1 if the export was cancelled.
+     * @throws IOException if the file couldn't be written.
+     */
+    public long exportAnomalies(final AnomalyExport theExport, final Path theFile,
+                                final LongConsumer theProgress) throws IOException {
+        Objects.requireNonNull(theExport, "Export can't be null");
+        Objects.requireNonNull(theFile, "File can't be null");
+        return theExport.writeTo(myAnomalyStore, theFile, theProgress);
+    }
+
+    /**
+     * Clears and closes the anomaly database, called once when the application exits from the menu.
+     */
+    public void closeDatabase() {
+        // The writer has to be done with the store before it is cleared and closed
+        stopSim();
+        mySimulationController.close();
+        stopRetention();
+        myAnomalyStore.clear();
+        myAnomalyStore.close();
+    }
+
+    /**
+     * Stops the simulation, writes out everything still queued and closes the anomaly database,
+     * keeping what was stored. Called once when the application window is closed.
+     */
+    public void shutdown() {
+        stopSim();
+        mySimulationController.close();
+        stopRetention();
+        myAnomalyStore.close();
+    }
+
+    /**
+     * Helper method that stops the retention passes, so none of them runs against a closed database.
+     */
+    private void stopRetention() {
+        if (myRetentionManager != null) {
+            myRetentionManager.close();
+            myRetentionManager = null;
+        }
     }
 
     /**
@@ -8,103 +8,705 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.function.Predicate;
 
 /**
  * Handles SQLite database operations for storing and retrieving drone anomalies.
  * This class is responsible for initializing database, saving anomaly records,
  * getting anomaly details, and clearing or closing the database connection.
+ * Every simulation run writes to its own table, listed in anomaly_runs, so queries for the current run
+ * never touch older runs, and dropping a run is a single DROP TABLE instead of a row by row DELETE.
+ * Rows are kept compact: the type is an id into the small anomaly_types dictionary and the time is an
+ * integer epoch millisecond next to the simulation time. The detail text is stored as written, unless
+ * db.storeDetails is false; then only a summary of the stored telemetry is rebuilt when read, because
+ * the detector's wording and values (the prior position, the battery level) can't be rebuilt.
  */
-public class AnomalyDB {
+public final class AnomalyDB implements AnomalyStore {
 
-    /** Connection to the SQLite database. */
-    private static Connection conn;
+    /** Connection to the SQLite database, used for every write. */
+    private Connection conn;
+
+    /** Connection used for queries, the same as conn unless the profile asks for a separate reader. */
+    private Connection readConn;
+
+    /**
+     * Connection used for full-text searches. It is separate whenever the reader is,
+     * so cancelling a search can interrupt it without cutting off page queries or exports.
+     */
+    private Connection searchConn;
+
+    /** Connection exports stream on, separate whenever the reader is, so a search never shares it. */
+    private Connection exportConn;
+
+    /** Lock that keeps writes on the shared connection from interleaving. */
+    private final Object writeLock = new Object();
+
+    /** Driver used when the url is passed in directly. */
+    private static final String SQLITE_DRIVER = "org.sqlite.JDBC";
+
+    /** SQL used to insert a single anomaly row, with %s standing for the run table. */
+    private static final String INSERT_SQL = "INSERT INTO %s (drone_id, type_id, recorded_at, sim_time, altitude, longitude, latitude, orientation, velocity, details) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** SQL used to copy a table in the old layout (%2$s) into a run table (%1$s), after its types are added. */
+    private static final String MIGRATE_SQL = "INSERT INTO %1$s (id, drone_id, type_id, recorded_at, sim_time, "
+            + "altitude, longitude, latitude, orientation, velocity, details) "
+            + "SELECT o.id, COALESCE(o.drone_id, 0), ty.type_id, COALESCE(CAST(strftime('%%s', o.timestamp) AS INTEGER), 0) * 1000, "
+            + "COALESCE(o.anomaly_time, 0), o.altitude, o.longitude, o.latitude, o.orientation, o.velocity, o.details "
+            + "FROM %2$s o JOIN anomaly_types ty ON ty.name = COALESCE(o.anomaly_type, '')";
+
+    /** Format of the details rebuilt from a row's telemetry, shared by Java and SQLite's printf. */
+    private static final String REBUILT_DETAILS_FORMAT =
+            "Drone %d at %.1f s: longitude %.5f, latitude %.5f, altitude %.1f, velocity %.1f, orientation %.1f";
+
+    /** Run id given to the table used before runs existed, when an old database is opened. */
+    public static final long LEGACY_RUN_ID = 0;
+
+    /** Table the anomalies were stored in before runs existed. */
+    private static final String LEGACY_TABLE = "drone_anomalies";
+
+    /** Prefix of every run table, the run id follows it. */
+    private static final String RUN_TABLE_PREFIX = "anomalies_run_";
+
+    /** The run new anomalies are written to, and queries read from by default. */
+    private volatile long currentRunId = -1;
+
+    /** Ids of the anomaly types already in the dictionary, guarded by the write lock. */
+    private final Map<String, Integer> typeIds = new HashMap<>();
+
+    /** Conversion factor from nanoseconds to seconds. */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /** Insert statement that is prepared once per run and reused by every batch. */
+    private PreparedStatement insertStmt;
+
+    /** The run insertStmt writes to. */
+    private long insertRunId = -1;
+
+    /** Adds the rows a batch just inserted to the search index, prepared with insertStmt. */
+    private PreparedStatement indexStmt;
+
+    /** The newest row of insertRunId already in the search index. */
+    private long indexedThrough;
+
+    /** Total rows written through the batch API. */
+    private long rowsWritten;
+
+    /** Total time spent writing batches, in nanoseconds. */
+    private long writeNanos;
+
+    /** Rows per second of the most recent batch. */
+    private double lastBatchRowsPerSecond;
+
+    /** How long anomalies are kept at each level of detail. */
+    private RetentionPolicy retentionPolicy = RetentionPolicy.DEFAULT;
+
+    /** Whether the full detail text is stored, instead of being rebuilt from the telemetry. */
+    private boolean storeDetails;
+
+    /**
+     * Work done on the write connection inside a transaction.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface SqlWork<T> {
+        /**
+         * Does the work.
+         *
+         * @param conn the write connection, with autocommit off
+         * @return the result
+         * @throws SQLException if a statement fails, which rolls the transaction back
+         */
+        T run(Connection conn) throws SQLException;
+    }
 
     /**
      * Constructs an AnomalyDB object, loads the SQLite driver,
      * establishes a connection, and creates the anomaly table if it does not exist.
+     * The storage profile comes from the optional db.profile property, TUNED by default,
+     * the retention policy from the optional retention.* properties,
+     * and the full detail text is stored unless the optional db.storeDetails property is false.
      */
     public AnomalyDB() {
-        try {
-            // Load database properties
-            Properties props = new Properties();
-            InputStream input = getClass().getClassLoader().getResourceAsStream("db.properties");
+        this(loadProperties());
+    }
+
+    /**
+     * Constructs an AnomalyDB object from already loaded database properties.
+     *
+     * @param props the contents of db.properties, null if it couldn't be found
+     */
+    AnomalyDB(Properties props) {
+        if (props == null) {
+            return;
+        }
+
+        String dbUrl = props.getProperty("db.url");
+        String dbDriver = props.getProperty("db.driver");
+        StorageProfile profile = StorageProfile.fromName(props.getProperty("db.profile"));
+        retentionPolicy = RetentionPolicy.fromProperties(props);
+        storeDetails = readStoreDetails(props);
 
+        open(dbUrl, dbDriver, profile);
+    }
+
+    /**
+     * Loads db.properties from the resources.
+     *
+     * @return the loaded properties, null if the file couldn't be found
+     */
+    static Properties loadProperties() {
+        try (InputStream input = AnomalyDB.class.getClassLoader().getResourceAsStream("db.properties")) {
             if (input == null) {
                 System.err.println("Unable to find db.properties in resources");
-                return;
+                return null;
             }
 
+            // Load database properties
+            Properties props = new Properties();
             props.load(input);
-            input.close();
+            return props;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads whether every backend should store the full detail text.
+     *
+     * @param props the loaded properties
+     * @return false only if the optional db.storeDetails property is false
+     */
+    static boolean readStoreDetails(Properties props) {
+        return Boolean.parseBoolean(props.getProperty("db.storeDetails", "true").trim());
+    }
+
+    /**
+     * Constructs an AnomalyDB object for the given SQLite url and storage profile,
+     * without reading db.properties. The full detail text is stored.
+     *
+     * @param dbUrl the JDBC url of the database, for example jdbc:sqlite:anomalies.db
+     * @param profile the pragmas and connection layout to use
+     */
+    public AnomalyDB(String dbUrl, StorageProfile profile) {
+        this(dbUrl, profile, true);
+    }
 
-            String dbUrl = props.getProperty("db.url");
-            String dbDriver = props.getProperty("db.driver");
+    /**
+     * Constructs an AnomalyDB object for the given SQLite url and storage profile,
+     * without reading db.properties.
+     *
+     * @param dbUrl the JDBC url of the database, for example jdbc:sqlite:anomalies.db
+     * @param profile the pragmas and connection layout to use
+     * @param storeDetails whether to store the full detail text of every anomaly, false to only keep a summary
+     */
+    public AnomalyDB(String dbUrl, StorageProfile profile, boolean storeDetails) {
+        this.storeDetails = storeDetails;
+        open(dbUrl, SQLITE_DRIVER, profile);
+    }
 
+    /**
+     * Loads the driver, opens the write (and maybe read) connection and creates the table.
+     *
+     * @param dbUrl the JDBC url of the database
+     * @param dbDriver the JDBC driver class name
+     * @param profile the pragmas and connection layout to use
+     */
+    private void open(String dbUrl, String dbDriver, StorageProfile profile) {
+        try {
             // Load the JDBC driver
             Class.forName(dbDriver);
 
-            // Connect to database
+            // Connect to database, type ids cached for an earlier database don't apply to this one
             conn = DriverManager.getConnection(dbUrl);
+            synchronized (writeLock) {
+                typeIds.clear();
+            }
+            profile.applyToWriter(conn);
 
-            // Create table if not exists
+            // Create the run list, type and rollup tables if they don't exist, and pick the run to write to
             createTable();
+            openLatestRun();
+
+            // In WAL mode a second connection can read while the writer is busy.
+            // An in-memory database only exists on its own connection, so it can't have a reader.
+            if (profile.separateReader() && !dbUrl.contains(":memory:")) {
+                readConn = DriverManager.getConnection(dbUrl);
+                profile.applyToReader(readConn);
+                searchConn = DriverManager.getConnection(dbUrl);
+                profile.applyToReader(searchConn);
+                exportConn = DriverManager.getConnection(dbUrl);
+                profile.applyToReader(exportConn);
+            } else {
+                readConn = conn;
+                searchConn = conn;
+                exportConn = conn;
+            }
 
             System.out.println("Database initialized successfully");
         } catch (ClassNotFoundException e) {
             System.err.println("Driver class not found: " + e.getMessage());
         } catch (SQLException e) {
             System.err.println("SQL error: " + e.getMessage());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
 
     /**
-     * Creates the 'drone_anomalies' table if it does not already exist.
-     * The table stores telemetry and anomaly information for drones.
+     * Creates the run list, the type dictionary and the rollup tables if they do not already exist.
+     * A drone_anomalies table left by an older version is kept, as the legacy run,
+     * and every table still in the old layout is moved into the compact one.
      */
     private void createTable() {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+            CREATE TABLE IF NOT EXISTS anomaly_runs (
+                run_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                started_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+
+            // A handful of types cover millions of rows, so each row only stores the small id
+            stmt.execute("""
+            CREATE TABLE IF NOT EXISTS anomaly_types (
+                type_id INTEGER PRIMARY KEY,
+                name TEXT NOT NULL UNIQUE
+            )
+            """);
+        } catch (SQLException e) {
+            System.err.println("Error creating run table: " + e.getMessage());
+        }
+
+        inWriteTransaction(AnomalyDB::migrateOldTables, false);
+        createRollupTables();
+    }
+
+    /**
+     * Moves the legacy table and any run table still in the old layout into the compact layout.
+     * This only does work the first time an older database is opened.
+     *
+     * @param connection the write connection, inside a transaction
+     * @return true once every table is in the compact layout
+     * @throws SQLException if a table can't be moved, which rolls every move back
+     */
+    private static boolean migrateOldTables(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // Rows written before runs existed become run 0, so they can still be queried and dropped
+            if (hasTable(stmt, LEGACY_TABLE)) {
+                stmt.execute("INSERT OR IGNORE INTO anomaly_runs (run_id, started_at) SELECT " + LEGACY_RUN_ID
+                        + ", COALESCE(MIN(timestamp), CURRENT_TIMESTAMP) FROM " + LEGACY_TABLE);
+                migrateRunTable(stmt, LEGACY_TABLE, runTable(LEGACY_RUN_ID));
+            }
+
+            for (AnomalyRun run : loadRuns(connection)) {
+                String table = runTable(run.runId());
+                if (hasOldLayout(stmt, table)) {
+                    migrateRunTable(stmt, table, table);
+                } else if (hasSearchTriggers(stmt, table)) {
+                    rebuildSearchIndex(stmt, table);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies a table in the old layout into a run table in the compact layout, then drops it.
+     * The old table's search index and triggers are dropped first, and the new index is filled after the copy.
+     *
+     * @param stmt a statement on the write connection, inside a transaction
+     * @param oldTable the table in the old layout
+     * @param table the run table to copy into, which may have the same name
+     * @throws SQLException if the copy fails
+     */
+    private static void migrateRunTable(Statement stmt, String oldTable, String table) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS " + oldTable + "_fts_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS " + oldTable + "_fts_delete");
+        stmt.execute("DROP TABLE IF EXISTS " + oldTable + "_fts");
+
+        String source = oldTable;
+        if (oldTable.equals(table)) {
+            source = oldTable + "_old";
+            stmt.execute("ALTER TABLE " + oldTable + " RENAME TO " + source);
+        }
+
+        createRunTable(stmt, table);
+        stmt.execute("INSERT OR IGNORE INTO anomaly_types (name) SELECT DISTINCT COALESCE(anomaly_type, '') FROM " + source);
+        stmt.execute(String.format(MIGRATE_SQL, table, source));
+        stmt.execute(indexRowsSql(table, "0"));
+        stmt.execute("DROP TABLE " + source);
+    }
+
+    /**
+     * Checks whether a table exists.
+     *
+     * @param stmt a statement on the connection to check
+     * @param table the table name
+     * @return true if the table exists
+     * @throws SQLException if the check fails
+     */
+    private static boolean hasTable(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '"
+                + table + "'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Checks whether a run table was written by an older version, which kept the type as text in anomaly_method.
+     *
+     * @param stmt a statement on the connection to check
+     * @param table the run table name
+     * @return true if the table is in the old layout
+     * @throws SQLException if the check fails
+     */
+    private static boolean hasOldLayout(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM pragma_table_info('" + table
+                + "') WHERE name = 'anomaly_method'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Creates one run's anomaly table and its indexes.
+     * The table stores telemetry and anomaly information for drones.
+     *
+     * @param stmt a statement on the write connection
+     * @param table the run table name
+     * @throws SQLException if the table or an index can't be created
+     */
+    private static void createRunTable(Statement stmt, String table) throws SQLException {
         //will not create table if one is already there
         /*
-        id: increments automatically for each record
+        id: row id, increases with every insert
         drone id: which drone had anomaly
-        anomaly_method: method where anomaly happened
-        anomaly_time: time when anomaly occurred
+        type_id: type of anomaly, an id in anomaly_types
+        recorded_at: when the anomaly was stored, in epoch milliseconds
+        sim_time: simulation time when the anomaly occurred, in seconds
         altitude: altitude at time of anomaly
         longitude: longitude at time of anomaly
         latitude: latitude at time of anomaly
         orientation: orientation at time of anomaly
         velocity: velocity at time of anomaly
-        type: type of anomaly
-        severity: severity of anomaly
-        details: anomaly details
-        timestamp: when anomaly occurred
+        details: full anomaly details, NULL only when db.storeDetails is false
          */
         String sql = """
-            CREATE TABLE IF NOT EXISTS drone_anomalies (
-                id INTEGER PRIMARY KEY AUTOINCREMENT,
-                drone_id INTEGER,
-                anomaly_method TEXT,
-                anomaly_time REAL,
+            CREATE TABLE IF NOT EXISTS %s (
+                id INTEGER PRIMARY KEY,
+                drone_id INTEGER NOT NULL,
+                type_id INTEGER NOT NULL,
+                recorded_at INTEGER NOT NULL,
+                sim_time REAL NOT NULL,
                 altitude REAL,
                 longitude REAL,
                 latitude REAL,
                 orientation REAL,
                 velocity REAL,
-                anomaly_type TEXT,
-                severity TEXT,
-                details TEXT,
-                timestamp DATETIME DEFAULT CURRENT_TIMESTAMP
+                details TEXT
             )
             """;
 
+        //sql command to create table
+        stmt.execute(String.format(sql, table));
+        createIndexes(stmt, table);
+        createSearchIndex(stmt, table);
+    }
+
+    /**
+     * Creates the full-text index over a run table's details, if it does not already exist.
+     * The index is contentless, it only stores the words. Types are matched in the dictionary instead.
+     * There are no triggers: the writer adds each batch with one statement in the batch's own transaction,
+     * and retention takes rows out before it deletes them. Searching still costs the writer: in
+     * AnomalyDBBenchmark with the tuned profile an unindexed table takes about 42k rows a second, indexing
+     * each batch keeps about 25k, and the per-row triggers this replaced kept under 8k.
+     *
+     * @param stmt a statement on the write connection
+     * @param table the run table to index
+     * @throws SQLException if the index can't be created
+     */
+    private static void createSearchIndex(Statement stmt, String table) throws SQLException {
+        stmt.execute(String.format("CREATE VIRTUAL TABLE IF NOT EXISTS %s_fts USING fts5(details, content='')", table));
+    }
+
+    /**
+     * Builds the SQL that adds a run table's rows past an id to its search index.
+     * Missing details are rebuilt, so the index holds the same text the queries show.
+     *
+     * @param table the run table
+     * @param after the id the rows come after, a number or ? for a parameter
+     * @return the SQL
+     */
+    private static String indexRowsSql(String table, String after) {
+        return String.format("INSERT INTO %1$s_fts (rowid, details) SELECT t.id, %2$s FROM %1$s t WHERE t.id > %3$s",
+                table, detailsSql("t"), after);
+    }
+
+    /**
+     * Builds the SQL that takes a run table's rows out of its search index, before they are deleted.
+     * A contentless index can only forget a row if it is given the same text again.
+     *
+     * @param table the run table
+     * @param where the condition picking the rows, on the run table aliased t
+     * @return the SQL
+     */
+    static String unindexRowsSql(String table, String where) {
+        return String.format("INSERT INTO %1$s_fts (%1$s_fts, rowid, details) SELECT 'delete', t.id, %2$s FROM %1$s t WHERE %3$s",
+                table, detailsSql("t"), where);
+    }
+
+    /**
+     * Rebuilds the search index of a run table written while the index was kept by triggers,
+     * which also indexed the type, then fills it from the table.
+     *
+     * @param stmt a statement on the write connection, inside a transaction
+     * @param table the run table
+     * @throws SQLException if the index can't be rebuilt
+     */
+    private static void rebuildSearchIndex(Statement stmt, String table) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS " + table + "_fts_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS " + table + "_fts_delete");
+        stmt.execute("DROP TABLE IF EXISTS " + table + "_fts");
+        createSearchIndex(stmt, table);
+        stmt.execute(indexRowsSql(table, "0"));
+    }
+
+    /**
+     * Checks whether a run table's search index is still kept by triggers.
+     *
+     * @param stmt a statement on the connection to check
+     * @param table the run table name
+     * @return true if the insert trigger exists
+     * @throws SQLException if the check fails
+     */
+    private static boolean hasSearchTriggers(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'trigger' AND name = '"
+                + table + "_fts_insert'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Creates the secondary indexes used by queryAnomalies, if they do not already exist.
+     * Every SQLite index also holds the row id, so each one can also serve the (recorded_at, id) page order.
+     *
+     * @param stmt a statement on the write connection
+     * @param table the run table to index
+     * @throws SQLException if an index can't be created
+     */
+    private static void createIndexes(Statement stmt, String table) throws SQLException {
+        String[] indexes = {
+                "CREATE INDEX IF NOT EXISTS idx_%1$s_recorded ON %1$s (recorded_at)",
+                "CREATE INDEX IF NOT EXISTS idx_%1$s_drone_recorded ON %1$s (drone_id, recorded_at)",
+                "CREATE INDEX IF NOT EXISTS idx_%1$s_type_recorded ON %1$s (type_id, recorded_at)"
+        };
+
+        for (String index : indexes) {
+            stmt.execute(String.format(index, table));
+        }
+    }
+
+    /**
+     * Builds the SQL for a row's type name, looked up in the dictionary.
+     *
+     * @param row the table alias (or new / old in a trigger) of the run table row
+     * @return the SQL expression
+     */
+    static String typeNameSql(String row) {
+        return "(SELECT name FROM anomaly_types WHERE type_id = " + row + ".type_id)";
+    }
+
+    /**
+     * Builds the SQL for a row's details, the stored text or else the text rebuilt from its telemetry.
+     *
+     * @param row the table alias (or new / old in a trigger) of the run table row
+     * @return the SQL expression
+     */
+    static String detailsSql(String row) {
+        return "COALESCE(" + row + ".details, printf('" + REBUILT_DETAILS_FORMAT + "', "
+                + row + ".drone_id, " + row + ".sim_time, " + row + ".longitude, " + row + ".latitude, "
+                + row + ".altitude, " + row + ".velocity, " + row + ".orientation))";
+    }
+
+    /**
+     * Rebuilds the details of an anomaly whose full text wasn't stored, the same way the queries do.
+     * This is a summary of the telemetry, not the detector's message.
+     *
+     * @param droneId the drone that had the anomaly
+     * @param simTime the simulation time of the anomaly, in seconds
+     * @param data the drone telemetry at the time of the anomaly
+     * @return the rebuilt details
+     */
+    public static String rebuildDetails(int droneId, double simTime, TelemetryData data) {
+        return String.format(Locale.ROOT, REBUILT_DETAILS_FORMAT, droneId, simTime, data.getLongitude(),
+                data.getLatitude(), data.getAltitude(), data.getVelocity(), data.getOrientation());
+    }
+
+    /**
+     * Picks the newest run to write to, starting the first run of a new database.
+     */
+    private void openLatestRun() {
+        Long latest = inWriteTransaction(conn -> {
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(run_id) FROM anomaly_runs")) {
+                long runId = rs.next() ? rs.getLong(1) : 0;
+                return rs.wasNull() ? null : runId;
+            }
+        }, null);
+
+        if (latest == null) {
+            startRun();
+        } else {
+            currentRunId = latest;
+        }
+    }
+
+    /**
+     * Starts a new run, so every anomaly saved from now on goes to its own fresh table.
+     * Anything still queued for the previous run must be flushed before this is called.
+     *
+     * @return the new run id, -1 if the run couldn't be created
+     */
+    @Override
+    public long startRun() {
+        synchronized (writeLock) {
+            return createRun();
+        }
+    }
+
+    /**
+     * Creates the next run and its table, and makes it the current run. The caller must hold the write lock.
+     *
+     * @return the new run id, -1 if the run couldn't be created
+     */
+    private long createRun() {
+        long runId = inWriteTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO anomaly_runs DEFAULT VALUES");
+                long id;
+                try (ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                    rs.next();
+                    id = rs.getLong(1);
+                }
+                createRunTable(stmt, runTable(id));
+                return id;
+            }
+        }, -1L);
+
+        if (runId >= 0) {
+            currentRunId = runId;
+        }
+        return runId;
+    }
+
+    /**
+     * Gets the run new anomalies are written to.
+     *
+     * @return the current run id, -1 if the database couldn't be opened
+     */
+    public long getCurrentRunId() {
+        return currentRunId;
+    }
+
+    /**
+     * Gets every run that still has a table, oldest first.
+     *
+     * @return the runs, empty if the query failed
+     */
+    public List<AnomalyRun> listRuns() {
+        if (readConn == null) {
+            return List.of();
+        }
+        try {
+            return loadRuns(readConn);
+        } catch (SQLException e) {
+            System.err.println("Error listing runs: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Drops a finished run's table in one statement, however many rows it holds.
+     *
+     * @param runId the run to drop
+     * @return true if the run was dropped, false if it is the current run or the drop failed
+     */
+    public boolean dropRun(long runId) {
+        synchronized (writeLock) {
+            if (runId == currentRunId) {
+                return false;
+            }
+            return inWriteTransaction(conn -> {
+                dropRunTable(conn, runId);
+                return true;
+            }, false);
+        }
+    }
+
+    /**
+     * Reads the run list.
+     *
+     * @param connection the connection to read with
+     * @return the runs, oldest first
+     * @throws SQLException if the query fails
+     */
+    static List<AnomalyRun> loadRuns(Connection connection) throws SQLException {
+        List<AnomalyRun> runs = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT run_id, started_at FROM anomaly_runs ORDER BY run_id")) {
+            while (rs.next()) {
+                runs.add(new AnomalyRun(rs.getLong("run_id"), rs.getString("started_at")));
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Drops a run's table and removes it from the run list, inside the caller's transaction.
+     *
+     * @param connection the write connection
+     * @param runId the run to drop
+     * @throws SQLException if the drop fails
+     */
+    static void dropRunTable(Connection connection, long runId) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // The search index is a table of its own
+            stmt.execute("DROP TABLE IF EXISTS " + runTable(runId) + "_fts");
+            stmt.execute("DROP TABLE IF EXISTS " + runTable(runId));
+            stmt.execute("DELETE FROM anomaly_runs WHERE run_id = " + runId);
+        }
+    }
+
+    /**
+     * Gets the table a run's anomalies are stored in.
+     * Run ids are numbers, so the name is always safe to put in SQL.
+     *
+     * @param runId the run
+     * @return the run's table name
+     */
+    static String runTable(long runId) {
+        return RUN_TABLE_PREFIX + runId;
+    }
+
+    /**
+     * Creates the per-minute and per-hour count tables that old anomalies are rolled up into.
+     * The bucket comes first in the key, so retention can delete the oldest buckets as a range.
+     */
+    private void createRollupTables() {
         try (Statement stmt = conn.createStatement()) {
-            //sql command to create table
-            stmt.execute(sql);
+            for (AnomalyRollup.Level level : AnomalyRollup.Level.values()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS " + level.table() + " ("
+                        + "bucket TEXT NOT NULL, "
+                        + "anomaly_type TEXT NOT NULL, "
+                        + "anomaly_count INTEGER NOT NULL, "
+                        + "PRIMARY KEY (bucket, anomaly_type)"
+                        + ") WITHOUT ROWID");
+            }
         } catch (SQLException e) {
-            System.err.println("Error creating table: " + e.getMessage());
+            System.err.println("Error creating rollup tables: " + e.getMessage());
         }
     }
 
@@ -116,34 +718,8 @@ public class AnomalyDB {
      * @return true if the record was saved successfully, false otherwise
      */
     public boolean saveAnomaly(AnomalyRecord record, Drone drone) {
-        // SLQ insert command with placeholders for inserting data
-        String sql = "INSERT INTO drone_anomalies (drone_id, anomaly_method, anomaly_time, altitude, longitude, latitude, orientation, velocity, anomaly_type, details) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            // Get telemetry data from drone
-            TelemetryData data = drone.getDroneTelemetry();
-
-            // Set the in prepared statementfrom anomaly record and telemetry data
-            pstmt.setInt(1, record.getID());
-            pstmt.setString(2, record.getType());
-            pstmt.setDouble(3, record.getTime());
-            pstmt.setDouble(4, data.getAltitude());
-            pstmt.setDouble(5, data.getLongitude());
-            pstmt.setDouble(6, data.getLatitude());
-            pstmt.setDouble(7, data.getOrientation());
-            pstmt.setDouble(8, data.getVelocity());
-            pstmt.setString(9, record.getType());
-            pstmt.setString(10, record.getDetails());
-
-            // Execute SQL insert command
-            pstmt.executeUpdate();
-            return true; // Success
-
-        } catch (SQLException e) {
-            // Print error if something gos wrong
-            System.err.println("Error saving anomaly: " + e.getMessage());
-            return false; // False if fail
-        }
+        // A single record is just a batch of one
+        return saveAnomalyBatch(List.of(new PendingAnomaly(record, drone.getDroneTelemetry()))) == 1;
     }
 
     /**
@@ -153,17 +729,297 @@ public class AnomalyDB {
      * @param drone the drone associated with the anomalies
      */
     public void saveAnomalies(AnomalyRecord[] records, Drone drone) {
-        // Loop through each record and save it
+        // Pair every record with the drone telemetry and write them all at once
+        List<PendingAnomaly> batch = new ArrayList<>();
+        TelemetryData data = drone.getDroneTelemetry();
         for (AnomalyRecord record : records) {
-            saveAnomaly(record, drone);
+            batch.add(new PendingAnomaly(record, data));
+        }
+        saveAnomalyBatch(batch);
+    }
+
+    /**
+     * Saves a whole tick's worth of anomalies in a single transaction.
+     * Every row goes through the same cached statement, so SQLite only syncs once per batch.
+     *
+     * @param batch the anomalies (and their telemetry) to save
+     * @return the number of rows saved, 0 if the batch failed and was rolled back
+     */
+    @Override
+    public int saveAnomalyBatch(List<PendingAnomaly> batch) {
+        if (batch == null || batch.isEmpty() || conn == null) {
+            return 0;
+        }
+
+        synchronized (writeLock) {
+            return writeBatch(batch);
+        }
+    }
+
+    /**
+     * Writes a batch inside one transaction, the caller must hold the write lock.
+     *
+     * @param batch the anomalies (and their telemetry) to save
+     * @return the number of rows saved, 0 if the batch failed and was rolled back
+     */
+    private int writeBatch(List<PendingAnomaly> batch) {
+
+        long start = System.nanoTime();
+        try {
+            // Prepare the insert and the indexing once per run, then reuse them for every batch
+            if (insertStmt == null || insertStmt.isClosed() || insertRunId != currentRunId) {
+                if (insertStmt != null) insertStmt.close();
+                if (indexStmt != null) indexStmt.close();
+                String table = runTable(currentRunId);
+                insertStmt = conn.prepareStatement(String.format(INSERT_SQL, table));
+                indexStmt = conn.prepareStatement(indexRowsSql(table, "?"));
+                insertRunId = currentRunId;
+                indexedThrough = lastRowId(table);
+            }
+
+            conn.setAutoCommit(false);
+            // One clock read per batch, every row of a tick is stored at the same time
+            long recordedAt = System.currentTimeMillis();
+            for (PendingAnomaly pending : batch) {
+                bindInsert(insertStmt, pending.record(), pending.telemetry(), recordedAt);
+                insertStmt.addBatch();
+            }
+
+            // Execute every insert, index them with one statement, then commit them together
+            insertStmt.executeBatch();
+            indexStmt.setLong(1, indexedThrough);
+            indexStmt.executeUpdate();
+            long lastRowId = lastRowId(runTable(insertRunId));
+            conn.commit();
+            indexedThrough = lastRowId;
+
+            recordBatchTiming(batch.size(), System.nanoTime() - start);
+            return batch.size();
+
+        } catch (SQLException e) {
+            // Undo the partial batch so the table never holds half a tick
+            System.err.println("Error saving anomaly batch: " + e.getMessage());
+            rollbackQuietly();
+            // Types added by the batch were rolled back too, so look them up again next time
+            typeIds.clear();
+            return 0;
+        } finally {
+            restoreAutoCommit();
+        }
+    }
+
+    /**
+     * Gets the id of a run table's newest row, on the write connection.
+     *
+     * @param table the run table
+     * @return the newest id, 0 if the table is empty
+     * @throws SQLException if the query fails
+     */
+    private long lastRowId(String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Gets the insert rate of the most recent batch.
+     *
+     * @return rows per second of the last batch, 0 if nothing was written yet
+     */
+    public double getLastBatchRowsPerSecond() {
+        synchronized (writeLock) {
+            return lastBatchRowsPerSecond;
+        }
+    }
+
+    /**
+     * Gets the average insert rate across every batch written so far.
+     *
+     * @return rows per second over all batches, 0 if nothing was written yet
+     */
+    public double getAverageRowsPerSecond() {
+        synchronized (writeLock) {
+            return writeNanos == 0 ? 0 : rowsWritten * NANOS_PER_SECOND / writeNanos;
+        }
+    }
+
+    /**
+     * Gets the total number of rows written through the batch API.
+     *
+     * @return the number of rows written
+     */
+    public long getRowsWritten() {
+        synchronized (writeLock) {
+            return rowsWritten;
+        }
+    }
+
+    /**
+     * Gets how long anomalies are kept at each level of detail.
+     *
+     * @return the retention policy from db.properties, or the default one
+     */
+    public RetentionPolicy getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    /**
+     * Runs work on the write connection in its own transaction, holding the write lock.
+     * Keeping each piece of work small keeps batch writes from waiting long behind it.
+     *
+     * @param work the statements to run
+     * @param fallback what to return when there is no connection or the work failed
+     * @param <T> the type of the result
+     * @return the work's result, or the fallback
+     */
+    <T> T inWriteTransaction(SqlWork<T> work, T fallback) {
+        synchronized (writeLock) {
+            try {
+                if (conn == null || conn.isClosed()) {
+                    return fallback;
+                }
+                conn.setAutoCommit(false);
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException e) {
+                System.err.println("Error in write transaction: " + e.getMessage());
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    System.err.println("Error rolling back write transaction: " + rollbackError.getMessage());
+                }
+                return fallback;
+            } finally {
+                try {
+                    if (conn != null && !conn.isClosed()) conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    System.err.println("Error restoring autocommit: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Binds one anomaly and its telemetry to the insert statement.
+     *
+     * @param pstmt the insert statement
+     * @param record the anomaly record
+     * @param data the drone telemetry when the anomaly happened
+     * @param recordedAt when the batch is stored, in epoch milliseconds
+     * @throws SQLException if a parameter can't be set or the type can't be added to the dictionary
+     */
+    private void bindInsert(PreparedStatement pstmt, AnomalyRecord record, TelemetryData data,
+                            long recordedAt) throws SQLException {
+        // Set the in prepared statement from anomaly record and telemetry data
+        pstmt.setInt(1, record.getID());
+        pstmt.setInt(2, typeId(record.getType()));
+        pstmt.setLong(3, recordedAt);
+        pstmt.setDouble(4, record.getTime());
+        pstmt.setDouble(5, data.getAltitude());
+        pstmt.setDouble(6, data.getLongitude());
+        pstmt.setDouble(7, data.getLatitude());
+        pstmt.setDouble(8, data.getOrientation());
+        pstmt.setDouble(9, data.getVelocity());
+        // Without the text, the details are rebuilt from the columns above when read
+        pstmt.setString(10, storeDetails ? record.getDetails() : null);
+    }
+
+    /**
+     * Gets the dictionary id of an anomaly type, adding the type the first time it is seen.
+     * The caller must hold the write lock, inside the batch transaction.
+     *
+     * @param type the anomaly type name
+     * @return the type id
+     * @throws SQLException if the type can't be added or read
+     */
+    private int typeId(String type) throws SQLException {
+        String name = type == null ? "" : type;
+        Integer id = typeIds.get(name);
+        if (id != null) {
+            return id;
+        }
+
+        try (PreparedStatement insert = conn.prepareStatement("INSERT OR IGNORE INTO anomaly_types (name) VALUES (?)");
+             PreparedStatement select = conn.prepareStatement("SELECT type_id FROM anomaly_types WHERE name = ?")) {
+            insert.setString(1, name);
+            insert.executeUpdate();
+            select.setString(1, name);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Anomaly type was not added: " + name);
+                }
+                id = rs.getInt(1);
+            }
+        }
+        typeIds.put(name, id);
+        return id;
+    }
+
+    /**
+     * Updates the insert throughput numbers after a batch is committed.
+     *
+     * @param rows the number of rows in the batch
+     * @param nanos how long the batch took, in nanoseconds
+     */
+    private void recordBatchTiming(int rows, long nanos) {
+        rowsWritten += rows;
+        writeNanos += nanos;
+        lastBatchRowsPerSecond = nanos == 0 ? 0 : rows * NANOS_PER_SECOND / nanos;
+    }
+
+    /**
+     * Rolls back the current transaction, only logging if that fails too.
+     */
+    private void rollbackQuietly() {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            System.err.println("Error rolling back anomaly batch: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Puts the connection back into autocommit mode after a batch.
+     */
+    private void restoreAutoCommit() {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.err.println("Error restoring autocommit: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets how much space the database takes up, from its page count.
+     *
+     * @return the size in bytes, 0 if the database isn't open
+     */
+    @Override
+    public long getFootprintBytes() {
+        if (readConn == null) {
+            return 0;
+        }
+        try (Statement stmt = readConn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT page_count * page_size FROM pragma_page_count(), pragma_page_size()")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error measuring database: " + e.getMessage());
+            return 0;
         }
     }
 
     /**
      * Closes the database connection.
      */
-    public static void close() {
+    @Override
+    public void close() {
         try {
+            // Close the readers first, they only exist if they aren't the write connection
+            if (exportConn != null && exportConn != conn) exportConn.close();
+            if (searchConn != null && searchConn != conn) searchConn.close();
+            if (readConn != null && readConn != conn) readConn.close();
             if (conn != null) conn.close(); // Close connection if it exists
         } catch (SQLException e) {
             // Print error if closing fails
@@ -172,54 +1028,340 @@ public class AnomalyDB {
     }
 
     /**
-     * Get all anomaly records from the database.
+     * Gets one page of the current run's anomalies, newest first, that match the query's filters.
+     * Only the rows on the page are read, no matter how large the table is.
      *
-     * @return a list of String arrays, each representing an anomaly record with
-     *         timestamp, drone ID, anomaly type, and details
+     * @param query the filters, cursor and page size
+     * @return the page of rows, empty if nothing matches or the query failed
      */
-    public List<String[]> getAnomalyDetails() {
-        List<String[]> details = new ArrayList<>();
-        // SQL query to get all anomaly records sorted by timestamp (newest first)
-        String sql = "SELECT timestamp, drone_id, anomaly_type, details FROM drone_anomalies ORDER BY timestamp DESC";
+    @Override
+    public AnomalyPage queryAnomalies(AnomalyQuery query) {
+        return queryAnomalies(currentRunId, query);
+    }
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    /**
+     * Gets one page of a run's anomalies, newest first, that match the query's filters.
+     *
+     * @param runId the run to read
+     * @param query the filters, cursor and page size
+     * @return the page of rows, empty if nothing matches, the run doesn't exist or the query failed
+     */
+    public AnomalyPage queryAnomalies(long runId, AnomalyQuery query) {
+        List<AnomalyRow> rows = new ArrayList<>();
+        if (readConn == null || runId < 0) {
+            return new AnomalyPage(rows, query, false);
+        }
+
+        List<Object> params = new ArrayList<>();
+        // Ask for one extra row, so we know whether another page exists
+        String sql = "SELECT " + selectColumns() + " FROM " + runTable(runId) + " t"
+                + query.whereClause(params)
+                + " ORDER BY t.recorded_at DESC, t.id DESC LIMIT ?";
+        params.add(query.limit() + 1);
+
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(readRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error querying anomalies: " + e.getMessage());
+            return new AnomalyPage(List.of(), query, false);
+        }
+
+        boolean hasMore = rows.size() > query.limit();
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        return new AnomalyPage(rows, query, hasMore);
+    }
+
+    /**
+     * Streams the current run's matching anomalies through one forward-only cursor, newest first.
+     *
+     * @param query the filters, and the number of rows fetched at a time
+     * @param action called with each row, returns false to stop early
+     * @return false if the read failed part way
+     */
+    @Override
+    public boolean forEachAnomaly(AnomalyQuery query, Predicate<AnomalyRow> action) {
+        return forEachAnomaly(currentRunId, query, action);
+    }
+
+    /**
+     * Streams a run's matching anomalies through one forward-only cursor, newest first.
+     * It reads on its own connection, so a long export never holds up the database manager's pages
+     * and cancelling a search can't cut it off, and only one fetch of rows is held in memory at a time.
+     *
+     * @param runId the run to read
+     * @param query the filters, and the number of rows fetched at a time
+     * @param action called with each row, returns false to stop early
+     * @return false if the read failed part way, true if every row was read, the action stopped or the run doesn't exist
+     */
+    public boolean forEachAnomaly(long runId, AnomalyQuery query, Predicate<AnomalyRow> action) {
+        if (exportConn == null || runId < 0) {
+            return true;
+        }
+
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + selectColumns() + " FROM " + runTable(runId) + " t"
+                + query.whereClause(params)
+                + " ORDER BY t.recorded_at DESC, t.id DESC";
+
+        try (PreparedStatement pstmt = exportConn.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(query.limit());
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (!action.test(readRow(rs))) {
+                        break;
+                    }
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error streaming anomalies: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Runs a full-text search over the current run's anomaly types and details.
+     *
+     * @param search the search text, column and limit
+     * @return the matches, best first, empty if nothing matches or the search was cancelled or failed
+     */
+    @Override
+    public List<AnomalyRow> searchAnomalies(AnomalySearch search) {
+        return searchAnomalies(currentRunId, search);
+    }
+
+    /**
+     * Runs a full-text search over a run's anomaly types and details.
+     * Types are a handful of camelCase names, so the words inside them are found in the type dictionary
+     * and only the remaining words go through the full-text index over the details. When no type holds
+     * a word, matches are ranked by bm25; otherwise a word found in the type counts 2 and one found in the
+     * details counts 1, as in the other backends. Newer rows win ties.
+     *
+     * @param runId the run to search
+     * @param search the search text, column and limit
+     * @return the matches, best first, empty if nothing matches or the search was cancelled or failed
+     */
+    public List<AnomalyRow> searchAnomalies(long runId, AnomalySearch search) {
+        List<AnomalyRow> rows = new ArrayList<>();
+        if (searchConn == null || runId < 0 || search.isEmpty()) {
+            return rows;
+        }
+
+        String table = runTable(runId);
+        List<String> matches = new ArrayList<>();
+        String sql;
+        try {
+            sql = searchSql(table, search, matches);
+        } catch (SQLException e) {
+            System.err.println("Error reading anomaly types: " + e.getMessage());
+            return List.of();
+        }
+        if (sql == null) {
+            return rows;
+        }
 
-            // Loop through each row in the result set
+        // Interrupting a statement stops everything on its connection, so only a private one can be cancelled
+        boolean cancellable = searchConn != readConn && searchConn != conn;
+        try (PreparedStatement pstmt = searchConn.prepareStatement(sql)) {
+            if (!search.attach(cancellable ? pstmt : null)) {
+                return rows;
+            }
+            int index = 1;
+            for (String match : matches) {
+                pstmt.setString(index++, match);
+            }
+            pstmt.setInt(index, search.limit());
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next() && !search.isCancelled()) {
+                    rows.add(readRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            // A cancelled search ends with an interrupted error, which is expected
+            if (!search.isCancelled()) {
+                System.err.println("Error searching anomalies: " + e.getMessage());
+            }
+            return List.of();
+        } finally {
+            search.attach(null);
+        }
+        return search.isCancelled() ? List.of() : rows;
+    }
+
+    /**
+     * Builds the SQL of a search over one run table.
+     * Each type holding some of the words only needs its rows' details to match the rest, so every such
+     * type gets its own condition and its own score; every other type needs the details to match every word.
+     *
+     * @param table the run table
+     * @param search the search
+     * @param matches filled with the match expressions, in the order of their parameters
+     * @return the SQL, with the limit as its last parameter, or null if nothing can match
+     * @throws SQLException if the type dictionary can't be read
+     */
+    private String searchSql(String table, AnomalySearch search, List<String> matches) throws SQLException {
+        String inDetails = "t.id IN (SELECT rowid FROM " + table + "_fts WHERE " + table + "_fts MATCH ?)";
+        int wordCount = search.searchWords().size();
+
+        List<String> conditions = new ArrayList<>();
+        List<Integer> heldTypes = new ArrayList<>();
+        StringBuilder scores = new StringBuilder();
+        try (Statement stmt = searchConn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT type_id, name FROM anomaly_types")) {
             while (rs.next()) {
-                // Store each row's data in a String array
-                String[] record = {
-                        rs.getString("timestamp"),           // get timestamp
-                        String.valueOf(rs.getInt("drone_id")), // get drone ID
-                        rs.getString("anomaly_type"),       // get anomaly type
-                        rs.getString("details")             // get additional details
-                };
-                // Add this record to the list
-                details.add(record);
+                boolean[] held = search.wordsInType(rs.getString("name"));
+                int heldCount = 0;
+                for (boolean word : held) {
+                    heldCount += word ? 1 : 0;
+                }
+                if (heldCount == 0) {
+                    continue;
+                }
+
+                int typeId = rs.getInt("type_id");
+                heldTypes.add(typeId);
+                String match = search.matchExpression(held);
+                if (heldCount == wordCount) {
+                    conditions.add("t.type_id = " + typeId);
+                } else if (match != null) {
+                    conditions.add("(t.type_id = " + typeId + " AND " + inDetails + ")");
+                    matches.add(match);
+                } else {
+                    continue;
+                }
+                scores.append(" WHEN ").append(typeId).append(" THEN ").append(wordCount + heldCount);
             }
+        }
+
+        String match = search.matchExpression();
+        if (heldTypes.isEmpty()) {
+            if (match == null) {
+                return null;
+            }
+            matches.add(match);
+            return String.format("SELECT %2$s "
+                    + "FROM %1$s_fts JOIN %1$s t ON t.id = %1$s_fts.rowid "
+                    + "WHERE %1$s_fts MATCH ? ORDER BY bm25(%1$s_fts, 2.0, 1.0), t.id DESC LIMIT ?", table, selectColumns());
+        }
+
+        if (match != null) {
+            String others = heldTypes.toString().replace('[', '(').replace(']', ')');
+            conditions.add("(t.type_id NOT IN " + others + " AND " + inDetails + ")");
+            matches.add(match);
+        }
+        if (conditions.isEmpty()) {
+            return null;
+        }
+        String score = scores.isEmpty() ? String.valueOf(wordCount)
+                : "CASE t.type_id" + scores + " ELSE " + wordCount + " END";
+        return String.format("SELECT %2$s FROM %1$s t WHERE %3$s ORDER BY %4$s DESC, t.id DESC LIMIT ?",
+                table, selectColumns(), String.join(" OR ", conditions), score);
+    }
+
+    /**
+     * Gets the columns every anomaly query reads, from the run table aliased t.
+     *
+     * @return the select list
+     */
+    private static String selectColumns() {
+        return "t.id, t.recorded_at, t.sim_time, t.drone_id, " + typeNameSql("t") + " AS anomaly_type, "
+                + detailsSql("t") + " AS details";
+    }
 
+    /**
+     * Reads the current row of an anomaly query.
+     *
+     * @param rs the result set, positioned on a row
+     * @return the row
+     * @throws SQLException if a column can't be read
+     */
+    private static AnomalyRow readRow(ResultSet rs) throws SQLException {
+        return new AnomalyRow(
+                rs.getLong("id"),
+                rs.getLong("recorded_at"),
+                rs.getDouble("sim_time"),
+                rs.getInt("drone_id"),
+                rs.getString("anomaly_type"),
+                rs.getString("details"));
+    }
+
+    /**
+     * Gets the rolled up anomaly counts between two buckets, oldest first.
+     *
+     * @param level whether to read the per-minute or per-hour counts
+     * @param fromBucket the first bucket to include, in the timestamp format
+     * @param toBucket the last bucket to include, in the timestamp format
+     * @return the counts, empty if nothing matches or the query failed
+     */
+    public List<AnomalyRollup> queryRollups(AnomalyRollup.Level level, String fromBucket, String toBucket) {
+        List<AnomalyRollup> rollups = new ArrayList<>();
+        if (readConn == null) {
+            return rollups;
+        }
+
+        String sql = "SELECT bucket, anomaly_type, anomaly_count FROM " + level.table()
+                + " WHERE bucket BETWEEN ? AND ? ORDER BY bucket, anomaly_type";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            pstmt.setString(1, fromBucket);
+            pstmt.setString(2, toBucket);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rollups.add(new AnomalyRollup(rs.getString("bucket"), rs.getString("anomaly_type"),
+                            rs.getLong("anomaly_count")));
+                }
+            }
         } catch (SQLException e) {
-            // Print error if something goes wrong
-            System.err.println("Error retrieving anomaly details: " + e.getMessage());
+            System.err.println("Error querying anomaly rollups: " + e.getMessage());
         }
-        // Return the list of anomalies
-        return details;
+        return rollups;
     }
 
     /**
-     * Deletes all records from the anomaly database.
+     * Deletes all records from the anomaly database, by dropping every run's table, then starts a fresh run.
      */
-    public static void clearDatabase() {
-        try (Statement stmt = conn.createStatement()) {
-            // delete all rows
-            stmt.execute("DELETE FROM drone_anomalies");
-            // Reset auto-increment
-            stmt.execute("DELETE FROM sqlite_sequence WHERE name='drone_anomalies'");
+    @Override
+    public void clear() {
+        synchronized (writeLock) {
+            clearTables();
+        }
+    }
 
+    /**
+     * Drops every run and empties the rollups, the caller must hold the write lock.
+     */
+    private void clearTables() {
+        boolean cleared = inWriteTransaction(connection -> {
+            // Dropping a table is one statement, however many rows the run wrote
+            for (AnomalyRun run : loadRuns(connection)) {
+                dropRunTable(connection, run.runId());
+            }
+            try (Statement stmt = connection.createStatement()) {
+                for (AnomalyRollup.Level level : AnomalyRollup.Level.values()) {
+                    stmt.execute("DELETE FROM " + level.table());
+                }
+            }
+            return true;
+        }, false);
+
+        if (cleared) {
+            createRun();
             System.out.println("Database cleared successfully");
-        } catch (SQLException e) {
-            // Print error if something goes wrong
-            System.err.println("Error clearing database: " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,423 @@
+package database;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * One export of the stored anomalies to a file, that can be cancelled while it runs.
+ * Rows are streamed from the store's forward-only cursor straight into a large file buffer,
+ * so exporting millions of anomalies needs no more memory than exporting a hundred.
+ * The file is written next to its destination and only moved into place once it is complete,
+ * so a failed or cancelled export never leaves a half-written file behind.
+ * An export is used once: create a new one for every file.
+ *
+ * <p>The binary format is big-endian. It starts with the magic number and version, then holds records
+ * that each start with a tag byte:</p>
+ * <ul>
+ *     <li>TYPE_TAG: short type index, short name length, UTF-8 name. Sent before the first row of each type.</li>
+ *     <li>ROW_TAG: long id, long recordedAt, double simTime, int droneId, short type index,
+ *     int details length (-1 for none), UTF-8 details.</li>
+ *     <li>END_TAG: long row count. Always the last record.</li>
+ * </ul>
+ */
+public final class AnomalyExport {
+
+    /**
+     * The file formats an export can write.
+     */
+    public enum Format {
+        /** Comma separated values, quoted the RFC 4180 way. */
+        CSV("csv"),
+        /** One JSON object per line. */
+        JSON_LINES("jsonl"),
+        /** Plain text columns separated by bars, for reading. */
+        TEXT("txt"),
+        /** The compact binary format described on AnomalyExport. */
+        BINARY("bin");
+
+        /** The usual file extension, without the dot. */
+        private final String extension;
+
+        /**
+         * Creates a format.
+         *
+         * @param extension the usual file extension, without the dot
+         */
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Gets the usual file extension.
+         *
+         * @return the extension, without the dot
+         */
+        public String extension() {
+            return extension;
+        }
+    }
+
+    /** Size of the file buffer, large enough that the disk only sees big sequential writes. */
+    public static final int BUFFER_BYTES = 1 << 20;
+
+    /** Rows between progress updates. */
+    public static final int PROGRESS_INTERVAL = 50_000;
+
+    /** Rows fetched from the store at a time. */
+    public static final int FETCH_SIZE = 1_000;
+
+    /** First four bytes of a binary export, "ANOM". */
+    public static final int BINARY_MAGIC = 0x414E4F4D;
+
+    /** Version of the binary format, written after the magic number. */
+    public static final short BINARY_VERSION = 1;
+
+    /** Tag of the record ending a binary export. */
+    public static final byte END_TAG = 0;
+
+    /** Tag of a type name record in a binary export. */
+    public static final byte TYPE_TAG = 1;
+
+    /** Tag of an anomaly record in a binary export. */
+    public static final byte ROW_TAG = 2;
+
+    /** Column headers of the CSV format. */
+    private static final String CSV_HEADER = "Id,Timestamp,Sim Time,Drone ID,Type,Details\n";
+
+    /** Column headers of the text format. */
+    private static final String TEXT_HEADER = "Timestamp | Drone ID | Type | Details\n"
+            + "-------------------------------------------------------------\n";
+
+    /** The format to write. */
+    private final Format format;
+
+    /** The filters picking which anomalies are exported. */
+    private final AnomalyQuery filter;
+
+    /** Whether the export was cancelled. */
+    private volatile boolean cancelled;
+
+    /** Reused to escape one value at a time. */
+    private final StringBuilder scratch = new StringBuilder(256);
+
+    /** Indexes of the type names already written to a binary export. */
+    private final Map<String, Integer> typeIndexes = new HashMap<>();
+
+    /** The recordedAt second whose timestamp text is cached, rows arrive in bursts within one second. */
+    private long cachedSecond = Long.MIN_VALUE;
+
+    /** The cached timestamp text. */
+    private String cachedTimestamp;
+
+    /**
+     * Creates an export of every anomaly in the current run.
+     *
+     * @param format the format to write
+     */
+    public AnomalyExport(Format format) {
+        this(format, AnomalyQuery.latest(FETCH_SIZE));
+    }
+
+    /**
+     * Creates an export of the anomalies matching a query.
+     *
+     * @param format the format to write
+     * @param filter the filters picking the anomalies, its limit is only the fetch size and its cursor is ignored
+     */
+    public AnomalyExport(Format format, AnomalyQuery filter) {
+        this.format = Objects.requireNonNull(format, "Format is null");
+        Objects.requireNonNull(filter, "Filter is null");
+        this.filter = new AnomalyQuery(filter.droneId(), filter.anomalyType(), filter.fromMillis(), filter.toMillis(),
+                filter.textColumn(), filter.textContains(), null, 0, filter.limit());
+    }
+
+    /**
+     * Gets the format this export writes.
+     *
+     * @return the format
+     */
+    public Format format() {
+        return format;
+    }
+
+    /**
+     * Streams the matching anomalies of the store's current run into a file, newest first.
+     * This reads the whole run, so it should not be called from the UI thread.
+     *
+     * @param store the store to read
+     * @param file the file to write, replaced if it exists
+     * @param progress told the number of rows written every PROGRESS_INTERVAL rows and once at the end, may be null
+     * @return the number of rows written, or -1 if the export was cancelled and no file was written
+     * @throws IOException if the file couldn't be written or the store failed part way
+     */
+    public long writeTo(AnomalyStore store, Path file, LongConsumer progress) throws IOException {
+        Objects.requireNonNull(store, "Store is null");
+        Path target = file.toAbsolutePath();
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long[] rows = {0};
+
+        try {
+            boolean complete;
+            try (ChannelWriter out = new ChannelWriter(partial, BUFFER_BYTES)) {
+                writeHeader(out);
+                complete = store.forEachAnomaly(filter, row -> {
+                    if (cancelled) {
+                        return false;
+                    }
+                    try {
+                        writeRow(out, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++rows[0] % PROGRESS_INTERVAL == 0 && progress != null) {
+                        progress.accept(rows[0]);
+                    }
+                    return true;
+                });
+                if (!complete) {
+                    throw new IOException("Reading the anomalies failed after " + rows[0] + " rows");
+                }
+                if (cancelled) {
+                    return -1;
+                }
+                writeFooter(out, rows[0]);
+                out.sync();
+            }
+            move(partial, target);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        if (progress != null) {
+            progress.accept(rows[0]);
+        }
+        return rows[0];
+    }
+
+    /**
+     * Cancels the export. The running export stops at its next row and deletes its partial file.
+     * Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the export was cancelled.
+     *
+     * @return true if cancel() was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Quotes a CSV field if it holds a comma, quote or line break, doubling any quotes inside.
+     *
+     * @param value the field, may be null
+     * @return the field as it goes in the file, empty for null
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    /**
+     * Writes a value as a JSON string, with quotes, escaping quotes, backslashes and control characters.
+     *
+     * @param value the value, may be null
+     * @param json the builder to append to
+     */
+    static void appendJsonString(String value, StringBuilder json) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Writes whatever the format puts before the first row.
+     *
+     * @param out the file
+     * @throws IOException if the write fails
+     */
+    private void writeHeader(ChannelWriter out) throws IOException {
+        switch (format) {
+            case CSV -> out.writeText(CSV_HEADER);
+            case TEXT -> out.writeText(TEXT_HEADER);
+            case BINARY -> {
+                out.writeInt(BINARY_MAGIC);
+                out.writeShort(BINARY_VERSION);
+            }
+            case JSON_LINES -> { }
+        }
+    }
+
+    /**
+     * Writes one row.
+     *
+     * @param out the file
+     * @param row the row
+     * @throws IOException if the write fails
+     */
+    private void writeRow(ChannelWriter out, AnomalyRow row) throws IOException {
+        StringBuilder line = scratch;
+        line.setLength(0);
+        switch (format) {
+            case CSV -> {
+                line.append(row.id()).append(',').append(timestamp(row)).append(',').append(row.simTime())
+                        .append(',').append(row.droneId()).append(',').append(csvField(row.anomalyType()))
+                        .append(',').append(csvField(row.details())).append('\n');
+                out.writeText(line);
+            }
+            case JSON_LINES -> {
+                line.append("{\"id\":").append(row.id())
+                        .append(",\"timestamp\":\"").append(timestamp(row))
+                        .append("\",\"recordedAt\":").append(row.recordedAt())
+                        .append(",\"simTime\":").append(row.simTime())
+                        .append(",\"droneId\":").append(row.droneId())
+                        .append(",\"type\":");
+                appendJsonString(row.anomalyType(), line);
+                line.append(",\"details\":");
+                appendJsonString(row.details(), line);
+                line.append("}\n");
+                out.writeText(line);
+            }
+            case TEXT -> {
+                line.append(timestamp(row)).append(" | ").append(row.droneId()).append(" | ")
+                        .append(oneLine(row.anomalyType())).append(" | ").append(oneLine(row.details())).append('\n');
+                out.writeText(line);
+            }
+            case BINARY -> writeBinaryRow(out, row);
+        }
+    }
+
+    /**
+     * Writes one row in the binary format, preceded by its type name the first time the type is seen.
+     *
+     * @param out the file
+     * @param row the row
+     * @throws IOException if the write fails
+     */
+    private void writeBinaryRow(ChannelWriter out, AnomalyRow row) throws IOException {
+        String type = row.anomalyType() == null ? "" : row.anomalyType();
+        Integer typeIndex = typeIndexes.get(type);
+        if (typeIndex == null) {
+            typeIndex = typeIndexes.size();
+            if (typeIndex > Short.MAX_VALUE) {
+                throw new IOException("Too many anomaly types for the binary format");
+            }
+            typeIndexes.put(type, typeIndex);
+            out.writeByte(TYPE_TAG);
+            out.writeShort(typeIndex);
+            out.writeShort(ChannelWriter.utf8Length(type));
+            out.writeText(type);
+        }
+
+        out.writeByte(ROW_TAG);
+        out.writeLong(row.id());
+        out.writeLong(row.recordedAt());
+        out.writeDouble(row.simTime());
+        out.writeInt(row.droneId());
+        out.writeShort(typeIndex);
+        if (row.details() == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(ChannelWriter.utf8Length(row.details()));
+            out.writeText(row.details());
+        }
+    }
+
+    /**
+     * Writes whatever the format puts after the last row.
+     *
+     * @param out the file
+     * @param rowCount the rows written
+     * @throws IOException if the write fails
+     */
+    private void writeFooter(ChannelWriter out, long rowCount) throws IOException {
+        if (format == Format.BINARY) {
+            out.writeByte(END_TAG);
+            out.writeLong(rowCount);
+        }
+    }
+
+    /**
+     * Gets a row's timestamp text, only formatting it again when the second changes.
+     *
+     * @param row the row
+     * @return the UTC timestamp
+     */
+    private String timestamp(AnomalyRow row) {
+        long second = Math.floorDiv(row.recordedAt(), 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = row.timestamp();
+        }
+        return cachedTimestamp;
+    }
+
+    /**
+     * Keeps a text column on one line, so every row of the text format stays one line.
+     *
+     * @param value the value, may be null
+     * @return the value with line breaks turned into spaces, empty for null
+     */
+    private static String oneLine(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.indexOf('\n') < 0 && value.indexOf('\r') < 0 ? value : value.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Moves the finished file into place, atomically where the file system allows it.
+     *
+     * @param from the finished partial file
+     * @param to the destination
+     * @throws IOException if the move fails
+     */
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package database;
+
+import java.util.List;
+
+/**
+ * One page of anomalies, newest first, and the query that fetches the page after it.
+ *
+ * @param rows the rows on this page
+ * @param query the query that produced this page
+ * @param hasMore whether older rows exist past this page
+ */
+public record AnomalyPage(List<AnomalyRow> rows, AnomalyQuery query, boolean hasMore) {
+
+    /**
+     * Creates a page, keeping an unmodifiable copy of the rows.
+     */
+    public AnomalyPage {
+        rows = List.copyOf(rows);
+    }
+
+    /**
+     * Builds the query for the next (older) page.
+     *
+     * @return the next page query, or null if this is the last page
+     */
+    public AnomalyQuery nextQuery() {
+        if (!hasMore || rows.isEmpty()) {
+            return null;
+        }
+        return query.after(rows.get(rows.size() - 1));
+    }
+}
@@ -0,0 +1,236 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A filtered, paginated query over the stored anomalies, newest first.
+ * Pages use keyset pagination on (recorded_at, id), so fetching page 1000 costs the same as page 1,
+ * and the drone and type filters are served by their (column, recorded_at) indexes.
+ * Instances are immutable, every with method returns a changed copy.
+ *
+ * @param droneId only rows for this drone, null for every drone
+ * @param anomalyType only rows of this type, null for every type
+ * @param fromMillis only rows stored at or after this epoch millisecond, null for no lower bound
+ * @param toMillis only rows stored at or before this epoch millisecond, null for no upper bound
+ * @param textColumn the column searched for textContains, null for no text search
+ * @param textContains only rows whose text column contains this (ignoring case), null for no text search
+ * @param afterRecordedAt the recordedAt of the last row already seen, null for the first page
+ * @param afterId the id of the last row already seen
+ * @param limit the most rows on one page
+ */
+public record AnomalyQuery(Integer droneId, String anomalyType, Long fromMillis, Long toMillis,
+                           TextColumn textColumn, String textContains,
+                           Long afterRecordedAt, long afterId, int limit) {
+
+    /**
+     * The text columns that can be searched with a contains match.
+     * A contains match on the timestamp or details can't use an index, but it still stops as soon as a page is full.
+     * A type match only reads the small type dictionary, then uses the type index.
+     */
+    public enum TextColumn {
+        /** When the anomaly was stored, as UTC text. */
+        TIMESTAMP("instr(strftime('%Y-%m-%d %H:%M:%S', t.recorded_at / 1000, 'unixepoch'), ?) > 0"),
+        /** The type of anomaly. */
+        TYPE("t.type_id IN (SELECT type_id FROM anomaly_types WHERE instr(lower(name), lower(?)) > 0)"),
+        /** The anomaly details, stored or rebuilt. */
+        DETAILS("instr(lower(" + AnomalyDB.detailsSql("t") + "), lower(?)) > 0");
+
+        /** The SQL condition, with one parameter for the text. */
+        private final String condition;
+
+        TextColumn(String condition) {
+            this.condition = condition;
+        }
+
+        /**
+         * Gets this column's text from a row, for backends that filter in Java.
+         *
+         * @param row the row
+         * @return the column's text, never null
+         */
+        private String text(AnomalyRow row) {
+            String value = switch (this) {
+                case TIMESTAMP -> row.timestamp();
+                case TYPE -> row.anomalyType();
+                case DETAILS -> row.details();
+            };
+            return value == null ? "" : value;
+        }
+    }
+
+    /** The most rows a single page may ask for. */
+    public static final int MAX_LIMIT = 10_000;
+
+    /**
+     * Creates a query, checking the limit.
+     *
+     * @throws IllegalArgumentException if the limit is not between 1 and MAX_LIMIT
+     */
+    public AnomalyQuery {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+    }
+
+    /**
+     * Creates an unfiltered query for the newest rows.
+     *
+     * @param limit the most rows on one page
+     * @return the first page query
+     */
+    public static AnomalyQuery latest(int limit) {
+        return new AnomalyQuery(null, null, null, null, null, null, null, 0, limit);
+    }
+
+    /**
+     * Copies this query with a drone filter.
+     *
+     * @param id the drone id, null for every drone
+     * @return the filtered query, starting from the first page
+     */
+    public AnomalyQuery withDroneId(Integer id) {
+        return new AnomalyQuery(id, anomalyType, fromMillis, toMillis, textColumn, textContains, null, 0, limit);
+    }
+
+    /**
+     * Copies this query with a type filter.
+     *
+     * @param type the anomaly type, null for every type
+     * @return the filtered query, starting from the first page
+     */
+    public AnomalyQuery withAnomalyType(String type) {
+        return new AnomalyQuery(droneId, type, fromMillis, toMillis, textColumn, textContains, null, 0, limit);
+    }
+
+    /**
+     * Copies this query with a time range.
+     *
+     * @param from the earliest epoch millisecond, null for no lower bound
+     * @param to the latest epoch millisecond, null for no upper bound
+     * @return the filtered query, starting from the first page
+     */
+    public AnomalyQuery withTimeRange(Long from, Long to) {
+        return new AnomalyQuery(droneId, anomalyType, from, to, textColumn, textContains, null, 0, limit);
+    }
+
+    /**
+     * Copies this query with a text search on one column.
+     *
+     * @param column the column to search, null for no text search
+     * @param text the text the column must contain, null or empty for no text search
+     * @return the filtered query, starting from the first page
+     */
+    public AnomalyQuery withTextContains(TextColumn column, String text) {
+        boolean searching = column != null && text != null && !text.isEmpty();
+        return new AnomalyQuery(droneId, anomalyType, fromMillis, toMillis,
+                searching ? column : null, searching ? text : null, null, 0, limit);
+    }
+
+    /**
+     * Copies this query with a different page size.
+     *
+     * @param newLimit the most rows on one page
+     * @return the resized query
+     */
+    public AnomalyQuery withLimit(int newLimit) {
+        return new AnomalyQuery(droneId, anomalyType, fromMillis, toMillis, textColumn, textContains,
+                afterRecordedAt, afterId, newLimit);
+    }
+
+    /**
+     * Copies this query so it starts right after the given row.
+     *
+     * @param last the last row already seen
+     * @return the query for the rows older than last
+     */
+    public AnomalyQuery after(AnomalyRow last) {
+        return new AnomalyQuery(droneId, anomalyType, fromMillis, toMillis, textColumn, textContains,
+                last.recordedAt(), last.id(), limit);
+    }
+
+    /**
+     * Checks whether a row passes this query's filters and lies past its cursor, for backends that filter in Java.
+     * It agrees with whereClause, so every backend returns the same pages.
+     *
+     * @param row the row to check
+     * @return true if the row belongs in the results
+     */
+    boolean matches(AnomalyRow row) {
+        if (droneId != null && row.droneId() != droneId) {
+            return false;
+        }
+        if (!acceptsType(row.anomalyType())) {
+            return false;
+        }
+        if ((fromMillis != null && row.recordedAt() < fromMillis) || (toMillis != null && row.recordedAt() > toMillis)) {
+            return false;
+        }
+        if (textColumn != null && textContains != null && textColumn != TextColumn.TYPE
+                && !textColumn.text(row).toLowerCase(Locale.ROOT).contains(textContains.toLowerCase(Locale.ROOT))) {
+            return false;
+        }
+        if (afterRecordedAt != null) {
+            return row.recordedAt() < afterRecordedAt || (row.recordedAt() == afterRecordedAt && row.id() < afterId);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a type passes this query's type filter and type text search.
+     * A dictionary coded backend can check each type once, instead of once per row.
+     *
+     * @param type the anomaly type
+     * @return true if rows of this type can match
+     */
+    boolean acceptsType(String type) {
+        if (anomalyType != null && !anomalyType.equals(type)) {
+            return false;
+        }
+        if (textColumn == TextColumn.TYPE && textContains != null) {
+            return type != null && type.toLowerCase(Locale.ROOT).contains(textContains.toLowerCase(Locale.ROOT));
+        }
+        return true;
+    }
+
+    /**
+     * Builds the WHERE clause (including the keyword) for this query's filters and cursor.
+     * Columns are qualified with t, the alias the run table is queried under.
+     *
+     * @param params filled with the values to bind, in order
+     * @return the WHERE clause, or an empty string if nothing is filtered
+     */
+    String whereClause(List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (droneId != null) {
+            conditions.add("t.drone_id = ?");
+            params.add(droneId);
+        }
+        if (anomalyType != null) {
+            // An unknown type has no id, so the subquery is NULL and nothing matches
+            conditions.add("t.type_id = (SELECT type_id FROM anomaly_types WHERE name = ?)");
+            params.add(anomalyType);
+        }
+        if (fromMillis != null) {
+            conditions.add("t.recorded_at >= ?");
+            params.add(fromMillis);
+        }
+        if (toMillis != null) {
+            conditions.add("t.recorded_at <= ?");
+            params.add(toMillis);
+        }
+        if (textColumn != null && textContains != null) {
+            // instr avoids LIKE wildcards in the search text
+            conditions.add(textColumn.condition);
+            params.add(textContains);
+        }
+        if (afterRecordedAt != null) {
+            // Row value comparison lets SQLite seek straight to the cursor in the index
+            conditions.add("(t.recorded_at, t.id) < (?, ?)");
+            params.add(afterRecordedAt);
+            params.add(afterId);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
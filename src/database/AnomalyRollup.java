@@ -0,0 +1,42 @@
+package database;
+
+/**
+ * The number of anomalies of one type in one minute or hour, kept after the raw rows are purged.
+ *
+ * @param bucket the start of the minute or hour, in the same format as the anomaly timestamps
+ * @param anomalyType the type of anomaly
+ * @param count how many anomalies of that type happened in the bucket
+ */
+public record AnomalyRollup(String bucket, String anomalyType, long count) {
+
+    /**
+     * The level of detail a rollup is stored at.
+     */
+    public enum Level {
+        /** Per-minute counts. */
+        MINUTE("anomaly_rollup_minute"),
+        /** Per-hour counts. */
+        HOUR("anomaly_rollup_hour");
+
+        /** The table the counts are stored in. */
+        private final String table;
+
+        /**
+         * Creates a level.
+         *
+         * @param table the table the counts are stored in
+         */
+        Level(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Gets the table the counts are stored in.
+         *
+         * @return the table name
+         */
+        String table() {
+            return table;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package database;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * One stored anomaly, as returned by an AnomalyQuery.
+ *
+ * @param id the row id, used together with recordedAt as the page cursor
+ * @param recordedAt when the anomaly was stored, in milliseconds since the epoch
+ * @param simTime the simulation time the anomaly happened at, in seconds
+ * @param droneId which drone had the anomaly
+ * @param anomalyType the type of anomaly
+ * @param details the anomaly details, rebuilt from the stored telemetry when the full text wasn't kept
+ */
+public record AnomalyRow(long id, long recordedAt, double simTime, int droneId, String anomalyType, String details) {
+
+    /** Format timestamps are shown (and searched) in, the same as the timestamp text search in AnomalyQuery. */
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    /**
+     * Gets when the anomaly was stored, as text.
+     *
+     * @return the UTC timestamp, for example 2025-11-01 10:00:00
+     */
+    public String timestamp() {
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(recordedAt));
+    }
+}
@@ -0,0 +1,10 @@
+package database;
+
+/**
+ * One simulation run, whose anomalies are stored in a table of their own.
+ *
+ * @param runId the run id, AnomalyDB.LEGACY_RUN_ID for rows stored before runs existed
+ * @param startedAt when the run started
+ */
+public record AnomalyRun(long runId, String startedAt) {
+}
@@ -0,0 +1,307 @@
+package database;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * One full-text search over the anomaly types and details, that can be cancelled while it runs.
+ * The search text is split into words and every word must match. Types are single camelCase names
+ * such as isBatteryLow or outOfBounds, so a word matches anywhere inside a type, the same way the
+ * type filter of AnomalyQuery does. In the details a word has to match a whole word, and the last word
+ * also matches as a prefix, so results show up while a word is still being typed.
+ * A search is used once: create a new one for every change of the search text.
+ */
+public final class AnomalySearch {
+
+    /**
+     * The columns a search can be limited to.
+     */
+    public enum Column {
+        /** The type of anomaly. */
+        TYPE,
+        /** The anomaly details. */
+        DETAILS
+    }
+
+    /** The most matches a single search may ask for. */
+    public static final int MAX_LIMIT = AnomalyQuery.MAX_LIMIT;
+
+    /** Splits text into words, the same way the FTS5 unicode61 tokenizer does for plain text. */
+    private static final String WORD_SEPARATORS = "[^\\p{L}\\p{N}]+";
+
+    /** The text typed by the user. */
+    private final String text;
+
+    /** The lower case words of the text, split once instead of for every row scored. */
+    private final List<String> words;
+
+    /** The column to search, null for both. */
+    private final Column column;
+
+    /** The most matches to return. */
+    private final int limit;
+
+    /** The statement running the search, once it has started. */
+    private Statement statement;
+
+    /** Whether the search was cancelled. */
+    private boolean cancelled;
+
+    /**
+     * Creates a search.
+     *
+     * @param text the text typed by the user
+     * @param column the column to search, null for both types and details
+     * @param limit the most matches to return
+     * @throws IllegalArgumentException if the limit is not between 1 and MAX_LIMIT
+     */
+    public AnomalySearch(String text, Column column, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT + ": " + limit);
+        }
+        this.text = Objects.requireNonNull(text, "Search text is null");
+        this.words = words(text);
+        this.column = column;
+        this.limit = limit;
+    }
+
+    /**
+     * Gets the most matches the search returns.
+     *
+     * @return the limit
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Checks whether the search text has no words to search for, only spaces and punctuation.
+     *
+     * @return true if nothing can match
+     */
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * Builds the FTS5 match expression over the details for every word of the search text.
+     * Every word is quoted, so operators and punctuation typed by the user are searched as plain text.
+     *
+     * @return the match expression, or null if there are no words or only the type is searched
+     */
+    public String matchExpression() {
+        return matchExpression(new boolean[words.size()]);
+    }
+
+    /**
+     * Builds the FTS5 match expression over the details for the words a type doesn't already hold.
+     *
+     * @param heldByType one flag per search word, true for the words the type holds, as from wordsInType
+     * @return the match expression, or null if no word is left for the details or only the type is searched
+     */
+    String matchExpression(boolean[] heldByType) {
+        if (column == Column.TYPE) {
+            return null;
+        }
+
+        boolean lastIsPrefix = lastIsPrefix();
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < words.size(); i++) {
+            if (heldByType[i]) {
+                continue;
+            }
+            boolean prefix = lastIsPrefix && i == words.size() - 1;
+            terms.add("details : \"" + words.get(i) + "\"" + (prefix ? "*" : ""));
+        }
+        return terms.isEmpty() ? null : String.join(" AND ", terms);
+    }
+
+    /**
+     * Finds which words of the search text a type holds, anywhere inside its name.
+     *
+     * @param type the anomaly type, may be null
+     * @return one flag per search word, all false if the search is only over the details
+     */
+    boolean[] wordsInType(String type) {
+        boolean[] held = new boolean[words.size()];
+        String lowerType = column == Column.DETAILS ? null : lowerCase(type);
+        for (int i = 0; lowerType != null && i < held.length; i++) {
+            held[i] = lowerType.contains(words.get(i));
+        }
+        return held;
+    }
+
+    /**
+     * Scores one anomaly against the search, for backends without a full-text index.
+     * Every word must be inside the type, or match a whole word of the details (or the start of one,
+     * for the word still being typed). A word found in the type counts 2 and one only found in the
+     * details counts 1, the same weights the SQLite backend ranks by.
+     *
+     * @param type the anomaly type
+     * @param details the anomaly details
+     * @return the score, 0 if the anomaly doesn't match
+     */
+    int score(String type, String details) {
+        return scoreLowerCase(lowerCase(type), lowerCase(details));
+    }
+
+    /**
+     * Scores one anomaly whose type and details were already put in lower case, the same as score.
+     * A search index lower cases every row once, so typing only pays for finding the words.
+     *
+     * @param type the anomaly type in lower case, may be null
+     * @param details the anomaly details in lower case, may be null
+     * @return the score, 0 if the anomaly doesn't match
+     */
+    int scoreLowerCase(String type, String details) {
+        if (words.isEmpty()) {
+            return 0;
+        }
+
+        String typeText = column == Column.DETAILS ? null : type;
+        String detailText = column == Column.TYPE ? null : details;
+        boolean lastIsPrefix = lastIsPrefix();
+
+        int score = 0;
+        for (int i = 0; i < words.size(); i++) {
+            boolean prefix = lastIsPrefix && i == words.size() - 1;
+            if (typeText != null && typeText.contains(words.get(i))) {
+                score += 2;
+            } else if (containsWord(detailText, words.get(i), prefix)) {
+                score += 1;
+            } else {
+                return 0;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Gets the lower case words of the search text.
+     *
+     * @return the words, in order
+     */
+    List<String> searchWords() {
+        return words;
+    }
+
+    /**
+     * Cancels the search. A running statement is interrupted, and a search that hasn't started won't run.
+     * Safe to call from any thread.
+     */
+    public void cancel() {
+        Statement running;
+        synchronized (this) {
+            cancelled = true;
+            running = statement;
+        }
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                System.err.println("Error cancelling search: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks whether the search was cancelled.
+     *
+     * @return true if cancel() was called
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Checks whether the last word is still being typed, which is when the text doesn't end with a separator.
+     *
+     * @return true if the last word should also match as a prefix
+     */
+    boolean lastIsPrefix() {
+        return !text.isEmpty() && Character.isLetterOrDigit(text.charAt(text.length() - 1));
+    }
+
+    /**
+     * Splits text into lower case words.
+     *
+     * @param value the text to split, may be null
+     * @return the words, in order
+     */
+    private static List<String> words(String value) {
+        List<String> words = new ArrayList<>();
+        if (value == null) {
+            return words;
+        }
+        for (String word : value.toLowerCase(Locale.ROOT).split(WORD_SEPARATORS)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Puts text in lower case the way the search words are.
+     *
+     * @param value the text, may be null
+     * @return the text in lower case, null if it was null
+     */
+    static String lowerCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks whether lower case text holds a word, or a word starting with it, without splitting the text.
+     * A word is a run of letters and digits, the same runs WORD_SEPARATORS splits the text into.
+     *
+     * @param text the lower case text to look through, may be null
+     * @param word the word to find
+     * @param prefix whether a word that only starts with it counts
+     * @return true if it was found
+     */
+    private static boolean containsWord(String text, String word, boolean prefix) {
+        if (text == null) {
+            return false;
+        }
+        for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+            int end = at + word.length();
+            boolean startsWord = at == 0 || !isWordChar(text.codePointBefore(at));
+            boolean endsWord = prefix || end == text.length() || !isWordChar(text.codePointAt(end));
+            if (startsWord && endsWord) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a character is part of a word: a letter or a number, like {@code \p{L}} and {@code \p{N}}.
+     *
+     * @param codePoint the character
+     * @return true if it is part of a word
+     */
+    static boolean isWordChar(int codePoint) {
+        if (Character.isLetter(codePoint)) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    /**
+     * Remembers the statement running the search, so cancel() can interrupt it.
+     *
+     * @param running the statement, null once it finished
+     * @return false if the search was already cancelled and shouldn't run
+     */
+    synchronized boolean attach(Statement running) {
+        statement = running;
+        return !cancelled;
+    }
+}
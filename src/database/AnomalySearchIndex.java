@@ -0,0 +1,263 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * An in-memory search index for the backends without a full-text index.
+ * Every row's type and details are put in lower case once, when the row is added, and every three letter
+ * piece of every word (a trigram) points at the rows holding it. A search word of three or more letters
+ * can only match rows holding all of its trigrams, so a search only scores the rows in those postings
+ * instead of lower casing and splitting every row for every keystroke.
+ * Rows are added in order and are known by their position: the first position plus the number of rows before.
+ * Not thread safe, the owning store guards it.
+ */
+final class AnomalySearchIndex {
+
+    /** The length of the word pieces indexed. Shorter search words are matched by scoring every row. */
+    static final int GRAM_LENGTH = 3;
+
+    /** How many rows are scored between checks for a cancelled search. */
+    private static final int CANCEL_CHECK_ROWS = 4_096;
+
+    /** The position of the first row. */
+    private final long firstPosition;
+
+    /** Each row's type in lower case. Types repeat, so every row of a type shares one string. */
+    private String[] types = new String[1_024];
+
+    /** Each row's details in lower case. */
+    private String[] details = new String[1_024];
+
+    /** The number of rows added. */
+    private int count;
+
+    /** The lower case form of every type seen, so each type is only lower cased once. */
+    private final Map<String, String> lowerTypes = new HashMap<>();
+
+    /** The rows holding each trigram, in the order they were added (trigram -> postings). */
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * The rows holding one trigram, as offsets from the first position.
+     */
+    private static final class Postings {
+
+        /** The row offsets, ascending. */
+        private int[] rows = new int[4];
+
+        /** The number of offsets held. */
+        private int size;
+
+        /**
+         * Adds a row, once however often the trigram shows up in it.
+         * Rows are added in order, so the row is already here if it is the last one.
+         *
+         * @param row the row offset
+         */
+        private void add(int row) {
+            if (size > 0 && rows[size - 1] == row) {
+                return;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @param firstPosition the position the first row added gets
+     */
+    AnomalySearchIndex(long firstPosition) {
+        this.firstPosition = firstPosition;
+    }
+
+    /**
+     * Gets the position of the first row.
+     *
+     * @return the first position
+     */
+    long firstPosition() {
+        return firstPosition;
+    }
+
+    /**
+     * Gets the position the next row added gets.
+     *
+     * @return the next position
+     */
+    long nextPosition() {
+        return firstPosition + count;
+    }
+
+    /**
+     * Adds the next row.
+     *
+     * @param type the anomaly type, may be null
+     * @param rowDetails the anomaly details, may be null
+     */
+    void add(String type, String rowDetails) {
+        if (count == types.length) {
+            types = Arrays.copyOf(types, count * 2);
+            details = Arrays.copyOf(details, count * 2);
+        }
+        String lowerType = type == null ? null : lowerTypes.computeIfAbsent(type, AnomalySearch::lowerCase);
+        String lowerDetails = AnomalySearch.lowerCase(rowDetails);
+        types[count] = lowerType;
+        details[count] = lowerDetails;
+        addTrigrams(lowerType, count);
+        addTrigrams(lowerDetails, count);
+        count++;
+    }
+
+    /**
+     * Finds the best matches for a search: best first, and newer first among equal scores.
+     *
+     * @param search the search text, column and limit
+     * @param fromPosition the oldest position still worth returning
+     * @return the positions of the best matches, empty if the search was cancelled
+     */
+    long[] search(AnomalySearch search, long fromPosition) {
+        List<String> words = search.searchWords();
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+        int from = (int) Math.max(0, Math.min(fromPosition - firstPosition, count));
+
+        // Every word of three or more letters narrows the rows down to those holding all of its trigrams
+        int[] candidates = null;
+        for (String word : words) {
+            if (word.length() < GRAM_LENGTH) {
+                continue;
+            }
+            int[] rows = rowsHolding(word);
+            candidates = candidates == null ? rows : intersect(candidates, rows);
+            if (candidates.length == 0) {
+                return new long[0];
+            }
+        }
+
+        record Scored(int row, int score) {}
+        Comparator<Scored> worstFirst = Comparator.comparingInt(Scored::score).thenComparingInt(Scored::row);
+
+        // Only the best limit matches are kept, the worst of them on top to be replaced
+        PriorityQueue<Scored> best = new PriorityQueue<>(worstFirst);
+        int total = candidates == null ? count - from : candidates.length;
+        for (int i = total - 1; i >= 0; i--) {
+            if ((i % CANCEL_CHECK_ROWS) == 0 && search.isCancelled()) {
+                return new long[0];
+            }
+            int row = candidates == null ? from + i : candidates[i];
+            if (row < from) {
+                break;
+            }
+            int score = search.scoreLowerCase(types[row], details[row]);
+            if (score > 0) {
+                best.add(new Scored(row, score));
+                if (best.size() > search.limit()) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Scored> matches = new ArrayList<>(best);
+        matches.sort(worstFirst);
+        Collections.reverse(matches);
+        long[] positions = new long[matches.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = firstPosition + matches.get(i).row();
+        }
+        return search.isCancelled() ? new long[0] : positions;
+    }
+
+    /**
+     * Adds a row to the postings of every trigram in its words.
+     *
+     * @param text the lower case text, may be null
+     * @param row the row offset
+     */
+    private void addTrigrams(String text, int row) {
+        if (text == null) {
+            return;
+        }
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean inWord = i < text.length() && AnomalySearch.isWordChar(text.codePointAt(i));
+            if (inWord && wordStart < 0) {
+                wordStart = i;
+            } else if (!inWord && wordStart >= 0) {
+                for (int at = wordStart; at + GRAM_LENGTH <= i; at++) {
+                    postings.computeIfAbsent(trigram(text, at), key -> new Postings()).add(row);
+                }
+                wordStart = -1;
+            }
+            // The low half of a surrogate pair belongs to the character before it
+            if (i < text.length() && Character.isHighSurrogate(text.charAt(i))) {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Finds the rows holding every trigram of a word.
+     *
+     * @param word the lower case word, at least GRAM_LENGTH long
+     * @return the row offsets, ascending
+     */
+    private int[] rowsHolding(String word) {
+        int[] rows = null;
+        for (int at = 0; at + GRAM_LENGTH <= word.length(); at++) {
+            Postings holding = postings.get(trigram(word, at));
+            if (holding == null) {
+                return new int[0];
+            }
+            int[] held = Arrays.copyOf(holding.rows, holding.size);
+            rows = rows == null ? held : intersect(rows, held);
+        }
+        return rows;
+    }
+
+    /**
+     * Packs three characters of text into one key.
+     *
+     * @param text the text
+     * @param at where the trigram starts
+     * @return the key
+     */
+    private static long trigram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    /**
+     * Keeps the rows found in both of two ascending lists.
+     *
+     * @param first the first rows, ascending
+     * @param second the second rows, ascending
+     * @return the rows in both, ascending
+     */
+    private static int[] intersect(int[] first, int[] second) {
+        int[] both = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length; ) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                both[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, size);
+    }
+}
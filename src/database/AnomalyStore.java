@@ -0,0 +1,88 @@
+package database;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Where the simulation stores its anomalies, and where the database manager reads them back from.
+ * Every backend keeps anomalies per run: a new run starts empty, and queries and searches
+ * only see the current run. Pick a backend at startup with StorageBackend.
+ */
+public interface AnomalyStore extends AutoCloseable {
+
+    /**
+     * Saves a whole tick's worth of anomalies at once.
+     * Called from the write-behind thread, never from the simulation or UI thread.
+     *
+     * @param batch the anomalies (and their telemetry) to save
+     * @return the number of rows saved, 0 if the batch failed
+     */
+    int saveAnomalyBatch(List<PendingAnomaly> batch);
+
+    /**
+     * Starts a new run, so every anomaly saved from now on is kept apart from the previous run's.
+     * Anything still queued for the previous run must be flushed before this is called.
+     *
+     * @return the new run id, -1 if the run couldn't be started
+     */
+    long startRun();
+
+    /**
+     * Gets one page of the current run's anomalies, newest first, that match the query's filters.
+     *
+     * @param query the filters, cursor and page size
+     * @return the page of rows, empty if nothing matches or the query failed
+     */
+    AnomalyPage queryAnomalies(AnomalyQuery query);
+
+    /**
+     * Searches the current run's anomaly types and details. Every word of the search must match,
+     * and a word found in the type ranks higher than one only found in the details.
+     * This can take a while on a large run, so it should not be called from the UI thread.
+     *
+     * @param search the search text, column and limit
+     * @return the matches, best first, empty if nothing matches or the search was cancelled or failed
+     */
+    List<AnomalyRow> searchAnomalies(AnomalySearch search);
+
+    /**
+     * Reads every anomaly of the current run that matches the query's filters, newest first, one row at a time.
+     * Rows are handed over as they are read and never collected, so a run of any size can be streamed
+     * in the memory of one page. The query's limit is only the batch size rows are fetched in.
+     * This default pages through queryAnomalies, backends with a forward-only cursor override it.
+     *
+     * @param query the filters, and the batch size
+     * @param action called with each row, returns false to stop early
+     * @return false if reading the rows failed part way, true if every row was read or the action stopped
+     */
+    default boolean forEachAnomaly(AnomalyQuery query, Predicate<AnomalyRow> action) {
+        for (AnomalyQuery next = query; next != null; ) {
+            AnomalyPage page = queryAnomalies(next);
+            for (AnomalyRow row : page.rows()) {
+                if (!action.test(row)) {
+                    return true;
+                }
+            }
+            next = page.nextQuery();
+        }
+        return true;
+    }
+
+    /**
+     * Deletes every stored anomaly, in every run, then starts a fresh run.
+     */
+    void clear();
+
+    /**
+     * Gets how much space the stored anomalies take up.
+     *
+     * @return the size in bytes, on disk for the file backends and estimated for the memory backend
+     */
+    long getFootprintBytes();
+
+    /**
+     * Writes out anything still buffered and releases the backend's files or connections.
+     */
+    @Override
+    void close();
+}
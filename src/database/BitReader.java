@@ -0,0 +1,77 @@
+package database;
+
+/**
+ * Reads values bit by bit out of a byte array written by a BitWriter.
+ */
+public final class BitReader {
+
+    /** The bytes being read. */
+    private final byte[] bytes;
+
+    /** Position of the next bit, counted from the start of the array. */
+    private long position;
+
+    /** Position just past the last readable bit. */
+    private final long end;
+
+    /**
+     * Creates a reader over part of a byte array.
+     *
+     * @param bytes the bytes to read
+     * @param offset the index of the first byte
+     * @param length the number of bytes that may be read
+     */
+    public BitReader(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = (long) offset << 3;
+        this.end = (long) (offset + length) << 3;
+    }
+
+    /**
+     * Reads a single bit.
+     *
+     * @return the bit
+     * @throws IllegalStateException if there are no bits left
+     */
+    public boolean readBit() {
+        checkAvailable(1);
+        boolean bit = (bytes[(int) (position >>> 3)] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    /**
+     * Reads bits into the lowest bits of a value, most significant first.
+     *
+     * @param bitCount the number of bits to read, 0 to 64
+     * @return the value
+     * @throws IllegalStateException if there are not enough bits left
+     */
+    public long readBits(int bitCount) {
+        checkAvailable(bitCount);
+        long value = 0;
+        int remaining = bitCount;
+        while (remaining > 0) {
+            int available = 8 - (int) (position & 7);
+            int take = Math.min(available, remaining);
+            int current = bytes[(int) (position >>> 3)] & 0xFF;
+            int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+
+            value = (value << take) | chunk;
+            position += take;
+            remaining -= take;
+        }
+        return value;
+    }
+
+    /**
+     * Makes sure enough bits are left.
+     *
+     * @param bitCount the number of bits about to be read
+     */
+    private void checkAvailable(int bitCount) {
+        if (position + bitCount > end) {
+            throw new IllegalStateException("Read past the end of the bit stream");
+        }
+    }
+}
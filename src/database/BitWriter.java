@@ -0,0 +1,90 @@
+package database;
+
+import java.util.Arrays;
+
+/**
+ * Appends values bit by bit into a growing byte array, most significant bit first.
+ */
+public final class BitWriter {
+
+    /** The bytes written so far, grown as needed. */
+    private byte[] bytes;
+
+    /** Number of bits written so far. */
+    private long bitLength;
+
+    /**
+     * Creates a writer with room for the given number of bytes before it has to grow.
+     *
+     * @param initialBytes the starting capacity, in bytes
+     */
+    public BitWriter(int initialBytes) {
+        bytes = new byte[Math.max(initialBytes, 8)];
+    }
+
+    /**
+     * Writes a single bit.
+     *
+     * @param bit the bit to write
+     */
+    public void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            bytes[(int) (bitLength >>> 3)] |= (byte) (0x80 >>> (bitLength & 7));
+        }
+        bitLength++;
+    }
+
+    /**
+     * Writes the lowest bits of a value, most significant first.
+     *
+     * @param value the value holding the bits
+     * @param bitCount how many of its lowest bits to write, 0 to 64
+     */
+    public void writeBits(long value, int bitCount) {
+        ensureCapacity(bitCount);
+        int remaining = bitCount;
+        while (remaining > 0) {
+            int byteIndex = (int) (bitLength >>> 3);
+            int freeInByte = 8 - (int) (bitLength & 7);
+            int take = Math.min(freeInByte, remaining);
+
+            // The next `take` bits of the value, lined up under the free bits of the current byte
+            int chunk = (int) ((value >>> (remaining - take)) & ((1L << take) - 1));
+            bytes[byteIndex] |= (byte) (chunk << (freeInByte - take));
+
+            bitLength += take;
+            remaining -= take;
+        }
+    }
+
+    /**
+     * Gets the number of bits written.
+     *
+     * @return the bit length
+     */
+    public long bitLength() {
+        return bitLength;
+    }
+
+    /**
+     * Copies the written bits out, padded with zeros to a whole byte.
+     *
+     * @return the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitLength + 7) >>> 3));
+    }
+
+    /**
+     * Grows the buffer so the given number of extra bits fits.
+     *
+     * @param extraBits the number of bits about to be written
+     */
+    private void ensureCapacity(int extraBits) {
+        long neededBytes = (bitLength + extraBits + 7) >>> 3;
+        if (neededBytes > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(neededBytes, bytes.length * 2L));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Writes text and binary values to a file through one large buffer, so the disk sees a few big writes
+ * instead of one small write per value. Text is encoded as UTF-8 straight into the buffer,
+ * without building a byte array per string. Numbers are written big-endian, the same as DataOutputStream.
+ */
+final class ChannelWriter implements Closeable {
+
+    /** Written for a lone surrogate, which has no UTF-8 encoding. */
+    private static final byte REPLACEMENT = '?';
+
+    /** The file being written. */
+    private final FileChannel channel;
+
+    /** Bytes waiting to be written. */
+    private final ByteBuffer buffer;
+
+    /** Bytes handed to the channel so far. */
+    private long flushedBytes;
+
+    /**
+     * Creates (or truncates) a file and opens it for writing.
+     *
+     * @param file the file to write
+     * @param bufferBytes the size of the write buffer, at least 16 bytes
+     * @throws IOException if the file can't be opened
+     * @throws IllegalArgumentException if the buffer is smaller than 16 bytes
+     */
+    ChannelWriter(Path file, int bufferBytes) throws IOException {
+        Objects.requireNonNull(file, "File can't be null");
+        if (bufferBytes < 16) {
+            throw new IllegalArgumentException("Buffer must be at least 16 bytes: " + bufferBytes);
+        }
+        buffer = ByteBuffer.allocateDirect(bufferBytes);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes one byte.
+     *
+     * @param value the byte, only the low 8 bits are written
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a short, big-endian.
+     *
+     * @param value the value, only the low 16 bits are written
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeShort(int value) throws IOException {
+        ensure(Short.BYTES);
+        buffer.putShort((short) value);
+    }
+
+    /**
+     * Writes an int, big-endian.
+     *
+     * @param value the value
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long, big-endian.
+     *
+     * @param value the value
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a double, big-endian.
+     *
+     * @param value the value
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeDouble(double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes text as UTF-8, with no length or terminator.
+     * A lone surrogate is written as a question mark.
+     *
+     * @param text the text
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    void writeText(CharSequence text) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ensure(1);
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                ensure(4);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                buffer.put(REPLACEMENT);
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes writeText would write, for length-prefixed binary strings.
+     *
+     * @param text the text
+     * @return its length in UTF-8 bytes
+     */
+    static int utf8Length(CharSequence text) {
+        int length = text.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets how many bytes have been written, including those still buffered.
+     *
+     * @return the byte count
+     */
+    long bytesWritten() {
+        return flushedBytes + buffer.position();
+    }
+
+    /**
+     * Writes out the buffered bytes and forces them to the disk.
+     *
+     * @throws IOException if the write fails
+     */
+    void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    /**
+     * Writes out the buffered bytes and closes the file.
+     *
+     * @throws IOException if the last write or the close fails
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Makes room in the buffer, flushing it if the bytes don't fit.
+     *
+     * @param bytes the bytes about to be put, never more than the buffer holds
+     * @throws IOException if the buffer couldn't be flushed
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands every buffered byte to the channel.
+     *
+     * @throws IOException if the write fails
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushedBytes += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,776 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * An embedded anomaly store that keeps every column of a run in its own append-only file.
+ * Every value has a fixed width, so row i of a column sits at i times the width, and a query only
+ * reads the columns it filters on until a row matches. Rows are appended in time order, so time
+ * ranges and page cursors are found by binary searching the recorded_at column instead of scanning.
+ * Types are dictionary coded in types.txt like in the flight recorder, and the detail text is stored
+ * unless turned off, in which case only a summary is rebuilt from the telemetry columns.
+ * There is no full-text index on disk: the first search of a run builds an AnomalySearchIndex in memory,
+ * and later searches only add the rows written since. Only the newest MAX_RUNS runs are kept.
+ */
+public class ColumnarAnomalyStore implements AnomalyStore {
+
+    /**
+     * The fixed-width column files of a run.
+     */
+    private enum Column {
+        DRONE_ID(Integer.BYTES),
+        TYPE_ID(Integer.BYTES),
+        RECORDED_AT(Long.BYTES),
+        SIM_TIME(Double.BYTES),
+        ALTITUDE(Double.BYTES),
+        LONGITUDE(Double.BYTES),
+        LATITUDE(Double.BYTES),
+        ORIENTATION(Double.BYTES),
+        VELOCITY(Double.BYTES);
+
+        /** Bytes per value. */
+        private final int width;
+
+        /**
+         * Creates a column.
+         *
+         * @param width bytes per value
+         */
+        Column(int width) {
+            this.width = width;
+        }
+
+        /**
+         * Gets the column's file name.
+         *
+         * @return the file name inside a run directory
+         */
+        private String fileName() {
+            return name().toLowerCase(Locale.ROOT) + COLUMN_EXTENSION;
+        }
+    }
+
+    /** Extension of the column files. */
+    static final String COLUMN_EXTENSION = ".col";
+
+    /** Prefix of every run directory, the zero padded run id follows it. */
+    static final String RUN_PREFIX = "run-";
+
+    /** File holding the end offset of every row's details, only in runs that store details. */
+    static final String DETAILS_END_FILE = "details_end" + COLUMN_EXTENSION;
+
+    /** File holding the detail text of every row, back to back. */
+    static final String DETAILS_FILE = "details.dat";
+
+    /** File holding the anomaly type names, one per line, in code order. */
+    static final String TYPES_FILE = "types.txt";
+
+    /** Most runs kept on disk, the oldest is deleted when a new run would go past this. */
+    static final int MAX_RUNS = 10;
+
+    /** Rows checked between looks at whether a search was cancelled. */
+    private static final int CANCEL_CHECK_ROWS = 4096;
+
+    /** The directory holding the types file and every run directory. */
+    private final Path directory;
+
+    /** Whether new runs store the full detail text. */
+    private final boolean storeDetails;
+
+    /** Anomaly type names, indexed by type code. */
+    private final List<String> types = new ArrayList<>();
+
+    /** Type codes, by name. */
+    private final Map<String, Integer> typeCodes = new HashMap<>();
+
+    /** Readers and writers share the lock, starting, clearing and closing runs take it alone. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The run being written to. */
+    private RunFiles run;
+
+    /** Guards the search index, apart from the writer so a search never holds up saving. */
+    private final Object searchLock = new Object();
+
+    /** The search index over the rows of searchedRun, null before the first search. */
+    private AnomalySearchIndex searchIndex;
+
+    /** The run the search index covers. */
+    private RunFiles searchedRun;
+
+    /**
+     * Opens (or creates) a store, continuing its newest run.
+     *
+     * @param directory the store directory, created if it doesn't exist
+     * @param storeDetails whether new runs store the full detail text of every anomaly
+     * @throws UncheckedIOException if the directory can't be created or read
+     */
+    public ColumnarAnomalyStore(Path directory, boolean storeDetails) {
+        this.directory = directory;
+        this.storeDetails = storeDetails;
+        try {
+            Files.createDirectories(directory);
+            Path typesFile = directory.resolve(TYPES_FILE);
+            if (Files.exists(typesFile)) {
+                for (String type : Files.readAllLines(typesFile, StandardCharsets.UTF_8)) {
+                    typeCodes.put(type, types.size());
+                    types.add(type);
+                }
+            }
+
+            List<Path> runs = listRuns(directory);
+            run = runs.isEmpty() ? RunFiles.create(directory, 1, storeDetails) : RunFiles.open(runs.get(runs.size() - 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening columnar store in " + directory, e);
+        }
+    }
+
+    @Override
+    public int saveAnomalyBatch(List<PendingAnomaly> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                if (run == null) {
+                    return 0;
+                }
+                int[] codes = new int[batch.size()];
+                for (int i = 0; i < codes.length; i++) {
+                    codes[i] = typeCode(batch.get(i).record().getType());
+                }
+                run.append(batch, codes, System.currentTimeMillis());
+                return batch.size();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving anomaly batch: " + e.getMessage());
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long startRun() {
+        lock.writeLock().lock();
+        try {
+            if (run != null) {
+                run.close();
+                run = null;
+            }
+            List<Path> runs = listRuns(directory);
+            long runId = runs.isEmpty() ? 1 : runId(runs.get(runs.size() - 1)) + 1;
+            // There is no retention pass for this backend, so only the newest runs are kept
+            for (int i = 0; i <= runs.size() - MAX_RUNS; i++) {
+                deleteRun(runs.get(i));
+            }
+            run = RunFiles.create(directory, runId, storeDetails);
+            return runId;
+        } catch (IOException e) {
+            System.err.println("Error starting run: " + e.getMessage());
+            run = null;
+            return -1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public AnomalyPage queryAnomalies(AnomalyQuery query) {
+        List<AnomalyRow> rows = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Snapshot snapshot = snapshot();
+            if (snapshot == null) {
+                return new AnomalyPage(rows, query, false);
+            }
+
+            // recorded_at only grows, so the time range and cursor bound the rows to look at
+            int low = query.fromMillis() == null ? 0 : snapshot.firstAtOrAfter(query.fromMillis());
+            int high = query.toMillis() == null ? snapshot.count : snapshot.firstAtOrAfter(query.toMillis() + 1);
+            if (query.afterRecordedAt() != null) {
+                high = Math.min(high, snapshot.firstAtOrAfter(query.afterRecordedAt() + 1));
+            }
+
+            boolean[] typeOk = snapshot.acceptedTypes(query);
+            // Newest first, one extra row to know whether another page exists
+            for (int i = high - 1; i >= low && rows.size() <= query.limit(); i--) {
+                if (query.droneId() != null && snapshot.droneId(i) != query.droneId()) continue;
+                if (!typeOk[snapshot.typeCode(i)]) continue;
+                AnomalyRow row = snapshot.row(i);
+                if (query.matches(row)) {
+                    rows.add(row);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error querying anomalies: " + e.getMessage());
+            return new AnomalyPage(List.of(), query, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean hasMore = rows.size() > query.limit();
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        return new AnomalyPage(rows, query, hasMore);
+    }
+
+    @Override
+    public List<AnomalyRow> searchAnomalies(AnomalySearch search) {
+        lock.readLock().lock();
+        try {
+            Snapshot snapshot = snapshot();
+            if (snapshot == null) {
+                return List.of();
+            }
+
+            long[] positions;
+            synchronized (searchLock) {
+                if (searchIndex == null || searchedRun != snapshot.run) {
+                    searchIndex = new AnomalySearchIndex(0);
+                    searchedRun = snapshot.run;
+                }
+                // Only the rows written since the last search are read and lower cased
+                for (int i = (int) searchIndex.nextPosition(); i < snapshot.count; i++) {
+                    if (i % CANCEL_CHECK_ROWS == 0 && search.isCancelled()) {
+                        return List.of();
+                    }
+                    AnomalyRow row = snapshot.row(i);
+                    searchIndex.add(row.anomalyType(), row.details());
+                }
+                positions = searchIndex.search(search, 0);
+            }
+
+            List<AnomalyRow> matches = new ArrayList<>(positions.length);
+            for (long position : positions) {
+                // A search with a newer snapshot may have indexed rows past this one
+                if (position < snapshot.count) {
+                    matches.add(snapshot.row((int) position));
+                }
+            }
+            return matches;
+        } catch (IOException | RuntimeException e) {
+            if (!search.isCancelled()) {
+                System.err.println("Error searching anomalies: " + e.getMessage());
+            }
+            return List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            if (run != null) {
+                run.close();
+                run = null;
+            }
+            for (Path runDir : listRuns(directory)) {
+                deleteRun(runDir);
+            }
+            run = RunFiles.create(directory, 1, storeDetails);
+            System.out.println("Database cleared successfully");
+        } catch (IOException e) {
+            System.err.println("Error clearing columnar store: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long getFootprintBytes() {
+        lock.readLock().lock();
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException e) {
+            System.err.println("Error measuring columnar store: " + e.getMessage());
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the current run to disk and closes its files.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (run != null) {
+                run.close();
+                run = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing columnar store: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the code of an anomaly type, adding it to the types file the first time it is seen.
+     * The caller must hold this store's monitor.
+     *
+     * @param type the anomaly type name
+     * @return the type code
+     * @throws IOException if the types file can't be written
+     */
+    private int typeCode(String type) throws IOException {
+        String name = type == null ? "" : type.replace('\n', ' ');
+        Integer code = typeCodes.get(name);
+        if (code != null) {
+            return code;
+        }
+        Files.writeString(directory.resolve(TYPES_FILE), name + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        code = types.size();
+        types.add(name);
+        typeCodes.put(name, code);
+        return code;
+    }
+
+    /**
+     * Maps the rows of the current run written so far, for one query or search.
+     * The caller must hold the read lock.
+     *
+     * @return the snapshot, null if there is no current run
+     * @throws IOException if a column can't be mapped
+     */
+    private Snapshot snapshot() throws IOException {
+        RunFiles current;
+        int count;
+        List<String> typeNames;
+        synchronized (this) {
+            current = run;
+            if (current == null) {
+                return null;
+            }
+            count = current.count;
+            typeNames = List.copyOf(types);
+        }
+        return new Snapshot(current, count, typeNames);
+    }
+
+    /**
+     * Lists the run directories, oldest first.
+     *
+     * @param directory the store directory
+     * @return the run directories
+     * @throws IOException if the directory can't be listed
+     */
+    private static List<Path> listRuns(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> Files.isDirectory(path) && path.getFileName().toString().startsWith(RUN_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Gets the id of a run from its directory name.
+     *
+     * @param runDir the run directory
+     * @return the run id
+     */
+    private static long runId(Path runDir) {
+        return Long.parseLong(runDir.getFileName().toString().substring(RUN_PREFIX.length()));
+    }
+
+    /**
+     * Deletes a run directory and its files.
+     *
+     * @param runDir the run directory
+     * @throws IOException if a file can't be deleted
+     */
+    private static void deleteRun(Path runDir) throws IOException {
+        try (Stream<Path> files = Files.list(runDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(runDir);
+    }
+
+    /**
+     * The open column files of one run.
+     */
+    private static final class RunFiles {
+
+        /** The run id. */
+        private final long runId;
+
+        /** The run directory. */
+        private final Path dir;
+
+        /** The fixed-width column files. */
+        private final Map<Column, FileChannel> columns = new EnumMap<>(Column.class);
+
+        /** The details end offsets, null if the run doesn't store details. */
+        private final FileChannel detailsEnd;
+
+        /** The detail text, null if the run doesn't store details. */
+        private final FileChannel details;
+
+        /** Rows fully written, readers never look past this. */
+        private volatile int count;
+
+        /** Bytes of detail text written. */
+        private long detailsBytes;
+
+        /**
+         * Opens a run's files.
+         *
+         * @param runId the run id
+         * @param dir the run directory
+         * @param withDetails whether the run stores details
+         * @throws IOException if a file can't be opened
+         */
+        private RunFiles(long runId, Path dir, boolean withDetails) throws IOException {
+            this.runId = runId;
+            this.dir = dir;
+            for (Column column : Column.values()) {
+                columns.put(column, openAppend(dir.resolve(column.fileName())));
+            }
+            detailsEnd = withDetails ? openAppend(dir.resolve(DETAILS_END_FILE)) : null;
+            details = withDetails ? openAppend(dir.resolve(DETAILS_FILE)) : null;
+        }
+
+        /**
+         * Creates a new, empty run.
+         *
+         * @param directory the store directory
+         * @param runId the run id
+         * @param withDetails whether the run stores details
+         * @return the run
+         * @throws IOException if the run can't be created
+         */
+        private static RunFiles create(Path directory, long runId, boolean withDetails) throws IOException {
+            Path dir = directory.resolve(String.format("%s%08d", RUN_PREFIX, runId));
+            if (Files.exists(dir)) {
+                deleteRun(dir);
+            }
+            Files.createDirectories(dir);
+            return new RunFiles(runId, dir, withDetails);
+        }
+
+        /**
+         * Opens an existing run to continue it. A batch cut short by a crash leaves some columns longer
+         * than others, so every column is cut back to the rows that all of them hold.
+         *
+         * @param dir the run directory
+         * @return the run
+         * @throws IOException if the run can't be opened
+         */
+        private static RunFiles open(Path dir) throws IOException {
+            RunFiles files = new RunFiles(runId(dir), dir, Files.exists(dir.resolve(DETAILS_END_FILE)));
+
+            long rows = Long.MAX_VALUE;
+            for (Column column : Column.values()) {
+                rows = Math.min(rows, files.columns.get(column).size() / column.width);
+            }
+            if (files.detailsEnd != null) {
+                rows = Math.min(rows, files.detailsEnd.size() / Long.BYTES);
+            }
+
+            int count = (int) rows;
+            for (Column column : Column.values()) {
+                files.columns.get(column).truncate((long) count * column.width);
+            }
+            if (files.detailsEnd != null) {
+                files.detailsEnd.truncate((long) count * Long.BYTES);
+                files.detailsBytes = count == 0 ? 0 : readLong(files.detailsEnd, (long) (count - 1) * Long.BYTES);
+                files.details.truncate(files.detailsBytes);
+            }
+            files.count = count;
+            return files;
+        }
+
+        /**
+         * Appends a batch to every column, then makes the rows visible to readers.
+         *
+         * @param batch the anomalies to append
+         * @param codes the type code of each anomaly
+         * @param recordedAt when the batch is stored, in epoch milliseconds
+         * @throws IOException if a column can't be written
+         */
+        private void append(List<PendingAnomaly> batch, int[] codes, long recordedAt) throws IOException {
+            Map<Column, ByteBuffer> buffers = new EnumMap<>(Column.class);
+            for (Column column : Column.values()) {
+                buffers.put(column, ByteBuffer.allocate(batch.size() * column.width));
+            }
+            ByteBuffer ends = details == null ? null : ByteBuffer.allocate(batch.size() * Long.BYTES);
+            List<byte[]> texts = new ArrayList<>();
+
+            long end = detailsBytes;
+            for (int i = 0; i < batch.size(); i++) {
+                AnomalyRecord record = batch.get(i).record();
+                TelemetryData data = batch.get(i).telemetry();
+                buffers.get(Column.DRONE_ID).putInt(record.getID());
+                buffers.get(Column.TYPE_ID).putInt(codes[i]);
+                buffers.get(Column.RECORDED_AT).putLong(recordedAt);
+                buffers.get(Column.SIM_TIME).putDouble(record.getTime());
+                buffers.get(Column.ALTITUDE).putDouble(data.getAltitude());
+                buffers.get(Column.LONGITUDE).putDouble(data.getLongitude());
+                buffers.get(Column.LATITUDE).putDouble(data.getLatitude());
+                buffers.get(Column.ORIENTATION).putDouble(data.getOrientation());
+                buffers.get(Column.VELOCITY).putDouble(data.getVelocity());
+                if (ends != null) {
+                    byte[] text = (record.getDetails() == null ? "" : record.getDetails()).getBytes(StandardCharsets.UTF_8);
+                    texts.add(text);
+                    end += text.length;
+                    ends.putLong(end);
+                }
+            }
+
+            // Details first, so an end offset is never on disk before its text
+            if (details != null) {
+                for (byte[] text : texts) {
+                    writeFully(details, ByteBuffer.wrap(text));
+                }
+                writeFully(detailsEnd, ends.flip());
+                detailsBytes = end;
+            }
+            for (Column column : Column.values()) {
+                writeFully(columns.get(column), buffers.get(column).flip());
+            }
+            count += batch.size();
+        }
+
+        /**
+         * Forces every file to disk and closes it.
+         *
+         * @throws IOException if a file can't be forced or closed
+         */
+        private void close() throws IOException {
+            for (FileChannel channel : columns.values()) {
+                channel.force(false);
+                channel.close();
+            }
+            if (details != null) {
+                details.force(false);
+                details.close();
+                detailsEnd.force(false);
+                detailsEnd.close();
+            }
+        }
+
+        /**
+         * Opens a file for appending.
+         *
+         * @param file the file
+         * @return the channel, positioned at the end
+         * @throws IOException if the file can't be opened
+         */
+        private static FileChannel openAppend(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            return channel;
+        }
+
+        /**
+         * Writes a whole buffer at the channel's position.
+         *
+         * @param channel the channel
+         * @param buffer the bytes to write
+         * @throws IOException if the write fails
+         */
+        private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        /**
+         * Reads one long at a position.
+         *
+         * @param channel the channel
+         * @param position the byte position
+         * @return the value
+         * @throws IOException if the read fails
+         */
+        private static long readLong(FileChannel channel, long position) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + channel);
+                }
+            }
+            return buffer.getLong(0);
+        }
+    }
+
+    /**
+     * The rows of a run written when a query started, mapped for reading.
+     */
+    private static final class Snapshot {
+
+        /** The run the rows belong to. */
+        private final RunFiles run;
+
+        /** Rows in the snapshot. */
+        private final int count;
+
+        /** Anomaly type names, indexed by type code. */
+        private final List<String> types;
+
+        /** The mapped columns. */
+        private final Map<Column, MappedByteBuffer> columns = new EnumMap<>(Column.class);
+
+        /** The mapped details end offsets, null if the run doesn't store details. */
+        private final MappedByteBuffer detailsEnd;
+
+        /** The mapped detail text, null if the run doesn't store details. */
+        private final MappedByteBuffer details;
+
+        /**
+         * Maps the first count rows of a run.
+         *
+         * @param run the run
+         * @param count the rows to map
+         * @param types anomaly type names, indexed by type code
+         * @throws IOException if a file can't be mapped
+         */
+        private Snapshot(RunFiles run, int count, List<String> types) throws IOException {
+            this.run = run;
+            this.count = count;
+            this.types = types;
+            for (Column column : Column.values()) {
+                columns.put(column, run.columns.get(column).map(FileChannel.MapMode.READ_ONLY, 0,
+                        (long) count * column.width));
+            }
+            if (run.details != null) {
+                detailsEnd = run.detailsEnd.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * Long.BYTES);
+                long textBytes = count == 0 ? 0 : detailsEnd.getLong((count - 1) * Long.BYTES);
+                details = run.details.map(FileChannel.MapMode.READ_ONLY, 0, textBytes);
+            } else {
+                detailsEnd = null;
+                details = null;
+            }
+        }
+
+        /**
+         * Finds the first row stored at or after a time.
+         *
+         * @param millis the time, in epoch milliseconds
+         * @return the row index, count if every row is older
+         */
+        private int firstAtOrAfter(long millis) {
+            MappedByteBuffer recorded = columns.get(Column.RECORDED_AT);
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (recorded.getLong(mid * Long.BYTES) < millis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Checks each type once against a query's type filters.
+         *
+         * @param query the query
+         * @return whether rows of each type code can match
+         */
+        private boolean[] acceptedTypes(AnomalyQuery query) {
+            boolean[] accepted = new boolean[types.size()];
+            for (int code = 0; code < accepted.length; code++) {
+                accepted[code] = query.acceptsType(types.get(code));
+            }
+            return accepted;
+        }
+
+        /**
+         * Reads one row's drone id.
+         *
+         * @param i the row index
+         * @return the drone id
+         */
+        private int droneId(int i) {
+            return columns.get(Column.DRONE_ID).getInt(i * Integer.BYTES);
+        }
+
+        /**
+         * Reads one row's type code.
+         *
+         * @param i the row index
+         * @return the type code
+         */
+        private int typeCode(int i) {
+            return columns.get(Column.TYPE_ID).getInt(i * Integer.BYTES);
+        }
+
+        /**
+         * Reads a whole row, rebuilding a summary in place of its details if the run was written without them.
+         * Row ids start at 1 in every run, like the rows of a fresh SQLite run table.
+         *
+         * @param i the row index
+         * @return the row
+         */
+        private AnomalyRow row(int i) {
+            int droneId = droneId(i);
+            double simTime = value(Column.SIM_TIME, i);
+            String text;
+            if (details != null) {
+                int start = i == 0 ? 0 : (int) detailsEnd.getLong((i - 1) * Long.BYTES);
+                int end = (int) detailsEnd.getLong(i * Long.BYTES);
+                byte[] bytes = new byte[end - start];
+                details.get(start, bytes);
+                text = new String(bytes, StandardCharsets.UTF_8);
+            } else {
+                TelemetryData data = new TelemetryData(value(Column.LATITUDE, i), value(Column.LONGITUDE, i),
+                        value(Column.ALTITUDE, i), value(Column.ORIENTATION, i), value(Column.VELOCITY, i));
+                text = AnomalyDB.rebuildDetails(droneId, simTime, data);
+            }
+            return new AnomalyRow(i + 1L, columns.get(Column.RECORDED_AT).getLong(i * Long.BYTES), simTime,
+                    droneId, types.get(typeCode(i)), text);
+        }
+
+        /**
+         * Reads one double value.
+         *
+         * @param column the column
+         * @param i the row index
+         * @return the value
+         */
+        private double value(Column column, int i) {
+            return columns.get(column).getDouble(i * Double.BYTES);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package database;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A read-only view of one flight recorder record.
+ * The same cursor is moved from record to record during a scan, so reading costs no allocation.
+ * Copy the values out (or call toSample) if they are needed after the visitor returns.
+ */
+public final class FlightRecordCursor {
+
+    /** The mapped segment the cursor is reading. */
+    private ByteBuffer buffer;
+
+    /** Byte offset of the current record. */
+    private int offset;
+
+    /** Anomaly type names, indexed by type code. */
+    private final List<String> types;
+
+    /**
+     * Creates a cursor that resolves anomaly type codes with the given names.
+     *
+     * @param types the anomaly type names, indexed by type code
+     */
+    FlightRecordCursor(List<String> types) {
+        this.types = types;
+    }
+
+    /**
+     * Points the cursor at a record.
+     *
+     * @param segment the mapped segment
+     * @param position the record position inside the segment
+     */
+    void moveTo(ByteBuffer segment, int position) {
+        buffer = segment;
+        offset = position * FlightRecorder.RECORD_SIZE;
+    }
+
+    /**
+     * Gets the record kind.
+     *
+     * @return FlightRecorder.KIND_TELEMETRY or FlightRecorder.KIND_ANOMALY
+     */
+    public byte kind() {
+        return buffer.get(offset);
+    }
+
+    /**
+     * Checks whether this record is an anomaly.
+     *
+     * @return true for an anomaly record, false for telemetry
+     */
+    public boolean isAnomaly() {
+        return kind() == FlightRecorder.KIND_ANOMALY;
+    }
+
+    /**
+     * Gets the drone id.
+     *
+     * @return the drone id
+     */
+    public int droneId() {
+        return buffer.getInt(offset + 4);
+    }
+
+    /**
+     * Gets the tick.
+     *
+     * @return the tick the record was written on
+     */
+    public long tick() {
+        return buffer.getLong(offset + 8);
+    }
+
+    /**
+     * Gets the latitude.
+     *
+     * @return the latitude
+     */
+    public double latitude() {
+        return buffer.getDouble(offset + 16);
+    }
+
+    /**
+     * Gets the longitude.
+     *
+     * @return the longitude
+     */
+    public double longitude() {
+        return buffer.getDouble(offset + 24);
+    }
+
+    /**
+     * Gets the altitude.
+     *
+     * @return the altitude
+     */
+    public double altitude() {
+        return buffer.getDouble(offset + 32);
+    }
+
+    /**
+     * Gets the orientation.
+     *
+     * @return the orientation
+     */
+    public double orientation() {
+        return buffer.getDouble(offset + 40);
+    }
+
+    /**
+     * Gets the velocity.
+     *
+     * @return the velocity
+     */
+    public double velocity() {
+        return buffer.getDouble(offset + 48);
+    }
+
+    /**
+     * Gets the battery level of a telemetry record.
+     *
+     * @return the battery level
+     */
+    public int battery() {
+        return buffer.getInt(offset + 56);
+    }
+
+    /**
+     * Gets the anomaly type of an anomaly record.
+     *
+     * @return the anomaly type name, or null if the code is unknown
+     */
+    public String anomalyType() {
+        int code = buffer.getInt(offset + 56);
+        return code >= 0 && code < types.size() ? types.get(code) : null;
+    }
+
+    /**
+     * Copies a telemetry record into a TelemetrySample.
+     *
+     * @return the sample
+     */
+    public TelemetrySample toSample() {
+        return new TelemetrySample(droneId(), tick(), latitude(), longitude(), altitude(),
+                orientation(), velocity(), battery());
+    }
+}
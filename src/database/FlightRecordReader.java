@@ -0,0 +1,270 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments written by a FlightRecorder, for replay and export.
+ * A scan uses each segment's sparse index to jump close to the first wanted tick,
+ * then walks the fixed-size records forward until it passes the last wanted tick.
+ */
+public class FlightRecordReader {
+
+    /**
+     * Receives each record of a scan.
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * Handles one record.
+         *
+         * @param record the current record, only valid until this method returns
+         * @return true to keep scanning, false to stop
+         */
+        boolean visit(FlightRecordCursor record);
+    }
+
+    /**
+     * What the reader knows about one segment.
+     *
+     * @param file the segment data file
+     * @param firstTick the first tick in the segment
+     * @param lastTick the last tick in the segment
+     * @param recordCount the number of records in the segment
+     * @param indexTicks the ticks of the sparse index entries
+     * @param indexPositions the record positions of the sparse index entries
+     */
+    private record Segment(Path file, long firstTick, long lastTick, int recordCount,
+                           long[] indexTicks, int[] indexPositions) {}
+
+    /** Every segment, oldest first. */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /** Anomaly type names, indexed by type code. */
+    private final List<String> types;
+
+    /**
+     * Opens every segment in a flight recorder directory.
+     * A segment without an up to date index (the recorder didn't close cleanly) is scanned to recover it.
+     *
+     * @param directory the recorder directory
+     * @throws UncheckedIOException if the directory can't be read
+     */
+    public FlightRecordReader(Path directory) {
+        try {
+            types = readTypes(directory);
+            for (Path file : listSegments(directory)) {
+                String name = file.getFileName().toString();
+                Path indexFile = file.resolveSibling(name.substring(0,
+                        name.length() - FlightRecorder.SEGMENT_EXTENSION.length()) + FlightRecorder.INDEX_EXTENSION);
+                Segment segment = loadSegment(file, indexFile);
+                if (segment.recordCount() > 0) {
+                    segments.add(segment);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening flight recorder in " + directory, e);
+        }
+    }
+
+    /**
+     * Visits every record between two ticks, in the order they were written.
+     *
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @param visitor receives each record
+     */
+    public void scan(long fromTick, long toTick, RecordVisitor visitor) {
+        FlightRecordCursor cursor = new FlightRecordCursor(types);
+
+        for (Segment segment : segments) {
+            if (segment.lastTick() < fromTick || segment.firstTick() > toTick) {
+                continue;
+            }
+
+            MappedByteBuffer buffer = map(segment.file(), segment.recordCount());
+            for (int position = seek(segment, fromTick); position < segment.recordCount(); position++) {
+                cursor.moveTo(buffer, position);
+                long tick = cursor.tick();
+                if (tick > toTick) {
+                    break;
+                }
+                if (tick >= fromTick && !visitor.visit(cursor)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every record in every segment.
+     *
+     * @param visitor receives each record
+     */
+    public void scanAll(RecordVisitor visitor) {
+        scan(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+    }
+
+    /**
+     * Gets the total number of records across every segment.
+     *
+     * @return the number of records
+     */
+    public long getRecordCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.recordCount();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of segments that hold records.
+     *
+     * @return the number of segments
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Finds the record position to start scanning from for a tick, using the sparse index.
+     * Each entry marks the first record of its tick, so the last entry at or before fromTick is safe.
+     *
+     * @param segment the segment to search
+     * @param fromTick the first wanted tick
+     * @return the record position to start from
+     */
+    private static int seek(Segment segment, long fromTick) {
+        long[] ticks = segment.indexTicks();
+        int low = 0;
+        int high = ticks.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ticks[mid] <= fromTick) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? 0 : segment.indexPositions()[found];
+    }
+
+    /**
+     * Loads a segment's index, and scans past it for records written after it was saved.
+     *
+     * @param file the segment data file
+     * @param indexFile the segment index file
+     * @return the segment description
+     * @throws IOException if the files can't be read
+     */
+    private static Segment loadSegment(Path file, Path indexFile) throws IOException {
+        long firstTick = 0;
+        long lastTick = 0;
+        int count = 0;
+        List<long[]> entries = new ArrayList<>();
+
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                firstTick = in.readLong();
+                lastTick = in.readLong();
+                count = in.readInt();
+                int entryCount = in.readInt();
+                for (int i = 0; i < entryCount; i++) {
+                    entries.add(new long[]{in.readLong(), in.readInt()});
+                }
+            }
+        }
+
+        // Records past the saved count were written after the last force, recover them
+        int capacity = (int) (Files.size(file) / FlightRecorder.RECORD_SIZE);
+        MappedByteBuffer buffer = map(file, capacity);
+        int lastEntryPosition = entries.isEmpty() ? Integer.MIN_VALUE : (int) entries.get(entries.size() - 1)[1];
+        while (count < capacity && buffer.get(count * FlightRecorder.RECORD_SIZE) != 0) {
+            long tick = buffer.getLong(count * FlightRecorder.RECORD_SIZE + 8);
+            if (count == 0) {
+                firstTick = tick;
+            }
+            if (entries.isEmpty() || (tick != lastTick && count - lastEntryPosition >= FlightRecorder.INDEX_INTERVAL)) {
+                entries.add(new long[]{tick, count});
+                lastEntryPosition = count;
+            }
+            lastTick = tick;
+            count++;
+        }
+
+        long[] indexTicks = new long[entries.size()];
+        int[] indexPositions = new int[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            indexTicks[i] = entries.get(i)[0];
+            indexPositions[i] = (int) entries.get(i)[1];
+        }
+        return new Segment(file, firstTick, lastTick, count, indexTicks, indexPositions);
+    }
+
+    /**
+     * Maps the used part of a segment for reading.
+     *
+     * @param file the segment data file
+     * @param recordCount the number of records to map
+     * @return the mapped records
+     */
+    private static MappedByteBuffer map(Path file, int recordCount) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), (long) recordCount * FlightRecorder.RECORD_SIZE);
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping flight recorder segment " + file, e);
+        }
+    }
+
+    /**
+     * Lists the segment data files in a directory, oldest first.
+     *
+     * @param directory the recorder directory
+     * @return the segment files
+     * @throws IOException if the directory can't be listed
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(FlightRecorder.SEGMENT_PREFIX)
+                                && name.endsWith(FlightRecorder.SEGMENT_EXTENSION);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Reads the anomaly type names of a recorder directory.
+     *
+     * @param directory the recorder directory
+     * @return the type names, indexed by type code
+     * @throws IOException if the types file can't be read
+     */
+    static List<String> readTypes(Path directory) throws IOException {
+        Path file = directory.resolve(FlightRecorder.TYPES_FILE);
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        return Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+}
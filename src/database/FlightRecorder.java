@@ -0,0 +1,385 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.Drone;
+import Model.TelemetryData;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only binary log of every drone's telemetry and every anomaly, for replay and export.
+ * Records have a fixed size and are copied straight into memory-mapped segment files, so recording
+ * a tick is only a handful of buffer writes, with no JDBC, no allocation and no system call per record.
+ * A segment rolls over once it is full, and gets a sparse tick index so readers can seek by time.
+ * Only the newest segments are kept, the oldest is deleted when a new one would go past the limit.
+ *
+ * Record layout (RECORD_SIZE bytes, big endian):
+ * kind (1), padding (3), drone id (4), tick (8), latitude, longitude, altitude, orientation, velocity (8 each),
+ * battery level or anomaly type code (4), reserved (4).
+ */
+public class FlightRecorder implements AutoCloseable {
+
+    /** Size of every record, in bytes. */
+    public static final int RECORD_SIZE = 64;
+
+    /** Record kind for a drone's telemetry on a tick. */
+    public static final byte KIND_TELEMETRY = 1;
+
+    /** Record kind for an anomaly. */
+    public static final byte KIND_ANOMALY = 2;
+
+    /** Default segment size, 64 MiB (about a million records). */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    /** Default number of segments kept, 1 GiB of default sized segments. */
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    /** A sparse index entry is added at most once per this many records. */
+    static final int INDEX_INTERVAL = 1024;
+
+    /** Prefix of every segment file name. */
+    static final String SEGMENT_PREFIX = "segment-";
+
+    /** Extension of the segment data files. */
+    static final String SEGMENT_EXTENSION = ".frc";
+
+    /** Extension of the sparse index files. */
+    static final String INDEX_EXTENSION = ".idx";
+
+    /** File holding the anomaly type names, one per line, in type code order. */
+    static final String TYPES_FILE = "types.txt";
+
+    /** Directory the segments are written to. */
+    private final Path directory;
+
+    /** Size of each segment file, rounded down to whole records. */
+    private final int segmentBytes;
+
+    /** Most segments kept in the directory, counting the one being written. */
+    private final int maxSegments;
+
+    /** Reused to read each drone's telemetry without copying it, only touched by the recording thread. */
+    private final TelemetryData scratch = new TelemetryData();
+
+    /** Type code of every anomaly type seen so far. */
+    private final Map<String, Integer> typeCodes = new HashMap<>();
+
+    /** The segment being written. */
+    private FileChannel channel;
+
+    /** The mapped view of the segment being written. */
+    private MappedByteBuffer buffer;
+
+    /** Sequence number of the segment being written. */
+    private long segmentNumber;
+
+    /** Number of records in the segment being written. */
+    private int recordCount;
+
+    /** Ticks of the sparse index entries, preallocated for a full segment. */
+    private final long[] indexTicks;
+
+    /** Record positions of the sparse index entries. */
+    private final int[] indexPositions;
+
+    /** Number of sparse index entries used. */
+    private int indexCount;
+
+    /** First tick written to the current segment. */
+    private long firstTick;
+
+    /** Last tick written to the current segment. */
+    private long lastTick;
+
+    /**
+     * Opens a recorder that starts a new segment after any already in the directory,
+     * keeping at most DEFAULT_MAX_SEGMENTS segments.
+     *
+     * @param directory where the segments are written
+     * @param segmentBytes the size of each segment file, at least one record
+     * @throws IllegalArgumentException if segmentBytes can't hold a record
+     * @throws UncheckedIOException if the directory or first segment can't be created
+     */
+    public FlightRecorder(Path directory, int segmentBytes) {
+        this(directory, segmentBytes, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * Opens a recorder that starts a new segment after any already in the directory.
+     *
+     * @param directory where the segments are written
+     * @param segmentBytes the size of each segment file, at least one record
+     * @param maxSegments the most segments kept, at least one
+     * @throws IllegalArgumentException if segmentBytes can't hold a record or maxSegments is below one
+     * @throws UncheckedIOException if the directory or first segment can't be created
+     */
+    public FlightRecorder(Path directory, int segmentBytes, int maxSegments) {
+        if (segmentBytes < RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment must hold at least one record: " + segmentBytes);
+        }
+        if (maxSegments < 1) {
+            throw new IllegalArgumentException("At least one segment must be kept: " + maxSegments);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes - segmentBytes % RECORD_SIZE;
+        this.maxSegments = maxSegments;
+
+        try {
+            Files.createDirectories(directory);
+            loadTypes();
+            // Numbered after the newest segment, not by count, since the oldest ones may have been deleted
+            List<Path> segments = FlightRecordReader.listSegments(directory);
+            segmentNumber = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1)) + 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening flight recorder in " + directory, e);
+        }
+
+        int maxEntries = this.segmentBytes / RECORD_SIZE / INDEX_INTERVAL + 2;
+        indexTicks = new long[maxEntries];
+        indexPositions = new int[maxEntries];
+        openSegment();
+    }
+
+    /**
+     * Records every drone's telemetry for one tick.
+     *
+     * @param tick the tick that just finished
+     * @param fleet the fleet after the tick's update
+     */
+    public void recordTelemetry(long tick, Drone[] fleet) {
+        for (Drone drone : fleet) {
+            drone.copyTelemetryInto(scratch);
+            write(KIND_TELEMETRY, drone.getDroneID(), tick, scratch, drone.getBatteryLevel());
+        }
+    }
+
+    /**
+     * Records one anomaly, with the current telemetry of its drone.
+     *
+     * @param tick the tick the anomaly was detected on
+     * @param anomaly the anomaly
+     * @param drone the drone the anomaly happened to
+     */
+    public void recordAnomaly(long tick, AnomalyRecord anomaly, Drone drone) {
+        drone.copyTelemetryInto(scratch);
+        recordAnomaly(tick, anomaly, scratch);
+    }
+
+    /**
+     * Records one anomaly, with the telemetry of its drone.
+     *
+     * @param tick the tick the anomaly was detected on
+     * @param anomaly the anomaly
+     * @param data the drone's telemetry
+     */
+    public void recordAnomaly(long tick, AnomalyRecord anomaly, TelemetryData data) {
+        write(KIND_ANOMALY, anomaly.getID(), tick, data, typeCode(anomaly.getType()));
+    }
+
+    /**
+     * Makes sure everything written so far is on disk, including the current segment's index.
+     */
+    public void force() {
+        buffer.force();
+        writeIndex();
+    }
+
+    /**
+     * Forces the current segment to disk and closes it.
+     */
+    @Override
+    public void close() {
+        closeSegment();
+    }
+
+    /**
+     * Copies one record into the mapped segment, rolling over first if it is full.
+     *
+     * @param kind the record kind
+     * @param droneId the drone id
+     * @param tick the tick
+     * @param data the telemetry
+     * @param extra the battery level or anomaly type code
+     */
+    private void write(byte kind, int droneId, long tick, TelemetryData data, int extra) {
+        // Ticks only move forward inside a segment, so a new run (tick going back) starts a new one
+        if (buffer.remaining() < RECORD_SIZE || (recordCount > 0 && tick < lastTick)) {
+            closeSegment();
+            segmentNumber++;
+            openSegment();
+        }
+
+        if (recordCount == 0) {
+            firstTick = tick;
+        }
+        // Index the first record of a tick, once enough records went by since the last entry
+        if (indexCount == 0 || (tick != lastTick
+                && recordCount - indexPositions[indexCount - 1] >= INDEX_INTERVAL)) {
+            indexTicks[indexCount] = tick;
+            indexPositions[indexCount] = recordCount;
+            indexCount++;
+        }
+        lastTick = tick;
+
+        buffer.put(kind);
+        buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+        buffer.putInt(droneId);
+        buffer.putLong(tick);
+        buffer.putDouble(data.getLatitude());
+        buffer.putDouble(data.getLongitude());
+        buffer.putDouble(data.getAltitude());
+        buffer.putDouble(data.getOrientation());
+        buffer.putDouble(data.getVelocity());
+        buffer.putInt(extra);
+        buffer.putInt(0);
+        recordCount++;
+    }
+
+    /**
+     * Gets the code for an anomaly type, adding it to the types file the first time it is seen.
+     *
+     * @param type the anomaly type name
+     * @return the type code
+     */
+    private int typeCode(String type) {
+        Integer code = typeCodes.get(type);
+        if (code != null) {
+            return code;
+        }
+
+        int newCode = typeCodes.size();
+        typeCodes.put(type, newCode);
+        try {
+            Files.writeString(directory.resolve(TYPES_FILE), type + System.lineSeparator(),
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error saving flight recorder type " + type + ": " + e.getMessage());
+        }
+        return newCode;
+    }
+
+    /**
+     * Reads the type names left by earlier recordings, so codes stay stable across runs.
+     *
+     * @throws IOException if the types file can't be read
+     */
+    private void loadTypes() throws IOException {
+        for (String type : FlightRecordReader.readTypes(directory)) {
+            typeCodes.put(type, typeCodes.size());
+        }
+    }
+
+    /**
+     * Creates and maps the next segment file, deleting the oldest segments to make room for it.
+     */
+    private void openSegment() {
+        deleteOldSegments();
+        Path file = segmentFile(directory, segmentNumber);
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening flight recorder segment " + file, e);
+        }
+        recordCount = 0;
+        indexCount = 0;
+    }
+
+    /**
+     * Deletes the oldest segments and their indexes, until there is room for one more under the limit.
+     */
+    private void deleteOldSegments() {
+        try {
+            List<Path> segments = FlightRecordReader.listSegments(directory);
+            for (int i = 0; i <= segments.size() - maxSegments; i++) {
+                long number = segmentNumber(segments.get(i));
+                Files.deleteIfExists(segmentFile(directory, number));
+                Files.deleteIfExists(indexFile(directory, number));
+            }
+        } catch (IOException e) {
+            System.err.println("Error deleting old flight recorder segments: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces the current segment to disk, saves its index and closes it.
+     */
+    private void closeSegment() {
+        if (channel == null) {
+            return;
+        }
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing flight recorder segment: " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Writes the sparse index of the current segment next to it.
+     * Index file layout: first tick, last tick, record count, entry count, then (tick, position) pairs.
+     */
+    private void writeIndex() {
+        Path file = indexFile(directory, segmentNumber);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(firstTick);
+            out.writeLong(lastTick);
+            out.writeInt(recordCount);
+            out.writeInt(indexCount);
+            for (int i = 0; i < indexCount; i++) {
+                out.writeLong(indexTicks[i]);
+                out.writeInt(indexPositions[i]);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing flight recorder index " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the data file of a segment.
+     *
+     * @param directory the recorder directory
+     * @param number the segment sequence number
+     * @return the segment file path
+     */
+    static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_EXTENSION));
+    }
+
+    /**
+     * Reads the sequence number out of a segment file name.
+     *
+     * @param segmentFile the segment data file
+     * @return the segment sequence number
+     */
+    static long segmentNumber(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    /**
+     * Gets the index file of a segment.
+     *
+     * @param directory the recorder directory
+     * @param number the segment sequence number
+     * @return the index file path
+     */
+    static Path indexFile(Path directory, long number) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, INDEX_EXTENSION));
+    }
+}
@@ -0,0 +1,574 @@
+package database;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A columnar, Gorilla-style codec for telemetry samples.
+ * Each column gets its own bit stream, so neighbouring values of the same kind are compared:
+ * ticks are stored as delta-of-deltas, the five telemetry doubles are XORed with the previous value
+ * of their column, and the battery level is stored as small bit-packed deltas.
+ * Both sides stream: the encoder takes one sample at a time, the decoder hands one back at a time.
+ *
+ * Positions come out of trigonometry, so their low mantissa bits are noise that XOR can't remove.
+ * An encoder given a position resolution stores latitude, longitude and altitude as whole multiples
+ * of it instead, with delta-of-deltas like the ticks, which is where most of the savings on a long run come from.
+ *
+ * Encoded layout: sample count (4 bytes), position resolution (8 bytes, 0 for lossless),
+ * then for each column its byte length (4 bytes) and its bits.
+ */
+public final class GorillaCodec {
+
+    /** Number of double columns: latitude, longitude, altitude, orientation, velocity. */
+    public static final int DOUBLE_COLUMNS = 5;
+
+    /** Number of leading double columns that hold a position: latitude, longitude, altitude. */
+    public static final int POSITION_COLUMNS = 3;
+
+    /** Total number of columns, the ticks and battery included. */
+    private static final int COLUMN_COUNT = DOUBLE_COLUMNS + 2;
+
+    /** Largest whole number stored as a difference, so every difference fits a long and converts back exactly. */
+    private static final double MAX_EXACT_WHOLE = 1L << 53;
+
+    /** Bits of -0.0. */
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
+    /** Starting buffer size for each column, in bytes. */
+    private static final int INITIAL_COLUMN_BYTES = 64;
+
+    /**
+     * Not meant to be created, use Encoder and Decoder.
+     */
+    private GorillaCodec() {
+    }
+
+    /**
+     * Compresses samples one at a time.
+     */
+    public static final class Encoder {
+
+        /** Tick column. */
+        private final DeltaOfDeltaWriter ticks = new DeltaOfDeltaWriter();
+
+        /** One column per telemetry double, for the positions only when they are lossless. */
+        private final XorWriter[] values = new XorWriter[DOUBLE_COLUMNS];
+
+        /** The position columns as whole multiples of the resolution, when one is set. */
+        private final DeltaOfDeltaWriter[] positions = new DeltaOfDeltaWriter[POSITION_COLUMNS];
+
+        /** Battery column. */
+        private final SmallIntWriter battery = new SmallIntWriter();
+
+        /** Position resolution, 0 when positions are stored exactly. */
+        private final double positionResolution;
+
+        /** Number of samples appended. */
+        private int count;
+
+        /**
+         * Creates an empty encoder that stores every value exactly.
+         */
+        public Encoder() {
+            this(0);
+        }
+
+        /**
+         * Creates an empty encoder that rounds positions to a resolution.
+         *
+         * @param positionResolution the position step to round to, 0 to store positions exactly
+         * @throws IllegalArgumentException if the resolution is negative or not finite
+         */
+        public Encoder(double positionResolution) {
+            if (!(positionResolution >= 0) || Double.isInfinite(positionResolution)) {
+                throw new IllegalArgumentException("Invalid position resolution: " + positionResolution);
+            }
+            this.positionResolution = positionResolution;
+            for (int i = 0; i < DOUBLE_COLUMNS; i++) {
+                if (positionResolution > 0 && i < POSITION_COLUMNS) {
+                    positions[i] = new DeltaOfDeltaWriter();
+                } else {
+                    values[i] = new XorWriter();
+                }
+            }
+        }
+
+        /**
+         * Appends one sample.
+         *
+         * @param tick the sample tick
+         * @param latitude the latitude
+         * @param longitude the longitude
+         * @param altitude the altitude
+         * @param orientation the orientation
+         * @param velocity the velocity
+         * @param batteryLevel the battery level
+         * @throws IllegalArgumentException if positions are rounded and one of them is not finite
+         */
+        public void append(long tick, double latitude, double longitude, double altitude,
+                           double orientation, double velocity, int batteryLevel) {
+            ticks.write(tick);
+            if (positionResolution > 0) {
+                positions[0].write(quantize(latitude));
+                positions[1].write(quantize(longitude));
+                positions[2].write(quantize(altitude));
+            } else {
+                values[0].write(latitude);
+                values[1].write(longitude);
+                values[2].write(altitude);
+            }
+            values[3].write(orientation);
+            values[4].write(velocity);
+            battery.write(batteryLevel);
+            count++;
+        }
+
+        /**
+         * Gets the number of samples appended.
+         *
+         * @return the sample count
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Rounds a position to a whole number of resolution steps.
+         *
+         * @param value the position
+         * @return the number of steps
+         * @throws IllegalArgumentException if the position is not finite
+         */
+        private long quantize(double value) {
+            if (!Double.isFinite(value)) {
+                throw new IllegalArgumentException("Position can't be rounded: " + value);
+            }
+            return Math.round(value / positionResolution);
+        }
+
+        /**
+         * Packs every column into one byte array.
+         *
+         * @return the encoded samples
+         */
+        public byte[] finish() {
+            byte[][] columns = new byte[COLUMN_COUNT][];
+            columns[0] = ticks.out.toByteArray();
+            for (int i = 0; i < DOUBLE_COLUMNS; i++) {
+                columns[i + 1] = values[i] != null ? values[i].out.toByteArray() : positions[i].out.toByteArray();
+            }
+            columns[COLUMN_COUNT - 1] = battery.out.toByteArray();
+
+            int size = Integer.BYTES * (1 + COLUMN_COUNT) + Double.BYTES;
+            for (byte[] column : columns) {
+                size += column.length;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(count);
+            buffer.putDouble(positionResolution);
+            for (byte[] column : columns) {
+                buffer.putInt(column.length);
+                buffer.put(column);
+            }
+            return buffer.array();
+        }
+    }
+
+    /**
+     * Decompresses samples one at a time.
+     * Call next() to move to the following sample, then read it through the getters.
+     */
+    public static final class Decoder {
+
+        /** Tick column. */
+        private final DeltaOfDeltaReader ticks;
+
+        /** One column per telemetry double, for the positions only when they are lossless. */
+        private final XorReader[] values = new XorReader[DOUBLE_COLUMNS];
+
+        /** The position columns as whole multiples of the resolution, when one is set. */
+        private final DeltaOfDeltaReader[] positions = new DeltaOfDeltaReader[POSITION_COLUMNS];
+
+        /** Battery column. */
+        private final SmallIntReader battery;
+
+        /** Position resolution, 0 when positions are stored exactly. */
+        private final double positionResolution;
+
+        /** Number of samples in the data. */
+        private final int count;
+
+        /** Number of samples read so far. */
+        private int read;
+
+        /** The current sample's tick. */
+        private long tick;
+
+        /** The current sample's doubles. */
+        private final double[] current = new double[DOUBLE_COLUMNS];
+
+        /** The current sample's battery level. */
+        private int batteryLevel;
+
+        /**
+         * Creates a decoder over encoded samples.
+         *
+         * @param data the array holding the encoded samples
+         * @param offset the index where the encoded samples start
+         */
+        public Decoder(byte[] data, int offset) {
+            ByteBuffer buffer = ByteBuffer.wrap(data, offset, data.length - offset);
+            count = buffer.getInt();
+            positionResolution = buffer.getDouble();
+
+            BitReader[] columns = new BitReader[COLUMN_COUNT];
+            for (int i = 0; i < COLUMN_COUNT; i++) {
+                int length = buffer.getInt();
+                columns[i] = new BitReader(data, buffer.position(), length);
+                buffer.position(buffer.position() + length);
+            }
+
+            ticks = new DeltaOfDeltaReader(columns[0]);
+            for (int i = 0; i < DOUBLE_COLUMNS; i++) {
+                if (positionResolution > 0 && i < POSITION_COLUMNS) {
+                    positions[i] = new DeltaOfDeltaReader(columns[i + 1]);
+                } else {
+                    values[i] = new XorReader(columns[i + 1]);
+                }
+            }
+            battery = new SmallIntReader(columns[COLUMN_COUNT - 1]);
+        }
+
+        /**
+         * Gets the number of samples in the data.
+         *
+         * @return the sample count
+         */
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Checks whether another sample is left.
+         *
+         * @return true if next() can be called
+         */
+        public boolean hasNext() {
+            return read < count;
+        }
+
+        /**
+         * Moves to the next sample.
+         *
+         * @throws IllegalStateException if there are no samples left
+         */
+        public void next() {
+            if (!hasNext()) {
+                throw new IllegalStateException("No samples left");
+            }
+            tick = ticks.read();
+            for (int i = 0; i < DOUBLE_COLUMNS; i++) {
+                current[i] = values[i] != null ? values[i].read() : positions[i].read() * positionResolution;
+            }
+            batteryLevel = battery.read();
+            read++;
+        }
+
+        /**
+         * Gets the current sample's tick.
+         *
+         * @return the tick
+         */
+        public long tick() {
+            return tick;
+        }
+
+        /**
+         * Gets one of the current sample's doubles.
+         *
+         * @param column 0 latitude, 1 longitude, 2 altitude, 3 orientation, 4 velocity
+         * @return the value
+         */
+        public double value(int column) {
+            return current[column];
+        }
+
+        /**
+         * Gets the current sample's battery level.
+         *
+         * @return the battery level
+         */
+        public int battery() {
+            return batteryLevel;
+        }
+    }
+
+    /**
+     * Stores a column of longs as the change in their difference.
+     * Evenly spaced ticks cost a single bit each.
+     */
+    private static final class DeltaOfDeltaWriter {
+        private final BitWriter out = new BitWriter(INITIAL_COLUMN_BYTES);
+        private long previous;
+        private long previousDelta;
+        private boolean first = true;
+
+        private void write(long value) {
+            if (first) {
+                out.writeBits(value, 64);
+                first = false;
+            } else {
+                long delta = value - previous;
+                writePrefixed(out, delta - previousDelta);
+                previousDelta = delta;
+            }
+            previous = value;
+        }
+    }
+
+    /**
+     * Reads a column written by DeltaOfDeltaWriter.
+     */
+    private static final class DeltaOfDeltaReader {
+        private final BitReader in;
+        private long previous;
+        private long previousDelta;
+        private boolean first = true;
+
+        private DeltaOfDeltaReader(BitReader in) {
+            this.in = in;
+        }
+
+        private long read() {
+            if (first) {
+                previous = in.readBits(64);
+                first = false;
+            } else {
+                previousDelta += readPrefixed(in);
+                previous += previousDelta;
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Stores a column of doubles as the XOR with the previous value.
+     * Repeated values cost one bit, and values that share sign, exponent and high mantissa bits
+     * only store the bits that changed.
+     * Whole numbers following a whole number (orientation and velocity usually are) are stored
+     * as their difference instead, which is far shorter than the XOR of two unrelated integers.
+     */
+    private static final class XorWriter {
+        private final BitWriter out = new BitWriter(INITIAL_COLUMN_BYTES);
+        private long previous;
+        private int leading = Integer.MAX_VALUE;
+        private int trailing;
+        private boolean first = true;
+
+        private void write(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            if (first) {
+                out.writeBits(bits, 64);
+                first = false;
+                previous = bits;
+                return;
+            }
+
+            long xor = bits ^ previous;
+            double previousValue = Double.longBitsToDouble(previous);
+            previous = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                return;
+            }
+            out.writeBit(true);
+
+            if (isWholeNumber(value) && isWholeNumber(previousValue)) {
+                out.writeBit(false);
+                writePrefixed(out, (long) value - (long) previousValue);
+                return;
+            }
+            out.writeBit(true);
+
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading != Integer.MAX_VALUE && newLeading >= leading && newTrailing >= trailing) {
+                // The changed bits fit in the previous window, so reuse it
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = newLeading;
+                trailing = newTrailing;
+                int significant = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+            }
+        }
+    }
+
+    /**
+     * Reads a column written by XorWriter.
+     */
+    private static final class XorReader {
+        private final BitReader in;
+        private long previous;
+        private int leading;
+        private int trailing;
+        private boolean first = true;
+
+        private XorReader(BitReader in) {
+            this.in = in;
+        }
+
+        private double read() {
+            if (first) {
+                previous = in.readBits(64);
+                first = false;
+            } else if (in.readBit()) {
+                if (!in.readBit()) {
+                    long whole = (long) Double.longBitsToDouble(previous) + readPrefixed(in);
+                    previous = Double.doubleToRawLongBits((double) whole);
+                } else {
+                    if (in.readBit()) {
+                        leading = (int) in.readBits(5);
+                        int significant = (int) in.readBits(6) + 1;
+                        trailing = 64 - leading - significant;
+                    }
+                    int significant = 64 - leading - trailing;
+                    previous ^= in.readBits(significant) << trailing;
+                }
+            }
+            return Double.longBitsToDouble(previous);
+        }
+    }
+
+    /**
+     * Stores a column of small ints (like a battery level) as zigzag deltas in a few bits.
+     */
+    private static final class SmallIntWriter {
+        private final BitWriter out = new BitWriter(INITIAL_COLUMN_BYTES);
+        private int previous;
+
+        private void write(int value) {
+            long zigzag = zigzag(value - (long) previous);
+            if (zigzag == 0) {
+                out.writeBit(false);
+            } else if (zigzag < 16) {
+                out.writeBits(0b10, 2);
+                out.writeBits(zigzag, 4);
+            } else {
+                out.writeBits(0b11, 2);
+                out.writeBits(zigzag, 33);
+            }
+            previous = value;
+        }
+    }
+
+    /**
+     * Reads a column written by SmallIntWriter.
+     */
+    private static final class SmallIntReader {
+        private final BitReader in;
+        private int previous;
+
+        private SmallIntReader(BitReader in) {
+            this.in = in;
+        }
+
+        private int read() {
+            if (in.readBit()) {
+                long zigzag = in.readBit() ? in.readBits(33) : in.readBits(4);
+                previous += (int) unzigzag(zigzag);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Writes a signed value (a delta-of-delta or a difference) with the shortest Gorilla-style prefix that fits it.
+     * Zero costs one bit, the wider buckets cover position steps at a fine resolution.
+     *
+     * @param out the column stream
+     * @param value the value
+     */
+    private static void writePrefixed(BitWriter out, long value) {
+        long zigzag = zigzag(value);
+        if (zigzag == 0) {
+            out.writeBit(false);
+        } else if (zigzag < (1L << 7)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(zigzag, 7);
+        } else if (zigzag < (1L << 12)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(zigzag, 12);
+        } else if (zigzag < (1L << 20)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(zigzag, 20);
+        } else if (zigzag < (1L << 32)) {
+            out.writeBits(0b11110, 5);
+            out.writeBits(zigzag, 32);
+        } else {
+            out.writeBits(0b11111, 5);
+            out.writeBits(value, 64);
+        }
+    }
+
+    /**
+     * Reads a value written by writePrefixed.
+     *
+     * @param in the column stream
+     * @return the value
+     */
+    private static long readPrefixed(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return unzigzag(in.readBits(7));
+        }
+        if (!in.readBit()) {
+            return unzigzag(in.readBits(12));
+        }
+        if (!in.readBit()) {
+            return unzigzag(in.readBits(20));
+        }
+        if (!in.readBit()) {
+            return unzigzag(in.readBits(32));
+        }
+        return in.readBits(64);
+    }
+
+    /**
+     * Checks whether a double is a whole number that survives a round trip through a long.
+     * Negative zero is left out, so the XOR path keeps its sign.
+     *
+     * @param value the value
+     * @return true if the value can be stored as a difference of longs
+     */
+    private static boolean isWholeNumber(double value) {
+        return value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_WHOLE
+                && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS;
+    }
+
+    /**
+     * Maps signed values to unsigned ones, so small negatives stay small.
+     *
+     * @param value the signed value
+     * @return the zigzag value
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Undoes zigzag.
+     *
+     * @param value the zigzag value
+     * @return the signed value
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
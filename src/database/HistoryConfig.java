@@ -0,0 +1,76 @@
+package database;
+
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Whether the telemetry history and the flight recorder run, and where they write.
+ * Both record every drone on every tick and grow with every run, so they are off unless turned on.
+ * Every key is read from db.properties, and a system property of the same name overrides it, like db.backend.
+ *
+ * @param telemetryEnabled whether every tick is recorded to the telemetry history
+ * @param telemetryUrl the JDBC url of the telemetry history database
+ * @param recorderEnabled whether every tick is logged by the flight recorder
+ * @param recorderDirectory where the flight recorder segments are written
+ * @param recorderSegments the most flight recorder segments kept
+ */
+public record HistoryConfig(boolean telemetryEnabled, String telemetryUrl, boolean recorderEnabled,
+                            Path recorderDirectory, int recorderSegments) {
+
+    /** Property turning the telemetry history on. */
+    public static final String TELEMETRY_PROPERTY = "history.telemetry";
+
+    /** Property turning the flight recorder on. */
+    public static final String RECORDER_PROPERTY = "history.recorder";
+
+    /** Both off, writing to telemetry.db and flight-recorder/ in the working directory when turned on. */
+    public static final HistoryConfig DEFAULT = new HistoryConfig(false, "jdbc:sqlite:telemetry.db", false,
+            Path.of("flight-recorder"), FlightRecorder.DEFAULT_MAX_SEGMENTS);
+
+    /**
+     * Checks the configuration.
+     *
+     * @throws IllegalArgumentException if no flight recorder segment would be kept
+     */
+    public HistoryConfig {
+        if (recorderSegments < 1) {
+            throw new IllegalArgumentException("At least one flight recorder segment must be kept: " + recorderSegments);
+        }
+    }
+
+    /**
+     * Reads the configuration from db.properties and the system properties. Missing keys keep their DEFAULT value.
+     * Keys: history.telemetry, history.telemetry.url, history.recorder, history.recorder.dir
+     * and history.recorder.segments.
+     *
+     * @param props the loaded properties
+     * @return the configuration
+     * @throws IllegalArgumentException if the segment count isn't a number or is below one
+     */
+    public static HistoryConfig fromProperties(Properties props) {
+        String segments = read(props, "history.recorder.segments", Integer.toString(DEFAULT.recorderSegments));
+        try {
+            return new HistoryConfig(
+                    Boolean.parseBoolean(read(props, TELEMETRY_PROPERTY, Boolean.toString(DEFAULT.telemetryEnabled))),
+                    read(props, "history.telemetry.url", DEFAULT.telemetryUrl),
+                    Boolean.parseBoolean(read(props, RECORDER_PROPERTY, Boolean.toString(DEFAULT.recorderEnabled))),
+                    Path.of(read(props, "history.recorder.dir", DEFAULT.recorderDirectory.toString())),
+                    Integer.parseInt(segments));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid history.recorder.segments: " + segments, e);
+        }
+    }
+
+    /**
+     * Reads one property, the system property winning over the file.
+     *
+     * @param props the loaded properties
+     * @param key the property name
+     * @param defaultValue the value to use when neither sets the key
+     * @return the trimmed value
+     */
+    private static String read(Properties props, String key, String defaultValue) {
+        String value = System.getProperty(key, props.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
@@ -0,0 +1,261 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the newest anomalies of the current run in a fixed-size ring in memory.
+ * Once the ring is full every new row overwrites the oldest one, so memory stays bounded however long
+ * the simulation runs. Nothing survives a restart, which makes it the right choice for short demos
+ * and for machines without a writable disk.
+ */
+public class MemoryAnomalyStore implements AnomalyStore {
+
+    /**
+     * One stored anomaly. Without stored details, a summary is only rebuilt into text when the row is read.
+     *
+     * @param id the row id
+     * @param recordedAt when the anomaly was stored, in epoch milliseconds
+     * @param record the anomaly record, with its details cleared unless they are stored
+     * @param telemetry the drone telemetry at the time of the anomaly
+     */
+    private record Entry(long id, long recordedAt, AnomalyRecord record, TelemetryData telemetry) {
+
+        /**
+         * Builds the row the queries return.
+         *
+         * @return the row
+         */
+        private AnomalyRow toRow() {
+            String details = record.getDetails() != null ? record.getDetails()
+                    : AnomalyDB.rebuildDetails(record.getID(), record.getTime(), telemetry);
+            return new AnomalyRow(id, recordedAt, record.getTime(), record.getID(), record.getType(), details);
+        }
+    }
+
+    /** Rough size of one row without its detail text: the entry, its record, its telemetry and the ring slot. */
+    private static final long ROW_OVERHEAD_BYTES = 160;
+
+    /** The rows, oldest at head once the ring has wrapped. */
+    private final Entry[] ring;
+
+    /** Whether the full detail text is kept, instead of being rebuilt from the telemetry. */
+    private final boolean storeDetails;
+
+    /** Index of the oldest row. */
+    private int head;
+
+    /** Number of rows in the ring. */
+    private int size;
+
+    /** Id given to the next row, ids never repeat within a run so page cursors stay valid. */
+    private long nextId = 1;
+
+    /** The current run. */
+    private long runId = 1;
+
+    /** Estimated bytes held by the rows in the ring. */
+    private long footprintBytes;
+
+    /**
+     * The search index over the rows, by row id. Rows are added when a search runs, and the index is
+     * rebuilt once more of it has aged out of the ring than is left. The field is guarded by this store,
+     * what the index holds by the index itself, so rows are indexed without holding up the writer.
+     */
+    private AnomalySearchIndex searchIndex;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param capacity the most rows kept, older rows are dropped
+     * @param storeDetails whether to keep the full detail text of every anomaly
+     * @throws IllegalArgumentException if the capacity isn't positive
+     */
+    public MemoryAnomalyStore(int capacity, boolean storeDetails) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        ring = new Entry[capacity];
+        this.storeDetails = storeDetails;
+    }
+
+    @Override
+    public synchronized int saveAnomalyBatch(List<PendingAnomaly> batch) {
+        if (batch == null) {
+            return 0;
+        }
+
+        long recordedAt = System.currentTimeMillis();
+        for (PendingAnomaly pending : batch) {
+            AnomalyRecord record = pending.record();
+            // A copy, so dropping the details never changes the caller's record
+            AnomalyRecord stored = new AnomalyRecord(record.getType(), record.getID(), record.getTime(),
+                    storeDetails ? record.getDetails() : null);
+            add(new Entry(nextId++, recordedAt, stored, pending.telemetry()));
+        }
+        return batch.size();
+    }
+
+    @Override
+    public synchronized long startRun() {
+        clearRing();
+        nextId = 1;
+        return ++runId;
+    }
+
+    @Override
+    public synchronized AnomalyPage queryAnomalies(AnomalyQuery query) {
+        List<AnomalyRow> rows = new ArrayList<>();
+        // Newest first, one extra row to know whether another page exists
+        for (int i = size - 1; i >= 0 && rows.size() <= query.limit(); i--) {
+            Entry entry = ring[(head + i) % ring.length];
+            // The cheap filters go first, so most rows are skipped without building their details
+            if (query.droneId() != null && entry.record().getID() != query.droneId().intValue()) continue;
+            if (!query.acceptsType(entry.record().getType())) continue;
+            AnomalyRow row = entry.toRow();
+            if (query.matches(row)) {
+                rows.add(row);
+            }
+        }
+
+        boolean hasMore = rows.size() > query.limit();
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        return new AnomalyPage(rows, query, hasMore);
+    }
+
+    @Override
+    public List<AnomalyRow> searchAnomalies(AnomalySearch search) {
+        AnomalySearchIndex index;
+        List<Entry> newRows = new ArrayList<>();
+        long oldestId;
+        long searchedRun;
+        synchronized (this) {
+            if (size == 0) {
+                return List.of();
+            }
+            oldestId = ring[head].id();
+            searchedRun = runId;
+            index = rowsToIndex(oldestId, newRows);
+        }
+
+        // Building the new rows' text, indexing it and scoring all run outside the store lock,
+        // so a long search never holds up the writer
+        long[] positions;
+        synchronized (index) {
+            for (Entry entry : newRows) {
+                // Another search may have indexed some of the same rows first
+                if (entry.id() < index.nextPosition()) continue;
+                AnomalyRow row = entry.toRow();
+                index.add(row.anomalyType(), row.details());
+            }
+            positions = index.search(search, oldestId);
+        }
+
+        List<AnomalyRow> matches = new ArrayList<>(positions.length);
+        synchronized (this) {
+            // Rows that aged out (or a run that ended) while scoring are left out
+            if (searchedRun != runId || size == 0) {
+                return List.of();
+            }
+            long oldest = ring[head].id();
+            for (long id : positions) {
+                if (id >= oldest && id < oldest + size) {
+                    matches.add(ring[(int) ((head + id - oldest) % ring.length)].toRow());
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public synchronized void clear() {
+        clearRing();
+        nextId = 1;
+        runId++;
+    }
+
+    @Override
+    public synchronized long getFootprintBytes() {
+        return footprintBytes;
+    }
+
+    /**
+     * Releases the rows, there is nothing else to close.
+     */
+    @Override
+    public synchronized void close() {
+        clearRing();
+    }
+
+    /**
+     * Picks the search index for the ring, starting a new one when the rows it missed already aged out,
+     * or when most of what it holds has, and copies out the rows it doesn't hold yet. Only the entries
+     * are copied, the caller indexes them after releasing this store's lock, which it holds now.
+     *
+     * @param oldestId the id of the oldest row in the ring
+     * @param newRows filled with the rows the index doesn't hold yet, oldest first
+     * @return the index
+     */
+    private AnomalySearchIndex rowsToIndex(long oldestId, List<Entry> newRows) {
+        long nextId = -1;
+        if (searchIndex != null) {
+            // A search that released this store's lock may still be adding rows to it
+            synchronized (searchIndex) {
+                nextId = searchIndex.nextPosition();
+            }
+        }
+        if (searchIndex == null || nextId < oldestId || oldestId - searchIndex.firstPosition() > ring.length) {
+            searchIndex = new AnomalySearchIndex(oldestId);
+            nextId = oldestId;
+        }
+        for (long id = nextId; id < oldestId + size; id++) {
+            newRows.add(ring[(int) ((head + id - oldestId) % ring.length)]);
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Adds a row, overwriting the oldest one if the ring is full.
+     *
+     * @param entry the entry to add
+     */
+    private void add(Entry entry) {
+        int slot = (head + size) % ring.length;
+        if (size == ring.length) {
+            footprintBytes -= entryBytes(ring[slot]);
+            head = (head + 1) % ring.length;
+        } else {
+            size++;
+        }
+        ring[slot] = entry;
+        footprintBytes += entryBytes(entry);
+    }
+
+    /**
+     * Empties the ring.
+     */
+    private void clearRing() {
+        Arrays.fill(ring, null);
+        searchIndex = null;
+        head = 0;
+        size = 0;
+        footprintBytes = 0;
+    }
+
+    /**
+     * Estimates the memory an entry holds. Type names are shared string constants, so only the details count.
+     *
+     * @param entry the entry
+     * @return the estimated size in bytes
+     */
+    private static long entryBytes(Entry entry) {
+        String details = entry.record().getDetails();
+        return ROW_OVERHEAD_BYTES + (details == null ? 0 : details.length());
+    }
+}
@@ -0,0 +1,48 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * An anomaly waiting to be written to the database, together with the telemetry
+ * the drone had when the anomaly was detected.
+ *
+ * @param record the anomaly record to save.
+ * @param telemetry a copy of the drone telemetry at the time of the anomaly.
+ */
+public record PendingAnomaly(AnomalyRecord record, TelemetryData telemetry) {
+
+    /** Codec used to spill pending anomalies to disk when the write-behind queue is full. */
+    public static final WriteBehindQueue.SpillCodec<PendingAnomaly> SPILL_CODEC =
+            new WriteBehindQueue.SpillCodec<>() {
+                @Override
+                public void write(DataOutputStream out, PendingAnomaly item) throws IOException {
+                    AnomalyRecord record = item.record();
+                    TelemetryData data = item.telemetry();
+                    out.writeInt(record.getID());
+                    out.writeUTF(record.getType());
+                    out.writeDouble(record.getTime());
+                    out.writeUTF(record.getDetails() == null ? "" : record.getDetails());
+                    out.writeDouble(data.getLatitude());
+                    out.writeDouble(data.getLongitude());
+                    out.writeDouble(data.getAltitude());
+                    out.writeDouble(data.getOrientation());
+                    out.writeDouble(data.getVelocity());
+                }
+
+                @Override
+                public PendingAnomaly read(DataInputStream in) throws IOException {
+                    int id = in.readInt();
+                    String type = in.readUTF();
+                    double time = in.readDouble();
+                    String details = in.readUTF();
+                    TelemetryData data = new TelemetryData(in.readDouble(), in.readDouble(),
+                            in.readDouble(), in.readDouble(), in.readDouble());
+                    return new PendingAnomaly(new AnomalyRecord(type, id, time, details), data);
+                }
+            };
+}
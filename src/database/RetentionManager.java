@@ -0,0 +1,330 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the anomaly database from growing without bound, following a RetentionPolicy.
+ * A background thread rolls raw rows up into per-minute counts, minute counts into per-hour counts,
+ * and purges the oldest hours. Raw rows are rolled up run by run, oldest first, and a finished run's
+ * table is dropped once it is empty. Every step moves at most batchRows rows in its own short transaction,
+ * so batch writes only ever wait for one small step, and the simulation thread never waits at all.
+ */
+public class RetentionManager implements AutoCloseable {
+
+    /** Most batches of each step in one pass, so a long backlog is worked off over several passes. */
+    static final int MAX_BATCHES_PER_PASS = 50;
+
+    /** Finds the newest id of the oldest batch of raw rows past the cutoff, %s is the run table. */
+    private static final String RAW_BATCH_END_SQL = "SELECT MAX(id) FROM (SELECT id FROM %s "
+            + "WHERE recorded_at < ? ORDER BY recorded_at, id LIMIT ?)";
+
+    /**
+     * Adds a batch of raw rows to the per-minute counts, %s is the run table.
+     * Rows are counted by type id first, so only one dictionary lookup is done per group.
+     */
+    private static final String RAW_ROLLUP_SQL = "INSERT INTO anomaly_rollup_minute (bucket, anomaly_type, anomaly_count) "
+            + "SELECT c.bucket, ty.name, c.n FROM (SELECT strftime('%%Y-%%m-%%d %%H:%%M:00', recorded_at / 1000, 'unixepoch') AS bucket, "
+            + "type_id, COUNT(*) AS n FROM %s WHERE id <= ? AND recorded_at < ? GROUP BY 1, 2) c "
+            + "JOIN anomaly_types ty ON ty.type_id = c.type_id WHERE true "
+            + "ON CONFLICT (bucket, anomaly_type) DO UPDATE SET anomaly_count = anomaly_count + excluded.anomaly_count";
+
+    /** Picks the same batch of raw rows as RAW_DELETE_SQL, on the run table aliased t. */
+    private static final String RAW_BATCH_ROWS = "t.id <= ? AND t.recorded_at < ?";
+
+    /** Deletes a batch of raw rows once they are counted, %s is the run table. */
+    private static final String RAW_DELETE_SQL = "DELETE FROM %s WHERE id <= ? AND recorded_at < ?";
+
+    /** Checks whether a run table still has rows, %s is the run table. */
+    private static final String RUN_HAS_ROWS_SQL = "SELECT EXISTS (SELECT 1 FROM %s)";
+
+    /** Finds the last bucket of the oldest batch of minute counts past the cutoff. */
+    private static final String MINUTE_BATCH_END_SQL = "SELECT MAX(bucket) FROM (SELECT bucket FROM anomaly_rollup_minute "
+            + "WHERE bucket < ? ORDER BY bucket LIMIT ?)";
+
+    /** Adds a batch of minute counts to the per-hour counts. */
+    private static final String MINUTE_ROLLUP_SQL = "INSERT INTO anomaly_rollup_hour (bucket, anomaly_type, anomaly_count) "
+            + "SELECT strftime('%Y-%m-%d %H:00:00', bucket), anomaly_type, SUM(anomaly_count) FROM anomaly_rollup_minute "
+            + "WHERE bucket <= ? GROUP BY 1, 2 "
+            + "ON CONFLICT (bucket, anomaly_type) DO UPDATE SET anomaly_count = anomaly_count + excluded.anomaly_count";
+
+    /** Deletes a batch of minute counts once they are added to the hours. */
+    private static final String MINUTE_DELETE_SQL = "DELETE FROM anomaly_rollup_minute WHERE bucket <= ?";
+
+    /** Finds the last bucket of the oldest batch of hour counts past the cutoff. */
+    private static final String HOUR_BATCH_END_SQL = "SELECT MAX(bucket) FROM (SELECT bucket FROM anomaly_rollup_hour "
+            + "WHERE bucket < ? ORDER BY bucket LIMIT ?)";
+
+    /** Deletes a batch of expired hour counts. */
+    private static final String HOUR_DELETE_SQL = "DELETE FROM anomaly_rollup_hour WHERE bucket <= ?";
+
+    /** The database the policy is enforced on. */
+    private final AnomalyDB database;
+
+    /** The policy being enforced. */
+    private final RetentionPolicy policy;
+
+    /** Runs the passes in the background. */
+    private final ScheduledExecutorService executor;
+
+    /** Total raw rows rolled up and deleted. */
+    private volatile long rawRowsPurged;
+
+    /** Total minute counts rolled up and deleted. */
+    private volatile long minuteRowsPurged;
+
+    /** Total hour counts deleted. */
+    private volatile long hourRowsPurged;
+
+    /** Total finished runs dropped once retention emptied them. */
+    private volatile long runsDropped;
+
+    /**
+     * Creates a manager for a policy. Nothing runs until start() is called.
+     *
+     * @param database the anomaly database to keep small
+     * @param policy the retention policy to enforce
+     */
+    public RetentionManager(AnomalyDB database, RetentionPolicy policy) {
+        this.database = Objects.requireNonNull(database, "Anomaly database is null");
+        this.policy = Objects.requireNonNull(policy, "Retention policy is null");
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "anomaly-retention");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts running a pass every policy interval, the first one right away.
+     */
+    public void start() {
+        long intervalMillis = policy.interval().toMillis();
+        executor.scheduleWithFixedDelay(this::runPass, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one retention pass on the calling thread.
+     * Each step repeats until it runs out of expired rows or reaches MAX_BATCHES_PER_PASS.
+     */
+    public void runPass() {
+        try {
+            Instant now = Instant.now();
+            long rawCutoff = now.minus(policy.rawRetention()).toEpochMilli();
+            String minuteCutoff = RetentionPolicy.cutoff(now, policy.minuteRetention());
+            String hourCutoff = RetentionPolicy.cutoff(now, policy.hourRetention());
+
+            List<AnomalyRun> runs = database.inWriteTransaction(AnomalyDB::loadRuns, List.of());
+            int batches = 0;
+            for (AnomalyRun run : runs) {
+                String table = AnomalyDB.runTable(run.runId());
+                int rows;
+                do {
+                    rows = database.inWriteTransaction(conn -> rollUpRaw(conn, table, rawCutoff), 0);
+                    rawRowsPurged += rows;
+                    batches++;
+                } while (rows > 0 && batches < MAX_BATCHES_PER_PASS);
+
+                if (run.runId() != database.getCurrentRunId()
+                        && database.inWriteTransaction(conn -> dropIfEmpty(conn, run.runId()), false)) {
+                    runsDropped++;
+                }
+                if (batches >= MAX_BATCHES_PER_PASS) break;
+            }
+            for (int i = 0; i < MAX_BATCHES_PER_PASS; i++) {
+                int rows = database.inWriteTransaction(conn -> rollUpMinutes(conn, minuteCutoff), 0);
+                minuteRowsPurged += rows;
+                if (rows == 0) break;
+            }
+            for (int i = 0; i < MAX_BATCHES_PER_PASS; i++) {
+                int rows = database.inWriteTransaction(conn -> purgeHours(conn, hourCutoff), 0);
+                hourRowsPurged += rows;
+                if (rows == 0) break;
+            }
+        } catch (RuntimeException e) {
+            // A failed pass must not cancel the schedule, the next one tries again
+            System.err.println("Error running anomaly retention: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the total raw anomaly rows rolled up into minutes and deleted.
+     *
+     * @return the number of raw rows purged
+     */
+    public long getRawRowsPurged() {
+        return rawRowsPurged;
+    }
+
+    /**
+     * Gets the total minute counts rolled up into hours and deleted.
+     *
+     * @return the number of minute rows purged
+     */
+    public long getMinuteRowsPurged() {
+        return minuteRowsPurged;
+    }
+
+    /**
+     * Gets the total expired hour counts deleted.
+     *
+     * @return the number of hour rows purged
+     */
+    public long getHourRowsPurged() {
+        return hourRowsPurged;
+    }
+
+    /**
+     * Gets the total finished runs dropped once retention emptied them.
+     *
+     * @return the number of runs dropped
+     */
+    public long getRunsDropped() {
+        return runsDropped;
+    }
+
+    /**
+     * Stops the background passes, waiting up to five seconds for a running one to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts the oldest batch of expired raw rows into the minute table and deletes them.
+     * Rows are picked by the recorded_at index, then deleted as an id range so the delete is a primary key scan.
+     *
+     * @param conn the write connection, inside a transaction
+     * @param table the run table to roll up
+     * @param cutoff raw rows stored before this epoch millisecond are expired
+     * @return the number of rows deleted
+     * @throws SQLException if a statement fails
+     */
+    private int rollUpRaw(Connection conn, String table, long cutoff) throws SQLException {
+        long lastId;
+        try (PreparedStatement pstmt = conn.prepareStatement(String.format(RAW_BATCH_END_SQL, table))) {
+            pstmt.setLong(1, cutoff);
+            pstmt.setInt(2, policy.batchRows());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) return 0;
+                lastId = rs.getLong(1);
+                // MAX of nothing is NULL, so nothing has expired yet
+                if (rs.wasNull()) return 0;
+            }
+        }
+
+        try (PreparedStatement rollup = conn.prepareStatement(String.format(RAW_ROLLUP_SQL, table));
+             PreparedStatement unindex = conn.prepareStatement(AnomalyDB.unindexRowsSql(table, RAW_BATCH_ROWS));
+             PreparedStatement delete = conn.prepareStatement(String.format(RAW_DELETE_SQL, table))) {
+            rollup.setLong(1, lastId);
+            rollup.setLong(2, cutoff);
+            rollup.executeUpdate();
+
+            // There are no delete triggers, so the rows leave the search index first
+            unindex.setLong(1, lastId);
+            unindex.setLong(2, cutoff);
+            unindex.executeUpdate();
+
+            delete.setLong(1, lastId);
+            delete.setLong(2, cutoff);
+            return delete.executeUpdate();
+        }
+    }
+
+    /**
+     * Drops a finished run whose rows have all been rolled up.
+     *
+     * @param conn the write connection, inside a transaction
+     * @param runId the finished run
+     * @return true if the run was empty and got dropped
+     * @throws SQLException if a statement fails
+     */
+    private static boolean dropIfEmpty(Connection conn, long runId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(String.format(RUN_HAS_ROWS_SQL, AnomalyDB.runTable(runId)));
+             ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next() && rs.getBoolean(1)) {
+                return false;
+            }
+        }
+        AnomalyDB.dropRunTable(conn, runId);
+        return true;
+    }
+
+    /**
+     * Adds the oldest batch of expired minute counts to the hour table and deletes them.
+     *
+     * @param conn the write connection, inside a transaction
+     * @param cutoff minute buckets before this are expired
+     * @return the number of rows deleted
+     * @throws SQLException if a statement fails
+     */
+    private int rollUpMinutes(Connection conn, String cutoff) throws SQLException {
+        String lastBucket = findBatchEnd(conn, MINUTE_BATCH_END_SQL, cutoff);
+        if (lastBucket == null) {
+            return 0;
+        }
+
+        try (PreparedStatement rollup = conn.prepareStatement(MINUTE_ROLLUP_SQL);
+             PreparedStatement delete = conn.prepareStatement(MINUTE_DELETE_SQL)) {
+            rollup.setString(1, lastBucket);
+            rollup.executeUpdate();
+
+            delete.setString(1, lastBucket);
+            return delete.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the oldest batch of expired hour counts.
+     *
+     * @param conn the write connection, inside a transaction
+     * @param cutoff hour buckets before this are expired
+     * @return the number of rows deleted
+     * @throws SQLException if a statement fails
+     */
+    private int purgeHours(Connection conn, String cutoff) throws SQLException {
+        String lastBucket = findBatchEnd(conn, HOUR_BATCH_END_SQL, cutoff);
+        if (lastBucket == null) {
+            return 0;
+        }
+
+        try (PreparedStatement delete = conn.prepareStatement(HOUR_DELETE_SQL)) {
+            delete.setString(1, lastBucket);
+            return delete.executeUpdate();
+        }
+    }
+
+    /**
+     * Finds the last bucket of the oldest batch of expired rollup rows.
+     *
+     * @param conn the write connection
+     * @param sql the batch end query of the rollup table
+     * @param cutoff buckets before this are expired
+     * @return the last bucket of the batch, null if nothing is expired
+     * @throws SQLException if the query fails
+     */
+    private String findBatchEnd(Connection conn, String sql, String cutoff) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, cutoff);
+            pstmt.setInt(2, policy.batchRows());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
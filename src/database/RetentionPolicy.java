@@ -0,0 +1,98 @@
+package database;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+/**
+ * How long stored anomalies are kept at each level of detail.
+ * Raw rows are rolled up into per-minute counts once they are older than rawRetention,
+ * minute counts are rolled up into per-hour counts after minuteRetention,
+ * and hour counts are purged after hourRetention.
+ *
+ * @param rawRetention how long raw anomaly rows are kept
+ * @param minuteRetention how long per-minute counts are kept
+ * @param hourRetention how long per-hour counts are kept
+ * @param batchRows the most rows moved in one transaction
+ * @param interval how often a retention pass runs
+ */
+public record RetentionPolicy(Duration rawRetention, Duration minuteRetention, Duration hourRetention,
+                              int batchRows, Duration interval) {
+
+    /** One day of raw rows, a week of minutes and 90 days of hours, in batches of 2000 every 10 seconds. */
+    public static final RetentionPolicy DEFAULT = new RetentionPolicy(Duration.ofHours(24), Duration.ofDays(7),
+            Duration.ofDays(90), 2_000, Duration.ofSeconds(10));
+
+    /** Format of SQLite's CURRENT_TIMESTAMP, which the rollup buckets are stored in. */
+    private static final DateTimeFormatter SQLITE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    /**
+     * Checks the policy.
+     *
+     * @throws IllegalArgumentException if a duration isn't positive, or a level is kept shorter than the one before it
+     */
+    public RetentionPolicy {
+        if (rawRetention.isNegative() || rawRetention.isZero() || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Retention durations must be positive");
+        }
+        if (minuteRetention.compareTo(rawRetention) < 0 || hourRetention.compareTo(minuteRetention) < 0) {
+            throw new IllegalArgumentException("Each rollup must be kept at least as long as the level before it");
+        }
+        if (batchRows <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchRows);
+        }
+    }
+
+    /**
+     * Reads a policy from db.properties. Missing keys keep their DEFAULT value.
+     * Keys: retention.raw.hours, retention.minute.days, retention.hour.days,
+     * retention.batch.rows and retention.interval.seconds.
+     *
+     * @param props the loaded properties
+     * @return the policy
+     * @throws IllegalArgumentException if a value isn't a number or the policy is invalid
+     */
+    public static RetentionPolicy fromProperties(Properties props) {
+        return new RetentionPolicy(
+                Duration.ofHours(readLong(props, "retention.raw.hours", DEFAULT.rawRetention.toHours())),
+                Duration.ofDays(readLong(props, "retention.minute.days", DEFAULT.minuteRetention.toDays())),
+                Duration.ofDays(readLong(props, "retention.hour.days", DEFAULT.hourRetention.toDays())),
+                (int) readLong(props, "retention.batch.rows", DEFAULT.batchRows),
+                Duration.ofSeconds(readLong(props, "retention.interval.seconds", DEFAULT.interval.toSeconds())));
+    }
+
+    /**
+     * Formats the moment a given age ago the way the rollup buckets are stored, so it can be compared as text.
+     *
+     * @param now the current time
+     * @param age how far back to go
+     * @return the cutoff timestamp, in UTC
+     */
+    public static String cutoff(Instant now, Duration age) {
+        return SQLITE_TIMESTAMP.format(now.minus(age));
+    }
+
+    /**
+     * Reads one whole number property.
+     *
+     * @param props the loaded properties
+     * @param key the property name
+     * @param defaultValue the value to use when the key is missing
+     * @return the value
+     * @throws IllegalArgumentException if the value isn't a number
+     */
+    private static long readLong(Properties props, String key, long defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value, e);
+        }
+    }
+}
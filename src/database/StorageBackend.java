@@ -0,0 +1,164 @@
+package database;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * The anomaly store implementations, picked once at startup.
+ * The db.backend property in db.properties picks one, and a -Ddb.backend system property overrides it,
+ * so a deployment can switch without rebuilding. SQLITE is used when neither is set.
+ */
+public enum StorageBackend {
+
+    /** A bounded ring in memory: the fastest, but it forgets the oldest rows and everything on exit. */
+    MEMORY,
+
+    /** The SQLite database of AnomalyDB, with indexes, full-text search and retention. */
+    SQLITE,
+
+    /** Append-only column files on disk: compact and quick to write, but searches scan the run. */
+    COLUMNAR;
+
+    /** Property (and system property) naming the backend. */
+    public static final String BACKEND_PROPERTY = "db.backend";
+
+    /** Rows the memory backend keeps when db.memory.capacity isn't set. */
+    public static final int DEFAULT_MEMORY_CAPACITY = 100_000;
+
+    /** Directory the columnar backend uses when db.columnar.dir isn't set. */
+    public static final String DEFAULT_COLUMNAR_DIR = "anomaly-store";
+
+    /** Property naming the file anomalies overflow into when the write queue is full. */
+    public static final String SPILL_FILE_PROPERTY = "db.spill.file";
+
+    /** Prefix of every SQLite JDBC url. */
+    private static final String SQLITE_URL_PREFIX = "jdbc:sqlite:";
+
+    /**
+     * Looks up a backend by name.
+     *
+     * @param name "memory", "sqlite" or "columnar", case insensitive
+     * @return the matching backend, SQLITE if the name is missing or unknown
+     */
+    public static StorageBackend fromName(String name) {
+        if (name != null) {
+            for (StorageBackend backend : values()) {
+                if (backend.name().equals(name.trim().toUpperCase(Locale.ROOT))) {
+                    return backend;
+                }
+            }
+        }
+        return SQLITE;
+    }
+
+    /**
+     * Loads db.properties.
+     *
+     * @return the loaded properties, empty if the file couldn't be found
+     */
+    public static Properties loadConfiguration() {
+        Properties props = AnomalyDB.loadProperties();
+        return props == null ? new Properties() : props;
+    }
+
+    /**
+     * Gets the backend chosen by the system property or db.properties.
+     *
+     * @param props the database properties
+     * @return the chosen backend, SQLITE if neither names one
+     */
+    public static StorageBackend configured(Properties props) {
+        StorageBackend backend = fromName(System.getProperty(BACKEND_PROPERTY, props.getProperty(BACKEND_PROPERTY)));
+        System.out.println("Anomaly storage backend: " + backend.name().toLowerCase(Locale.ROOT));
+        return backend;
+    }
+
+    /**
+     * Opens the backend chosen by the system property or db.properties.
+     *
+     * @return the opened store
+     */
+    public static AnomalyStore openConfigured() {
+        Properties props = loadConfiguration();
+        return configured(props).open(props);
+    }
+
+    /**
+     * Opens this backend.
+     *
+     * @param props the database properties, db.storeDetails applies to every backend
+     * @return the opened store
+     * @throws IllegalArgumentException if db.memory.capacity isn't a positive number
+     */
+    public AnomalyStore open(Properties props) {
+        boolean storeDetails = AnomalyDB.readStoreDetails(props);
+        return switch (this) {
+            case MEMORY -> new MemoryAnomalyStore(readCapacity(props), storeDetails);
+            case SQLITE -> new AnomalyDB(props.isEmpty() ? null : props);
+            case COLUMNAR -> new ColumnarAnomalyStore(columnarDirectory(props), storeDetails);
+        };
+    }
+
+    /**
+     * Picks the file anomalies overflow into when the write queue is full. It sits next to this backend's
+     * data, so two stores never share one and a leftover spill is written to the store it was meant for.
+     * The memory backend forgets everything on exit, so its spill file is private to this process.
+     * The optional db.spill.file property overrides the choice.
+     *
+     * @param props the database properties
+     * @return the spill file
+     */
+    public Path spillFile(Properties props) {
+        String configured = props.getProperty(SPILL_FILE_PROPERTY);
+        if (configured != null && !configured.isBlank()) {
+            return Path.of(configured.trim());
+        }
+
+        Path processFile = Path.of(System.getProperty("java.io.tmpdir"),
+                "anomaly-spill-" + ProcessHandle.current().pid() + ".bin");
+        return switch (this) {
+            case MEMORY -> processFile;
+            case SQLITE -> {
+                // An in-memory database has no file to sit next to
+                String url = props.getProperty("db.url", "").trim();
+                String file = url.startsWith(SQLITE_URL_PREFIX) ? url.substring(SQLITE_URL_PREFIX.length()) : "";
+                int options = file.indexOf('?');
+                if (options >= 0) {
+                    file = file.substring(0, options);
+                }
+                yield file.isBlank() || file.contains(":memory:") ? processFile : Path.of(file + ".spill");
+            }
+            case COLUMNAR -> columnarDirectory(props).resolve("spill.bin");
+        };
+    }
+
+    /**
+     * Reads the columnar backend's directory.
+     *
+     * @param props the database properties
+     * @return the directory holding every run
+     */
+    private static Path columnarDirectory(Properties props) {
+        return Path.of(props.getProperty("db.columnar.dir", DEFAULT_COLUMNAR_DIR).trim());
+    }
+
+    /**
+     * Reads the memory backend's capacity.
+     *
+     * @param props the database properties
+     * @return the most rows to keep
+     * @throws IllegalArgumentException if the value isn't a positive number
+     */
+    private static int readCapacity(Properties props) {
+        String value = props.getProperty("db.memory.capacity");
+        if (value == null || value.isBlank()) {
+            return DEFAULT_MEMORY_CAPACITY;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid db.memory.capacity: " + value, e);
+        }
+    }
+}
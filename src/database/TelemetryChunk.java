@@ -0,0 +1,135 @@
+package database;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A run of consecutive ticks of one drone's telemetry, stored as a single row.
+ * Samples are packed channel by channel for each tick, and compressed with GorillaCodec when stored,
+ * which turns one row per sample into one small row per chunk.
+ *
+ * @param droneId the drone the chunk belongs to
+ * @param startTick the tick of the first sample
+ * @param count the number of samples (ticks) in the chunk
+ * @param samples the packed samples, CHANNELS values per tick
+ */
+public record TelemetryChunk(int droneId, long startTick, int count, double[] samples) {
+
+    /** Values stored per tick: latitude, longitude, altitude, orientation, velocity, battery. */
+    public static final int CHANNELS = 6;
+
+    /** Format byte of chunks stored as raw 32-bit floats, still readable. */
+    static final byte FORMAT_FLOAT32 = 1;
+
+    /** Format byte of chunks compressed with GorillaCodec. */
+    static final byte FORMAT_GORILLA = 2;
+
+    /** Positions are stored to a thousandth of a foot, far finer than anything the simulation shows. */
+    public static final double POSITION_RESOLUTION = 0.001;
+
+    /**
+     * Gets the tick of the last sample.
+     *
+     * @return the last tick in the chunk
+     */
+    public long endTick() {
+        return startTick + count - 1;
+    }
+
+    /**
+     * Compresses the samples into the bytes stored in the data column.
+     * Positions are rounded to POSITION_RESOLUTION, every other value is kept exactly.
+     *
+     * @return the encoded chunk
+     */
+    public byte[] encode() {
+        return encode(POSITION_RESOLUTION);
+    }
+
+    /**
+     * Compresses the samples into the bytes stored in the data column.
+     *
+     * @param positionResolution the step positions are rounded to, 0 to keep them exactly
+     * @return the encoded chunk
+     */
+    public byte[] encode(double positionResolution) {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(positionResolution);
+        for (int i = 0; i < count; i++) {
+            int base = i * CHANNELS;
+            encoder.append(startTick + i, samples[base], samples[base + 1], samples[base + 2],
+                    samples[base + 3], samples[base + 4], (int) samples[base + 5]);
+        }
+
+        byte[] compressed = encoder.finish();
+        byte[] data = new byte[compressed.length + 1];
+        data[0] = FORMAT_GORILLA;
+        System.arraycopy(compressed, 0, data, 1, compressed.length);
+        return data;
+    }
+
+    /**
+     * Unpacks a stored chunk back into samples.
+     *
+     * @param droneId the drone the chunk belongs to
+     * @param startTick the tick of the first sample
+     * @param count the number of samples in the chunk
+     * @param data the encoded chunk
+     * @return the decoded chunk
+     * @throws IllegalArgumentException if the data is in an unknown format
+     */
+    public static TelemetryChunk decode(int droneId, long startTick, int count, byte[] data) {
+        double[] samples = new double[count * CHANNELS];
+
+        switch (data[0]) {
+            case FORMAT_GORILLA -> {
+                GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(data, 1);
+                for (int i = 0; decoder.hasNext() && i < count; i++) {
+                    decoder.next();
+                    int base = i * CHANNELS;
+                    for (int column = 0; column < GorillaCodec.DOUBLE_COLUMNS; column++) {
+                        samples[base + column] = decoder.value(column);
+                    }
+                    samples[base + 5] = decoder.battery();
+                }
+            }
+            case FORMAT_FLOAT32 -> {
+                ByteBuffer buffer = ByteBuffer.wrap(data, 1, data.length - 1);
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = buffer.getFloat();
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown telemetry chunk format: " + data[0]);
+        }
+        return new TelemetryChunk(droneId, startTick, count, samples);
+    }
+
+    /**
+     * Turns the samples between two ticks into TelemetrySample objects.
+     *
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @param out the list the samples are added to
+     */
+    public void collect(long fromTick, long toTick, List<TelemetrySample> out) {
+        long first = Math.max(fromTick, startTick);
+        long last = Math.min(toTick, endTick());
+        for (long tick = first; tick <= last; tick++) {
+            int base = (int) (tick - startTick) * CHANNELS;
+            out.add(new TelemetrySample(droneId, tick,
+                    samples[base], samples[base + 1], samples[base + 2],
+                    samples[base + 3], samples[base + 4], (int) Math.round(samples[base + 5])));
+        }
+    }
+
+    /**
+     * Turns every sample of the chunk into TelemetrySample objects.
+     *
+     * @return the samples, oldest first
+     */
+    public List<TelemetrySample> toSamples() {
+        List<TelemetrySample> out = new ArrayList<>(count);
+        collect(startTick, endTick(), out);
+        return out;
+    }
+}
@@ -0,0 +1,17 @@
+package database;
+
+/**
+ * One drone's state on one tick, as read back from the telemetry store.
+ *
+ * @param droneId the drone the sample belongs to
+ * @param tick the simulation tick of the sample
+ * @param latitude the latitude
+ * @param longitude the longitude
+ * @param altitude the altitude
+ * @param orientation the orientation
+ * @param velocity the velocity
+ * @param battery the battery level
+ */
+public record TelemetrySample(int droneId, long tick, double latitude, double longitude, double altitude,
+                              double orientation, double velocity, int battery) {
+}
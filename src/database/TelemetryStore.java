@@ -0,0 +1,501 @@
+package database;
+
+import Model.Drone;
+import Model.TelemetryData;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores every drone's telemetry on every tick, for post-flight analysis.
+ * Samples are buffered per drone and written as one chunk row per CHUNK_TICKS ticks,
+ * through a write-behind queue so the simulation thread never waits on the disk.
+ * At 100k drones and 10 ticks a second that is about 31k rows a second, instead of a million.
+ * Ticks start over every simulation run, so every run gets its own id, listed in telemetry_runs,
+ * and chunks are keyed by run as well as drone and tick. Only the newest MAX_RUNS runs are kept.
+ */
+public class TelemetryStore {
+
+    /** Ticks per chunk, chunks always start on a multiple of this. */
+    public static final int CHUNK_TICKS = 32;
+
+    /** Driver used to open the telemetry database. */
+    private static final String SQLITE_DRIVER = "org.sqlite.JDBC";
+
+    /** SQL used to insert one chunk, a plain insert so two chunks for the same run, drone and tick fail loudly. */
+    private static final String INSERT_SQL = "INSERT INTO telemetry_chunks (run_id, drone_id, start_tick, end_tick, sample_count, data) VALUES (?, ?, ?, ?, ?, ?)";
+
+    /** Run id given to the chunks written before runs existed, when an old database is opened. */
+    public static final long LEGACY_RUN_ID = 0;
+
+    /** Most runs kept in the database, the oldest are deleted when a new run starts. */
+    static final int MAX_RUNS = 10;
+
+    /** Most chunks waiting in memory, enough for two full rounds of a 100k drone fleet. */
+    private static final int QUEUE_CAPACITY = 200_000;
+
+    /** Most chunks committed in one transaction. */
+    private static final int WRITE_BATCH_SIZE = 5_000;
+
+    /** Longest a chunk waits before its batch is committed, in milliseconds. */
+    private static final long WRITE_MAX_DELAY_MILLIS = 500;
+
+    /** Connection used by the writer thread. */
+    private Connection conn;
+
+    /** Connection used for queries, the same as conn unless the profile asks for a separate reader. */
+    private Connection readConn;
+
+    /** Insert statement prepared once and reused by every batch. */
+    private PreparedStatement insertStmt;
+
+    /** The samples still being collected for each drone. */
+    private final Map<Integer, ChunkBuilder> builders = new HashMap<>();
+
+    /** Reused to read each drone's telemetry without copying it, only touched by the simulation thread. */
+    private final TelemetryData scratch = new TelemetryData();
+
+    /** Moves finished chunks to the database off the simulation thread. */
+    private final WriteBehindQueue<TelemetryChunk> writer;
+
+    /** Total chunks written so far. */
+    private long chunksWritten;
+
+    /** The run new chunks are written to, -1 until the first run starts. */
+    private volatile long currentRunId = -1;
+
+    /**
+     * Opens (or creates) a telemetry store.
+     *
+     * @param dbUrl the JDBC url of the telemetry database, for example jdbc:sqlite:telemetry.db
+     * @param profile the pragmas and connection layout to use
+     */
+    public TelemetryStore(String dbUrl, StorageProfile profile) {
+        try {
+            Class.forName(SQLITE_DRIVER);
+            conn = DriverManager.getConnection(dbUrl);
+            profile.applyToWriter(conn);
+            createTable();
+
+            if (profile.separateReader() && !dbUrl.contains(":memory:")) {
+                readConn = DriverManager.getConnection(dbUrl);
+                profile.applyToReader(readConn);
+            } else {
+                readConn = conn;
+            }
+        } catch (ClassNotFoundException e) {
+            System.err.println("Driver class not found: " + e.getMessage());
+        } catch (SQLException e) {
+            System.err.println("SQL error opening telemetry store: " + e.getMessage());
+        }
+
+        // Telemetry history is the whole point, so a full queue slows the caller down instead of dropping
+        writer = new WriteBehindQueue<>("telemetry-writer", this::writeChunks, QUEUE_CAPACITY,
+                WRITE_BATCH_SIZE, WRITE_MAX_DELAY_MILLIS, WriteBehindQueue.OverflowPolicy.BLOCK, null, null);
+    }
+
+    /**
+     * Creates the run list, the chunk table and its time index, if they do not already exist.
+     * The (run_id, drone_id, start_tick) key keeps a drone's chunks of one run together, for per-drone queries.
+     * A chunk table left by an older version, without runs, is moved into the legacy run.
+     *
+     * @throws SQLException if a table or index can't be created
+     */
+    private void createTable() throws SQLException {
+        // One transaction, so a migration that fails part way leaves the old table as it was
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS telemetry_runs (
+                    run_id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    started_at DATETIME DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+
+            boolean legacy = hasLegacyTable(stmt);
+            if (legacy) {
+                stmt.execute("ALTER TABLE telemetry_chunks RENAME TO telemetry_chunks_legacy");
+                stmt.execute("DROP INDEX IF EXISTS idx_telemetry_start");
+            }
+
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS telemetry_chunks (
+                    run_id INTEGER NOT NULL,
+                    drone_id INTEGER NOT NULL,
+                    start_tick INTEGER NOT NULL,
+                    end_tick INTEGER NOT NULL,
+                    sample_count INTEGER NOT NULL,
+                    data BLOB NOT NULL,
+                    PRIMARY KEY (run_id, drone_id, start_tick)
+                ) WITHOUT ROWID
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_telemetry_start ON telemetry_chunks (run_id, start_tick)");
+
+            if (legacy) {
+                stmt.execute("INSERT OR IGNORE INTO telemetry_runs (run_id) VALUES (" + LEGACY_RUN_ID + ")");
+                stmt.execute("INSERT INTO telemetry_chunks SELECT " + LEGACY_RUN_ID
+                        + ", drone_id, start_tick, end_tick, sample_count, data FROM telemetry_chunks_legacy");
+                stmt.execute("DROP TABLE telemetry_chunks_legacy");
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Checks whether the chunk table is still in the layout from before runs existed.
+     *
+     * @param stmt a statement on the write connection
+     * @return true if telemetry_chunks exists without a run_id column
+     * @throws SQLException if the table can't be inspected
+     */
+    private static boolean hasLegacyTable(Statement stmt) throws SQLException {
+        boolean exists = false;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(telemetry_chunks)")) {
+            while (rs.next()) {
+                exists = true;
+                if ("run_id".equals(rs.getString("name"))) {
+                    return false;
+                }
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * Starts a new run, so the chunks recorded from now on are kept apart from every earlier run.
+     * Anything still buffered is written to the previous run first.
+     *
+     * @return the new run id, -1 if the run couldn't be created
+     */
+    public long startRun() {
+        flush();
+        if (conn == null) {
+            return -1;
+        }
+
+        synchronized (this) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO telemetry_runs DEFAULT VALUES");
+                try (ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+                    rs.next();
+                    currentRunId = rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error starting telemetry run: " + e.getMessage());
+                return -1;
+            }
+            deleteOldRuns();
+        }
+        return currentRunId;
+    }
+
+    /**
+     * Deletes every run but the newest MAX_RUNS, legacy chunks included.
+     * Run ids only go up, so the cut is a single id. The freed pages are reused by later chunks.
+     */
+    private void deleteOldRuns() {
+        long oldestKept = currentRunId - MAX_RUNS + 1;
+        if (oldestKept <= LEGACY_RUN_ID) {
+            return;
+        }
+        try (PreparedStatement chunks = conn.prepareStatement("DELETE FROM telemetry_chunks WHERE run_id < ?");
+             PreparedStatement runs = conn.prepareStatement("DELETE FROM telemetry_runs WHERE run_id < ?")) {
+            chunks.setLong(1, oldestKept);
+            chunks.executeUpdate();
+            runs.setLong(1, oldestKept);
+            runs.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error deleting old telemetry runs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the run new chunks are written to.
+     *
+     * @return the current run id, -1 if no run has started yet
+     */
+    public long getCurrentRunId() {
+        return currentRunId;
+    }
+
+    /**
+     * Records the state of every drone for one tick.
+     * This only copies numbers into the per-drone buffers, full chunks are written in the background.
+     *
+     * @param tick the tick that just finished
+     * @param fleet the fleet after the tick's update
+     */
+    public void append(long tick, Drone[] fleet) {
+        if (currentRunId < 0) {
+            startRun();
+        }
+        for (Drone drone : fleet) {
+            ChunkBuilder builder = builders.computeIfAbsent(drone.getDroneID(), ChunkBuilder::new);
+
+            // A gap (a drone that skipped ticks) ends the chunk early
+            if (builder.count > 0 && tick != builder.startTick + builder.count) {
+                emit(builder);
+            }
+            drone.copyTelemetryInto(scratch);
+            builder.add(tick, scratch, drone.getBatteryLevel());
+        }
+
+        // Chunks are aligned, so every drone's chunk closes on the same tick
+        if ((tick + 1) % CHUNK_TICKS == 0) {
+            for (ChunkBuilder builder : builders.values()) {
+                if (builder.count > 0) {
+                    emit(builder);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every partial chunk, then waits until everything has reached the database.
+     */
+    public void flush() {
+        for (ChunkBuilder builder : builders.values()) {
+            if (builder.count > 0) {
+                emit(builder);
+            }
+        }
+        // The fleet may be rebuilt before the next run, so start with fresh buffers
+        builders.clear();
+        writer.flush();
+    }
+
+    /**
+     * Gets one drone's samples between two ticks of the current run.
+     *
+     * @param droneId the drone to read
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @return the samples, oldest first
+     */
+    public List<TelemetrySample> queryDrone(int droneId, long fromTick, long toTick) {
+        return queryDrone(currentRunId, droneId, fromTick, toTick);
+    }
+
+    /**
+     * Gets one drone's samples between two ticks of a run.
+     *
+     * @param runId the run to read
+     * @param droneId the drone to read
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @return the samples, oldest first
+     */
+    public List<TelemetrySample> queryDrone(long runId, int droneId, long fromTick, long toTick) {
+        String sql = "SELECT drone_id, start_tick, sample_count, data FROM telemetry_chunks "
+                + "WHERE run_id = ? AND drone_id = ? AND start_tick BETWEEN ? AND ? AND end_tick >= ? ORDER BY start_tick";
+        return query(sql, runId, fromTick, toTick, droneId);
+    }
+
+    /**
+     * Gets every drone's samples between two ticks of the current run.
+     *
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @return the samples, grouped by chunk and ordered by time within each drone
+     */
+    public List<TelemetrySample> queryRange(long fromTick, long toTick) {
+        return queryRange(currentRunId, fromTick, toTick);
+    }
+
+    /**
+     * Gets every drone's samples between two ticks of a run.
+     *
+     * @param runId the run to read
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @return the samples, grouped by chunk and ordered by time within each drone
+     */
+    public List<TelemetrySample> queryRange(long runId, long fromTick, long toTick) {
+        String sql = "SELECT drone_id, start_tick, sample_count, data FROM telemetry_chunks "
+                + "WHERE run_id = ? AND start_tick BETWEEN ? AND ? AND end_tick >= ? ORDER BY start_tick, drone_id";
+        return query(sql, runId, fromTick, toTick, null);
+    }
+
+    /**
+     * Gets the total number of chunks written so far.
+     *
+     * @return the number of chunk rows written
+     */
+    public synchronized long getChunksWritten() {
+        return chunksWritten;
+    }
+
+    /**
+     * Flushes everything and closes the connections.
+     */
+    public void close() {
+        flush();
+        writer.close();
+        try {
+            if (readConn != null && readConn != conn) readConn.close();
+            if (conn != null) conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing telemetry store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a chunk query and decodes the samples inside the tick range.
+     * Chunks are aligned, so a chunk overlapping fromTick can start at most CHUNK_TICKS - 1 earlier,
+     * which keeps the start_tick range tight enough for the index.
+     *
+     * @param sql the query, with the run, optional drone id, start range and end bound as parameters
+     * @param runId the run to read
+     * @param fromTick the first tick to include
+     * @param toTick the last tick to include
+     * @param droneId the drone to read, null for every drone
+     * @return the decoded samples
+     */
+    private List<TelemetrySample> query(String sql, long runId, long fromTick, long toTick, Integer droneId) {
+        List<TelemetrySample> samples = new ArrayList<>();
+        if (readConn == null) {
+            return samples;
+        }
+
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setLong(index++, runId);
+            if (droneId != null) {
+                pstmt.setInt(index++, droneId);
+            }
+            pstmt.setLong(index++, fromTick - (CHUNK_TICKS - 1));
+            pstmt.setLong(index++, toTick);
+            pstmt.setLong(index, fromTick);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    TelemetryChunk chunk = TelemetryChunk.decode(rs.getInt("drone_id"),
+                            rs.getLong("start_tick"), rs.getInt("sample_count"), rs.getBytes("data"));
+                    chunk.collect(fromTick, toTick, samples);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error querying telemetry: " + e.getMessage());
+        }
+        return samples;
+    }
+
+    /**
+     * Writes a batch of chunks in a single transaction, called on the writer thread.
+     *
+     * @param batch the chunks to write
+     */
+    private synchronized void writeChunks(List<TelemetryChunk> batch) {
+        if (conn == null) {
+            return;
+        }
+
+        try {
+            if (insertStmt == null || insertStmt.isClosed()) {
+                insertStmt = conn.prepareStatement(INSERT_SQL);
+            }
+
+            // startRun flushes before switching, so every queued chunk belongs to the current run
+            long runId = currentRunId;
+            conn.setAutoCommit(false);
+            for (TelemetryChunk chunk : batch) {
+                insertStmt.setLong(1, runId);
+                insertStmt.setInt(2, chunk.droneId());
+                insertStmt.setLong(3, chunk.startTick());
+                insertStmt.setLong(4, chunk.endTick());
+                insertStmt.setInt(5, chunk.count());
+                insertStmt.setBytes(6, chunk.encode());
+                insertStmt.addBatch();
+            }
+            insertStmt.executeBatch();
+            conn.commit();
+            chunksWritten += batch.size();
+        } catch (SQLException e) {
+            System.err.println("Error saving telemetry batch: " + e.getMessage());
+            try {
+                conn.rollback();
+            } catch (SQLException rollbackError) {
+                System.err.println("Error rolling back telemetry batch: " + rollbackError.getMessage());
+            }
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                System.err.println("Error restoring autocommit: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hands a drone's collected samples to the writer and starts a new chunk.
+     *
+     * @param builder the drone's buffer
+     */
+    private void emit(ChunkBuilder builder) {
+        writer.add(new TelemetryChunk(builder.droneId, builder.startTick, builder.count,
+                Arrays.copyOf(builder.samples, builder.count * TelemetryChunk.CHANNELS)));
+        builder.count = 0;
+    }
+
+    /**
+     * The samples collected so far for one drone's current chunk.
+     */
+    private static final class ChunkBuilder {
+
+        /** The drone the samples belong to. */
+        private final int droneId;
+
+        /** Packed samples, reused for every chunk of this drone. */
+        private final double[] samples = new double[CHUNK_TICKS * TelemetryChunk.CHANNELS];
+
+        /** Tick of the first sample in the current chunk. */
+        private long startTick;
+
+        /** Number of samples in the current chunk. */
+        private int count;
+
+        /**
+         * Creates an empty buffer for a drone.
+         *
+         * @param droneId the drone the samples belong to
+         */
+        private ChunkBuilder(int droneId) {
+            this.droneId = droneId;
+        }
+
+        /**
+         * Adds one tick of telemetry.
+         *
+         * @param tick the tick of the sample
+         * @param data the drone's telemetry
+         * @param battery the drone's battery level
+         */
+        private void add(long tick, TelemetryData data, int battery) {
+            if (count == 0) {
+                startTick = tick;
+            }
+            int base = count * TelemetryChunk.CHANNELS;
+            samples[base] = data.getLatitude();
+            samples[base + 1] = data.getLongitude();
+            samples[base + 2] = data.getAltitude();
+            samples[base + 3] = data.getOrientation();
+            samples[base + 4] = data.getVelocity();
+            samples[base + 5] = battery;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded write-behind queue that moves database writes off the caller's thread.
+ * Items are handed to a dedicated writer thread, which groups them into batches and commits
+ * a batch once it is full or once the oldest item has waited long enough.
+ * When the queue is full, the configured overflow policy decides what happens next.
+ * Items are written in the order they were added, spilled or not.
+ *
+ * @param <T> the type of item being written.
+ */
+public class WriteBehindQueue<T> {
+
+    /**
+     * What happens when an item is added while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** The caller waits until the writer makes room. */
+        BLOCK,
+        /** The oldest queued item is thrown away to make room. */
+        DROP_OLDEST,
+        /**
+         * The item is appended to a spill file, and written once the queue catches up.
+         * Everything added after it follows it into the file, so nothing overtakes a spilled item.
+         */
+        SPILL_TO_FILE
+    }
+
+    /**
+     * Writes one batch of items to storage.
+     *
+     * @param <T> the type of item being written.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        /**
+         * Writes a batch of items.
+         *
+         * @param batch the items to write
+         */
+        void write(List<T> batch);
+    }
+
+    /**
+     * Turns items into bytes and back, so they can be spilled to a file.
+     *
+     * @param <T> the type of item being spilled.
+     */
+    public interface SpillCodec<T> {
+        /**
+         * Writes a single item to the spill file.
+         *
+         * @param out the spill file stream
+         * @param item the item to write
+         * @throws IOException if the item can't be written
+         */
+        void write(DataOutputStream out, T item) throws IOException;
+
+        /**
+         * Reads a single item back from the spill file.
+         *
+         * @param in the spill file stream
+         * @return the item that was read
+         * @throws IOException if the item can't be read
+         */
+        T read(DataInputStream in) throws IOException;
+    }
+
+    /** How long the writer waits for the first item of a batch before checking the spill file, in milliseconds. */
+    private static final long IDLE_POLL_MILLIS = 250;
+
+    /** The queued items waiting for the writer thread. */
+    private final BlockingQueue<T> queue;
+
+    /** Writes a batch to the real storage. */
+    private final BatchWriter<T> writer;
+
+    /** The largest number of items written in one batch. */
+    private final int batchSize;
+
+    /** The longest an item waits before its batch is committed, in milliseconds. */
+    private final long maxDelayMillis;
+
+    /** What happens when the queue is full. */
+    private final OverflowPolicy overflowPolicy;
+
+    /** Turns items into bytes for the spill file, only used by SPILL_TO_FILE. */
+    private final SpillCodec<T> spillCodec;
+
+    /** Where overflowing items are spilled to, only used by SPILL_TO_FILE. */
+    private final Path spillFile;
+
+    /** The dedicated writer thread. */
+    private final Thread writerThread;
+
+    /** Guards the spill file, and is used to wait for flushes to finish. */
+    private final Object lock = new Object();
+
+    /** The open spill file stream, null while nothing is spilled. */
+    private DataOutputStream spillOut;
+
+    /** Number of items currently sitting in the spill file. */
+    private long spilledPending;
+
+    /** Number of items accepted so far (queued or spilled). */
+    private long accepted;
+
+    /** Number of items finished so far (written, failed or dropped). */
+    private long completed;
+
+    /** Number of items thrown away by DROP_OLDEST. */
+    private long dropped;
+
+    /** Number of items that ever went to the spill file. */
+    private long spilledTotal;
+
+    /** Whether a flush is waiting, so the writer stops waiting for a full batch. */
+    private volatile boolean flushRequested;
+
+    /** Whether the queue is still accepting items. */
+    private volatile boolean running = true;
+
+    /**
+     * Creates a write-behind queue and starts its writer thread.
+     *
+     * @param name the name of the writer thread
+     * @param writer writes a batch to storage
+     * @param capacity the most items the queue holds in memory
+     * @param batchSize the most items written in one batch
+     * @param maxDelayMillis the longest an item waits before its batch is committed
+     * @param overflowPolicy what happens when the queue is full
+     * @param spillCodec turns items into bytes, required for SPILL_TO_FILE
+     * @param spillFile where items are spilled to, required for SPILL_TO_FILE
+     * @throws IllegalArgumentException if a size is less than 1, or SPILL_TO_FILE is missing its codec or file
+     */
+    public WriteBehindQueue(String name, BatchWriter<T> writer, int capacity, int batchSize,
+                            long maxDelayMillis, OverflowPolicy overflowPolicy,
+                            SpillCodec<T> spillCodec, Path spillFile) {
+        if (capacity < 1 || batchSize < 1 || maxDelayMillis < 1) {
+            throw new IllegalArgumentException("Capacity, batch size and delay must be at least 1");
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL_TO_FILE && (spillCodec == null || spillFile == null)) {
+            throw new IllegalArgumentException("SPILL_TO_FILE needs a spill codec and a spill file");
+        }
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = Objects.requireNonNull(writer, "Batch writer can't be null");
+        this.batchSize = batchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "Overflow policy can't be null");
+        this.spillCodec = spillCodec;
+        this.spillFile = spillFile;
+
+        // A spill file left over from a run that never flushed still has to be written
+        recoverSpillFile();
+
+        writerThread = new Thread(this::runWriter, name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Creates a write-behind queue that drops the oldest items when full.
+     *
+     * @param name the name of the writer thread
+     * @param writer writes a batch to storage
+     * @param capacity the most items the queue holds in memory
+     * @param batchSize the most items written in one batch
+     * @param maxDelayMillis the longest an item waits before its batch is committed
+     */
+    public WriteBehindQueue(String name, BatchWriter<T> writer, int capacity, int batchSize, long maxDelayMillis) {
+        this(name, writer, capacity, batchSize, maxDelayMillis, OverflowPolicy.DROP_OLDEST, null, null);
+    }
+
+    /**
+     * Adds a single item to be written in the background.
+     *
+     * @param item the item to write
+     */
+    public void add(T item) {
+        Objects.requireNonNull(item, "Item can't be null");
+        if (!running) {
+            System.err.println("Write-behind queue is closed, item ignored");
+            return;
+        }
+
+        synchronized (lock) {
+            accepted++;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> putUninterruptibly(item);
+            case DROP_OLDEST -> {
+                // Keep making room until our item fits
+                while (!queue.offer(item)) {
+                    if (queue.poll() != null) {
+                        markDone(1, true);
+                    }
+                }
+            }
+            case SPILL_TO_FILE -> {
+                synchronized (lock) {
+                    if (queueOrSpill(item)) {
+                        flushSpill();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds every item of a list to be written in the background.
+     * With SPILL_TO_FILE, whatever part of the list spills is flushed to the file once, before returning.
+     *
+     * @param items the items to write
+     */
+    public void addAll(List<T> items) {
+        if (overflowPolicy != OverflowPolicy.SPILL_TO_FILE) {
+            for (T item : items) {
+                add(item);
+            }
+            return;
+        }
+        if (!running) {
+            System.err.println("Write-behind queue is closed, " + items.size() + " items ignored");
+            return;
+        }
+
+        synchronized (lock) {
+            boolean spilled = false;
+            for (T item : items) {
+                Objects.requireNonNull(item, "Item can't be null");
+                accepted++;
+                spilled |= queueOrSpill(item);
+            }
+            if (spilled) {
+                flushSpill();
+            }
+        }
+    }
+
+    /**
+     * Waits until every item added before this call has been written (or dropped).
+     * This includes anything sitting in the spill file.
+     */
+    public void flush() {
+        synchronized (lock) {
+            long target = accepted;
+            flushRequested = true;
+            try {
+                while (completed < target && writerThread.isAlive()) {
+                    lock.wait(IDLE_POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Write-behind flush was interrupted");
+            } finally {
+                flushRequested = false;
+            }
+        }
+    }
+
+    /**
+     * Flushes everything, then stops the writer thread.
+     */
+    public void close() {
+        flush();
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets how many items are waiting in memory.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets how many items are waiting in the spill file.
+     *
+     * @return the number of spilled items not yet written
+     */
+    public long getSpilledPending() {
+        synchronized (lock) {
+            return spilledPending;
+        }
+    }
+
+    /**
+     * Gets how many items were thrown away by DROP_OLDEST.
+     *
+     * @return the number of dropped items
+     */
+    public long getDroppedCount() {
+        synchronized (lock) {
+            return dropped;
+        }
+    }
+
+    /**
+     * Gets how many items ever overflowed into the spill file.
+     *
+     * @return the number of spilled items
+     */
+    public long getSpilledCount() {
+        synchronized (lock) {
+            return spilledTotal;
+        }
+    }
+
+    /**
+     * The writer thread loop: build a batch, write it, repeat.
+     */
+    private void runWriter() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<T> batch = collectBatch();
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                // Only go back to the spill file once memory has caught up
+                if (queue.isEmpty()) {
+                    drainSpillFile();
+                }
+            } catch (InterruptedException e) {
+                // Interrupted by close, loop again so the queue gets emptied first
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for items and groups them into one batch.
+     * The batch is handed back once it is full, once the first item has waited the max delay,
+     * or as soon as someone asks for a flush.
+     *
+     * @return the batch, empty if nothing arrived
+     * @throws InterruptedException if the writer thread is interrupted
+     */
+    private List<T> collectBatch() throws InterruptedException {
+        List<T> batch = new ArrayList<>(batchSize);
+
+        T first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        // Group commit: keep filling until full or the delay runs out
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || flushRequested || !running) {
+                break;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Writes a batch, and counts it as done even if the storage rejected it.
+     *
+     * @param batch the items to write
+     */
+    private void writeBatch(List<T> batch) {
+        try {
+            writer.write(batch);
+        } catch (RuntimeException e) {
+            System.err.println("Write-behind batch failed: " + e.getMessage());
+        } finally {
+            markDone(batch.size(), false);
+        }
+    }
+
+    /**
+     * Counts items as finished and wakes anyone waiting on a flush.
+     *
+     * @param count the number of finished items
+     * @param wasDropped whether the items were dropped instead of written
+     */
+    private void markDone(long count, boolean wasDropped) {
+        synchronized (lock) {
+            completed += count;
+            if (wasDropped) {
+                dropped += count;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Puts an item on the queue, waiting for room even if the caller is interrupted.
+     * This keeps a shutdown from losing the last tick of a BLOCK queue.
+     *
+     * @param item the item to add
+     */
+    private void putUninterruptibly(T item) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(item);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Puts an item on the queue, or in the spill file if the queue is full or the file already holds
+     * older items. The writer only reads the file once the queue is empty, so an item that went onto
+     * the queue while older ones waited in the file would be written before them.
+     * The caller must hold the lock.
+     *
+     * @param item the item to add
+     * @return true if the item was spilled
+     */
+    private boolean queueOrSpill(T item) {
+        if (spilledPending == 0 && queue.offer(item)) {
+            return false;
+        }
+        spill(item);
+        return true;
+    }
+
+    /**
+     * Appends an item to the spill file. The caller must hold the lock, and flush the file afterwards.
+     *
+     * @param item the item to spill
+     */
+    private void spill(T item) {
+        try {
+            if (spillOut == null) {
+                spillOut = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(spillFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            }
+            spillCodec.write(spillOut, item);
+            spilledPending++;
+            spilledTotal++;
+        } catch (IOException e) {
+            // Nowhere left to put it, so it counts as dropped
+            System.err.println("Error spilling item to " + spillFile + ": " + e.getMessage());
+            completed++;
+            dropped++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Pushes the spilled items out of the stream's buffer into the file, so a crash can't lose them.
+     * The caller must hold the lock.
+     */
+    private void flushSpill() {
+        if (spillOut == null) {
+            return;
+        }
+        try {
+            spillOut.flush();
+        } catch (IOException e) {
+            System.err.println("Error flushing spill file " + spillFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every spilled item back and writes it in batches, then deletes the spill file.
+     */
+    private void drainSpillFile() {
+        long pending;
+        Path drainFile;
+        synchronized (lock) {
+            pending = spilledPending;
+            if (pending == 0) {
+                return;
+            }
+            drainFile = spillFile.resolveSibling(spillFile.getFileName() + ".draining");
+            try {
+                spillOut.close();
+            } catch (IOException e) {
+                System.err.println("Error closing spill file: " + e.getMessage());
+            }
+            spillOut = null;
+            spilledPending = 0;
+
+            // Move the file aside so new spills start a fresh one while we read this one
+            try {
+                Files.move(spillFile, drainFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("Error moving spill file " + spillFile + ": " + e.getMessage());
+                completed += pending;
+                dropped += pending;
+                lock.notifyAll();
+                return;
+            }
+        }
+
+        long read = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(drainFile)))) {
+            while (read < pending) {
+                batch.add(spillCodec.read(in));
+                read++;
+                if (batch.size() == batchSize && read < pending) {
+                    writeBatch(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading spill file " + drainFile + ": " + e.getMessage());
+            // Whatever couldn't be read back is lost
+            markDone(pending - read, true);
+        }
+
+        // Delete before the last batch, so a finished flush never sees a stale spill file
+        try {
+            Files.deleteIfExists(drainFile);
+        } catch (IOException e) {
+            System.err.println("Error deleting spill file " + drainFile + ": " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * Writes out whatever a previous run left in the spill file.
+     */
+    private void recoverSpillFile() {
+        if (spillFile == null || !Files.exists(spillFile)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)))) {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (true) {
+                try {
+                    batch.add(spillCodec.read(in));
+                } catch (EOFException e) {
+                    break;
+                }
+                if (batch.size() == batchSize) {
+                    writer.write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+            }
+            Files.deleteIfExists(spillFile);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error recovering spill file " + spillFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -14,32 +14,32 @@ public class AnomalyDetector  {
     /**
      * What constitutes a battery being too low
      */
-    final int BATTERY_THRESHOLD = 15;
+    static final int BATTERY_THRESHOLD = 15;
     /**
      * The threshold for what constitutes a "sudden jump"
      */
-    final double JUMP_THRESHOLD = 70.0;
+    static final double JUMP_THRESHOLD = 70.0;
     /**
      * The threshold for what constitutes a "sudden drop"
      */
-    final double DROP_THRESHOLD = 50.0;
+    static final double DROP_THRESHOLD = 50.0;
     /**
      * The threshold for what constitutes a "too sharp turn"
      */
-    final double TURN_THRESHOLD = 100.0;
+    static final double TURN_THRESHOLD = 100.0;
     /**
      * Determines what constitutes going "way too fast"
      */
-    final double VELOCITY_THRESHOLD = 50.0;
+    static final double VELOCITY_THRESHOLD = 50.0;
     /**
      * The upper and lower bounds for latitude and longitude.
      * Lower bound latitude, lower bound longitude, upper bound latitude, upper bound longitude.
      */
-    final double[] OUT_OF_BOUNDS = {-1000.0, -1000.0, 1000.0, 1000.0};
+    static final double[] OUT_OF_BOUNDS = {-1000.0, -1000.0, 1000.0, 1000.0};
     /**
      * MARGIN OF ERROR, percentage of current expected needs to pass
      */
-    final double TELEPORT_MARGIN_OF_ERROR = 1.5;
+    static final double TELEPORT_MARGIN_OF_ERROR = 1.5;
     /**
      * Record for holding a latitude and longitude, used to
      * simplify certain methods (such as detectSharingLocations())
@@ -48,6 +48,21 @@ public class AnomalyDetector  {
      */
     record Location(double lat, double lon) {}
 
+    /**
+     * Decides which drones need their battery and bounds checks on this tick,
+     * null means every drone is checked every tick.
+     */
+    private PredictiveAlertScheduler myAlertScheduler;
+
+    /**
+     * Setter for the scheduler that gates the battery and bounds checks.
+     *
+     * @param theAlertScheduler The scheduler to use, or null to check every drone every tick.
+     */
+    public void setAlertScheduler(final PredictiveAlertScheduler theAlertScheduler) {
+        myAlertScheduler = theAlertScheduler;
+    }
+
     /**
      * Full analysis of drones and their possible anomalies.
      *
@@ -176,17 +191,11 @@ public class AnomalyDetector  {
         List<AnomalyRecord> returnList = new ArrayList<>();
 
         for (Drone drone : theDrones) {
-            if (isBatteryNegative(drone)) {
-                returnList.add(new AnomalyRecord("isBatteryNegative", drone.getDroneID(), theTime,
-                        "Drone " + drone.getDroneID() + " has a negative battery of " +
-                                drone.getBatteryLevel()));
-            } else if (isBatteryEmpty(drone)) {
-                returnList.add(new AnomalyRecord("isBatteryEmpty", drone.getDroneID(), theTime,
-                        "Drone " + drone.getDroneID() + " has an empty battery"));
-            } else if (isBatteryLow(drone)) {
-                returnList.add(new AnomalyRecord("isBatteryLow", drone.getDroneID(), theTime,
-                        "Drone " + drone.getDroneID() + " has a low battery (<=" +
-                                BATTERY_THRESHOLD + ") of " + drone.getBatteryLevel()));
+            // Drones that can't have reached a threshold yet skip those checks entirely
+            boolean thresholdsDue = myAlertScheduler == null || myAlertScheduler.isDue(drone.getDroneID());
+
+            if (thresholdsDue) {
+                addBatteryAnomaly(drone, theTime, returnList);
             }
 
             TelemetryData data = drone.getDroneTelemetry();
@@ -201,7 +210,7 @@ public class AnomalyDetector  {
                         "Drone " + drone.getDroneID() +
                                 " is flying backwards with velocity " + drone.getDroneTelemetry().getVelocity()));
             }
-            if (outOfBounds(data)) {
+            if (thresholdsDue && outOfBounds(data)) {
                 returnList.add(new AnomalyRecord("outOfBounds", drone.getDroneID(), theTime,
                         "Drone " + drone.getDroneID() + " is out of the bounds("+
                                 Arrays.toString(OUT_OF_BOUNDS) +") at longitude " +
@@ -221,6 +230,29 @@ public class AnomalyDetector  {
         return returnList.toArray(new AnomalyRecord[0]);
     }
 
+    /**
+     * Helper method that adds the single battery anomaly (if any) a drone currently has.
+     *
+     * @param theDrone The drone whose battery we're checking.
+     * @param theTime The time at which the anomaly would've happened.
+     * @param theList The list the anomaly is added to.
+     */
+    private void addBatteryAnomaly(final Drone theDrone, final double theTime,
+                                   final List<AnomalyRecord> theList) {
+        if (isBatteryNegative(theDrone)) {
+            theList.add(new AnomalyRecord("isBatteryNegative", theDrone.getDroneID(), theTime,
+                    "Drone " + theDrone.getDroneID() + " has a negative battery of " +
+                            theDrone.getBatteryLevel()));
+        } else if (isBatteryEmpty(theDrone)) {
+            theList.add(new AnomalyRecord("isBatteryEmpty", theDrone.getDroneID(), theTime,
+                    "Drone " + theDrone.getDroneID() + " has an empty battery"));
+        } else if (isBatteryLow(theDrone)) {
+            theList.add(new AnomalyRecord("isBatteryLow", theDrone.getDroneID(), theTime,
+                    "Drone " + theDrone.getDroneID() + " has a low battery (<=" +
+                            BATTERY_THRESHOLD + ") of " + theDrone.getBatteryLevel()));
+        }
+    }
+
     /**
      * Detects any teleportation of a Drone. This method treats the drone as if
      * it's on a 2D grid, with longitude being x and latitude being y.
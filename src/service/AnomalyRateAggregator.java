@@ -0,0 +1,228 @@
+package service;
+
+import Model.AnomalyRecord;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class that keeps live anomaly counts per drone and per anomaly type over rolling windows.
+ * It is fed by SimulationEngine after every detection pass, so dashboards and alerting can read
+ * anomaly rates directly instead of scanning the anomaly database.
+ *
+ * @version Fall 2025
+ */
+public class AnomalyRateAggregator {
+    /*-- Constant --*/
+
+    /** Represent the number of buckets that make up every window. */
+    private static final int BUCKETS_PER_WINDOW = 60;
+
+    /** Conversion factor from seconds to minutes */
+    private static final double SECONDS_PER_MINUTE = 60.0;
+
+    /**
+     * Enum that represents the different rolling windows the aggregator tracks.
+     */
+    public enum Window {
+        /** Represent the last minute, in 1 second buckets. */
+        ONE_MINUTE(1),
+        /** Represent the last 10 minutes, in 10 second buckets. */
+        TEN_MINUTES(10),
+        /** Represent the last hour, in 1 minute buckets. */
+        ONE_HOUR(60);
+
+        /** Represent the width of a single bucket in seconds */
+        private final int myBucketSeconds;
+
+        /**
+         * Constructor to create the window enum.
+         *
+         * @param theBucketSeconds represent the width of a single bucket in seconds.
+         */
+        Window(final int theBucketSeconds) {
+            myBucketSeconds = theBucketSeconds;
+        }
+
+        /**
+         * Getter method to get the length of the window.
+         *
+         * @return the window length in seconds.
+         */
+        public int getSeconds() {
+            return myBucketSeconds * BUCKETS_PER_WINDOW;
+        }
+    }
+
+
+    /*-- Fields --*/
+
+    /** Represent the counters for each drone, keyed by drone ID. */
+    private final Map<Integer, RollingCounter[]> myDroneCounters = new HashMap<>();
+
+    /** Represent the counters for each anomaly type, keyed by type name. */
+    private final Map<String, RollingCounter[]> myTypeCounters = new HashMap<>();
+
+    /** Represent the counters for the whole fleet. */
+    private final RollingCounter[] myFleetCounters = createCounters();
+
+    /** Represent the newest simulation time the aggregator has seen. */
+    private long myLatestTime;
+
+
+    /*-- Recording --*/
+
+    /**
+     * Records a batch of anomalies that were detected at the given time.
+     *
+     * @param theAnomalies represent the anomalies detected this tick.
+     * @param theTimeSeconds represent the simulation time of the tick in seconds.
+     */
+    public synchronized void record(final AnomalyRecord[] theAnomalies, final long theTimeSeconds) {
+        myLatestTime = Math.max(myLatestTime, theTimeSeconds);
+
+        if (theAnomalies == null) {
+            return;
+        }
+
+        for (AnomalyRecord anomaly : theAnomalies) {
+            if (anomaly.getID() != null) {
+                addAll(myDroneCounters.computeIfAbsent(anomaly.getID(), id -> createCounters()), theTimeSeconds);
+            }
+            addAll(myTypeCounters.computeIfAbsent(anomaly.getType(), type -> createCounters()), theTimeSeconds);
+            addAll(myFleetCounters, theTimeSeconds);
+        }
+    }
+
+    /**
+     * Method to reset every counter, used when a new simulation run starts.
+     */
+    public synchronized void reset() {
+        myDroneCounters.clear();
+        myTypeCounters.clear();
+        for (RollingCounter counter : myFleetCounters) {
+            counter.clear();
+        }
+        myLatestTime = 0;
+    }
+
+
+    /*-- Getters --*/
+
+    /**
+     * Getter method that returns how many anomalies a drone had inside a window.
+     *
+     * @param theDroneID represent the drone ID.
+     * @param theWindow represent the window to count over.
+     * @return the number of anomalies in the window.
+     */
+    public synchronized long getDroneCount(final int theDroneID, final Window theWindow) {
+        return countOf(myDroneCounters.get(theDroneID), theWindow);
+    }
+
+    /**
+     * Getter method that returns how many anomalies of a type happened inside a window.
+     *
+     * @param theType represent the anomaly type name.
+     * @param theWindow represent the window to count over.
+     * @return the number of anomalies in the window.
+     */
+    public synchronized long getTypeCount(final String theType, final Window theWindow) {
+        return countOf(myTypeCounters.get(theType), theWindow);
+    }
+
+    /**
+     * Getter method that returns how many anomalies the whole fleet had inside a window.
+     *
+     * @param theWindow represent the window to count over.
+     * @return the number of anomalies in the window.
+     */
+    public synchronized long getFleetCount(final Window theWindow) {
+        return countOf(myFleetCounters, theWindow);
+    }
+
+    /**
+     * Getter method that returns a drone's anomaly rate inside a window.
+     *
+     * @param theDroneID represent the drone ID.
+     * @param theWindow represent the window to average over.
+     * @return the anomalies per minute.
+     */
+    public double getDroneRatePerMinute(final int theDroneID, final Window theWindow) {
+        return toPerMinute(getDroneCount(theDroneID, theWindow), theWindow);
+    }
+
+    /**
+     * Getter method that returns an anomaly type's rate inside a window.
+     *
+     * @param theType represent the anomaly type name.
+     * @param theWindow represent the window to average over.
+     * @return the anomalies per minute.
+     */
+    public double getTypeRatePerMinute(final String theType, final Window theWindow) {
+        return toPerMinute(getTypeCount(theType, theWindow), theWindow);
+    }
+
+    /**
+     * Getter method that returns the whole fleet's anomaly rate inside a window.
+     *
+     * @param theWindow represent the window to average over.
+     * @return the anomalies per minute.
+     */
+    public double getFleetRatePerMinute(final Window theWindow) {
+        return toPerMinute(getFleetCount(theWindow), theWindow);
+    }
+
+
+    /*-- Helper Methods --*/
+
+    /**
+     * Helper method to create one counter for every window.
+     *
+     * @return an array of counters, indexed by the window ordinal.
+     */
+    private static RollingCounter[] createCounters() {
+        Window[] windows = Window.values();
+        RollingCounter[] counters = new RollingCounter[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            counters[i] = new RollingCounter(BUCKETS_PER_WINDOW, windows[i].myBucketSeconds);
+        }
+        return counters;
+    }
+
+    /**
+     * Helper method to add a single event to every window.
+     *
+     * @param theCounters represent the counters to add to.
+     * @param theTimeSeconds represent the time of the event.
+     */
+    private static void addAll(final RollingCounter[] theCounters, final long theTimeSeconds) {
+        for (RollingCounter counter : theCounters) {
+            counter.add(theTimeSeconds, 1);
+        }
+    }
+
+    /**
+     * Helper method to read a window total at the latest simulation time.
+     *
+     * @param theCounters represent the counters to read, may be null.
+     * @param theWindow represent the window to read.
+     * @return the total in the window, or 0 if there are no counters yet.
+     */
+    private long countOf(final RollingCounter[] theCounters, final Window theWindow) {
+        if (theCounters == null) {
+            return 0;
+        }
+        return theCounters[theWindow.ordinal()].getTotal(myLatestTime);
+    }
+
+    /**
+     * Helper method to convert a window count into a per-minute rate.
+     *
+     * @param theCount represent the count inside the window.
+     * @param theWindow represent the window the count covers.
+     * @return the per-minute rate.
+     */
+    private static double toPerMinute(final long theCount, final Window theWindow) {
+        return theCount * SECONDS_PER_MINUTE / theWindow.getSeconds();
+    }
+}
@@ -3,6 +3,8 @@ package service;
 import Model.Drone;
 import Model.DroneFactory;
 import Model.TelemetryData;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 
@@ -33,6 +35,9 @@ public final class DroneFleetManager {
     /** Represent the current drone being simulated on. */
     private Drone[] myDroneFleet;
 
+    /** Map of each drone's position in the fleet array, rebuilt with the fleet (Drone ID -> index). */
+    private final Map<Integer, Integer> myDroneIndex = new HashMap<>();
+
     /** Represent the current number of drones in the fleet. */
     private int myDroneCount;
 
@@ -96,12 +101,20 @@ public final class DroneFleetManager {
      * @return the drone base on the id.
      */
     public Drone getDroneById(final int theRequestDroneId) {
-        for (Drone drone : myDroneFleet) {
-            if (drone.getDroneID() == theRequestDroneId) {
-                return drone;
-            }
-        }
-        return null; // Not found
+        int index = getDroneIndex(theRequestDroneId);
+        return index < 0 ? null : myDroneFleet[index];
+    }
+
+    /**
+     * Getter method that returns where a drone is in the fleet, which is also where it is
+     * in every array returned by getDroneFleet until the fleet is rebuilt.
+     *
+     * @param theRequestDroneId represents the id of the drone we want to find.
+     * @return the index of the drone, or -1 if no drone has that id.
+     */
+    public int getDroneIndex(final int theRequestDroneId) {
+        Integer index = myDroneIndex.get(theRequestDroneId);
+        return index == null ? -1 : index;
     }
 
 
@@ -111,6 +124,7 @@ public final class DroneFleetManager {
      * Initialize the drone fleet array with new Drone objects.
      */
     private void initializeFleet() {
+        myDroneIndex.clear();
         for (int i = 0; i < myDroneCount; i++) {
             Drone newDrone;
             if (myRng.nextInt(1, 5) % 4 == 0) {
@@ -119,6 +133,7 @@ public final class DroneFleetManager {
                 newDrone = DroneFactory.createDrone("A");
             }
             myDroneFleet[i] = newDrone;
+            myDroneIndex.put(newDrone.getDroneID(), i);
         }
     }
 
@@ -0,0 +1,142 @@
+package service;
+
+import Model.Battery;
+import Model.Drone;
+import Model.TelemetryData;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A class that predicts when each drone could next trip the low battery or out of bounds checks.
+ * Every drone is parked in a timing wheel until the earliest tick it could possibly reach either
+ * threshold, so the AnomalyDetector only runs those checks on the drones that are actually due.
+ *
+ * The prediction is a safe lower bound: it assumes the worst case drain and the fastest possible
+ * flight straight at the nearest boundary, so a random change in course can never skip a real anomaly.
+ *
+ * @version Fall 2025
+ */
+public class PredictiveAlertScheduler {
+    /*-- Constant --*/
+
+    /** Represent how many times a drone's battery drains during a single tick. */
+    private static final int DRAINS_PER_TICK = 2;
+
+    /** Represent the most battery a drone can lose in a single tick. */
+    private static final int MAX_DRAIN_PER_TICK = DRAINS_PER_TICK * Battery.drainAmount(TelemetryGenerator.MAX_VELOCITY);
+
+
+    /*-- Dependency Injection --*/
+
+    /** Represent the AnomalyDetector whose thresholds are being predicted. */
+    private final AnomalyDetector myAnomalyDetector;
+
+
+    /*-- Fields --*/
+
+    /** Represent the wheel holding every drone until its next threshold check. */
+    private final TimingWheel<Integer> myWheel = new TimingWheel<>();
+
+    /** Represent the drones whose timer fired on the current tick. */
+    private final Set<Integer> myDueDrones = new HashSet<>();
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Constructor to create the scheduler for the given detector's thresholds.
+     *
+     * @param theAnomalyDetector represent the detector whose thresholds are predicted.
+     * @throws NullPointerException if theAnomalyDetector is null.
+     */
+    public PredictiveAlertScheduler(final AnomalyDetector theAnomalyDetector) {
+        myAnomalyDetector = Objects.requireNonNull(theAnomalyDetector, "AnomalyDetector can't be null");
+    }
+
+
+    /*-- Logic --*/
+
+    /**
+     * Moves the wheel to the given tick and collects the drones that came due.
+     *
+     * @param theTick represent the simulation tick about to be analyzed.
+     */
+    public void advanceTo(final long theTick) {
+        myDueDrones.clear();
+        myDueDrones.addAll(myWheel.advanceTo(theTick));
+    }
+
+    /**
+     * Checks whether a drone needs its threshold checks on the current tick.
+     * A drone that has never been scheduled is always due.
+     *
+     * @param theDroneID represent the drone ID.
+     * @return true if the thresholds should be checked, otherwise false.
+     */
+    public boolean isDue(final int theDroneID) {
+        return myDueDrones.contains(theDroneID) || !myWheel.isScheduled(theDroneID);
+    }
+
+    /**
+     * Registers the next check for every drone that was due, based on its newly updated state.
+     *
+     * @param theFleet represent the fleet after this tick's update.
+     * @param theTick represent the tick that just finished.
+     */
+    public void rescheduleDue(final Drone[] theFleet, final long theTick) {
+        for (Drone drone : theFleet) {
+            if (isDue(drone.getDroneID())) {
+                myWheel.schedule(drone.getDroneID(), theTick + 1 + ticksUntilPossible(drone));
+            }
+        }
+        myDueDrones.clear();
+    }
+
+    /**
+     * Method to drop every prediction, used when a new simulation run starts.
+     */
+    public void reset() {
+        myWheel.clear();
+        myDueDrones.clear();
+    }
+
+
+    /*-- Helper Methods --*/
+
+    /**
+     * Helper method that finds the fewest tick updates before either threshold could be reached.
+     *
+     * @param theDrone represent the drone to predict for.
+     * @return the number of updates, 0 if a threshold is already reached.
+     */
+    private long ticksUntilPossible(final Drone theDrone) {
+        // Battery: the fewest worst case drains that bring the level down to the threshold
+        long batteryMargin = theDrone.getBatteryLevel() - AnomalyDetector.BATTERY_THRESHOLD;
+        long batteryTicks = batteryMargin <= 0 ? 0 : ceilDiv(batteryMargin, MAX_DRAIN_PER_TICK);
+
+        // Bounds: the fewest full speed moves that take the drone past the nearest edge
+        TelemetryData data = theDrone.getDroneTelemetry();
+        if (myAnomalyDetector.outOfBounds(data)) {
+            return 0;
+        }
+        double[] bounds = AnomalyDetector.OUT_OF_BOUNDS;
+        double edgeMargin = Math.min(
+                Math.min(data.getLatitude() - bounds[0], bounds[2] - data.getLatitude()),
+                Math.min(data.getLongitude() - bounds[1], bounds[3] - data.getLongitude()));
+        long boundsTicks = (long) Math.floor(edgeMargin / TelemetryGenerator.MAX_VELOCITY) + 1;
+
+        return Math.min(batteryTicks, boundsTicks);
+    }
+
+    /**
+     * Helper method that divides and rounds up.
+     *
+     * @param theValue represent the positive value.
+     * @param theDivisor represent the positive divisor.
+     * @return the rounded up quotient.
+     */
+    private static long ceilDiv(final long theValue, final long theDivisor) {
+        return (theValue + theDivisor - 1) / theDivisor;
+    }
+}
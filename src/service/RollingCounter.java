@@ -0,0 +1,132 @@
+package service;
+
+/**
+ * A counter over a rolling time window that is split into a fixed ring of time buckets.
+ * Old buckets are recycled as time moves forward, so the memory used never grows
+ * no matter how long the simulation runs.
+ *
+ * @version Fall 2025
+ */
+public final class RollingCounter {
+    /*-- Fields --*/
+
+    /** Represent the count stored in each bucket of the ring. */
+    private final long[] myCounts;
+
+    /** Represent the width of a single bucket in seconds. */
+    private final int myBucketSeconds;
+
+    /** Represent the running total of every bucket still inside the window. */
+    private long myTotal;
+
+    /** Represent the newest bucket epoch (time / bucket width) this counter has advanced to. */
+    private long myHeadEpoch;
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Constructor to create a rolling counter.
+     *
+     * @param theBucketCount represent the number of buckets in the ring.
+     * @param theBucketSeconds represent the width of each bucket in seconds.
+     * @throws IllegalArgumentException if either value is less than 1.
+     */
+    public RollingCounter(final int theBucketCount, final int theBucketSeconds) {
+        if (theBucketCount < 1 || theBucketSeconds < 1) {
+            throw new IllegalArgumentException("Bucket count and width must be at least 1, got: "
+                    + theBucketCount + ", " + theBucketSeconds);
+        }
+        myCounts = new long[theBucketCount];
+        myBucketSeconds = theBucketSeconds;
+        myHeadEpoch = 0;
+    }
+
+
+    /*-- Logic --*/
+
+    /**
+     * Adds to the bucket that covers the given time.
+     *
+     * @param theTimeSeconds represent the simulation time of the event in seconds.
+     * @param theAmount represent how much to add.
+     */
+    public void add(final long theTimeSeconds, final long theAmount) {
+        final long epoch = theTimeSeconds / myBucketSeconds;
+        advanceTo(epoch);
+
+        // Events older than the window are simply ignored
+        if (epoch <= myHeadEpoch - myCounts.length) {
+            return;
+        }
+
+        final int slot = slotOf(epoch);
+        myCounts[slot] += theAmount;
+        myTotal += theAmount;
+    }
+
+    /**
+     * Gets the total count inside the window ending at the given time.
+     *
+     * @param theTimeSeconds represent the current simulation time in seconds.
+     * @return the number of events inside the window.
+     */
+    public long getTotal(final long theTimeSeconds) {
+        advanceTo(theTimeSeconds / myBucketSeconds);
+        return myTotal;
+    }
+
+    /**
+     * Getter method that returns the full length of the window.
+     *
+     * @return the window length in seconds.
+     */
+    public int getWindowSeconds() {
+        return myCounts.length * myBucketSeconds;
+    }
+
+    /**
+     * Empties every bucket in the ring.
+     */
+    public void clear() {
+        for (int i = 0; i < myCounts.length; i++) {
+            myCounts[i] = 0;
+        }
+        myTotal = 0;
+        myHeadEpoch = 0;
+    }
+
+
+    /*-- Helper Methods --*/
+
+    /**
+     * Helper method that moves the head forward, expiring any bucket that fell out of the window.
+     * The work done is capped by the ring size, so it stays constant per call.
+     *
+     * @param theEpoch represent the bucket epoch to advance to.
+     */
+    private void advanceTo(final long theEpoch) {
+        if (theEpoch <= myHeadEpoch) {
+            return;
+        }
+
+        // Only the slots that are about to be reused need clearing
+        final long firstEpoch = Math.max(myHeadEpoch + 1, theEpoch - myCounts.length + 1);
+        for (long epoch = firstEpoch; epoch <= theEpoch; epoch++) {
+            final int slot = slotOf(epoch);
+            myTotal -= myCounts[slot];
+            myCounts[slot] = 0;
+        }
+        myHeadEpoch = theEpoch;
+    }
+
+    /**
+     * Helper method that maps a bucket epoch onto its slot in the ring.
+     *
+     * @param theEpoch represent the bucket epoch.
+     * @return the index of the ring slot.
+     */
+    private int slotOf(final long theEpoch) {
+        return (int) Math.floorMod(theEpoch, (long) myCounts.length);
+    }
+}
@@ -3,8 +3,15 @@ package service;
 import Model.AnomalyRecord;
 import Model.Drone;
 import Model.TelemetryData;
-import database.AnomalyDB;
+import database.AnomalyStore;
+import database.FlightRecorder;
+import database.PendingAnomaly;
+import database.TelemetryStore;
+import database.WriteBehindQueue;
 import view.SimulationListener;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -28,6 +35,15 @@ public class SimulationEngine {
     /** Multiplier for initial drone update delay (starts after updateInterval * 2). */
     private static final int INITIAL_UPDATE_DELAY_MULTIPLIER = 2;
 
+    /** Most anomalies held in memory while waiting for the database writer. */
+    private static final int WRITE_QUEUE_CAPACITY = 10_000;
+
+    /** Most anomalies committed in a single write-behind transaction. */
+    private static final int WRITE_BATCH_SIZE = 500;
+
+    /** Longest an anomaly waits before its batch is committed (milliseconds). */
+    private static final long WRITE_MAX_DELAY_MILLIS = 200;
+
 
     /*-- Dependency Injection --*/
 
@@ -43,12 +59,30 @@ public class SimulationEngine {
     /** Represent the AnomalyDetector object that detects any anomalies with the telemetry data. */
     private final AnomalyDetector myAnomalyDetector;
 
-    /** Represent the AnomalyDB object that stores and handles all the anomalies records. */
-    private final AnomalyDB myAnomalyDB;
+    /** Represent the AnomalyStore backend that stores and handles all the anomalies records. */
+    private final AnomalyStore myAnomalyStore;
+
+    /** Represent the write-behind queue that moves anomaly writes off the simulation thread. */
+    private final WriteBehindQueue<PendingAnomaly> myAnomalyWriter;
+
+    /** Represent the optional history store that records every drone's telemetry on every tick. */
+    private TelemetryStore myTelemetryStore;
+
+    /** Represent the optional binary flight recorder that logs every tick for replay and export. */
+    private FlightRecorder myFlightRecorder;
 
     /** Represent the UpdateUIManager object that sends and update to the UI. */
     private SimulationListener myListener;
 
+    /** Represent the rolling anomaly counts that dashboards and alerting read from. */
+    private final AnomalyRateAggregator myAnomalyRates = new AnomalyRateAggregator();
+
+    /** Represent the timing wheel that predicts when each drone next needs its threshold checks. */
+    private final PredictiveAlertScheduler myAlertScheduler;
+
+    /** Represent the number of drone update ticks that have run this simulation. */
+    private long myTickCount;
+
 
     /*-- Constructor --*/
 
@@ -58,16 +92,46 @@ public class SimulationEngine {
      * @param theTimerManager manages simulation time.
      * @param theFleetManager manages the drone fleet.
      * @param theAnomalyDetector detects anomalies in telemetry.
-     * @param theAnomalyDB stores anomaly records.
+     * @param theAnomalyStore stores anomaly records, in whichever backend was picked at startup.
+     * @param theSpillFile the file anomalies overflow into when the write queue is full, kept next to the store.
      * @throws NullPointerException if any parameter is null.
      */
     public SimulationEngine(final TimerManager theTimerManager, final DroneFleetManager theFleetManager,
-                            final AnomalyDetector theAnomalyDetector, final AnomalyDB theAnomalyDB) {
+                            final AnomalyDetector theAnomalyDetector, final AnomalyStore theAnomalyStore,
+                            final Path theSpillFile) {
+        this(theTimerManager, theFleetManager, theAnomalyDetector, theAnomalyStore,
+                WriteBehindQueue.OverflowPolicy.SPILL_TO_FILE, theSpillFile);
+    }
+
+    /**
+     * Creates a SimulationEngine with required dependencies and a chosen write queue overflow policy.
+     *
+     * @param theTimerManager manages simulation time.
+     * @param theFleetManager manages the drone fleet.
+     * @param theAnomalyDetector detects anomalies in telemetry.
+     * @param theAnomalyStore stores anomaly records, in whichever backend was picked at startup.
+     * @param theOverflowPolicy decides what happens when anomalies arrive faster than they are written.
+     * @param theSpillFile the file anomalies overflow into, only needed by SPILL_TO_FILE.
+     * @throws NullPointerException if any other parameter is null.
+     */
+    public SimulationEngine(final TimerManager theTimerManager, final DroneFleetManager theFleetManager,
+                            final AnomalyDetector theAnomalyDetector, final AnomalyStore theAnomalyStore,
+                            final WriteBehindQueue.OverflowPolicy theOverflowPolicy, final Path theSpillFile) {
         // Safety check if the follow objects pass is not null
         myTimerManager = Objects.requireNonNull(theTimerManager, "TimeManger can't be null");
         myFleetManager = Objects.requireNonNull(theFleetManager, "FleetManager can't be null");
         myAnomalyDetector = Objects.requireNonNull(theAnomalyDetector, "AnomalyDetector can't be null");
-        myAnomalyDB = Objects.requireNonNull(theAnomalyDB, "AnomalyDB can't be null");
+        myAnomalyStore = Objects.requireNonNull(theAnomalyStore, "AnomalyStore can't be null");
+
+        // The simulation thread only queues anomalies, a dedicated thread commits them in groups
+        myAnomalyWriter = new WriteBehindQueue<>("anomaly-writer", myAnomalyStore::saveAnomalyBatch,
+                WRITE_QUEUE_CAPACITY, WRITE_BATCH_SIZE, WRITE_MAX_DELAY_MILLIS,
+                Objects.requireNonNull(theOverflowPolicy, "Overflow policy can't be null"),
+                PendingAnomaly.SPILL_CODEC, theSpillFile);
+
+        // Only drones the scheduler marks as due get their battery and bounds checks
+        myAlertScheduler = new PredictiveAlertScheduler(myAnomalyDetector);
+        myAnomalyDetector.setAlertScheduler(myAlertScheduler);
     }
 
 
@@ -82,6 +146,33 @@ public class SimulationEngine {
         myListener = theListener;
     }
 
+    /**
+     * Setter for the telemetry history store, null to stop recording telemetry.
+     *
+     * @param theTelemetryStore is the store that records every drone's state on every tick.
+     */
+    public void setTelemetryStore(final TelemetryStore theTelemetryStore) {
+        myTelemetryStore = theTelemetryStore;
+    }
+
+    /**
+     * Setter for the flight recorder, null to stop recording flights.
+     *
+     * @param theFlightRecorder is the recorder that logs every drone and anomaly on every tick.
+     */
+    public void setFlightRecorder(final FlightRecorder theFlightRecorder) {
+        myFlightRecorder = theFlightRecorder;
+    }
+
+    /**
+     * Getter method that returns the live anomaly rate aggregator.
+     *
+     * @return the aggregator holding the rolling anomaly counts.
+     */
+    public AnomalyRateAggregator getAnomalyRates() {
+        return myAnomalyRates;
+    }
+
 
     /*-- Simulation Cycle --*/
 
@@ -90,6 +181,15 @@ public class SimulationEngine {
      */
     public void startSimulationTask() {
         myScheduleOperation = Executors.newScheduledThreadPool(THREAD_POOL_SIZE);
+        // Drone ids start over every run, so each run is stored apart, after the last run's rows are written
+        myAnomalyWriter.flush();
+        myAnomalyStore.startRun();
+        if (myTelemetryStore != null) {
+            myTelemetryStore.startRun();
+        }
+        myAnomalyRates.reset();
+        myAlertScheduler.reset();
+        myTickCount = 0;
 
         final int updateInterval = myTimerManager.getUpdateInterval();
         final int timerInterval = myTimerManager.getTimerInterval();
@@ -142,6 +242,30 @@ public class SimulationEngine {
             System.err.println("Simulation scheduler shutdown was interrupted");
         }
 
+        // Everything queued by the last ticks has to reach the database before we return
+        myAnomalyWriter.flush();
+        if (myTelemetryStore != null) {
+            myTelemetryStore.flush();
+        }
+        if (myFlightRecorder != null) {
+            myFlightRecorder.force();
+        }
+    }
+
+
+    /**
+     * Stops the simulation for good, writes out every anomaly still queued and closes the history stores.
+     * Called once when the application exits; the engine can't be started again afterwards.
+     */
+    public void close() {
+        stopSimulationSchedule();
+        myAnomalyWriter.close();
+        if (myTelemetryStore != null) {
+            myTelemetryStore.close();
+        }
+        if (myFlightRecorder != null) {
+            myFlightRecorder.close();
+        }
     }
 
 
@@ -158,20 +282,35 @@ public class SimulationEngine {
         }
 
         try {
+            // Collecting the drones whose threshold timers fire on this tick
+            myTickCount++;
+            myAlertScheduler.advanceTo(myTickCount);
+
+            // The fleet is copied once per tick, updating it only changes the drones inside
+            Drone[] fleet = myFleetManager.getDroneFleet();
+
             // 1) Generate new telemetry for all drones
             TelemetryData[] newTelemetry = generateTelemetry();
 
             // 2) Detect anomalies
-            AnomalyRecord[] anomalies = detectAnomalies(newTelemetry);
+            AnomalyRecord[] anomalies = detectAnomalies(newTelemetry, fleet);
+            myAnomalyRates.record(anomalies, myTimerManager.getElapsedTime());
 
             // 3) Save anomalies
-            saveAnomalies(anomalies);
+            saveAnomalies(anomalies, fleet);
 
             // 4) Update fleet data
             updateFleet(newTelemetry);
+            myAlertScheduler.rescheduleDue(fleet, myTickCount);
+            if (myTelemetryStore != null) {
+                myTelemetryStore.append(myTickCount, fleet);
+            }
+            if (myFlightRecorder != null) {
+                recordFlight(anomalies, fleet);
+            }
 
             // 5) Notifying listeners for the new anomalies
-            notifyListeners(anomalies);
+            notifyListeners(anomalies, fleet);
 
         } catch (Exception e) {
             System.err.println("Theres a ERROR in updateDronesTask:" + e.getMessage());
@@ -216,38 +355,75 @@ public class SimulationEngine {
      * Detects anomalies in the provided telemetry data.
      *
      * @param theNewTelemetry the telemetry data to analyze.
+     * @param theFleet the fleet of this tick.
      * @return array of detected anomaly records.
      */
-    private AnomalyRecord[] detectAnomalies(final TelemetryData[] theNewTelemetry) {
+    private AnomalyRecord[] detectAnomalies(final TelemetryData[] theNewTelemetry, final Drone[] theFleet) {
         return myAnomalyDetector.analyzeDrones(
                 theNewTelemetry,
-                myFleetManager.getDroneFleet(),
+                theFleet,
                 myTimerManager.getElapsedTime(),
                 myTimerManager.getUpdateInterval()
         );
     }
 
     /**
-     * Saves all detected theAnomalies to the database.
+     * Queues all detected theAnomalies to be written to the database in the background.
      *
      * @param theAnomalies the anomaly records to save.
+     * @param theFleet the fleet of this tick.
      */
-    private void saveAnomalies(final AnomalyRecord[] theAnomalies) {
+    private void saveAnomalies(final AnomalyRecord[] theAnomalies, final Drone[] theFleet) {
+        List<PendingAnomaly> batch = new ArrayList<>(theAnomalies.length);
+
         for (AnomalyRecord anomaly : theAnomalies) {
             // get id of drone that had the anomaly
             int droneID = anomaly.getID();
 
             // find which drone in the fleet matches the drone id
-            Drone affectedDrone = myFleetManager.getDroneById(droneID);
+            Drone affectedDrone = findDrone(theFleet, droneID);
 
-            // save the anomaly
+            // pair the anomaly with the drone telemetry at the time it happened
             if (affectedDrone != null) {
-                myAnomalyDB.saveAnomaly(anomaly, affectedDrone);
+                // getDroneTelemetry already hands back a copy, so the drone moving on can't change the queued write
+                batch.add(new PendingAnomaly(anomaly, affectedDrone.getDroneTelemetry()));
             } else {
                 System.err.println("Warning: Cannot save anomaly - Drone ID "
                         + droneID + " not found in fleet");
             }
         }
+
+        // hand the tick to the writer thread, which commits it in a group
+        myAnomalyWriter.addAll(batch);
+    }
+
+    /**
+     * Logs the updated fleet and this tick's anomalies to the flight recorder.
+     *
+     * @param theAnomalies the anomaly records detected on this tick.
+     * @param theFleet the fleet of this tick, after its update.
+     */
+    private void recordFlight(final AnomalyRecord[] theAnomalies, final Drone[] theFleet) {
+        myFlightRecorder.recordTelemetry(myTickCount, theFleet);
+
+        for (AnomalyRecord anomaly : theAnomalies) {
+            Drone affectedDrone = findDrone(theFleet, anomaly.getID());
+            if (affectedDrone != null) {
+                myFlightRecorder.recordAnomaly(myTickCount, anomaly, affectedDrone);
+            }
+        }
+    }
+
+    /**
+     * Finds a drone in this tick's fleet by its id, without scanning the fleet.
+     *
+     * @param theFleet the fleet of this tick.
+     * @param theDroneID the id of the drone.
+     * @return the drone, or null if it is not in the fleet.
+     */
+    private Drone findDrone(final Drone[] theFleet, final int theDroneID) {
+        int index = myFleetManager.getDroneIndex(theDroneID);
+        return index >= 0 && index < theFleet.length ? theFleet[index] : null;
     }
 
     /**
@@ -263,14 +439,14 @@ public class SimulationEngine {
      * Notifies listeners of drone updates and any detected anomalies.
      *
      * @param anomalies the anomalies detected in this update cycle
+     * @param fleet the fleet of this tick, after its update
      */
-    private void notifyListeners(final AnomalyRecord[] anomalies) {
+    private void notifyListeners(final AnomalyRecord[] anomalies, final Drone[] fleet) {
         if (myListener == null) {
             return;
         }
 
         // Notify drone updates
-        Drone[] fleet = myFleetManager.getDroneFleet();
         if (fleet != null) {
             myListener.onDroneUpdate(fleet);
         }
@@ -29,6 +29,9 @@ public class TelemetryGenerator {
     /** Represent the max starting altitude spawn */
     private static final int MAX_START_ALTITUDE = 75;
 
+    /** Represent the fastest velocity the generator will ever produce */
+    public static final int MAX_VELOCITY = 50;
+
 
     /*-- Converted all those probability stats in Enum as TA suggested --*/
 
@@ -441,7 +444,7 @@ public class TelemetryGenerator {
         double currentVelocity = thePrevTelemetry.getVelocity();
 
         // A double that represents our new anchor to help create our next probability speed
-        double speedAnchor = Math.max(0, Math.min(50, currentVelocity));
+        double speedAnchor = Math.max(0, Math.min(MAX_VELOCITY, currentVelocity));
 
         // Getting the speed category base on the speed anchor
         SpeedCategory currentCategory = SpeedCategory.fromVelocity(speedAnchor);
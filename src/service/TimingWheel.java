@@ -0,0 +1,233 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A hierarchical timing wheel that holds items until the tick they are due on.
+ * Each level has 64 slots, and every level covers 64 times the range of the one below it.
+ * Scheduling and cancelling are constant time, and advancing one tick only touches the
+ * items that are due (plus the occasional cascade from a higher level).
+ *
+ * @param <T> the type of item being scheduled.
+ * @version Fall 2025
+ */
+public final class TimingWheel<T> {
+    /*-- Constant --*/
+
+    /** Represent the number of bits used to pick a slot inside one level. */
+    private static final int SLOT_BITS = 6;
+
+    /** Represent the number of slots per level. */
+    private static final int SLOTS_PER_LEVEL = 1 << SLOT_BITS;
+
+    /** Represent the mask used to pick a slot inside one level. */
+    private static final int SLOT_MASK = SLOTS_PER_LEVEL - 1;
+
+    /** Represent the number of levels in the wheel (64^4 ticks of range). */
+    private static final int LEVEL_COUNT = 4;
+
+
+    /*-- Fields --*/
+
+    /** Represent every slot of every level, indexed [level][slot]. */
+    private final List<List<Entry<T>>> mySlots = new ArrayList<>();
+
+    /** Represent the items that are further away than the wheel can hold. */
+    private final List<Entry<T>> myOverflow = new ArrayList<>();
+
+    /** Represent the live entry of each scheduled item, used for cancelling. */
+    private final Map<T, Entry<T>> myEntries = new HashMap<>();
+
+    /** Represent the tick the wheel has advanced to. */
+    private long myCurrentTick;
+
+    /**
+     * Record that holds one scheduled item.
+     *
+     * @param item the scheduled item.
+     * @param deadline the tick the item is due on.
+     */
+    private record Entry<T>(T item, long deadline) {}
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Constructor to create an empty timing wheel starting at tick 0.
+     */
+    public TimingWheel() {
+        for (int i = 0; i < LEVEL_COUNT * SLOTS_PER_LEVEL; i++) {
+            mySlots.add(new ArrayList<>());
+        }
+        myCurrentTick = 0;
+    }
+
+
+    /*-- Logic --*/
+
+    /**
+     * Schedules an item for the given tick, replacing any earlier schedule for the same item.
+     * A tick that has already passed is treated as the next tick.
+     *
+     * @param theItem represent the item to schedule.
+     * @param theTick represent the tick the item is due on.
+     * @throws NullPointerException if theItem is null.
+     */
+    public void schedule(final T theItem, final long theTick) {
+        Objects.requireNonNull(theItem, "Item can't be null");
+
+        Entry<T> entry = new Entry<>(theItem, Math.max(theTick, myCurrentTick + 1));
+        myEntries.put(theItem, entry);
+        place(entry);
+    }
+
+    /**
+     * Cancels the schedule for an item, if it has one.
+     *
+     * @param theItem represent the item to cancel.
+     */
+    public void cancel(final T theItem) {
+        // The stale entry stays in its slot, and is skipped once it comes due
+        myEntries.remove(theItem);
+    }
+
+    /**
+     * Checks whether an item is currently scheduled.
+     *
+     * @param theItem represent the item to check.
+     * @return true if the item has a pending schedule, otherwise false.
+     */
+    public boolean isScheduled(final T theItem) {
+        return myEntries.containsKey(theItem);
+    }
+
+    /**
+     * Advances the wheel one tick at a time up to the given tick.
+     *
+     * @param theTick represent the tick to advance to.
+     * @return every item that came due along the way.
+     */
+    public List<T> advanceTo(final long theTick) {
+        List<T> expired = new ArrayList<>();
+
+        while (myCurrentTick < theTick) {
+            myCurrentTick++;
+            cascade();
+
+            // Everything left in the lowest level slot is due right now
+            List<Entry<T>> slot = slotAt(0, (int) (myCurrentTick & SLOT_MASK));
+            for (Entry<T> entry : slot) {
+                if (myEntries.get(entry.item()) == entry) {
+                    myEntries.remove(entry.item());
+                    expired.add(entry.item());
+                }
+            }
+            slot.clear();
+        }
+
+        return expired;
+    }
+
+    /**
+     * Getter method that returns the tick the wheel is on.
+     *
+     * @return the current tick.
+     */
+    public long getCurrentTick() {
+        return myCurrentTick;
+    }
+
+    /**
+     * Getter method that returns how many items are scheduled.
+     *
+     * @return the number of scheduled items.
+     */
+    public int size() {
+        return myEntries.size();
+    }
+
+    /**
+     * Removes every scheduled item and moves the wheel back to tick 0.
+     */
+    public void clear() {
+        for (List<Entry<T>> slot : mySlots) {
+            slot.clear();
+        }
+        myOverflow.clear();
+        myEntries.clear();
+        myCurrentTick = 0;
+    }
+
+
+    /*-- Helper Methods --*/
+
+    /**
+     * Helper method that puts an entry into the level that matches how far away it is.
+     *
+     * @param theEntry represent the entry to place.
+     */
+    private void place(final Entry<T> theEntry) {
+        final long delta = theEntry.deadline() - myCurrentTick;
+
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            // Each level holds deltas below 64^(level + 1)
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                int slot = (int) ((theEntry.deadline() >>> (SLOT_BITS * level)) & SLOT_MASK);
+                slotAt(level, slot).add(theEntry);
+                return;
+            }
+        }
+        myOverflow.add(theEntry);
+    }
+
+    /**
+     * Helper method that moves entries from the higher levels down once the wheel reaches their slot.
+     * Higher levels go first, so their entries can keep falling to the lowest level on the same tick.
+     */
+    private void cascade() {
+        // The overflow is re-placed every time the top level completes a full turn
+        if ((myCurrentTick & ((1L << (SLOT_BITS * LEVEL_COUNT)) - 1)) == 0) {
+            List<Entry<T>> overflow = new ArrayList<>(myOverflow);
+            myOverflow.clear();
+            overflow.forEach(this::replaceIfLive);
+        }
+
+        for (int level = LEVEL_COUNT - 1; level >= 1; level--) {
+            // A level only turns over when every level below it wrapped back to 0
+            if ((myCurrentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                continue;
+            }
+
+            List<Entry<T>> slot = slotAt(level, (int) ((myCurrentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+            List<Entry<T>> moving = new ArrayList<>(slot);
+            slot.clear();
+            moving.forEach(this::replaceIfLive);
+        }
+    }
+
+    /**
+     * Helper method that places an entry again, unless it was cancelled or rescheduled.
+     *
+     * @param theEntry represent the entry to place again.
+     */
+    private void replaceIfLive(final Entry<T> theEntry) {
+        if (myEntries.get(theEntry.item()) == theEntry) {
+            place(theEntry);
+        }
+    }
+
+    /**
+     * Helper method to get a slot of a level.
+     *
+     * @param theLevel represent the level.
+     * @param theSlot represent the slot inside the level.
+     * @return the list of entries in that slot.
+     */
+    private List<Entry<T>> slotAt(final int theLevel, final int theSlot) {
+        return mySlots.get(theLevel * SLOTS_PER_LEVEL + theSlot);
+    }
+}
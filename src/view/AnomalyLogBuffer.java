@@ -0,0 +1,121 @@
+package view;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The live anomaly log: a read-only list of the newest anomaly table entries, held in a ring buffer.
+ * Once it is full, every new entry pushes the oldest one out, so a long run keeps a fixed number of
+ * rows in memory; the dropped rows are still in the database, where the database view finds them.
+ * A whole batch is added as one list change, so the TableView lays out once per batch.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+class AnomalyLogBuffer extends ObservableListBase<MonitorTableEntry> {
+    /**
+     * The most entries the live log holds by default
+     */
+    static final int DEFAULT_CAPACITY = 500;
+    /**
+     * The entries, oldest at myHead, wrapping around the end of the array
+     */
+    private final MonitorTableEntry[] myEntries;
+    /**
+     * Where the oldest entry is in myEntries
+     */
+    private int myHead;
+    /**
+     * The number of entries held
+     */
+    private int mySize;
+    /**
+     * The number of entries that have been pushed out
+     */
+    private long myAgedOut;
+
+    /**
+     * Constructor for a log holding the default number of entries.
+     */
+    AnomalyLogBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for a log holding a given number of entries.
+     *
+     * @param theCapacity The most entries the log holds
+     */
+    AnomalyLogBuffer(int theCapacity) {
+        if (theCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        myEntries = new MonitorTableEntry[theCapacity];
+    }
+
+    @Override
+    public MonitorTableEntry get(int theIndex) {
+        Objects.checkIndex(theIndex, mySize);
+        return myEntries[(myHead + theIndex) % myEntries.length];
+    }
+
+    @Override
+    public int size() {
+        return mySize;
+    }
+
+    /**
+     * Adds a batch of entries to the end of the log, pushing out the oldest ones when it is full.
+     * The whole batch is a single list change.
+     *
+     * @param theBatch The entries to add, oldest first
+     */
+    void append(List<MonitorTableEntry> theBatch) {
+        Objects.requireNonNull(theBatch, "Batch is null");
+        if (theBatch.isEmpty()) {
+            return;
+        }
+        int capacity = myEntries.length;
+
+        // Only the newest entries of a batch bigger than the whole log can stay
+        int skipped = Math.max(0, theBatch.size() - capacity);
+        int adding = theBatch.size() - skipped;
+        int pushedOut = Math.max(0, mySize + adding - capacity);
+
+        beginChange();
+        if (pushedOut > 0) {
+            List<MonitorTableEntry> removed = new ArrayList<>(pushedOut);
+            for (int i = 0; i < pushedOut; i++) {
+                removed.add(myEntries[myHead]);
+                myEntries[myHead] = null;
+                myHead = (myHead + 1) % capacity;
+            }
+            mySize -= pushedOut;
+            nextRemove(0, removed);
+        }
+        int from = mySize;
+        for (int i = skipped; i < theBatch.size(); i++) {
+            myEntries[(myHead + mySize) % capacity] = theBatch.get(i);
+            mySize++;
+        }
+        nextAdd(from, mySize);
+        endChange();
+
+        myAgedOut += pushedOut + skipped;
+    }
+
+    /**
+     * Getter for how many entries have been pushed out of the log
+     * @return The number of entries only the database still has
+     */
+    long getAgedOut() { return myAgedOut; }
+
+    /**
+     * Getter for the most entries the log holds
+     * @return The capacity
+     */
+    int getCapacity() { return myEntries.length; }
+}
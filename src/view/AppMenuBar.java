@@ -1,6 +1,6 @@
 package view;
 
-import database.AnomalyDB;
+import database.AnomalyExport;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
@@ -28,9 +28,6 @@ public class AppMenuBar extends MenuBar {
     /** Represent the Min Drones in a fleet, a user can change */
     private static final int MIN_DRONES_ALLOWED = 1;
 
-    /** Represent the Max Drones in a fleet, a user can change */
-    private static final int MAX_NUMBER_DRONES = 50;
-
     /*-- Fields --*/
 
     /** Reference to the DroneCountMenu Item */
@@ -96,21 +93,24 @@ public class AppMenuBar extends MenuBar {
 
         // MenuItem: Export Log
         Menu exportMenu = new Menu("Export Log");
-        // Export SubItem: TXT, CSV
+        // Export SubItem: TXT, CSV, JSON Lines, Binary
         MenuItem txtExportItem = new MenuItem("TXT");
-        txtExportItem.setOnAction(_ -> myMonitor.exportToTXT(myPrimaryStage));
+        txtExportItem.setOnAction(_ -> myMonitor.exportLog(myPrimaryStage, AnomalyExport.Format.TEXT));
         MenuItem csvExportItem = new MenuItem("CSV");
-        csvExportItem.setOnAction(_ -> myMonitor.exportToCSV(myPrimaryStage));
+        csvExportItem.setOnAction(_ -> myMonitor.exportLog(myPrimaryStage, AnomalyExport.Format.CSV));
+        MenuItem jsonExportItem = new MenuItem("JSON Lines");
+        jsonExportItem.setOnAction(_ -> myMonitor.exportLog(myPrimaryStage, AnomalyExport.Format.JSON_LINES));
+        MenuItem binaryExportItem = new MenuItem("Binary");
+        binaryExportItem.setOnAction(_ -> myMonitor.exportLog(myPrimaryStage, AnomalyExport.Format.BINARY));
         // Adding each sub-item to the Export Menu
-        exportMenu.getItems().addAll(txtExportItem, csvExportItem);
+        exportMenu.getItems().addAll(txtExportItem, csvExportItem, jsonExportItem, binaryExportItem);
 
         // MenuItem: Exit
         MenuItem exitMenuItem = new MenuItem("Exit");
         // Exit simulation when click exit action
         exitMenuItem.setOnAction(_ -> {
             myMonitor.endGame(); // Ensure everything is shut down
-            AnomalyDB.clearDatabase(); // Clear database
-            AnomalyDB.close(); // Close database
+            myMonitor.closeDatabase(); // Clear and close database
             myPrimaryStage.close();
         });
 
@@ -129,11 +129,12 @@ public class AppMenuBar extends MenuBar {
         // The overall Menu
         Menu settingMenu = new Menu("Settings");
 
-        // Setting SubItem: TickSpeed, DroneCount, Theme, Sound
+        // Setting SubItem: TickSpeed, DroneCount, Theme, Sound, Heatmap
         buildTickMenuItem(settingMenu);
         buildDroneCountMenuItem(settingMenu);
         buildThemeMenuItem(settingMenu);
         buildSoundMenuItem(settingMenu);
+        buildHeatmapMenuItem(settingMenu);
 
         return settingMenu;
     }
@@ -259,12 +260,13 @@ public class AppMenuBar extends MenuBar {
             try {
                 int count = Integer.parseInt(input);
 
-                if (count >= MIN_DRONES_ALLOWED && count <= MAX_NUMBER_DRONES) {
+                int maxDrones = myMonitor.getMaxDroneCount();
+                if (count >= MIN_DRONES_ALLOWED && count <= maxDrones) {
                     myMonitor.changeDroneCount(count);
                     break;
                 } else {
                     Alert alert = new Alert(Alert.AlertType.ERROR,
-                            "Please enter a number between " + MIN_DRONES_ALLOWED + " and " + MAX_NUMBER_DRONES);
+                            "Please enter a number between " + MIN_DRONES_ALLOWED + " and " + maxDrones);
                     alert.showAndWait();
                 }
             } catch (NumberFormatException e) {
@@ -330,6 +332,24 @@ public class AppMenuBar extends MenuBar {
         theSettingMenu.getItems().addAll(soundMenu);
     }
 
+    /**
+     * Helper method that creates the 'Heatmap' Menu Item.
+     */
+    private void buildHeatmapMenuItem(final Menu theSettingMenu) {
+        // MenuItem: Heatmap
+        Menu heatmapMenu = new Menu("Heatmap");
+        // Heatmap SubItem: Show, Hide
+        MenuItem showHeatmapItem = new MenuItem("Show Heatmap");
+        showHeatmapItem.setOnAction(_ -> myMonitor.setHeatmapVisible(true));
+        MenuItem hideHeatmapItem = new MenuItem("Hide Heatmap");
+        hideHeatmapItem.setOnAction(_ -> myMonitor.setHeatmapVisible(false));
+        // Adding each sub-item to the Heatmap Menu
+        heatmapMenu.getItems().addAll(showHeatmapItem, hideHeatmapItem);
+
+        // Adding all the Sub Menu to the Setting Menu
+        theSettingMenu.getItems().addAll(heatmapMenu);
+    }
+
     /**
      * Helper method to show the Volume Popup
      */
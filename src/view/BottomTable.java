@@ -1,22 +1,28 @@
 package view;
 
 import Model.AnomalyRecord;
+import database.AnomalyExport;
 import javafx.application.Platform;
+import javafx.collections.transformation.SortedList;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The bottom half of the GUI, which is a VBox containing
@@ -25,15 +31,64 @@ import java.util.Objects;
  * @version Autumn 2025
  */
 class BottomTable extends VBox {
+    /**
+     * How long closing waits for a cancelled export to stop, in seconds.
+     */
+    private static final long EXPORT_SHUTDOWN_SECONDS = 5;
+
     /**
      * The text area showing Drone anomalies.
      */
     private final TableView<MonitorTableEntry> myAnomalyTable;
 
+    /**
+     * The newest anomalies, which is all the table holds; older ones age out to the database.
+     */
+    private final AnomalyLogBuffer myLiveLog = new AnomalyLogBuffer();
+
+    /**
+     * The live log in the order of the sorted column, or as it arrived when no column is sorted.
+     */
+    private final SortedList<MonitorTableEntry> mySortedLog = new SortedList<>(myLiveLog);
+
+    /**
+     * Says how many anomalies have aged out of the table, once any have.
+     */
+    private final Label myAgedOutStatus = new Label();
+
+    /**
+     * The MonitorDash GUI that owns this instance, which reaches the database.
+     */
+    private final MonitorDash myMonitor;
+
+    /**
+     * Shows the progress of the running export, next to the header.
+     */
+    private final Label myExportStatus = new Label();
+
+    /**
+     * Runs exports off the FX thread, one at a time.
+     */
+    private final ExecutorService myExportExecutor;
+
+    /**
+     * The export running on the export thread, null when none is.
+     */
+    private AnomalyExport myRunningExport;
+
     /**
      * Constructor for the Bottom half of the GUI.
+     *
+     * @param theMonitor The MonitorDash GUI that owns this instance.
      */
-    BottomTable() {
+    BottomTable(final MonitorDash theMonitor) {
+        myMonitor = Objects.requireNonNull(theMonitor, "Monitor is null");
+        myExportExecutor = Executors.newSingleThreadExecutor(theTask -> {
+            Thread thread = new Thread(theTask, "anomaly-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+
         //Self setup
         setPrefHeight(250);
         setMinHeight(250);
@@ -42,7 +97,9 @@ class BottomTable extends VBox {
         HBox.setHgrow(this, Priority.ALWAYS);
 
         //The table that'll show us all our AnomalyRecords
-        myAnomalyTable = new TableView<>();
+        //The live log is read-only, so clicking a column header sorts a view of it instead
+        myAnomalyTable = new TableView<>(mySortedLog);
+        mySortedLog.comparatorProperty().bind(myAnomalyTable.comparatorProperty());
         myAnomalyTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_LAST_COLUMN);
         VBox.setVgrow(myAnomalyTable, Priority.ALWAYS);
 
@@ -73,13 +130,18 @@ class BottomTable extends VBox {
         Label anomalyHeader = new Label("Anomaly Log");
         anomalyHeader.getStyleClass().add("box-header");
 
+        //Export progress, on the right of the header
+        Region headerSpacer = new Region();
+        HBox.setHgrow(headerSpacer, Priority.ALWAYS);
+        HBox headerRow = new HBox(10, anomalyHeader, myAgedOutStatus, headerSpacer, myExportStatus);
+
         //Size stuff
         VBox.setVgrow(myAnomalyTable, Priority.ALWAYS);
         anomalyBox.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(anomalyBox, Priority.ALWAYS);
 
         //Giving the main box for the bottom its children
-        anomalyBox.getChildren().addAll(anomalyHeader, myAnomalyTable);
+        anomalyBox.getChildren().addAll(headerRow, myAnomalyTable);
 
         //setFillHeight(true);
         getChildren().add(anomalyBox);
@@ -87,138 +149,121 @@ class BottomTable extends VBox {
     }
 
     /**
-     * Add an anomaly record to the table in the GUI.
+     * Add a batch of anomaly records to the table in the GUI, as one change
+     * to the table with one scroll, however many records there are.
      *
-     * @param theRecord The anomaly record we'll be adding.
+     * @param theRecords The anomaly records we'll be adding, oldest first.
      */
-    void addAnomalyRecord(AnomalyRecord theRecord) {
-        //Whether or not the ID is null, otherwise turn it into a String
-        String idString = (theRecord.getID() == null) ? "—" : String.valueOf(theRecord.getID());
-
-        //Turn the time into a string
-        String timeString = Double.toString(theRecord.getTime());
-
-        //Make a new AnomalyEntry record for our table
-        MonitorTableEntry entry = new MonitorTableEntry(
-                timeString,
-                idString,
-                theRecord.getType(),
-                theRecord.getDetails()
-        );
+    void addAnomalyRecords(List<AnomalyRecord> theRecords) {
+        List<MonitorTableEntry> entries = new ArrayList<>(theRecords.size());
+        for (AnomalyRecord record : theRecords) {
+            //Whether or not the ID is null, otherwise turn it into a String
+            String idString = (record.getID() == null) ? "—" : String.valueOf(record.getID());
+
+            //Make a new AnomalyEntry record for our table, turning the time into a string
+            entries.add(new MonitorTableEntry(
+                    Double.toString(record.getTime()),
+                    idString,
+                    record.getType(),
+                    record.getDetails()
+            ));
+        }
 
-        Platform.runLater(() -> {
-            //Add our entry and scroll to it
-            myAnomalyTable.getItems().add(entry);
-            myAnomalyTable.scrollTo(entry);
+        UpdateUIManager.onFxThread(() -> {
+            //Add our entries and scroll to the newest, which is only at the bottom while nothing is sorted
+            myLiveLog.append(entries);
+            if (!myLiveLog.isEmpty() && mySortedLog.getComparator() == null) {
+                myAnomalyTable.scrollTo(mySortedLog.size() - 1);
+            }
+
+            //Let the user know where the older ones went
+            if (myLiveLog.getAgedOut() > 0) {
+                myAgedOutStatus.setText(String.format("Newest %,d shown, %,d older in the database view",
+                        myLiveLog.size(), myLiveLog.getAgedOut()));
+            }
         });
     }
 
     /**
-     * Popup for the user, so they can export the anomaly log table's contents
-     * as a CSV to their computer without needing to call a method.
+     * Popup for the user, so they can export the stored anomaly log to their
+     * computer without needing to call a method. The export streams from the
+     * database on a background thread, so even a huge log never freezes the GUI
+     * or has to fit in memory.
      *
      * @param theStage The stage who owns the Dialogue Popup
+     * @param theFormat The file format to export to
      */
-    void exportToCSVDialog(Stage theStage) {
-        FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save CSV");
-
-        // Set initial folder to current working directory
-        fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
-
-        // Set default file name
-        fileChooser.setInitialFileName("anomalies.csv");
-
-        // Restrict file types to CSV
-        fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("CSV Files", "*.csv")
-        );
-
-        File file = fileChooser.showSaveDialog(theStage);
-        if (file != null) {
-            exportToCSV(file.getAbsolutePath());
+    void exportDialog(Stage theStage, AnomalyExport.Format theFormat) {
+        if (myRunningExport != null) {
+            myExportStatus.setText("An export is already running");
+            return;
         }
-    }
 
-    /**
-     * Popup for the user, so they can export the anomaly log table's contents
-     * as a TXT to their computer without needing to call a method.
-     *
-     * @param theStage The stage who owns the Dialogue Popup
-     */
-    void exportToTXTDialog(Stage theStage) {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save TXT");
+        fileChooser.setTitle("Save " + theFormat.extension().toUpperCase());
 
         // Default to the working directory (same folder as application)
         fileChooser.setInitialDirectory(new File(System.getProperty("user.dir")));
-        fileChooser.setInitialFileName("anomalies.txt");
+        fileChooser.setInitialFileName("anomalies." + theFormat.extension());
 
         fileChooser.getExtensionFilters().add(
-                new FileChooser.ExtensionFilter("Text Files", "*.txt")
+                new FileChooser.ExtensionFilter(theFormat.name() + " Files", "*." + theFormat.extension())
         );
 
         File file = fileChooser.showSaveDialog(theStage);
         if (file != null) {
-            exportToTXT(file.getAbsolutePath());
+            startExport(new AnomalyExport(theFormat), file.toPath());
         }
     }
 
     /**
-     * The method that's actually creating the TXT, which we then save to the
-     * user's computer
+     * Runs an export on the export thread, showing its progress in the header.
      *
-     * @param theFilePath The location we are saving our TXT to.
+     * @param theExport The export to run.
+     * @param theFile The file we are saving to.
      */
-    private void exportToTXT(String theFilePath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(theFilePath))) {
-
-            // Header line
-            writer.write("Timestamp | Drone ID | Type | Details");
-            writer.newLine();
-            writer.write("-------------------------------------------------------------");
-            writer.newLine();
-
-            // Table entries
-            for (MonitorTableEntry entry : myAnomalyTable.getItems()) {
-                String line = entry.getTimestamp() + " | "
-                        + entry.getDroneId() + " | "
-                        + entry.getType() + " | "
-                        + entry.getDetails();
-                writer.write(line);
-                writer.newLine();
+    private void startExport(AnomalyExport theExport, Path theFile) {
+        myRunningExport = theExport;
+        myExportStatus.setText("Exporting...");
+
+        myExportExecutor.execute(() -> {
+            String result;
+            try {
+                long rows = myMonitor.exportAnomalies(theExport, theFile, theRows ->
+                        Platform.runLater(() -> myExportStatus.setText(
+                                String.format("Exporting... %,d rows", theRows))));
+                result = rows < 0 ? "Export cancelled"
+                        : String.format("Exported %,d rows to %s", rows, theFile.getFileName());
+                System.err.println("Anomalies exported to: " + theFile);
+            } catch (IOException | RuntimeException e) {
+                result = "Export failed";
+                System.err.println("There was an error exporting the AnomalyLog (startExport) " + e);
             }
 
-        } catch (IOException e) {
-            System.err.println("There was an error exporting the AnomalyLog to TXT (exportToTXT) " + e);
-        }
+            String finalResult = result;
+            Platform.runLater(() -> {
+                myRunningExport = null;
+                myExportStatus.setText(finalResult);
+            });
+        });
     }
 
     /**
-     * The method that's actually creating the CSV, which we then save to the
-     * user's computer
-     *
-     * @param theFilePath The location we are saving our TXT to.
+     * Cancels the running export, if there is one, and waits for the export thread to stop,
+     * so the database isn't closed under it when the application exits.
      */
-    private void exportToCSV(String theFilePath) {
-        List<MonitorTableEntry> entries = myAnomalyTable.getItems();
-
-        try (FileWriter writer = new FileWriter(theFilePath)) {
-            // Write CSV header
-            writer.append("Timestamp,Drone ID,Type,Details\n");
-
-            // Write each row
-            for (MonitorTableEntry entry : entries) {
-                writer.append(entry.getTimestamp()).append(",");
-                writer.append(entry.getDroneId()).append(",");
-                writer.append(entry.getType()).append(",");
-                writer.append(entry.getDetails().replaceAll(",", ";")).append("\n");
-            }
+    void cancelExport() {
+        if (myRunningExport != null) {
+            myRunningExport.cancel();
+        }
 
-            writer.flush();
-            System.err.println("CSV Exported to: " + theFilePath);
-        } catch (IOException e) {
-            System.err.println("Error in exportToCSV: " + e);
+        myExportExecutor.shutdown();
+        try {
+            if (!myExportExecutor.awaitTermination(EXPORT_SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("The export did not stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
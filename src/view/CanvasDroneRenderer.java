@@ -0,0 +1,551 @@
+package view;
+
+import Model.Drone;
+import Model.TelemetryData;
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Draws the whole fleet on one Canvas, for fleets far too large for a scene-graph node per drone.
+ * The simulation thread only queues the drones that changed; an AnimationTimer drains the queue
+ * once per frame into DroneMotion's primitive arrays. Each frame asks the DroneSpatialIndex for the
+ * drones near the visible part of the world, and only those are eased along and drawn, so the cost
+ * of a frame follows what is on screen rather than the fleet size. Zoomed far out, drones are
+ * summed into density clusters instead of being drawn one by one. Each drone's recent path is kept
+ * in DroneTrails and stroked underneath the drones.
+ * Clicks and hovers are hit-tested against the same index.
+ *
+ * @version Autumn 2025
+ */
+final class CanvasDroneRenderer {
+    /*-- Constants --*/
+
+    /** Represents the default drone color */
+    private static final Color COLOR_DEFAULT = Color.WHITE;
+
+    /** Represents the color when a drone is selected */
+    private static final Color COLOR_SELECTED = Color.DEEPSKYBLUE;
+
+    /** Represents the outline color, the same as DroneShape's */
+    private static final Color COLOR_STROKE = Color.BLACK;
+
+    /** Represents the center the node renderer scales and rotates a DroneShape around */
+    private static final double PIVOT_X = 1.0;
+
+    /** Represents the center the node renderer scales and rotates a DroneShape around */
+    private static final double PIVOT_Y = -5.0;
+
+    /** Represents how far a shape point can be from the pivot, in unscaled shape units */
+    private static final double SHAPE_RADIUS = 17.0;
+
+    /** Represents the on-screen size below which a drone is a dot instead of a shape, in pixels */
+    private static final double DOT_SIZE = 4.0;
+
+    /** Represents the on-screen size below which the outline is skipped, in pixels */
+    private static final double OUTLINE_SIZE = 12.0;
+
+    /** Represents how far from a drone a click still picks it, in pixels */
+    private static final double CLICK_SLACK = 3.0;
+
+    /** Represents the zoom scale below which drones are drawn as density clusters */
+    static final double CLUSTER_ZOOM = 0.3;
+
+    /** Represents the width and height of one density cluster, in pixels */
+    private static final int CLUSTER_PIXELS = 24;
+
+    /** Represents the color of a density cluster */
+    private static final Color COLOR_CLUSTER = Color.rgb(255, 255, 255, 0.8);
+
+    /** Represents the color of the drone trails, the grid's neon blue */
+    static final Color COLOR_TRAIL = Color.rgb(0, 200, 255, 0.6);
+
+    /** Represents the width of the drone trails, in pixels */
+    static final double TRAIL_WIDTH = 1.5;
+
+
+    /*-- Fields --*/
+
+    /** Represents the canvas every drone is drawn on */
+    private final Canvas myCanvas = new Canvas();
+
+    /** Represents the frame loop */
+    private final AnimationTimer myTimer;
+
+    /** Represents where every drone is drawn */
+    private final DroneMotion myMotion = new DroneMotion();
+
+    /** Represents the grid the hit-tests use */
+    private final DroneSpatialIndex myIndex = new DroneSpatialIndex();
+
+    /** Represents the last positions of every drone */
+    private final DroneTrails myTrails = new DroneTrails();
+
+    /** Represents whether the grid is older than the drones' moves */
+    private boolean myIndexStale = true;
+
+    /** Represents how many drones fall in each density cluster this frame */
+    private int[] myClusterCounts = new int[0];
+
+    /** Represents the density clusters that have at least one drone this frame */
+    private int[] myClusterTouched = new int[0];
+
+    /** Represents the number of clusters in myClusterTouched */
+    private int myClusterTouchedCount;
+
+    /** Represents the number of drones drawn (or clustered) by the last frame */
+    private int myVisibleCount;
+
+    /** Represents the drones queued by the simulation thread since the last frame, guarded by itself */
+    private List<Drone> myPending = new ArrayList<>();
+
+    /** Represents the list the next frame drains, swapped with myPending */
+    private List<Drone> myDraining = new ArrayList<>();
+
+    /** Map of the newest Drone object for each ID (Drone ID -> Drone) */
+    private final Map<Integer, Drone> myDrones = new HashMap<>();
+
+    /** Represents the selected drone ID, or -1 */
+    private int mySelectedId = -1;
+
+    /** Represents the Tooltip naming the drone under the mouse */
+    private final Tooltip myTooltip = new Tooltip();
+
+    /** Represents the drone the Tooltip is showing, or -1 */
+    private int myTooltipId = -1;
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginX;
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginY;
+
+    /** Represents the zoom scale; 1.0 = 1 pixel */
+    private double myZoomScale = 1.0;
+
+    /** Represents whether the moves are frozen */
+    private boolean myPaused;
+
+    /** Represents when the pause started, in frame time */
+    private long myPausedAt;
+
+    /** Represents the total time spent paused, taken off the frame time */
+    private long myPausedNanos;
+
+    /** Represents the latest frame time */
+    private long myFrameNanos;
+
+    /** Represents the corner points of one drone on screen, reused for every drone */
+    private final double[] myPolygonX = new double[4];
+
+    /** Represents the corner points of one drone on screen, reused for every drone */
+    private final double[] myPolygonY = new double[4];
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Creates the renderer, filling the given viewport.
+     *
+     * @param theViewport represents the pane the canvas is added to, and sized to.
+     */
+    CanvasDroneRenderer(final Pane theViewport) {
+        Objects.requireNonNull(theViewport, "Viewport can't be null");
+
+        myCanvas.widthProperty().bind(theViewport.widthProperty());
+        myCanvas.heightProperty().bind(theViewport.heightProperty());
+        myCanvas.setManaged(false);
+        theViewport.getChildren().add(myCanvas);
+
+        // Hovering a drone names it, the same as the node renderer's per-drone Tooltip
+        myCanvas.setOnMouseMoved(event -> {
+            Drone drone = droneAt(event.getX(), event.getY());
+            int id = drone == null ? -1 : drone.getDroneID();
+            if (id == myTooltipId) return;
+            myTooltipId = id;
+            if (drone == null) {
+                myTooltip.hide();
+            } else {
+                myTooltip.setText("Drone " + id);
+                myTooltip.show(myCanvas, event.getScreenX() + 12, event.getScreenY() + 12);
+            }
+        });
+        myCanvas.setOnMouseExited(_ -> {
+            myTooltipId = -1;
+            myTooltip.hide();
+        });
+
+        myTimer = new AnimationTimer() {
+            @Override
+            public void handle(final long theNow) {
+                drawFrame(theNow);
+            }
+        };
+        myTimer.start();
+    }
+
+
+    /*-- Updates --*/
+
+    /**
+     * Queues a drone to be moved on the next frame. Safe to call from any thread,
+     * and cheap: nothing is posted to the FX thread per drone.
+     *
+     * @param theDrone is the drone that changed.
+     */
+    void submit(final Drone theDrone) {
+        synchronized (this) {
+            myPending.add(theDrone);
+        }
+    }
+
+    /**
+     * Moves the camera. Called whenever the display pans, zooms or resizes.
+     *
+     * @param theOriginX is where world x = 0 is on screen.
+     * @param theOriginY is where world y = 0 is on screen.
+     * @param theZoomScale is the zoom scale.
+     */
+    void setCamera(final double theOriginX, final double theOriginY, final double theZoomScale) {
+        myOriginX = theOriginX;
+        myOriginY = theOriginY;
+        myZoomScale = theZoomScale;
+    }
+
+    /**
+     * Freezes or resumes every move, and dims the drones while frozen.
+     *
+     * @param thePaused represents whether pause is on or not.
+     */
+    void setPaused(final boolean thePaused) {
+        if (thePaused == myPaused) return;
+        myPaused = thePaused;
+        if (thePaused) {
+            myPausedAt = myFrameNanos;
+        } else {
+            myPausedNanos += myFrameNanos - myPausedAt;
+        }
+        myCanvas.setOpacity(thePaused ? 0.5 : 1.0);
+    }
+
+    /**
+     * Stops every drone where it is drawn right now.
+     */
+    void stopAll() {
+        myMotion.settle(clock());
+        myIndexStale = true;
+    }
+
+    /**
+     * Removes every drone.
+     */
+    void clear() {
+        synchronized (this) {
+            myPending.clear();
+        }
+        myMotion.clear();
+        myTrails.clear();
+        myDrones.clear();
+        mySelectedId = -1;
+        myIndexStale = true;
+    }
+
+
+    /*-- Selection --*/
+
+    /**
+     * Highlights a drone.
+     *
+     * @param theDroneID is the drone ID, or -1 for none.
+     */
+    void select(final int theDroneID) {
+        mySelectedId = theDroneID;
+    }
+
+    /**
+     * Getter method that returns the highlighted drone.
+     *
+     * @return the drone ID, or -1 for none.
+     */
+    int getSelectedId() {
+        return mySelectedId;
+    }
+
+    /**
+     * Finds the drone drawn under a point of the canvas.
+     *
+     * @param theScreenX is the x position on the canvas.
+     * @param theScreenY is the y position on the canvas.
+     * @return the drone, or null if none is there.
+     */
+    Drone droneAt(final double theScreenX, final double theScreenY) {
+        if (myMotion.size() == 0) return null;
+        refreshIndex();
+
+        double worldX = (theScreenX - myOriginX) / myZoomScale;
+        double worldY = (theScreenY - myOriginY) / myZoomScale;
+        double slack = CLICK_SLACK / myZoomScale;
+        double reach = SHAPE_RADIUS * maxScale() + slack;
+
+        int slot = myIndex.nearest(myMotion, worldX, worldY, reach);
+        if (slot < 0) return null;
+
+        // The grid found the closest center, now check that drone's own size
+        double dx = myMotion.x(slot) - worldX;
+        double dy = myMotion.y(slot) - worldY;
+        double ownReach = SHAPE_RADIUS * myMotion.scale(slot) + slack;
+        return dx * dx + dy * dy <= ownReach * ownReach ? myDrones.get(myMotion.id(slot)) : null;
+    }
+
+
+    /*-- Drawing --*/
+
+    /**
+     * Runs one frame: takes in the queued drones, then eases along and draws only the drones on screen.
+     *
+     * @param theNow is the frame time in nanoseconds.
+     */
+    private void drawFrame(final long theNow) {
+        myFrameNanos = theNow;
+        long clock = clock();
+
+        drainPending(clock);
+        refreshIndex();
+
+        GraphicsContext graphics = myCanvas.getGraphicsContext2D();
+        double width = myCanvas.getWidth();
+        double height = myCanvas.getHeight();
+        graphics.clearRect(0, 0, width, height);
+
+        // The visible part of the world, grown by the largest drone so ones on the edge still count
+        double reach = SHAPE_RADIUS * maxScale() + Math.abs(PIVOT_Y);
+        double minX = -myOriginX / myZoomScale - reach;
+        double minY = -myOriginY / myZoomScale - reach;
+        double maxX = (width - myOriginX) / myZoomScale + reach;
+        double maxY = (height - myOriginY) / myZoomScale + reach;
+
+        // Every trail on screen in one stroke, underneath the drones
+        graphics.setStroke(COLOR_TRAIL);
+        graphics.setLineWidth(TRAIL_WIDTH);
+        myTrails.stroke(graphics, myOriginX, myOriginY, myZoomScale, width, height, (id, out) -> {
+            int slot = myMotion.slotOf(id);
+            if (slot < 0) return false;
+            myMotion.advance(slot, clock);
+            out[0] = myMotion.x(slot);
+            out[1] = myMotion.y(slot);
+            return true;
+        });
+
+        myVisibleCount = 0;
+        if (myZoomScale < CLUSTER_ZOOM) {
+            drawClusters(graphics, clock, minX, minY, maxX, maxY, width, height);
+            return;
+        }
+
+        // One fill color for the whole fleet, the selected drone goes on top afterwards
+        graphics.setFill(COLOR_DEFAULT);
+        graphics.setStroke(COLOR_STROKE);
+        graphics.setLineWidth(1.0);
+        int selectedSlot = mySelectedId < 0 ? -1 : myMotion.slotOf(mySelectedId);
+        myIndex.query(minX, minY, maxX, maxY, slot -> {
+            myMotion.advance(slot, clock);
+            if (slot != selectedSlot && drawDrone(graphics, slot, width, height)) {
+                myVisibleCount++;
+            }
+        });
+        if (selectedSlot >= 0) {
+            myMotion.advance(selectedSlot, clock);
+            graphics.setFill(COLOR_SELECTED);
+            if (drawDrone(graphics, selectedSlot, width, height)) {
+                myVisibleCount++;
+            }
+        }
+    }
+
+    /**
+     * Draws the drones near the screen as density clusters: one dot per block of the screen,
+     * sized by how many drones are in it.
+     *
+     * @param theGraphics is the canvas to draw on.
+     * @param theClock is the frame time, less any time spent paused.
+     * @param theMinX is the left edge of the visible world.
+     * @param theMinY is the top edge of the visible world.
+     * @param theMaxX is the right edge of the visible world.
+     * @param theMaxY is the bottom edge of the visible world.
+     * @param theWidth is the canvas width.
+     * @param theHeight is the canvas height.
+     */
+    private void drawClusters(final GraphicsContext theGraphics, final long theClock,
+                              final double theMinX, final double theMinY, final double theMaxX, final double theMaxY,
+                              final double theWidth, final double theHeight) {
+        int columns = Math.max(1, (int) Math.ceil(theWidth / CLUSTER_PIXELS));
+        int rows = Math.max(1, (int) Math.ceil(theHeight / CLUSTER_PIXELS));
+        if (myClusterCounts.length < columns * rows) {
+            myClusterCounts = new int[columns * rows];
+            myClusterTouched = new int[columns * rows];
+        }
+        myClusterTouchedCount = 0;
+
+        // Summing the drones into their block of the screen
+        myIndex.query(theMinX, theMinY, theMaxX, theMaxY, slot -> {
+            myMotion.advance(slot, theClock);
+            double screenX = myOriginX + myMotion.x(slot) * myZoomScale;
+            double screenY = myOriginY + myMotion.y(slot) * myZoomScale;
+            if (screenX < 0 || screenY < 0 || screenX >= theWidth || screenY >= theHeight) return;
+
+            int cluster = (int) (screenY / CLUSTER_PIXELS) * columns + (int) (screenX / CLUSTER_PIXELS);
+            if (myClusterCounts[cluster]++ == 0) {
+                myClusterTouched[myClusterTouchedCount++] = cluster;
+            }
+            myVisibleCount++;
+        });
+
+        // Drawing each busy block, bigger the more drones it holds, and clearing it for the next frame
+        theGraphics.setFill(COLOR_CLUSTER);
+        for (int i = 0; i < myClusterTouchedCount; i++) {
+            int cluster = myClusterTouched[i];
+            int count = myClusterCounts[cluster];
+            myClusterCounts[cluster] = 0;
+
+            double centerX = (cluster % columns + 0.5) * CLUSTER_PIXELS;
+            double centerY = (cluster / columns + 0.5) * CLUSTER_PIXELS;
+            double radius = Math.min(CLUSTER_PIXELS / 2.0, 2.0 + 2.0 * Math.log(count) / Math.log(2));
+            theGraphics.fillOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+        }
+
+        // The selected drone still stands out, as a ring around where it is
+        int selectedSlot = mySelectedId < 0 ? -1 : myMotion.slotOf(mySelectedId);
+        if (selectedSlot >= 0) {
+            myMotion.advance(selectedSlot, theClock);
+            double screenX = myOriginX + myMotion.x(selectedSlot) * myZoomScale;
+            double screenY = myOriginY + myMotion.y(selectedSlot) * myZoomScale;
+            theGraphics.setStroke(COLOR_SELECTED);
+            theGraphics.setLineWidth(2.0);
+            theGraphics.strokeOval(screenX - CLUSTER_PIXELS / 2.0, screenY - CLUSTER_PIXELS / 2.0,
+                    CLUSTER_PIXELS, CLUSTER_PIXELS);
+        }
+    }
+
+    /**
+     * Moves every queued drone to its newest telemetry.
+     *
+     * @param theClock is the frame time, less any time spent paused.
+     */
+    private void drainPending(final long theClock) {
+        synchronized (this) {
+            List<Drone> swap = myPending;
+            myPending = myDraining;
+            myDraining = swap;
+        }
+        for (Drone drone : myDraining) {
+            TelemetryData data = drone.getDroneTelemetry();
+            if (data == null) continue;
+
+            // Same sizing as the node renderer: 1 meter = 1 pixel, and higher drones are drawn larger
+            double altitudePercent = Math.min(Math.max(data.getAltitude(), 0), 100) / 100.0;
+            double pixelSize = TopLeftDroneDisplay.MIN_DRONE_SIZE
+                    + (TopLeftDroneDisplay.MAX_DRONE_SIZE - TopLeftDroneDisplay.MIN_DRONE_SIZE) * altitudePercent;
+            myMotion.moveTo(drone.getDroneID(), data.getLongitude(), -data.getLatitude(),
+                    pixelSize / TopLeftDroneDisplay.BASE_SHAPE_WIDTH, data.getOrientation(), theClock);
+            myTrails.record(drone.getDroneID(), data.getLongitude(), -data.getLatitude());
+            myDrones.put(drone.getDroneID(), drone);
+        }
+        if (!myDraining.isEmpty()) {
+            // New moves started, so the grid of move paths is out of date
+            myIndexStale = true;
+            myDraining.clear();
+        }
+    }
+
+    /**
+     * Draws one drone, skipping it if it is off screen.
+     *
+     * @param theGraphics is the canvas to draw on.
+     * @param theSlot is the drone's slot.
+     * @param theWidth is the canvas width.
+     * @param theHeight is the canvas height.
+     * @return true if the drone was on screen and drawn.
+     */
+    private boolean drawDrone(final GraphicsContext theGraphics, final int theSlot,
+                              final double theWidth, final double theHeight) {
+        double scale = myMotion.scale(theSlot) * myZoomScale;
+        double pivotX = myOriginX + (myMotion.x(theSlot) + PIVOT_X) * myZoomScale;
+        double pivotY = myOriginY + (myMotion.y(theSlot) + PIVOT_Y) * myZoomScale;
+        double reach = SHAPE_RADIUS * scale;
+
+        if (pivotX + reach < 0 || pivotX - reach > theWidth || pivotY + reach < 0 || pivotY - reach > theHeight) {
+            return false;
+        }
+
+        // Too small to tell the shape apart, so a dot does the same job far cheaper
+        if (reach * 2 < DOT_SIZE) {
+            theGraphics.fillRect(pivotX - 1, pivotY - 1, 2, 2);
+            return true;
+        }
+
+        double radians = Math.toRadians(myMotion.angle(theSlot));
+        double cos = Math.cos(radians) * scale;
+        double sin = Math.sin(radians) * scale;
+        double[] points = DroneShape.SHAPE_POINTS;
+        for (int i = 0; i < 4; i++) {
+            double localX = points[i * 2] - PIVOT_X;
+            double localY = points[i * 2 + 1] - PIVOT_Y;
+            myPolygonX[i] = pivotX + localX * cos - localY * sin;
+            myPolygonY[i] = pivotY + localX * sin + localY * cos;
+        }
+        theGraphics.fillPolygon(myPolygonX, myPolygonY, 4);
+        if (reach * 2 >= OUTLINE_SIZE) {
+            theGraphics.strokePolygon(myPolygonX, myPolygonY, 4);
+        }
+        return true;
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Rebuilds the grid of move paths if any move started since it was built.
+     */
+    private void refreshIndex() {
+        if (myIndexStale) {
+            myIndex.rebuild(myMotion);
+            myIndexStale = false;
+        }
+    }
+
+    /**
+     * Getter method that returns how many drones the last frame drew, or summed into clusters.
+     *
+     * @return the number of drones on screen.
+     */
+    int getVisibleCount() {
+        return myVisibleCount;
+    }
+
+    /**
+     * Getter method that returns the frame time the moves run on, which stands still while paused.
+     *
+     * @return the time in nanoseconds.
+     */
+    private long clock() {
+        return (myPaused ? myPausedAt : myFrameNanos) - myPausedNanos;
+    }
+
+    /**
+     * Getter method that returns the largest scale a drone can be drawn at.
+     *
+     * @return the scale of the highest drone.
+     */
+    private static double maxScale() {
+        return TopLeftDroneDisplay.MAX_DRONE_SIZE / TopLeftDroneDisplay.BASE_SHAPE_WIDTH;
+    }
+}
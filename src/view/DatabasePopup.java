@@ -1,9 +1,13 @@
 package view;
 
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
+import controller.DroneMonitorApp;
+import database.AnomalyPage;
+import database.AnomalyQuery;
+import database.AnomalyRow;
+import database.AnomalySearch;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.scene.Scene;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -20,9 +24,13 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
+import javafx.util.Duration;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A popup for the database manager of our GUI.
@@ -30,6 +38,14 @@ import java.util.Objects;
  * @version Autumn 2025
  */
 class DatabasePopup {
+    /**
+     * How long typing has to pause before a search runs, in milliseconds
+     */
+    private static final int SEARCH_DELAY_MILLIS = 250;
+    /**
+     * The most ranked matches a full-text search shows
+     */
+    private static final int SEARCH_LIMIT = 1_000;
     /**
      * The stage of the database popup.
      */
@@ -39,17 +55,33 @@ class DatabasePopup {
      */
     private final TableView<MonitorTableEntry> myTable;
     /**
-     * Observable List that lets myFilteredList know of any changes
+     * The MonitorDash GUI that owns this instance.
      */
-    private final ObservableList<MonitorTableEntry> myObservableList;
+    private final MonitorDash myMonitor;
     /**
-     * List used for searching through Anomalies of the Database
+     * The query currently shown in the table, used to skip searches that change nothing
      */
-    private final FilteredList<MonitorTableEntry> myFilteredList;
+    private AnomalyQuery myQuery;
     /**
-     * The MonitorDash GUI that owns this instance.
+     * Runs searches and page queries off the FX thread, one at a time
      */
-    private final MonitorDash myMonitor;
+    private final ExecutorService mySearchExecutor;
+    /**
+     * Waits for typing to pause before searching
+     */
+    private final PauseTransition mySearchDelay = new PauseTransition(Duration.millis(SEARCH_DELAY_MILLIS));
+    /**
+     * The search or query waiting for (or running on) the search thread
+     */
+    private Future<?> myPendingSearch;
+    /**
+     * The full-text search running on the search thread, so it can be cancelled
+     */
+    private AnomalySearch myRunningSearch;
+    /**
+     * Counts the searches started, so results of a stale search are thrown away
+     */
+    private long mySearchGeneration;
 
     /**
      * Constructor for the Database popup.
@@ -59,6 +91,11 @@ class DatabasePopup {
      */
     DatabasePopup(final MonitorDash theMonitor, Stage thePrimaryStage) {
         myMonitor = Objects.requireNonNull(theMonitor, "Monitor is null");
+        mySearchExecutor = Executors.newSingleThreadExecutor(theTask -> {
+            Thread thread = new Thread(theTask, "database-search");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         //Setting up our stage
         myStage = new Stage();
@@ -78,9 +115,6 @@ class DatabasePopup {
         MenuBar menuBar = buildMenuBar(myStage);
         HBox controlStrip = buildControls();
 
-        myObservableList = FXCollections.observableArrayList();
-        myFilteredList = new FilteredList<>(myObservableList, _ -> true);
-
         //Table setup
         myTable = new TableView<>();
 
@@ -101,7 +135,6 @@ class DatabasePopup {
         myTable.getColumns().addAll(List.of(colTimestamp, colDroneId, colType, colDetails));
         myTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_LAST_COLUMN);
         myTable.getStyleClass().add("dark-table");
-        myTable.setItems(myFilteredList);
 
         //Setting the scene
         BorderPane root = new BorderPane();
@@ -126,62 +159,141 @@ class DatabasePopup {
     }
 
     /**
-     * Clear the table, then fill it with a list of Anomaly Records.
+     * Point the table at a new set of Anomaly Records, starting from its first page.
+     * Older pages are only fetched once the user scrolls down to them.
      *
-     * @param theRecords The records the table will be filled with
+     * @param thePage The first page of records the table will show
      */
-    public void refreshAnomalyRecords(List<String[]> theRecords) {
-        if (theRecords == null) return;
-
-        List<MonitorTableEntry> entries = theRecords.stream()
-                .map(this::convert)
-                .toList();
+    public void refreshAnomalyRecords(AnomalyPage thePage) {
+        if (thePage == null) return;
 
         Platform.runLater(() -> {
-            myObservableList.setAll(entries);
-            if (!entries.isEmpty()) {
-                myTable.scrollTo(entries.getLast());
-            }
+            // A search still running would replace this page with stale results
+            cancelPendingSearch();
+            showPage(thePage);
         });
     }
 
     /**
-     * Helper method, converts AnomalyRecords to MonitorTableEntries
+     * Helper method, swaps the table over to a lazy list starting at the given page.
      *
-     * @param theAnomalyRecord The anomaly record we are converting
-     * @return The converted anomaly record as a monitor table entry.
+     * @param thePage The first page of records the table will show
      */
-    private MonitorTableEntry convert(String[] theAnomalyRecord) {
-        return new MonitorTableEntry(
-                theAnomalyRecord[0],
-                theAnomalyRecord[1],
-                theAnomalyRecord[2],
-                theAnomalyRecord[3]
-        );
+    private void showPage(AnomalyPage thePage) {
+        myQuery = thePage.query();
+        myTable.setItems(new LazyAnomalyList(myMonitor::queryAnomalies, mySearchExecutor, thePage));
+        if (!thePage.rows().isEmpty()) {
+            myTable.scrollTo(0);
+        }
+    }
+
+    /**
+     * Helper method, swaps the table over to a ranked list of full-text matches.
+     *
+     * @param theRows The matches, best first
+     */
+    private void showMatches(List<AnomalyRow> theRows) {
+        myQuery = null;
+        myTable.setItems(FXCollections.observableArrayList(LazyAnomalyList.toEntries(theRows)));
+        if (!theRows.isEmpty()) {
+            myTable.scrollTo(0);
+        }
+    }
+
+    /**
+     * Search the database once typing pauses, so a burst of keystrokes only runs one search.
+     *
+     * @param theCategory The category in which we are looking
+     * @param theText What we are looking for
+     */
+    private void scheduleSearch(String theCategory, String theText) {
+        mySearchDelay.setOnFinished(_ -> applySearch(theCategory, theText));
+        mySearchDelay.playFromStart();
     }
 
     /**
-     * Search through the filtered list.
+     * Search the database on the search thread, and show the matching records.
+     * Types and details go through the full-text index and come back ranked,
+     * everything else is a filtered query shown newest first.
+     * Whatever search was still running is cancelled, its results would be stale.
      *
      * @param theCategory The category in which we are looking
      * @param theText What we are looking for
      */
     private void applySearch(String theCategory, String theText) {
-        myFilteredList.setPredicate(entry -> {
-            if (theText == null || theText.isEmpty() || theCategory == null) return true;
-
-            String checking = theText.toLowerCase();
-
-            return switch (theCategory) {
-                case "Timestamp" -> entry.getTimestamp().toLowerCase().contains(checking);
-                case "Drone ID" -> entry.getDroneId().toLowerCase().contains(checking);
-                case "Type" -> entry.getType().toLowerCase().contains(checking);
-                case "Details" -> entry.getDetails().toLowerCase().contains(checking);
-                default -> true;
-            };
+        mySearchDelay.stop();
+        String text = theText == null ? "" : theText;
+
+        AnomalySearch search = null;
+        if ("Type".equals(theCategory)) {
+            search = new AnomalySearch(text, AnomalySearch.Column.TYPE, SEARCH_LIMIT);
+        } else if ("Details".equals(theCategory)) {
+            search = new AnomalySearch(text, AnomalySearch.Column.DETAILS, SEARCH_LIMIT);
+        }
+
+        // Text without any words to match shows everything, like an empty search
+        if (search == null || search.isEmpty()) {
+            AnomalyQuery query = AnomalyQuery.latest(DroneMonitorApp.DATABASE_PAGE_SIZE);
+            if (!text.isEmpty() && "Drone ID".equals(theCategory)) {
+                // Drone IDs are looked up in the drone index
+                query = query.withDroneId(parseDroneId(text));
+            } else if (!text.isEmpty() && "Timestamp".equals(theCategory)) {
+                query = query.withTextContains(AnomalyQuery.TextColumn.TIMESTAMP, text);
+            }
+            if (query.equals(myQuery)) return;
+
+            long generation = cancelPendingSearch();
+            myQuery = query;
+            AnomalyQuery finalQuery = query;
+            myPendingSearch = mySearchExecutor.submit(() -> {
+                AnomalyPage page = myMonitor.queryAnomalies(finalQuery);
+                Platform.runLater(() -> {
+                    if (generation == mySearchGeneration) showPage(page);
+                });
+            });
+            return;
+        }
+
+        long generation = cancelPendingSearch();
+        AnomalySearch finalSearch = search;
+        myQuery = null;
+        myRunningSearch = search;
+        myPendingSearch = mySearchExecutor.submit(() -> {
+            List<AnomalyRow> rows = myMonitor.searchAnomalies(finalSearch);
+            Platform.runLater(() -> {
+                if (generation == mySearchGeneration && !finalSearch.isCancelled()) showMatches(rows);
+            });
         });
     }
 
+    /**
+     * Helper method, cancels the search waiting for or running on the search thread.
+     *
+     * @return The generation number of the search about to start
+     */
+    private long cancelPendingSearch() {
+        if (myPendingSearch != null) myPendingSearch.cancel(false);
+        if (myRunningSearch != null) myRunningSearch.cancel();
+        myPendingSearch = null;
+        myRunningSearch = null;
+        return ++mySearchGeneration;
+    }
+
+    /**
+     * Helper method, reads a drone ID out of the search text.
+     *
+     * @param theText The search text
+     * @return The drone ID, or null if the text isn't a whole number
+     */
+    private Integer parseDroneId(String theText) {
+        if (theText == null || theText.isBlank()) return null;
+        try {
+            return Integer.parseInt(theText.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Helper method for our database popup's menubar.
      * Decided against making its own class, since it's a lot simpler.
@@ -225,8 +337,8 @@ class DatabasePopup {
 
         TextField searchField = new TextField();
         searchField.setPromptText("Enter text here...");
-        //Search per key press (we'll see how this does performance wise)
-        searchField.textProperty().addListener((_, _, newVal) -> applySearch(searchBox.getValue(), newVal));
+        //Search once typing pauses, the search itself runs off the FX thread
+        searchField.textProperty().addListener((_, _, newVal) -> scheduleSearch(searchBox.getValue(), newVal));
         //Search by pressing enter
         searchField.setOnAction(_ -> {
             searchField.clear();
@@ -0,0 +1,322 @@
+package view;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Shows where the fleet is crowded, as a heatmap over the drone map, for fleets too large to read drone by drone.
+ * The world is split into square cells, each counting the drones in it. A drone that moves only takes
+ * one off its old cell and adds one to its new cell, so a tick costs one step per moved drone however
+ * long the simulation has run. A few times a second, if anything moved, the counts are blurred into
+ * one pixel per cell of a WritableImage; every frame in between only stretches that image to the camera.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class DensityHeatmap {
+    /*-- Constants --*/
+
+    /** Represents the world width and height of one cell, and one pixel of the image */
+    static final double CELL_SIZE = 10.0;
+
+    /** Represents how far the cells reach from world (0, 0) in every direction, past the out of bounds line */
+    static final double EXTENT = 1200.0;
+
+    /** Represents the number of cells across and down */
+    static final int CELLS = (int) (EXTENT * 2 / CELL_SIZE);
+
+    /** Represents the shortest time between two renders of the image, in nanoseconds */
+    private static final long REFRESH_NANOS = 250_000_000L;
+
+    /** Represents the blur, a binomial kernel run across and then down, spreading each drone over 7 x 7 cells */
+    private static final float[] KERNEL = {1 / 64f, 6 / 64f, 15 / 64f, 20 / 64f, 15 / 64f, 6 / 64f, 1 / 64f};
+
+    /** Represents the most opaque the busiest cell gets */
+    private static final double MAX_OPACITY = 0.75;
+
+    /** Represents how many drone IDs the cell array holds before it first grows */
+    private static final int INITIAL_CAPACITY = 64;
+
+
+    /*-- Fields --*/
+
+    /** Represents the canvas the image is drawn on */
+    private final Canvas myCanvas = new Canvas();
+
+    /** Represents how many drones are in each cell */
+    private final int[] myCounts = new int[CELLS * CELLS];
+
+    /** Represents the cell of each drone, indexed by drone ID, or -1 when outside every cell or not seen yet */
+    private int[] myCells = newCells(INITIAL_CAPACITY);
+
+    /** Represents whether any count changed since the image was last rendered */
+    private boolean myCountsChanged;
+
+    /** Represents the counts being blurred, then the blurred density, reused for every render */
+    private final float[] myDensity = new float[CELLS * CELLS];
+
+    /** Represents the density after the first blur pass, reused for every render */
+    private final float[] myPass = new float[CELLS * CELLS];
+
+    /** Represents the pixels of the image, reused for every render */
+    private final int[] myPixels = new int[CELLS * CELLS];
+
+    /** Represents the color for each level of density, from empty to the busiest cell */
+    private final int[] myPalette = createPalette();
+
+    /** Represents the rendered heatmap, one pixel per cell */
+    private final WritableImage myImage = new WritableImage(CELLS, CELLS);
+
+    /** Represents the frame loop */
+    private final AnimationTimer myTimer;
+
+    /** Represents when the image was last rendered, in nanoseconds */
+    private long myRenderedAt;
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginX;
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginY;
+
+    /** Represents the zoom scale; 1.0 = 1 pixel */
+    private double myZoomScale = 1.0;
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Creates the heatmap, hidden, above the grid in the given viewport.
+     *
+     * @param theViewport represents the pane the canvas is added to, and sized to.
+     */
+    DensityHeatmap(final Pane theViewport) {
+        Objects.requireNonNull(theViewport, "Viewport can't be null");
+
+        myCanvas.widthProperty().bind(theViewport.widthProperty());
+        myCanvas.heightProperty().bind(theViewport.heightProperty());
+        myCanvas.setManaged(false);
+        myCanvas.setMouseTransparent(true);
+        myCanvas.setVisible(false);
+        theViewport.getChildren().add(1, myCanvas);
+
+        myTimer = new AnimationTimer() {
+            @Override
+            public void handle(final long theNow) {
+                if (theNow - myRenderedAt >= REFRESH_NANOS && render()) {
+                    myRenderedAt = theNow;
+                    redraw();
+                }
+            }
+        };
+    }
+
+
+    /*-- Updates --*/
+
+    /**
+     * Moves a drone's count to the cell it is in now.
+     *
+     * @param theId is the drone ID, which is never negative.
+     * @param theX is the world x position.
+     * @param theY is the world y position (screen direction, so already inverted).
+     */
+    void record(final int theId, final double theX, final double theY) {
+        int cell = cellAt(theX, theY);
+        if (theId >= myCells.length) {
+            growCells(theId);
+        }
+        int old = myCells[theId];
+        if (old == cell) return;
+
+        if (old >= 0) {
+            myCounts[old]--;
+        }
+        if (cell >= 0) {
+            myCounts[cell]++;
+        }
+        myCells[theId] = cell;
+        myCountsChanged = true;
+    }
+
+    /**
+     * Removes every drone.
+     */
+    void clear() {
+        Arrays.fill(myCells, -1);
+        Arrays.fill(myCounts, 0);
+        myCountsChanged = true;
+    }
+
+    /**
+     * Moves the heatmap to a new camera position and redraws it.
+     *
+     * @param theOriginX is where world x = 0 is on screen.
+     * @param theOriginY is where world y = 0 is on screen.
+     * @param theZoomScale is the zoom scale.
+     */
+    void setCamera(final double theOriginX, final double theOriginY, final double theZoomScale) {
+        myOriginX = theOriginX;
+        myOriginY = theOriginY;
+        myZoomScale = theZoomScale;
+        if (myCanvas.isVisible()) {
+            redraw();
+        }
+    }
+
+    /**
+     * Shows or hides the heatmap. While hidden, drones are still counted but nothing is rendered.
+     *
+     * @param theVisible represents whether the heatmap is shown.
+     */
+    void setVisible(final boolean theVisible) {
+        myCanvas.setVisible(theVisible);
+        if (theVisible) {
+            // Rendered straight away, on the same clock as the frame loop
+            render();
+            myRenderedAt = System.nanoTime();
+            redraw();
+            myTimer.start();
+        } else {
+            myTimer.stop();
+        }
+    }
+
+
+    /*-- Drawing --*/
+
+    /**
+     * Blurs the counts and colors them into the image, if any count changed.
+     *
+     * @return true if the image was rendered again.
+     */
+    private boolean render() {
+        if (!myCountsChanged) return false;
+        myCountsChanged = false;
+        for (int i = 0; i < myCounts.length; i++) {
+            myDensity[i] = myCounts[i];
+        }
+
+        // The kernel splits into a pass across and a pass down, 14 steps per cell instead of 49
+        blur(myDensity, myPass, 1, CELLS);
+        blur(myPass, myDensity, CELLS, 1);
+
+        float busiest = 0;
+        for (float density : myDensity) {
+            busiest = Math.max(busiest, density);
+        }
+        int top = myPalette.length - 1;
+        for (int i = 0; i < myPixels.length; i++) {
+            // Square root so a few drones still show next to a crowd
+            int level = busiest <= 0 ? 0 : (int) (Math.sqrt(myDensity[i] / busiest) * top);
+            myPixels[i] = myPalette[level];
+        }
+        myImage.getPixelWriter().setPixels(0, 0, CELLS, CELLS, PixelFormat.getIntArgbInstance(), myPixels, 0, CELLS);
+        return true;
+    }
+
+    /**
+     * Stretches the image over the world's cells at the current camera.
+     */
+    private void redraw() {
+        GraphicsContext graphics = myCanvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, myCanvas.getWidth(), myCanvas.getHeight());
+        double size = CELLS * CELL_SIZE * myZoomScale;
+        graphics.setImageSmoothing(true);
+        graphics.drawImage(myImage, myOriginX - EXTENT * myZoomScale, myOriginY - EXTENT * myZoomScale, size, size);
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Finds the cell a point of the world is in.
+     *
+     * @param theX is the world x position.
+     * @param theY is the world y position.
+     * @return the cell, or -1 if the point is outside every cell.
+     */
+    static int cellAt(final double theX, final double theY) {
+        double column = Math.floor((theX + EXTENT) / CELL_SIZE);
+        double row = Math.floor((theY + EXTENT) / CELL_SIZE);
+        if (!(column >= 0 && column < CELLS && row >= 0 && row < CELLS)) return -1;
+        return (int) row * CELLS + (int) column;
+    }
+
+    /**
+     * Grows the cell array to hold a drone ID, the new drones starting outside every cell.
+     * Drone IDs count up from 1, so the array is only as long as the highest ID seen.
+     *
+     * @param theId is the drone ID that has to fit.
+     */
+    private void growCells(final int theId) {
+        int oldLength = myCells.length;
+        myCells = Arrays.copyOf(myCells, Math.max(theId + 1, oldLength * 2));
+        Arrays.fill(myCells, oldLength, myCells.length, -1);
+    }
+
+    /**
+     * Creates a cell array with every drone outside every cell.
+     *
+     * @param theLength is the number of drone IDs it holds.
+     * @return the new array.
+     */
+    private static int[] newCells(final int theLength) {
+        int[] cells = new int[theLength];
+        Arrays.fill(cells, -1);
+        return cells;
+    }
+
+    /**
+     * Runs the blur kernel along one direction of the grid, leaving the cells past the edge out.
+     *
+     * @param theFrom is the density to blur.
+     * @param theTo is filled with the blurred density.
+     * @param theStep is the distance between neighbouring cells along the blur, 1 across or CELLS down.
+     * @param theLineStep is the distance between neighbouring lines of cells.
+     */
+    private static void blur(final float[] theFrom, final float[] theTo, final int theStep, final int theLineStep) {
+        int reach = KERNEL.length / 2;
+        for (int line = 0; line < CELLS; line++) {
+            int lineStart = line * theLineStep;
+            for (int along = 0; along < CELLS; along++) {
+                float sum = 0;
+                int first = Math.max(-reach, -along);
+                int last = Math.min(reach, CELLS - 1 - along);
+                for (int k = first; k <= last; k++) {
+                    sum += theFrom[lineStart + (along + k) * theStep] * KERNEL[k + reach];
+                }
+                theTo[lineStart + along * theStep] = sum;
+            }
+        }
+    }
+
+    /**
+     * Creates the colors from empty to busiest: clear, then blue, cyan, yellow and red, more opaque as it gets busier.
+     *
+     * @return the colors as 0xAARRGGBB, 256 levels.
+     */
+    private static int[] createPalette() {
+        int[][] stops = {{0, 0, 255}, {0, 200, 255}, {255, 230, 0}, {255, 40, 0}};
+        int[] palette = new int[256];
+        for (int level = 1; level < palette.length; level++) {
+            double fraction = level / 255.0;
+            double position = fraction * (stops.length - 1);
+            int stop = Math.min((int) position, stops.length - 2);
+            double blend = position - stop;
+            int red = (int) Math.round(stops[stop][0] + (stops[stop + 1][0] - stops[stop][0]) * blend);
+            int green = (int) Math.round(stops[stop][1] + (stops[stop + 1][1] - stops[stop][1]) * blend);
+            int blue = (int) Math.round(stops[stop][2] + (stops[stop + 1][2] - stops[stop][2]) * blend);
+            int alpha = (int) Math.round(Math.min(1.0, fraction * 3) * MAX_OPACITY * 255);
+            palette[level] = alpha << 24 | red << 16 | green << 8 | blue;
+        }
+        return palette;
+    }
+}
@@ -0,0 +1,155 @@
+package view;
+
+import Model.Drone;
+import Model.TelemetryData;
+
+/**
+ * One drone's row in the live telemetry list, holding the text its card shows.
+ * Each value is only formatted again when it changes as shown (to the tenth for altitude and speed),
+ * so a tick where a drone barely moved costs a few comparisons instead of a String.format per label.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class DroneCardRow {
+    /*-- Fields --*/
+
+    /** Represents the drone ID */
+    private final int myDroneID;
+
+    /** Represents the card title, e.g. DRONE-7 */
+    private final String myTitle;
+
+    /** Represents the drone status, as shown */
+    private String myStatus = Drone.DroneState.INACTIVE.toString();
+
+    /** Represents the battery level last formatted, or -1 before the first update */
+    private int myBatteryLevel = -1;
+
+    /** Represents the battery level, as shown */
+    private String myBattery = "0%";
+
+    /** Represents the altitude last formatted, in tenths of a meter */
+    private long myAltitudeTenths = Long.MIN_VALUE;
+
+    /** Represents the altitude, as shown */
+    private String myAltitude = "0m";
+
+    /** Represents the speed last formatted, in tenths of a meter per second */
+    private long mySpeedTenths = Long.MIN_VALUE;
+
+    /** Represents the speed, as shown */
+    private String mySpeed = "0 m/s";
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Creates the row for a drone, showing the same defaults as a fresh card.
+     *
+     * @param theDroneID is the drone ID.
+     */
+    DroneCardRow(final int theDroneID) {
+        myDroneID = theDroneID;
+        myTitle = "DRONE-" + theDroneID;
+    }
+
+
+    /*-- Updates --*/
+
+    /**
+     * Takes in a drone's newest values, formatting only the ones that changed.
+     *
+     * @param theDrone is the drone.
+     * @return true if anything the card shows changed.
+     */
+    boolean update(final Drone theDrone) {
+        TelemetryData data = theDrone.getDroneTelemetry();
+        boolean changed = false;
+
+        String status = theDrone.isDroneOn().toString();
+        if (!status.equals(myStatus)) {
+            myStatus = status;
+            changed = true;
+        }
+
+        int battery = theDrone.getBatteryLevel();
+        if (battery != myBatteryLevel) {
+            myBatteryLevel = battery;
+            myBattery = battery + "%";
+            changed = true;
+        }
+
+        long altitude = Math.round(data.getAltitude() * 10);
+        if (altitude != myAltitudeTenths) {
+            myAltitudeTenths = altitude;
+            myAltitude = String.format("%.1f m", data.getAltitude());
+            changed = true;
+        }
+
+        long speed = Math.round(data.getVelocity() * 10);
+        if (speed != mySpeedTenths) {
+            mySpeedTenths = speed;
+            mySpeed = String.format("%.1f m/s", data.getVelocity());
+            changed = true;
+        }
+        return changed;
+    }
+
+
+    /*-- Getters --*/
+
+    /**
+     * Getter method that returns the drone ID.
+     *
+     * @return the drone ID.
+     */
+    int getDroneID() {
+        return myDroneID;
+    }
+
+    /**
+     * Getter method that returns the card title.
+     *
+     * @return the title, e.g. DRONE-7.
+     */
+    String getTitle() {
+        return myTitle;
+    }
+
+    /**
+     * Getter method that returns the drone status.
+     *
+     * @return the status, as shown.
+     */
+    String getStatus() {
+        return myStatus;
+    }
+
+    /**
+     * Getter method that returns the battery level.
+     *
+     * @return the battery level, as shown.
+     */
+    String getBattery() {
+        return myBattery;
+    }
+
+    /**
+     * Getter method that returns the altitude.
+     *
+     * @return the altitude, as shown.
+     */
+    String getAltitude() {
+        return myAltitude;
+    }
+
+    /**
+     * Getter method that returns the speed.
+     *
+     * @return the speed, as shown.
+     */
+    String getSpeed() {
+        return mySpeed;
+    }
+}
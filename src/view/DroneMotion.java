@@ -0,0 +1,319 @@
+package view;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks where every drone is drawn, for the canvas renderer.
+ * Each drone eases from where it was drawn to its newest position over one second, the same
+ * as the Timeline the node renderer plays, but the whole fleet lives in a few primitive arrays
+ * instead of one animation object per drone. A frame only steps the drones it shows;
+ * the others catch up the next time they are stepped, since a move's position only depends on the time.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class DroneMotion {
+    /*-- Constants --*/
+
+    /** Represents how long a move between two ticks takes, in nanoseconds */
+    static final long MOVE_NANOS = 1_000_000_000L;
+
+    /** Represents how many drones the arrays hold before they first grow */
+    private static final int INITIAL_CAPACITY = 64;
+
+
+    /*-- Fields --*/
+
+    /** Map of drone IDs to their slot in the arrays (Drone ID -> slot) */
+    private final Map<Integer, Integer> mySlots = new HashMap<>();
+
+    /** Represents the drone ID in each slot */
+    private int[] myIds = new int[INITIAL_CAPACITY];
+
+    /** Represents where each move started: x, y, scale and angle, four values per slot */
+    private double[] myFrom = new double[INITIAL_CAPACITY * 4];
+
+    /** Represents where each move ends: x, y, scale and angle, four values per slot */
+    private double[] myTo = new double[INITIAL_CAPACITY * 4];
+
+    /** Represents where each drone is drawn this frame: x, y, scale and angle, four values per slot */
+    private double[] myNow = new double[INITIAL_CAPACITY * 4];
+
+    /** Represents when each move started, in nanoseconds */
+    private long[] myStart = new long[INITIAL_CAPACITY];
+
+    /** Represents the number of slots in use */
+    private int mySize;
+
+
+    /*-- Updates --*/
+
+    /**
+     * Starts moving a drone towards a new position, from wherever it is drawn right now.
+     * A drone seen for the first time is placed at the position instantly.
+     *
+     * @param theId is the drone ID.
+     * @param theX is the world x position.
+     * @param theY is the world y position (screen direction, so already inverted).
+     * @param theScale is the scale of the drone shape.
+     * @param theAngle is the rotation in degrees.
+     * @param theNow is the current time in nanoseconds.
+     * @return the slot of the drone.
+     */
+    int moveTo(final int theId, final double theX, final double theY, final double theScale,
+               final double theAngle, final long theNow) {
+        Integer existing = mySlots.get(theId);
+        if (existing == null) {
+            int slot = addSlot(theId);
+            set(myFrom, slot, theX, theY, theScale, theAngle);
+            set(myTo, slot, theX, theY, theScale, theAngle);
+            set(myNow, slot, theX, theY, theScale, theAngle);
+            myStart[slot] = theNow - MOVE_NANOS;
+            return slot;
+        }
+
+        int slot = existing;
+        int base = slot * 4;
+        step(slot, theNow);
+        System.arraycopy(myNow, base, myFrom, base, 4);
+
+        // Turning the shortest way round, the same as the node renderer
+        double currentAngle = myNow[base + 3];
+        double delta = ((theAngle - currentAngle + 540) % 360) - 180;
+        set(myTo, slot, theX, theY, theScale, currentAngle + delta);
+        myStart[slot] = theNow;
+        return slot;
+    }
+
+    /**
+     * Works out where every drone is drawn at the given time.
+     *
+     * @param theNow is the current time in nanoseconds.
+     */
+    void advance(final long theNow) {
+        for (int slot = 0; slot < mySize; slot++) {
+            step(slot, theNow);
+        }
+    }
+
+    /**
+     * Works out where one drone is drawn at the given time, so a frame only steps the drones it shows.
+     *
+     * @param theSlot is the slot.
+     * @param theNow is the current time in nanoseconds.
+     */
+    void advance(final int theSlot, final long theNow) {
+        step(theSlot, theNow);
+    }
+
+    /**
+     * Stops every move where it is right now, the same as stopping every Timeline.
+     *
+     * @param theNow is the current time in nanoseconds.
+     */
+    void settle(final long theNow) {
+        advance(theNow);
+        System.arraycopy(myNow, 0, myFrom, 0, mySize * 4);
+        System.arraycopy(myNow, 0, myTo, 0, mySize * 4);
+    }
+
+    /**
+     * Removes every drone.
+     */
+    void clear() {
+        mySlots.clear();
+        mySize = 0;
+    }
+
+
+    /*-- Getters --*/
+
+    /**
+     * Getter method that returns the number of drones tracked.
+     *
+     * @return the number of slots in use.
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Getter method that returns the slot of a drone.
+     *
+     * @param theId is the drone ID.
+     * @return the slot, or -1 if the drone isn't tracked.
+     */
+    int slotOf(final int theId) {
+        Integer slot = mySlots.get(theId);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Getter method that returns the drone ID in a slot.
+     *
+     * @param theSlot is the slot.
+     * @return the drone ID.
+     */
+    int id(final int theSlot) {
+        return myIds[theSlot];
+    }
+
+    /**
+     * Getter method that returns where a drone is drawn this frame.
+     *
+     * @param theSlot is the slot.
+     * @return the world x position.
+     */
+    double x(final int theSlot) {
+        return myNow[theSlot * 4];
+    }
+
+    /**
+     * Getter method that returns where a drone is drawn this frame.
+     *
+     * @param theSlot is the slot.
+     * @return the world y position.
+     */
+    double y(final int theSlot) {
+        return myNow[theSlot * 4 + 1];
+    }
+
+    /**
+     * Getter method that returns the smallest x the drone's current move passes through.
+     *
+     * @param theSlot is the slot.
+     * @return the left edge of the move, in world units.
+     */
+    double pathMinX(final int theSlot) {
+        return Math.min(myFrom[theSlot * 4], myTo[theSlot * 4]);
+    }
+
+    /**
+     * Getter method that returns the largest x the drone's current move passes through.
+     *
+     * @param theSlot is the slot.
+     * @return the right edge of the move, in world units.
+     */
+    double pathMaxX(final int theSlot) {
+        return Math.max(myFrom[theSlot * 4], myTo[theSlot * 4]);
+    }
+
+    /**
+     * Getter method that returns the smallest y the drone's current move passes through.
+     *
+     * @param theSlot is the slot.
+     * @return the top edge of the move, in world units.
+     */
+    double pathMinY(final int theSlot) {
+        return Math.min(myFrom[theSlot * 4 + 1], myTo[theSlot * 4 + 1]);
+    }
+
+    /**
+     * Getter method that returns the largest y the drone's current move passes through.
+     *
+     * @param theSlot is the slot.
+     * @return the bottom edge of the move, in world units.
+     */
+    double pathMaxY(final int theSlot) {
+        return Math.max(myFrom[theSlot * 4 + 1], myTo[theSlot * 4 + 1]);
+    }
+
+    /**
+     * Getter method that returns how large a drone is drawn this frame.
+     *
+     * @param theSlot is the slot.
+     * @return the scale of the drone shape.
+     */
+    double scale(final int theSlot) {
+        return myNow[theSlot * 4 + 2];
+    }
+
+    /**
+     * Getter method that returns how a drone is turned this frame.
+     *
+     * @param theSlot is the slot.
+     * @return the rotation in degrees.
+     */
+    double angle(final int theSlot) {
+        return myNow[theSlot * 4 + 3];
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Eases slowly in and out, the same curve as Interpolator.EASE_BOTH:
+     * speeding up over the first fifth, steady, then slowing down over the last fifth.
+     *
+     * @param theFraction is how far through the move, from 0 to 1.
+     * @return how far along the path, from 0 to 1.
+     */
+    static double easeBoth(final double theFraction) {
+        double t = Math.min(Math.max(theFraction, 0), 1);
+        double eased;
+        if (t < 0.2) {
+            eased = 3.125 * t * t;
+        } else if (t > 0.8) {
+            eased = -3.125 * t * t + 6.25 * t - 2.125;
+        } else {
+            eased = 1.25 * t - 0.125;
+        }
+        return Math.min(Math.max(eased, 0), 1);
+    }
+
+    /**
+     * Works out where one drone is drawn at the given time.
+     *
+     * @param theSlot is the slot.
+     * @param theNow is the current time in nanoseconds.
+     */
+    private void step(final int theSlot, final long theNow) {
+        int base = theSlot * 4;
+        double eased = easeBoth((double) (theNow - myStart[theSlot]) / MOVE_NANOS);
+        for (int i = base; i < base + 4; i++) {
+            myNow[i] = myFrom[i] + (myTo[i] - myFrom[i]) * eased;
+        }
+    }
+
+    /**
+     * Gives a new drone the next slot, growing the arrays when they are full.
+     *
+     * @param theId is the drone ID.
+     * @return the new slot.
+     */
+    private int addSlot(final int theId) {
+        if (mySize == myIds.length) {
+            int capacity = myIds.length * 2;
+            myIds = Arrays.copyOf(myIds, capacity);
+            myFrom = Arrays.copyOf(myFrom, capacity * 4);
+            myTo = Arrays.copyOf(myTo, capacity * 4);
+            myNow = Arrays.copyOf(myNow, capacity * 4);
+            myStart = Arrays.copyOf(myStart, capacity);
+        }
+        int slot = mySize++;
+        myIds[slot] = theId;
+        mySlots.put(theId, slot);
+        return slot;
+    }
+
+    /**
+     * Stores one slot's four values.
+     *
+     * @param theValues is the array to store in.
+     * @param theSlot is the slot.
+     * @param theX is the world x position.
+     * @param theY is the world y position.
+     * @param theScale is the scale.
+     * @param theAngle is the rotation in degrees.
+     */
+    private static void set(final double[] theValues, final int theSlot, final double theX, final double theY,
+                            final double theScale, final double theAngle) {
+        int base = theSlot * 4;
+        theValues[base] = theX;
+        theValues[base + 1] = theY;
+        theValues[base + 2] = theScale;
+        theValues[base + 3] = theAngle;
+    }
+}
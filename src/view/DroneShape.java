@@ -14,8 +14,8 @@ import java.util.Objects;
 public class DroneShape extends Polygon {
     /*-- Fields --*/
 
-    /** Represent the Drone Shape Points */
-    private static final double[] SHAPE_POINTS = {
+    /** Represent the Drone Shape Points, also drawn by the CanvasDroneRenderer */
+    static final double[] SHAPE_POINTS = {
             0.0, -20.0,  // Tip
             12.0, 8.0,   // Bottom Right
             0.0, 5.0,    // Indent (top center)
@@ -0,0 +1,236 @@
+package view;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid over the paths the drones are moving along, so a frame only touches the drones
+ * near the screen and a click only checks the few drones in the cells around it.
+ * A drone is filed under every cell its current move's bounding box covers, which is usually one,
+ * so the grid stays valid for the whole move and only has to be rebuilt when new moves start,
+ * once per simulation tick rather than once per frame.
+ * The grid is built in two passes with a counting sort into flat int arrays. Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class DroneSpatialIndex {
+    /*-- Constants --*/
+
+    /** Represents the width and height of one grid cell, in world units */
+    static final double CELL_SIZE = 64.0;
+
+    /** Represents the most cells one lookup checks before it just visits every drone */
+    private static final int MAX_CELLS_CHECKED = 4_096;
+
+    /** Represents the most cells one drone is filed under; longer moves go on the always-visited list */
+    private static final int MAX_CELLS_PER_DRONE = 16;
+
+
+    /*-- Fields --*/
+
+    /** Represents where each bucket's slots start in myEntries, with one extra end marker */
+    private int[] myBucketStarts = new int[2];
+
+    /** Represents the drone slots, grouped by bucket */
+    private int[] myEntries = new int[0];
+
+    /** Represents the drones whose move covers too many cells, visited by every lookup */
+    private int[] myOversized = new int[0];
+
+    /** Represents the number of drones on the oversized list */
+    private int myOversizedCount;
+
+    /** Represents the bucket count minus one, the count is always a power of two */
+    private int myBucketMask;
+
+    /** Represents the number of drones indexed */
+    private int mySize;
+
+    /** Represents the lookup that last visited each slot, so a drone in several cells is visited once */
+    private int[] myVisited = new int[0];
+
+    /** Represents the current lookup, counting up */
+    private int myLookup;
+
+
+    /*-- Building --*/
+
+    /**
+     * Rebuilds the grid from every drone's current move.
+     *
+     * @param theMotion is the drone positions.
+     */
+    void rebuild(final DroneMotion theMotion) {
+        mySize = theMotion.size();
+        int buckets = Integer.highestOneBit(Math.max(1, mySize) * 2 - 1) << 1;
+        myBucketMask = buckets - 1;
+        if (myBucketStarts.length < buckets + 1) {
+            myBucketStarts = new int[buckets + 1];
+        } else {
+            Arrays.fill(myBucketStarts, 0, buckets + 1, 0);
+        }
+        if (myVisited.length < mySize) {
+            myVisited = new int[Math.max(mySize, myVisited.length * 2)];
+            myLookup = 0;
+        }
+        myOversizedCount = 0;
+
+        // Counting each bucket, then turning the counts into start offsets
+        int entries = 0;
+        for (int slot = 0; slot < mySize; slot++) {
+            long minX = cell(theMotion.pathMinX(slot));
+            long maxX = cell(theMotion.pathMaxX(slot));
+            long minY = cell(theMotion.pathMinY(slot));
+            long maxY = cell(theMotion.pathMaxY(slot));
+            if ((maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_DRONE) {
+                if (myOversizedCount == myOversized.length) {
+                    myOversized = Arrays.copyOf(myOversized, Math.max(16, myOversizedCount * 2));
+                }
+                myOversized[myOversizedCount++] = slot;
+                continue;
+            }
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    myBucketStarts[bucketOf(x, y) + 1]++;
+                    entries++;
+                }
+            }
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            myBucketStarts[bucket + 1] += myBucketStarts[bucket];
+        }
+        if (myEntries.length < entries) {
+            myEntries = new int[Math.max(entries, myEntries.length * 2)];
+        }
+
+        // Placing each slot, walking the offsets forward as we go, then walking them back
+        for (int slot = 0; slot < mySize; slot++) {
+            long minX = cell(theMotion.pathMinX(slot));
+            long maxX = cell(theMotion.pathMaxX(slot));
+            long minY = cell(theMotion.pathMinY(slot));
+            long maxY = cell(theMotion.pathMaxY(slot));
+            if ((maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS_PER_DRONE) continue;
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    myEntries[myBucketStarts[bucketOf(x, y)]++] = slot;
+                }
+            }
+        }
+        for (int bucket = buckets; bucket > 0; bucket--) {
+            myBucketStarts[bucket] = myBucketStarts[bucket - 1];
+        }
+        myBucketStarts[0] = 0;
+    }
+
+
+    /*-- Lookups --*/
+
+    /**
+     * Visits every drone whose current move might pass through a rectangle, each once.
+     * Drones filed under a cell the rectangle touches are included even if their move
+     * only grazes the cell, so the caller still checks each drone's actual position.
+     *
+     * @param theMinX is the left edge, in world units.
+     * @param theMinY is the top edge, in world units.
+     * @param theMaxX is the right edge, in world units.
+     * @param theMaxY is the bottom edge, in world units.
+     * @param theVisitor is called with the slot of each drone.
+     */
+    void query(final double theMinX, final double theMinY, final double theMaxX, final double theMaxY,
+               final IntConsumer theVisitor) {
+        long minCellX = cell(theMinX);
+        long maxCellX = cell(theMaxX);
+        long minCellY = cell(theMinY);
+        long maxCellY = cell(theMaxY);
+
+        // Zoomed far out, the rectangle covers so many cells that every drone is a candidate anyway
+        if ((maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > Math.max(MAX_CELLS_CHECKED, mySize)) {
+            for (int slot = 0; slot < mySize; slot++) {
+                theVisitor.accept(slot);
+            }
+            return;
+        }
+
+        int lookup = nextLookup();
+        for (int i = 0; i < myOversizedCount; i++) {
+            myVisited[myOversized[i]] = lookup;
+            theVisitor.accept(myOversized[i]);
+        }
+        for (long cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (long cellY = minCellY; cellY <= maxCellY; cellY++) {
+                int bucket = bucketOf(cellX, cellY);
+                // Other cells can share the bucket, the caller's position check skips their drones
+                for (int i = myBucketStarts[bucket]; i < myBucketStarts[bucket + 1]; i++) {
+                    int slot = myEntries[i];
+                    if (myVisited[slot] != lookup) {
+                        myVisited[slot] = lookup;
+                        theVisitor.accept(slot);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the drone drawn closest to a point, within a distance.
+     * Only looks at where the drones were last stepped to, which for a point on screen is this frame.
+     *
+     * @param theMotion is the drone positions the grid was built from.
+     * @param theX is the world x position of the point.
+     * @param theY is the world y position of the point.
+     * @param theRadius is the furthest a drone's center may be, in world units.
+     * @return the slot of the closest drone, or -1 if none is close enough.
+     */
+    int nearest(final DroneMotion theMotion, final double theX, final double theY, final double theRadius) {
+        double[] bestDistance = {theRadius * theRadius};
+        int[] best = {-1};
+        query(theX - theRadius, theY - theRadius, theX + theRadius, theY + theRadius, slot -> {
+            double dx = theMotion.x(slot) - theX;
+            double dy = theMotion.y(slot) - theY;
+            double distance = dx * dx + dy * dy;
+            if (distance <= bestDistance[0]) {
+                bestDistance[0] = distance;
+                best[0] = slot;
+            }
+        });
+        return best[0];
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Starts a new lookup, clearing the visit marks once the counter wraps.
+     *
+     * @return the new lookup number.
+     */
+    private int nextLookup() {
+        if (++myLookup == Integer.MAX_VALUE) {
+            Arrays.fill(myVisited, 0);
+            myLookup = 1;
+        }
+        return myLookup;
+    }
+
+    /**
+     * Finds the grid cell a coordinate falls in.
+     *
+     * @param theValue is the world coordinate.
+     * @return the cell index along that axis.
+     */
+    private static long cell(final double theValue) {
+        return (long) Math.floor(theValue / CELL_SIZE);
+    }
+
+    /**
+     * Hashes a cell into a bucket.
+     *
+     * @param theCellX is the cell index along x.
+     * @param theCellY is the cell index along y.
+     * @return the bucket.
+     */
+    private int bucketOf(final long theCellX, final long theCellY) {
+        long hash = theCellX * 0x9E3779B97F4A7C15L + theCellY * 0xC2B2AE3D27D4EB4FL;
+        return (int) (hash ^ (hash >>> 32)) & myBucketMask;
+    }
+}
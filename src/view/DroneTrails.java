@@ -0,0 +1,252 @@
+package view;
+
+import javafx.scene.canvas.GraphicsContext;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the last few positions of every drone, to draw the path each one took.
+ * Every drone gets a fixed ring of TRAIL_LENGTH points in one shared primitive array, so the
+ * memory is drones x TRAIL_LENGTH x 2 doubles however long the simulation runs, and a new point
+ * just overwrites the oldest one. All the trails on screen are added to one path and stroked
+ * with a single draw call; a drone whose whole trail is off screen is skipped.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class DroneTrails {
+    /*-- Constants --*/
+
+    /** Represents how many positions each trail keeps */
+    static final int TRAIL_LENGTH = 32;
+
+    /** Represents how many drones the arrays hold before they first grow */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** Represents the zoom scale below which trails are too small to be worth drawing */
+    static final double MIN_ZOOM = 0.3;
+
+
+    /*-- Fields --*/
+
+    /** Map of drone IDs to their slot in the arrays (Drone ID -> slot) */
+    private final Map<Integer, Integer> mySlots = new HashMap<>();
+
+    /** Represents the drone ID in each slot */
+    private int[] myIds = new int[INITIAL_CAPACITY];
+
+    /** Represents every trail's points: x then y, TRAIL_LENGTH points per slot */
+    private double[] myPoints = new double[INITIAL_CAPACITY * TRAIL_LENGTH * 2];
+
+    /** Represents where each trail's oldest point is in its ring */
+    private int[] myHeads = new int[INITIAL_CAPACITY];
+
+    /** Represents how many points each trail holds */
+    private int[] myCounts = new int[INITIAL_CAPACITY];
+
+    /** Represents the box around each trail: min x, min y, max x and max y, four values per slot */
+    private double[] myBounds = new double[INITIAL_CAPACITY * 4];
+
+    /** Represents the number of slots in use */
+    private int mySize;
+
+    /** Represents where a trail's drone is drawn, reused for every drone */
+    private final double[] myHead = new double[2];
+
+
+    /*-- Interface --*/
+
+    /**
+     * Finds where a drone is drawn right now, so its trail runs right up to it
+     * instead of to the position it is still easing towards.
+     */
+    @FunctionalInterface
+    interface HeadLocator {
+
+        /**
+         * Finds where a drone is drawn.
+         *
+         * @param theDroneID is the drone ID.
+         * @param theOut is filled with the world x and y position.
+         * @return true if the drone is drawn, false to end the trail at its newest point.
+         */
+        boolean locate(int theDroneID, double[] theOut);
+    }
+
+
+    /*-- Updates --*/
+
+    /**
+     * Adds a drone's newest position to its trail, dropping the oldest one once the trail is full.
+     *
+     * @param theId is the drone ID.
+     * @param theX is the world x position.
+     * @param theY is the world y position (screen direction, so already inverted).
+     */
+    void record(final int theId, final double theX, final double theY) {
+        Integer existing = mySlots.get(theId);
+        int slot = existing == null ? addSlot(theId) : existing;
+        int base = slot * TRAIL_LENGTH * 2;
+
+        int count = myCounts[slot];
+        int at;
+        if (count < TRAIL_LENGTH) {
+            at = (myHeads[slot] + count) % TRAIL_LENGTH;
+            myCounts[slot] = count + 1;
+        } else {
+            // Full, so the newest point takes the oldest one's place
+            at = myHeads[slot];
+            myHeads[slot] = (at + 1) % TRAIL_LENGTH;
+        }
+        myPoints[base + at * 2] = theX;
+        myPoints[base + at * 2 + 1] = theY;
+
+        updateBounds(slot);
+    }
+
+    /**
+     * Removes every trail.
+     */
+    void clear() {
+        mySlots.clear();
+        mySize = 0;
+    }
+
+
+    /*-- Drawing --*/
+
+    /**
+     * Strokes every trail that reaches the screen, all in one path.
+     * The caller sets the stroke color and width.
+     *
+     * @param theGraphics is the canvas to draw on.
+     * @param theOriginX is where world x = 0 is on screen.
+     * @param theOriginY is where world y = 0 is on screen.
+     * @param theZoomScale is the zoom scale.
+     * @param theWidth is the canvas width.
+     * @param theHeight is the canvas height.
+     * @param theLocator finds where each drone is drawn right now.
+     * @return the number of trails drawn.
+     */
+    int stroke(final GraphicsContext theGraphics, final double theOriginX, final double theOriginY,
+               final double theZoomScale, final double theWidth, final double theHeight,
+               final HeadLocator theLocator) {
+        if (theZoomScale < MIN_ZOOM || mySize == 0) return 0;
+
+        // The visible part of the world
+        double minX = -theOriginX / theZoomScale;
+        double minY = -theOriginY / theZoomScale;
+        double maxX = (theWidth - theOriginX) / theZoomScale;
+        double maxY = (theHeight - theOriginY) / theZoomScale;
+
+        int drawn = 0;
+        theGraphics.beginPath();
+        for (int slot = 0; slot < mySize; slot++) {
+            int count = myCounts[slot];
+            int bounds = slot * 4;
+            if (count < 2 || myBounds[bounds] > maxX || myBounds[bounds + 1] > maxY
+                    || myBounds[bounds + 2] < minX || myBounds[bounds + 3] < minY) {
+                continue;
+            }
+
+            // The newest point is where the drone is heading, so the trail ends where it is drawn instead
+            int base = slot * TRAIL_LENGTH * 2;
+            int head = myHeads[slot];
+            boolean located = theLocator.locate(myIds[slot], myHead);
+            int points = located ? count - 1 : count;
+            for (int i = 0; i < points; i++) {
+                int at = base + ((head + i) % TRAIL_LENGTH) * 2;
+                double screenX = theOriginX + myPoints[at] * theZoomScale;
+                double screenY = theOriginY + myPoints[at + 1] * theZoomScale;
+                if (i == 0) {
+                    theGraphics.moveTo(screenX, screenY);
+                } else {
+                    theGraphics.lineTo(screenX, screenY);
+                }
+            }
+            if (located) {
+                theGraphics.lineTo(theOriginX + myHead[0] * theZoomScale, theOriginY + myHead[1] * theZoomScale);
+            }
+            drawn++;
+        }
+        theGraphics.stroke();
+        return drawn;
+    }
+
+
+    /*-- Getters --*/
+
+    /**
+     * Getter method that returns the number of drones with a trail.
+     *
+     * @return the number of slots in use.
+     */
+    int size() {
+        return mySize;
+    }
+
+    /**
+     * Getter method that returns how many points a drone's trail holds.
+     *
+     * @param theId is the drone ID.
+     * @return the number of points, 0 if the drone has no trail.
+     */
+    int length(final int theId) {
+        Integer slot = mySlots.get(theId);
+        return slot == null ? 0 : myCounts[slot];
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Works out the box around one trail again, after a point was added or dropped.
+     *
+     * @param theSlot is the slot.
+     */
+    private void updateBounds(final int theSlot) {
+        int base = theSlot * TRAIL_LENGTH * 2;
+        int count = myCounts[theSlot];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            int at = base + ((myHeads[theSlot] + i) % TRAIL_LENGTH) * 2;
+            minX = Math.min(minX, myPoints[at]);
+            minY = Math.min(minY, myPoints[at + 1]);
+            maxX = Math.max(maxX, myPoints[at]);
+            maxY = Math.max(maxY, myPoints[at + 1]);
+        }
+        int bounds = theSlot * 4;
+        myBounds[bounds] = minX;
+        myBounds[bounds + 1] = minY;
+        myBounds[bounds + 2] = maxX;
+        myBounds[bounds + 3] = maxY;
+    }
+
+    /**
+     * Gives a new drone the next slot, growing the arrays when they are full.
+     *
+     * @param theId is the drone ID.
+     * @return the new slot, with an empty trail.
+     */
+    private int addSlot(final int theId) {
+        if (mySize == myIds.length) {
+            int capacity = myIds.length * 2;
+            myIds = Arrays.copyOf(myIds, capacity);
+            myPoints = Arrays.copyOf(myPoints, capacity * TRAIL_LENGTH * 2);
+            myHeads = Arrays.copyOf(myHeads, capacity);
+            myCounts = Arrays.copyOf(myCounts, capacity);
+            myBounds = Arrays.copyOf(myBounds, capacity * 4);
+        }
+        int slot = mySize++;
+        myIds[slot] = theId;
+        myHeads[slot] = 0;
+        myCounts[slot] = 0;
+        mySlots.put(theId, slot);
+        return slot;
+    }
+}
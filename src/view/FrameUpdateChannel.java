@@ -0,0 +1,178 @@
+package view;
+
+import Model.AnomalyRecord;
+import Model.Drone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A mailbox between the simulation thread and the FX thread, emptied once per frame.
+ * The simulation thread publishes as often as it likes; only the newest fleet snapshot and time
+ * survive until the next frame, so a slow frame never leaves a backlog of stale ticks behind it.
+ * Anomalies are log entries, so those are never dropped: every batch waits for the next frame.
+ * The channel also measures how long published updates wait before a frame picks them up.
+ *
+ * @version Autumn 2025
+ */
+final class FrameUpdateChannel {
+    /*-- Constants --*/
+
+    /** Represents an empty time slot */
+    private static final int NO_TIME = -1;
+
+    /** Represents that nothing is waiting for the next frame */
+    private static final long NOTHING_PENDING = Long.MIN_VALUE;
+
+
+    /*-- Fields --*/
+
+    /** Represents the newest fleet snapshot, null once a frame has taken it */
+    private final AtomicReference<Drone[]> myFleet = new AtomicReference<>();
+
+    /** Represents the newest elapsed time, NO_TIME once a frame has taken it */
+    private final AtomicInteger myTime = new AtomicInteger(NO_TIME);
+
+    /** Represents the anomalies waiting for the next frame, guarded by itself */
+    private final List<AnomalyRecord> myAnomalies = new ArrayList<>();
+
+    /** Represents when the oldest waiting update was published, in nanoseconds */
+    private final AtomicLong myOldestPublish = new AtomicLong(NOTHING_PENDING);
+
+    /** Represents how many fleet snapshots were replaced before any frame drew them */
+    private final AtomicLong myDroppedFleets = new AtomicLong();
+
+    /** Represents how long the updates taken by the last frame had waited, in nanoseconds */
+    private volatile long myLastLagNanos;
+
+    /** Represents the longest any update has waited, in nanoseconds */
+    private volatile long myMaxLagNanos;
+
+
+    /**
+     * Everything one frame has to apply.
+     *
+     * @param fleet the newest fleet snapshot, or null if none arrived since the last frame
+     * @param time the newest elapsed time, or -1 if none arrived since the last frame
+     * @param anomalies every anomaly that arrived since the last frame, oldest first
+     */
+    record Frame(Drone[] fleet, int time, List<AnomalyRecord> anomalies) {
+    }
+
+
+    /*-- Publishing, from any thread --*/
+
+    /**
+     * Publishes a fleet snapshot, replacing any snapshot no frame has taken yet.
+     *
+     * @param theFleet represents the updated drones.
+     */
+    void publishFleet(final Drone[] theFleet) {
+        if (myFleet.getAndSet(theFleet) != null) {
+            myDroppedFleets.incrementAndGet();
+        }
+        markPublished();
+    }
+
+    /**
+     * Throws away a fleet snapshot no frame has taken yet, when the fleet it belongs to is replaced.
+     */
+    void discardFleet() {
+        myFleet.set(null);
+    }
+
+    /**
+     * Publishes the elapsed time, replacing any time no frame has taken yet.
+     *
+     * @param theTime represents the elapsed time.
+     */
+    void publishTime(final int theTime) {
+        myTime.set(theTime);
+        markPublished();
+    }
+
+    /**
+     * Publishes a batch of anomalies, which waits with any earlier batches for the next frame.
+     *
+     * @param theAnomalies represents the detected anomalies.
+     */
+    void publishAnomalies(final AnomalyRecord[] theAnomalies) {
+        synchronized (myAnomalies) {
+            Collections.addAll(myAnomalies, theAnomalies);
+        }
+        markPublished();
+    }
+
+
+    /*-- Draining, once per frame --*/
+
+    /**
+     * Takes everything published since the last frame.
+     *
+     * @return the frame's updates, or null if nothing was published.
+     */
+    Frame drain() {
+        long oldest = myOldestPublish.getAndSet(NOTHING_PENDING);
+        if (oldest == NOTHING_PENDING) {
+            return null;
+        }
+
+        long lag = System.nanoTime() - oldest;
+        myLastLagNanos = lag;
+        if (lag > myMaxLagNanos) {
+            myMaxLagNanos = lag;
+        }
+
+        List<AnomalyRecord> anomalies;
+        synchronized (myAnomalies) {
+            anomalies = myAnomalies.isEmpty() ? List.of() : new ArrayList<>(myAnomalies);
+            myAnomalies.clear();
+        }
+        return new Frame(myFleet.getAndSet(null), myTime.getAndSet(NO_TIME), anomalies);
+    }
+
+
+    /*-- Metrics --*/
+
+    /**
+     * Getter method that returns how long the updates taken by the last frame had waited.
+     *
+     * @return the queue lag in nanoseconds.
+     */
+    long getLastLagNanos() {
+        return myLastLagNanos;
+    }
+
+    /**
+     * Getter method that returns the longest any update has waited for a frame.
+     *
+     * @return the worst queue lag in nanoseconds.
+     */
+    long getMaxLagNanos() {
+        return myMaxLagNanos;
+    }
+
+    /**
+     * Getter method that returns how many fleet snapshots were skipped because a newer one replaced them.
+     *
+     * @return the number of dropped snapshots.
+     */
+    long getDroppedFleets() {
+        return myDroppedFleets.get();
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Remembers when the oldest waiting update was published. Called after the value is stored,
+     * so a frame that sees the mark always finds the value.
+     */
+    private void markPublished() {
+        myOldestPublish.compareAndSet(NOTHING_PENDING, System.nanoTime());
+    }
+}
@@ -0,0 +1,282 @@
+package view;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Draws the background grid of the drone map from cached image tiles instead of one Line node per grid line.
+ * Tiles are square images rendered for a few fixed zoom levels, each twice as detailed as the last;
+ * the level closest to the current zoom is stretched slightly to fit. A tile is only rendered the first
+ * time it comes into view, and the cache keeps the most recently drawn ones, so a pan or zoom only
+ * draws the handful of tiles on screen however large the world is.
+ * Only used from the FX thread.
+ *
+ * @version Autumn 2025
+ */
+final class GridTileLayer {
+    /*-- Constants --*/
+
+    /** Represents the width and height of one tile image, in pixels */
+    private static final int TILE_PIXELS = 256;
+
+    /** Represents the least detailed zoom level, 2^level pixels per world unit */
+    private static final int MIN_LEVEL = -4;
+
+    /** Represents the most detailed zoom level, 2^level pixels per world unit */
+    private static final int MAX_LEVEL = 3;
+
+    /** Represents the most tiles kept, about four screens' worth */
+    private static final int MAX_CACHED_TILES = 96;
+
+    /** Represents how far the grid reaches from world (0, 0) in every direction, in world units */
+    private static final double GRID_EXTENT = 1000.0;
+
+    /** Represents the world distance between two grid lines */
+    private static final double GRID_SPACING = 50.0;
+
+    /** Represents how often a grid line is drawn thicker, in world units */
+    private static final double MAJOR_SPACING = 250.0;
+
+    /** Represents the width of a normal grid line, in world units */
+    private static final double MINOR_WIDTH = 0.5;
+
+    /** Represents the width of a thicker grid line, in world units */
+    private static final double MAJOR_WIDTH = 1.5;
+
+    /** Represents the grid line color, neon blue, as 0xRRGGBB */
+    private static final int LINE_RGB = 0x00C8FF;
+
+    /** Represents the opacity of one grid line */
+    private static final double LINE_OPACITY = 0.4;
+
+
+    /*-- Fields --*/
+
+    /** Represents the canvas the tiles are drawn on */
+    private final Canvas myCanvas = new Canvas();
+
+    /** Map of the rendered tiles, least recently drawn first (tile key -> image) */
+    private final Map<Long, WritableImage> myTiles;
+
+    /** Represents how much of each pixel column a vertical line covers, reused for every tile */
+    private final double[] myColumnCover = new double[TILE_PIXELS];
+
+    /** Represents how much of each pixel row a horizontal line covers, reused for every tile */
+    private final double[] myRowCover = new double[TILE_PIXELS];
+
+    /** Represents how much of each pixel column is inside the grid's reach, reused for every tile */
+    private final double[] myColumnInside = new double[TILE_PIXELS];
+
+    /** Represents how much of each pixel row is inside the grid's reach, reused for every tile */
+    private final double[] myRowInside = new double[TILE_PIXELS];
+
+    /** Represents the pixels of the tile being rendered, reused for every tile */
+    private final int[] myPixels = new int[TILE_PIXELS * TILE_PIXELS];
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginX;
+
+    /** Represents where world (0, 0) is on screen */
+    private double myOriginY;
+
+    /** Represents the zoom scale; 1.0 = 1 pixel */
+    private double myZoomScale = 1.0;
+
+
+    /*-- Constructor --*/
+
+    /**
+     * Creates the grid layer underneath everything else in the given viewport.
+     *
+     * @param theViewport represents the pane the canvas is added to, and sized to.
+     */
+    GridTileLayer(final Pane theViewport) {
+        Objects.requireNonNull(theViewport, "Viewport can't be null");
+
+        myTiles = new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, WritableImage> theEldest) {
+                return size() > MAX_CACHED_TILES;
+            }
+        };
+
+        myCanvas.widthProperty().bind(theViewport.widthProperty());
+        myCanvas.heightProperty().bind(theViewport.heightProperty());
+        myCanvas.setManaged(false);
+        myCanvas.setMouseTransparent(true);
+        theViewport.getChildren().add(0, myCanvas);
+    }
+
+
+    /*-- Drawing --*/
+
+    /**
+     * Moves the grid to a new camera position and redraws it.
+     *
+     * @param theOriginX is where world x = 0 is on screen.
+     * @param theOriginY is where world y = 0 is on screen.
+     * @param theZoomScale is the zoom scale.
+     */
+    void setCamera(final double theOriginX, final double theOriginY, final double theZoomScale) {
+        myOriginX = theOriginX;
+        myOriginY = theOriginY;
+        myZoomScale = theZoomScale;
+        redraw();
+    }
+
+    /**
+     * Draws the tiles that are on screen, rendering any not cached yet.
+     */
+    private void redraw() {
+        GraphicsContext graphics = myCanvas.getGraphicsContext2D();
+        double width = myCanvas.getWidth();
+        double height = myCanvas.getHeight();
+        graphics.clearRect(0, 0, width, height);
+
+        int level = levelFor(myZoomScale);
+        double tileWorld = TILE_PIXELS / Math.scalb(1.0, level);
+
+        // The tiles under the screen, trimmed to the tiles the grid reaches into
+        double reach = GRID_EXTENT + MAJOR_WIDTH;
+        long firstX = (long) Math.floor(Math.max(-myOriginX / myZoomScale, -reach) / tileWorld);
+        long lastX = (long) Math.floor(Math.min((width - myOriginX) / myZoomScale, reach) / tileWorld);
+        long firstY = (long) Math.floor(Math.max(-myOriginY / myZoomScale, -reach) / tileWorld);
+        long lastY = (long) Math.floor(Math.min((height - myOriginY) / myZoomScale, reach) / tileWorld);
+
+        for (long tileX = firstX; tileX <= lastX; tileX++) {
+            for (long tileY = firstY; tileY <= lastY; tileY++) {
+                // Snapping both edges to whole pixels, so neighbouring tiles meet without a seam
+                double left = Math.floor(myOriginX + tileX * tileWorld * myZoomScale);
+                double right = Math.floor(myOriginX + (tileX + 1) * tileWorld * myZoomScale);
+                double top = Math.floor(myOriginY + tileY * tileWorld * myZoomScale);
+                double bottom = Math.floor(myOriginY + (tileY + 1) * tileWorld * myZoomScale);
+                graphics.drawImage(tile(level, tileX, tileY), left, top, right - left, bottom - top);
+            }
+        }
+    }
+
+    /**
+     * Returns a tile from the cache, rendering it first if needed.
+     *
+     * @param theLevel is the zoom level.
+     * @param theTileX is the tile column.
+     * @param theTileY is the tile row.
+     * @return the tile image.
+     */
+    private WritableImage tile(final int theLevel, final long theTileX, final long theTileY) {
+        long key = ((long) (theLevel - MIN_LEVEL) << 56) | ((theTileX & 0xFFFFFFFL) << 28) | (theTileY & 0xFFFFFFFL);
+        WritableImage image = myTiles.get(key);
+        if (image == null) {
+            image = render(theLevel, theTileX, theTileY);
+            myTiles.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Renders one tile of the grid, the same lines the world used to hold as nodes:
+     * every 50 world units, thicker every 250, reaching 1000 from the origin.
+     *
+     * @param theLevel is the zoom level.
+     * @param theTileX is the tile column.
+     * @param theTileY is the tile row.
+     * @return the tile image.
+     */
+    private WritableImage render(final int theLevel, final long theTileX, final long theTileY) {
+        double pixelsPerUnit = Math.scalb(1.0, theLevel);
+        double tileWorld = TILE_PIXELS / pixelsPerUnit;
+        double left = theTileX * tileWorld;
+        double top = theTileY * tileWorld;
+
+        coverLines(myColumnCover, left, pixelsPerUnit);
+        coverLines(myRowCover, top, pixelsPerUnit);
+        coverRange(myColumnInside, left, pixelsPerUnit);
+        coverRange(myRowInside, top, pixelsPerUnit);
+
+        // Vertical lines only span the grid's height and horizontal ones its width, laid over each other
+        for (int row = 0; row < TILE_PIXELS; row++) {
+            for (int column = 0; column < TILE_PIXELS; column++) {
+                double vertical = myColumnCover[column] * myRowInside[row] * LINE_OPACITY;
+                double horizontal = myRowCover[row] * myColumnInside[column] * LINE_OPACITY;
+                int alpha = (int) Math.round((1 - (1 - vertical) * (1 - horizontal)) * 255);
+                myPixels[row * TILE_PIXELS + column] = alpha << 24 | LINE_RGB;
+            }
+        }
+
+        WritableImage image = new WritableImage(TILE_PIXELS, TILE_PIXELS);
+        image.getPixelWriter().setPixels(0, 0, TILE_PIXELS, TILE_PIXELS,
+                PixelFormat.getIntArgbInstance(), myPixels, 0, TILE_PIXELS);
+        return image;
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Finds the zoom level whose tiles are the closest fit for a zoom scale.
+     *
+     * @param theZoomScale is the zoom scale.
+     * @return the zoom level.
+     */
+    private static int levelFor(final double theZoomScale) {
+        int level = (int) Math.round(Math.log(theZoomScale) / Math.log(2));
+        return Math.max(MIN_LEVEL, Math.min(level, MAX_LEVEL));
+    }
+
+    /**
+     * Works out how much of each pixel along one axis of a tile the grid lines cover.
+     *
+     * @param theCover is filled with the coverage of each pixel, from 0 to 1.
+     * @param theStart is the world position of the tile's first pixel.
+     * @param thePixelsPerUnit is how many pixels one world unit takes.
+     */
+    private static void coverLines(final double[] theCover, final double theStart, final double thePixelsPerUnit) {
+        Arrays.fill(theCover, 0);
+        double end = theStart + TILE_PIXELS / thePixelsPerUnit;
+
+        double first = Math.max(Math.ceil((theStart - MAJOR_WIDTH) / GRID_SPACING) * GRID_SPACING, -GRID_EXTENT);
+        for (double line = first; line <= Math.min(end + MAJOR_WIDTH, GRID_EXTENT); line += GRID_SPACING) {
+            double halfWidth = (line % MAJOR_SPACING == 0 ? MAJOR_WIDTH : MINOR_WIDTH) / 2;
+            addCover(theCover, (line - halfWidth - theStart) * thePixelsPerUnit,
+                    (line + halfWidth - theStart) * thePixelsPerUnit);
+        }
+        for (int i = 0; i < TILE_PIXELS; i++) {
+            theCover[i] = Math.min(theCover[i], 1.0);
+        }
+    }
+
+    /**
+     * Works out how much of each pixel along one axis of a tile is inside the grid's reach.
+     *
+     * @param theCover is filled with the coverage of each pixel, from 0 to 1.
+     * @param theStart is the world position of the tile's first pixel.
+     * @param thePixelsPerUnit is how many pixels one world unit takes.
+     */
+    private static void coverRange(final double[] theCover, final double theStart, final double thePixelsPerUnit) {
+        Arrays.fill(theCover, 0);
+        addCover(theCover, (-GRID_EXTENT - theStart) * thePixelsPerUnit, (GRID_EXTENT - theStart) * thePixelsPerUnit);
+    }
+
+    /**
+     * Adds a span to the coverage of the pixels it overlaps, counting partly covered pixels by how much.
+     *
+     * @param theCover is the coverage of each pixel.
+     * @param theFrom is where the span starts, in pixels from the tile's edge.
+     * @param theTo is where the span ends, in pixels from the tile's edge.
+     */
+    private static void addCover(final double[] theCover, final double theFrom, final double theTo) {
+        int first = (int) Math.max(Math.floor(theFrom), 0);
+        int last = (int) Math.min(Math.ceil(theTo), TILE_PIXELS) - 1;
+        for (int pixel = first; pixel <= last; pixel++) {
+            theCover[pixel] += Math.min(theTo, pixel + 1) - Math.max(theFrom, pixel);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package view;
+
+import database.AnomalyPage;
+import database.AnomalyQuery;
+import database.AnomalyRow;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A read-only list of anomaly table entries that is fetched from the database a page at a time.
+ * The TableView only asks for the rows it is drawing, so only those pages are ever loaded.
+ * A bounded number of pages is kept, and the least recently used one is dropped first.
+ * The list starts with the first page, and grows by a page whenever the last known page is shown.
+ * Pages are fetched on a background executor, never on the FX thread. A row whose page is still
+ * on its way shows a placeholder, and is redrawn once the page arrives.
+ *
+ * @version Autumn 2025
+ */
+class LazyAnomalyList extends ObservableListBase<MonitorTableEntry> {
+    /**
+     * The most pages kept in memory at once
+     */
+    static final int MAX_CACHED_PAGES = 16;
+    /**
+     * The entry shown for a row that disappeared from the database after it was counted
+     */
+    private static final MonitorTableEntry MISSING_ENTRY = new MonitorTableEntry("", "", "", "");
+    /**
+     * The entry shown for a row whose page is still being fetched
+     */
+    private static final MonitorTableEntry LOADING_ENTRY = new MonitorTableEntry("Loading...", "", "", "");
+    /**
+     * Fetches a page from the database
+     */
+    private final Function<AnomalyQuery, AnomalyPage> myFetcher;
+    /**
+     * Runs the page fetches off the FX thread
+     */
+    private final Executor myExecutor;
+    /**
+     * The pages being fetched right now, so each one is only asked for once
+     */
+    private final Set<Integer> myLoadingPages = new HashSet<>();
+    /**
+     * The query for each known page, so an evicted page can be fetched again by its cursor
+     */
+    private final List<AnomalyQuery> myPageQueries = new ArrayList<>();
+    /**
+     * The loaded pages, in least recently used order
+     */
+    private final Map<Integer, List<MonitorTableEntry>> myPages;
+    /**
+     * The number of rows on every full page
+     */
+    private final int myPageSize;
+    /**
+     * The number of rows the table currently knows about
+     */
+    private int mySize;
+    /**
+     * The query for the page after the last known one, null when there is nothing older
+     */
+    private AnomalyQuery myNextQuery;
+    /**
+     * Whether the page after the last known one is already being fetched
+     */
+    private boolean myGrowPending;
+
+    /**
+     * Constructor for the lazy list, seeded with the first page.
+     *
+     * @param theFetcher Fetches a page of rows for a query
+     * @param theExecutor Runs the fetches off the FX thread
+     * @param theFirstPage The first page, already fetched
+     */
+    LazyAnomalyList(Function<AnomalyQuery, AnomalyPage> theFetcher, Executor theExecutor, AnomalyPage theFirstPage) {
+        myFetcher = Objects.requireNonNull(theFetcher, "Fetcher is null");
+        myExecutor = Objects.requireNonNull(theExecutor, "Executor is null");
+        Objects.requireNonNull(theFirstPage, "First page is null");
+        myPageSize = theFirstPage.query().limit();
+
+        myPages = new LinkedHashMap<>(MAX_CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<MonitorTableEntry>> theEldest) {
+                return size() > MAX_CACHED_PAGES;
+            }
+        };
+
+        myPageQueries.add(theFirstPage.query());
+        addKnownPage(theFirstPage);
+    }
+
+    @Override
+    public MonitorTableEntry get(int theIndex) {
+        Objects.checkIndex(theIndex, mySize);
+        int pageNumber = theIndex / myPageSize;
+
+        // Showing the last known page, so start pulling in the one after it
+        if (pageNumber == myPageQueries.size() - 1 && myNextQuery != null) {
+            requestGrow();
+        }
+
+        List<MonitorTableEntry> page = myPages.get(pageNumber);
+        if (page == null) {
+            requestPage(pageNumber);
+            return LOADING_ENTRY;
+        }
+
+        int offset = theIndex % myPageSize;
+        return offset < page.size() ? page.get(offset) : MISSING_ENTRY;
+    }
+
+    @Override
+    public int size() {
+        return mySize;
+    }
+
+    /**
+     * Getter for the number of pages currently held in memory
+     *
+     * @return The number of cached pages
+     */
+    int getCachedPageCount() {
+        return myPages.size();
+    }
+
+    /**
+     * Helper method, fetches a page that was evicted from the cache, then redraws its rows.
+     * The rows keep their place in the list, so the table only has to be told they changed.
+     *
+     * @param thePageNumber The page to fetch again
+     */
+    private void requestPage(int thePageNumber) {
+        if (!myLoadingPages.add(thePageNumber)) return;
+
+        fetch(myPageQueries.get(thePageNumber), thePage -> {
+            myLoadingPages.remove(thePageNumber);
+            myPages.put(thePageNumber, thePage == null ? List.of() : toEntries(thePage.rows()));
+
+            int from = thePageNumber * myPageSize;
+            int to = Math.min(from + myPageSize, mySize);
+            beginChange();
+            for (int i = from; i < to; i++) {
+                nextUpdate(i);
+            }
+            endChange();
+        });
+    }
+
+    /**
+     * Helper method, fetches the page after the last known one, then adds its rows to the end of the list.
+     * The list only changes once the fetch is back on the FX thread, never while the table is asking it for rows.
+     */
+    private void requestGrow() {
+        if (myGrowPending) return;
+        myGrowPending = true;
+
+        AnomalyQuery query = myNextQuery;
+        fetch(query, thePage -> {
+            myGrowPending = false;
+            // End the list here, rather than asking again on every layout pass
+            if (thePage == null) {
+                myNextQuery = null;
+                return;
+            }
+
+            int oldSize = mySize;
+            myPageQueries.add(query);
+            addKnownPage(thePage);
+            if (mySize > oldSize) {
+                beginChange();
+                nextAdd(oldSize, mySize);
+                endChange();
+            }
+        });
+    }
+
+    /**
+     * Helper method, runs a page query on the executor and hands the page back on the FX thread.
+     *
+     * @param theQuery The query for the page
+     * @param theDone Receives the page on the FX thread, null if the fetch failed
+     */
+    private void fetch(AnomalyQuery theQuery, Consumer<AnomalyPage> theDone) {
+        myExecutor.execute(() -> {
+            AnomalyPage page = null;
+            try {
+                page = myFetcher.apply(theQuery);
+            } catch (RuntimeException e) {
+                System.err.println("Error fetching anomaly page: " + e.getMessage());
+            }
+            AnomalyPage finalPage = page;
+            Platform.runLater(() -> theDone.accept(finalPage));
+        });
+    }
+
+    /**
+     * Helper method, caches a newly discovered page at the end of the list and grows the size.
+     *
+     * @param thePage The page that was just fetched
+     */
+    private void addKnownPage(AnomalyPage thePage) {
+        List<MonitorTableEntry> entries = toEntries(thePage.rows());
+        myPages.put(myPageQueries.size() - 1, entries);
+        mySize += entries.size();
+        // Only full pages can have a page after them, otherwise page math would drift
+        myNextQuery = entries.size() == myPageSize ? thePage.nextQuery() : null;
+    }
+
+    /**
+     * Helper method, converts anomaly rows to MonitorTableEntries
+     *
+     * @param theRows The rows we are converting
+     * @return The converted rows as monitor table entries.
+     */
+    static List<MonitorTableEntry> toEntries(List<AnomalyRow> theRows) {
+        List<MonitorTableEntry> entries = new ArrayList<>(theRows.size());
+        for (AnomalyRow row : theRows) {
+            entries.add(new MonitorTableEntry(
+                    row.timestamp(),
+                    String.valueOf(row.droneId()),
+                    row.anomalyType(),
+                    row.details()
+            ));
+        }
+        return entries;
+    }
+}
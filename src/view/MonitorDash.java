@@ -8,12 +8,20 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
 import controller.DroneMonitorApp;
 import Model.AnomalyRecord;
+import database.AnomalyExport;
+import database.AnomalyPage;
+import database.AnomalyQuery;
+import database.AnomalyRow;
+import database.AnomalySearch;
 import service.TimerManager;
 
 /**
@@ -79,8 +87,8 @@ public class MonitorDash  {
 
         // Initializing all the parts and pieces of the UI
         myTopLeft = new TopLeftDroneDisplay(this);
-        myBottomSide = new BottomTable();
-        myTopRight = new TopRightStats();
+        myBottomSide = new BottomTable(this);
+        myTopRight = new TopRightStats(myController.getAnomalyRates());
 
         myTopRight.setMySelectionListener(droneId -> {
             if (droneId == -1) {
@@ -122,6 +130,9 @@ public class MonitorDash  {
         thePrimaryStage.setScene(myScene);
         thePrimaryStage.show();
         thePrimaryStage.setOnCloseRequest(_ -> {
+            // The anomalies still queued for the database are written out before the JVM goes down
+            myBottomSide.cancelExport();
+            myController.shutdown();
             Platform.exit();
             System.exit(0);
         });
@@ -233,10 +244,9 @@ public class MonitorDash  {
     public void addAnomalyRecord(final List<AnomalyRecord> theRecords) {
         if (theRecords == null || theRecords.isEmpty()) { return; }
 
-        for (AnomalyRecord record : theRecords) {
-            mySoundManager.playNotificationSound();
-            myBottomSide.addAnomalyRecord(record);
-        }
+        // One sound and one table update for the whole batch
+        mySoundManager.playNotificationSound();
+        myBottomSide.addAnomalyRecords(theRecords);
     }
 
     /**
@@ -379,6 +389,15 @@ public class MonitorDash  {
         }
     }
 
+    /**
+     * Getter method that returns the largest fleet the drone display can draw smoothly.
+     *
+     * @return the most drones a user can pick.
+     */
+    public int getMaxDroneCount() {
+        return myTopLeft.getMaxDroneCount();
+    }
+
     /**
      * Tells the map to highlight a specific drone.
      *
@@ -398,13 +417,54 @@ public class MonitorDash  {
     /**
      * Shows the Database Manager, with its appropriate anomaly records.
      *
-     * @param theRecords The anomaly records of the database manager, in String[] form.
+     * @param thePage The first page of anomaly records of the database manager.
      */
-    public void showDatabasePopup(List<String[]> theRecords) {
-        myDatabase.refreshAnomalyRecords(theRecords);
+    public void showDatabasePopup(AnomalyPage thePage) {
+        myDatabase.refreshAnomalyRecords(thePage);
         myDatabase.show();
     }
 
+    /**
+     * Fetches a page of anomaly records for the Database Manager.
+     *
+     * @param theQuery The filters and page to fetch.
+     * @return The matching page of anomaly records.
+     */
+    AnomalyPage queryAnomalies(AnomalyQuery theQuery) {
+        return myController.queryAnomalies(theQuery);
+    }
+
+    /**
+     * Runs a full-text search for the Database Manager, off the FX thread.
+     *
+     * @param theSearch The search text, column and limit.
+     * @return The matching anomaly records, best match first.
+     */
+    List<AnomalyRow> searchAnomalies(AnomalySearch theSearch) {
+        return myController.searchAnomalies(theSearch);
+    }
+
+    /**
+     * Streams the stored anomalies into a file, off the FX thread.
+     *
+     * @param theExport The format and filters of the export.
+     * @param theFile The file to write.
+     * @param theProgress Told the number of rows written so far.
+     * @return The number of rows written, or -1 if the export was cancelled.
+     * @throws IOException If the file couldn't be written.
+     */
+    long exportAnomalies(AnomalyExport theExport, Path theFile, LongConsumer theProgress) throws IOException {
+        return myController.exportAnomalies(theExport, theFile, theProgress);
+    }
+
+    /**
+     * Stops any export, then clears and closes the anomaly database, when the application exits.
+     */
+    void closeDatabase() {
+        myBottomSide.cancelExport();
+        myController.closeDatabase();
+    }
+
     /**
      * Method that applies a CSS style sheet to the whole application.
      *
@@ -422,21 +482,22 @@ public class MonitorDash  {
     }
 
     /**
-     * Method to export the anomaly log as a txt file.
+     * Method to export the stored anomaly log to a file.
      *
      * @param theStage represent the stage of the application.
+     * @param theFormat represent the file format to export to.
      */
-    public void exportToTXT(final Stage theStage) {
-        myBottomSide.exportToTXTDialog(theStage);
+    public void exportLog(final Stage theStage, final AnomalyExport.Format theFormat) {
+        myBottomSide.exportDialog(theStage, theFormat);
     }
 
     /**
-     * Method to export the anomaly log as a CSV file.
+     * Method to show or hide the density heatmap on the drone map.
      *
-     * @param theStage represent the stage of the application.
+     * @param theVisible represent whether the heatmap is shown.
      */
-    public void exportToCSV(final Stage theStage) {
-        myBottomSide.exportToCSVDialog(theStage);
+    public void setHeatmapVisible(final boolean theVisible) {
+        myTopLeft.setHeatmapVisible(theVisible);
     }
 
     /**
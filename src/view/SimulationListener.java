@@ -2,10 +2,9 @@ package view;
 
 import Model.AnomalyRecord;
 import Model.Drone;
+import database.AnomalyPage;
 import service.TimerManager;
 
-import java.util.List;
-
 /**
  * Interface for listening to simulation events.
  *
@@ -50,7 +49,7 @@ public interface SimulationListener {
     /**
      * Called when the menu item "Database Manager" is pressed in the main GUI menu bar.
      *
-     * @param theRecords The records that the database manager will show.
+     * @param thePage The first page of records that the database manager will show.
      */
-    void databaseManagerButtonPushed(List<String[]> theRecords);
+    void databaseManagerButtonPushed(AnomalyPage thePage);
 }
\ No newline at end of file
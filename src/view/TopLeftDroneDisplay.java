@@ -2,14 +2,16 @@ package view;
 
 import Model.Drone;
 import Model.TelemetryData;
+import javafx.animation.AnimationTimer;
 import javafx.animation.FadeTransition;
 import javafx.animation.Interpolator;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
-import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
@@ -52,13 +54,22 @@ public class TopLeftDroneDisplay extends VBox {
     private static final double MAX_ZOOM = 5.0;
 
     /** Represents the min Drone size */
-    private static final double MIN_DRONE_SIZE = 20;
+    static final double MIN_DRONE_SIZE = 20;
 
     /** Represents the max Drone size */
-    private static final double MAX_DRONE_SIZE = 80;
+    static final double MAX_DRONE_SIZE = 80;
 
     /* The width of the DroneShape polygon (-10 to 10 = 20px width) */
-    private static final double BASE_SHAPE_WIDTH = 20.0;
+    static final double BASE_SHAPE_WIDTH = 20.0;
+
+    /** Represents the system property picking the renderer; "canvas" draws every drone on one Canvas */
+    static final String RENDERER_PROPERTY = "view.renderer";
+
+    /** Represents the most drones the node renderer (one scene-graph node per drone) keeps smooth */
+    static final int NODE_MAX_DRONES = 50;
+
+    /** Represents the most drones the canvas renderer is meant to draw */
+    static final int CANVAS_MAX_DRONES = 50_000;
 
 
     /*-- Dragging Fields --*/
@@ -77,6 +88,27 @@ public class TopLeftDroneDisplay extends VBox {
     /** Represents the "map" (infinite size, and can scale/moves around) */
     private final Pane myWorld;
 
+    /** Represents the canvas renderer drawing the drones, null when every drone is its own node */
+    private final CanvasDroneRenderer myCanvasRenderer;
+
+    /** Represents the background grid, drawn from cached tiles underneath the world */
+    private final GridTileLayer myGrid;
+
+    /** Represents the density heatmap, drawn above the grid when turned on */
+    private final DensityHeatmap myHeatmap;
+
+    /** Represents the canvas the node renderer's drone trails are drawn on, null with the canvas renderer */
+    private final Canvas myTrailCanvas;
+
+    /** Represents the last positions of every drone, for the node renderer */
+    private final DroneTrails myTrails = new DroneTrails();
+
+    /** Represents whether the trails need drawing again, even with no drone moving */
+    private boolean myTrailsDirty;
+
+    /** Represents whether the simulation is paused, so frozen drones don't redraw the trails */
+    private boolean myPaused;
+
 
     /*-- Drone Color Settings --*/
 
@@ -141,9 +173,20 @@ public class TopLeftDroneDisplay extends VBox {
         myWorld = new Pane();
         // Handling the layout manually by transformation
         myWorld.setManaged(false);
-        // Drawing the grid
-        drawGrid();
         myViewport.getChildren().add(myWorld);
+        // The grid goes underneath the world, redrawn from tiles whenever the camera moves
+        myGrid = new GridTileLayer(myViewport);
+
+        // The canvas goes above the world, so the grid still pans and zooms underneath it
+        if ("canvas".equalsIgnoreCase(System.getProperty(RENDERER_PROPERTY, "").trim())) {
+            myCanvasRenderer = new CanvasDroneRenderer(myViewport);
+            myTrailCanvas = null;
+        } else {
+            myCanvasRenderer = null;
+            myTrailCanvas = createTrailCanvas();
+        }
+        // The heatmap goes right above the grid, underneath the trails and drones
+        myHeatmap = new DensityHeatmap(myViewport);
 
         // Setting up the UI Container
         VBox droneBox = new VBox();
@@ -248,6 +291,8 @@ public class TopLeftDroneDisplay extends VBox {
                 myCameraY = 0;
                 myZoomScale = 1.0;
                 updateCameraTransform();
+            } else if (event.getClickCount() == 1 && myCanvasRenderer != null) {
+                clickCanvas(event.getX(), event.getY());
             } else if (event.getClickCount() == 1) { // Single Click = Deselect Drone
                 if (mySelectedDrone != null) {
                     mySelectedDrone.setColor(Color.WHITE);
@@ -287,18 +332,127 @@ public class TopLeftDroneDisplay extends VBox {
 
         myWorld.setTranslateX(originScreenX);
         myWorld.setTranslateY(originScreenY);
+        myGrid.setCamera(originScreenX, originScreenY, myZoomScale);
+        myHeatmap.setCamera(originScreenX, originScreenY, myZoomScale);
+        myTrailsDirty = true;
+
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.setCamera(originScreenX, originScreenY, myZoomScale);
+        }
+
+        // Only the drones in view are drawn, the rest are skipped by the scene graph entirely
+        for (DroneShape view : myDroneViews.values()) {
+            view.setVisible(isInView(view.getLayoutX(), view.getLayoutY()));
+        }
+    }
+
+    /**
+     * Creates the canvas for the node renderer's trails, between the grid and the drones,
+     * and the frame loop that draws it while drones are moving.
+     *
+     * @return the trail canvas.
+     */
+    private Canvas createTrailCanvas() {
+        Canvas canvas = new Canvas();
+        canvas.widthProperty().bind(myViewport.widthProperty());
+        canvas.heightProperty().bind(myViewport.heightProperty());
+        canvas.setManaged(false);
+        canvas.setMouseTransparent(true);
+        myViewport.getChildren().add(1, canvas);
+
+        new AnimationTimer() {
+            @Override
+            public void handle(final long theNow) {
+                // Only while a drone eases along, or after a new point or camera move
+                if (myTrailsDirty || (!myPaused && !activeTimelines.isEmpty())) {
+                    myTrailsDirty = false;
+                    drawTrails();
+                }
+            }
+        }.start();
+        return canvas;
+    }
+
+    /**
+     * Draws the node renderer's trails, each one running up to where its DroneShape is right now.
+     */
+    private void drawTrails() {
+        double width = myViewport.getWidth();
+        double height = myViewport.getHeight();
+        GraphicsContext graphics = myTrailCanvas.getGraphicsContext2D();
+        graphics.clearRect(0, 0, width, height);
+        graphics.setStroke(CanvasDroneRenderer.COLOR_TRAIL);
+        graphics.setLineWidth(CanvasDroneRenderer.TRAIL_WIDTH);
+        myTrails.stroke(graphics, myWorld.getTranslateX(), myWorld.getTranslateY(), myZoomScale, width, height,
+                (id, out) -> {
+                    DroneShape view = myDroneViews.get(id);
+                    if (view == null) return false;
+                    out[0] = view.getLayoutX();
+                    out[1] = view.getLayoutY();
+                    return true;
+                });
+    }
+
+    /**
+     * Checks whether a point of the world is inside the viewport, with room for a whole drone around it.
+     *
+     * @param theWorldX is the world x position.
+     * @param theWorldY is the world y position (screen direction, so already inverted).
+     * @return true if a drone there would be at least partly on screen.
+     */
+    private boolean isInView(final double theWorldX, final double theWorldY) {
+        double halfWidth = myViewport.getWidth() / 2.0 / myZoomScale + MAX_DRONE_SIZE;
+        double halfHeight = myViewport.getHeight() / 2.0 / myZoomScale + MAX_DRONE_SIZE;
+        // REMEMBER: the camera looks at (myCameraX, -myCameraY) because Y is inverted
+        return Math.abs(theWorldX - myCameraX) <= halfWidth && Math.abs(theWorldY + myCameraY) <= halfHeight;
+    }
+
+    /**
+     * Handles a single click with the canvas renderer: picks the drone under the mouse the same
+     * way clicking a DroneShape does, or deselects when the click missed every drone.
+     *
+     * @param theX is the x position of the click in the viewport.
+     * @param theY is the y position of the click in the viewport.
+     */
+    private void clickCanvas(final double theX, final double theY) {
+        Drone drone = myCanvasRenderer.droneAt(theX, theY);
+
+        if (drone == null || drone.getDroneID() == myCanvasRenderer.getSelectedId()) {
+            // Missed, or clicked the selected drone again, then we deselect it
+            if (myCanvasRenderer.getSelectedId() != -1) {
+                myCanvasRenderer.select(-1);
+                myMonitor.swapRightPanel(false);
+            }
+        } else {
+            // Setting this new drone the blue color and updating the UI Panel
+            myCanvasRenderer.select(drone.getDroneID());
+            myMonitor.updateStatsTextLarge(drone);
+            myMonitor.swapRightPanel(true);
+        }
     }
 
     /*-- Updates Methods --*/
 
     /**
-     * A method being called by Backend.
+     * A method being called by UpdateUIManager.applyFrame, on the FX thread.
      * Updates the Drone's position INSIDE the World.
      */
     public void refreshDroneDisplay(Drone drone) {
         if (drone == null) return;
 
-        Platform.runLater(() -> {
+        // Only the drone's count moves between cells
+        TelemetryData telemetry = drone.getDroneTelemetry();
+        if (telemetry != null) {
+            myHeatmap.record(drone.getDroneID(), telemetry.getLongitude(), -telemetry.getLatitude());
+        }
+
+        // The canvas picks the drone up on its next frame, no FX task or Timeline per drone
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.submit(drone);
+            return;
+        }
+
+        UpdateUIManager.onFxThread(() -> {
             // Check if new (for animation logic)
             boolean isNew = !myDroneViews.containsKey(drone.getDroneID());
             DroneShape view = getOrCreateView(drone);
@@ -308,8 +462,16 @@ public class TopLeftDroneDisplay extends VBox {
                 activeTimelines.get(drone.getDroneID()).stop();
             }
 
+            // A drone that starts and ends off screen just snaps there hidden, no Timeline to play
+            TelemetryData data = drone.getDroneTelemetry();
+            boolean inView = (!isNew && isInView(view.getLayoutX(), view.getLayoutY()))
+                    || isInView(data.getLongitude(), -data.getLatitude());
+            view.setVisible(inView);
+
             // Start new update
-            Timeline newAnim = updateDronePosition(view, drone.getDroneTelemetry(), !isNew);
+            Timeline newAnim = updateDronePosition(view, data, !isNew && inView);
+            myTrails.record(drone.getDroneID(), data.getLongitude(), -data.getLatitude());
+            myTrailsDirty = true;
 
             // Store new animation
             if (newAnim != null) {
@@ -426,7 +588,7 @@ public class TopLeftDroneDisplay extends VBox {
      * @param theTimeInSeconds the current elapsed time for the display.
      */
     public void updateTime(final int theTimeInSeconds) {
-        Platform.runLater(() -> {
+        UpdateUIManager.onFxThread(() -> {
             int h = theTimeInSeconds / 3600;
             int m = (theTimeInSeconds % 3600) / 60;
             int s = theTimeInSeconds % 60;
@@ -452,6 +614,11 @@ public class TopLeftDroneDisplay extends VBox {
      * @param theDroneID represent the specific drone that's being selected.
      */
     public void selectDrone(final int theDroneID) {
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.select(theDroneID);
+            return;
+        }
+
         DroneShape shape = myDroneViews.get(theDroneID);
         if (shape == null) return;
 
@@ -469,6 +636,9 @@ public class TopLeftDroneDisplay extends VBox {
      * Helper to deselect whatever is currently blue.
      */
     public void deselectAll() {
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.select(-1);
+        }
         if (mySelectedDrone != null) {
             mySelectedDrone.setColor(COLOR_DEFAULT); // Turn it White
             mySelectedDrone = null;
@@ -483,6 +653,9 @@ public class TopLeftDroneDisplay extends VBox {
     public void stopAllAnimations() {
         activeTimelines.values().forEach(Timeline::stop);
         activeTimelines.clear();
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.stopAll();
+        }
     }
 
     /**
@@ -496,16 +669,30 @@ public class TopLeftDroneDisplay extends VBox {
             myViewport.setStyle("-fx-background-color: rgba(50, 50, 50, 0.4);");
             // Making the drones look dimmed
             myWorld.setOpacity(0.5);
+            if (myTrailCanvas != null) {
+                myTrailCanvas.setOpacity(0.5);
+            }
+            myPaused = true;
             // Pausing all animation
             activeTimelines.values().forEach(Timeline::pause);
+            if (myCanvasRenderer != null) {
+                myCanvasRenderer.setPaused(true);
+            }
 
         } else {
             // Reset to invisible (but clickable) background
             myViewport.setStyle("-fx-background-color: rgba(0, 0, 0, 0.01);");
             // Full brightness
             myWorld.setOpacity(1.0);
+            if (myTrailCanvas != null) {
+                myTrailCanvas.setOpacity(1.0);
+            }
+            myPaused = false;
             // Resuming all animation
             activeTimelines.values().forEach(Timeline::play);
+            if (myCanvasRenderer != null) {
+                myCanvasRenderer.setPaused(false);
+            }
         }
     }
 
@@ -513,14 +700,37 @@ public class TopLeftDroneDisplay extends VBox {
      * Removes all drone images from the world but KEEPS the world pane intact.
      */
     public void clearAllDrones() {
-        // Remove the drone shapes, except for grid elements
-        myWorld.getChildren().removeIf(node ->
-                node.getUserData() == null || !node.getUserData().equals("grid")
-        );
+        // Remove the drone shapes, the grid lives on its own layer
+        myWorld.getChildren().clear();
         // Clear the map tracking them
         myDroneViews.clear();
         // Clearing our animation timeline
         activeTimelines.clear();
+        // Clearing the trails, drawn empty on the next frame
+        myTrails.clear();
+        myHeatmap.clear();
+        myTrailsDirty = true;
+        if (myCanvasRenderer != null) {
+            myCanvasRenderer.clear();
+        }
+    }
+
+    /**
+     * Shows or hides the density heatmap over the drone map.
+     *
+     * @param theVisible represents whether the heatmap is shown.
+     */
+    public void setHeatmapVisible(final boolean theVisible) {
+        myHeatmap.setVisible(theVisible);
+    }
+
+    /**
+     * Getter method that returns the most drones the current renderer can keep smooth.
+     *
+     * @return the largest fleet size a user can pick.
+     */
+    public int getMaxDroneCount() {
+        return myCanvasRenderer != null ? CANVAS_MAX_DRONES : NODE_MAX_DRONES;
     }
 
     /**
@@ -542,31 +752,4 @@ public class TopLeftDroneDisplay extends VBox {
         );
     }
 
-    private void drawGrid() {
-        myWorld.getChildren().removeIf(node -> node.getUserData() != null &&
-                node.getUserData().equals("grid"));
-
-        double gridSpacing = 50;
-        Color neonBlue = Color.rgb(0, 200, 255, 0.4);
-
-        for (double x = -1000; x <= 1000; x += gridSpacing) {
-            javafx.scene.shape.Line line = new javafx.scene.shape.Line(x, -1000, x, 1000);
-            line.setStroke(neonBlue);
-            line.setStrokeWidth(x % 250 == 0 ? 1.5 : 0.5); // Thicker every 250m
-            line.setUserData("grid");
-            line.setMouseTransparent(true);
-            line.getStyleClass().add("grid-line");
-            myWorld.getChildren().add(0, line);
-        }
-
-        for (double y = -1000; y <= 1000; y += gridSpacing) {
-            javafx.scene.shape.Line line = new javafx.scene.shape.Line(-1000, y, 1000, y);
-            line.setStroke(neonBlue);
-            line.setStrokeWidth(y % 250 == 0 ? 1.5 : 0.5);
-            line.setUserData("grid");
-            line.setMouseTransparent(true);
-            myWorld.getChildren().add(0, line);
-        }
-    }
-
 }
\ No newline at end of file
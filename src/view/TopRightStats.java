@@ -2,17 +2,24 @@ package view;
 
 import Model.Drone;
 import Model.TelemetryData;
-import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import service.AnomalyRateAggregator;
 import service.TimerManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * Class that creates the stats screen for the simulation program.
@@ -66,17 +73,8 @@ public class TopRightStats extends StackPane {
     /** Row index for orientation data. */
     private static final int ROW_ORIENTATION = 5;
 
-
-    /*-- Value indices for small card grid --*/
-
-    /** Index for battery value. */
-    private static final int VALUE_INDEX_BATTERY = 1;
-
-    /** Index for altitude value. */
-    private static final int VALUE_INDEX_ALTITUDE = 3;
-
-    /** Index for speed value. */
-    private static final int VALUE_INDEX_SPEED = 5;
+    /** Row index for the anomaly rate. */
+    private static final int ROW_ANOMALY_RATE = 6;
 
     /*-- Font sizes --*/
 
@@ -95,14 +93,14 @@ public class TopRightStats extends StackPane {
 
     /*-- VBox uses in this display --*/
 
-    /** VBox containing the little boxes that show each drone's stats (holds myDroneBoxes). */
+    /** VBox containing the list of little cards that show each drone's stats. */
     private final VBox myLiveTelemetry;
 
     /** The text area showing Drone statistics. */
     private final VBox myLargeStatsView;
 
-    /** Represent the box that contains all the drones stats. */
-    private final VBox myDroneHolder;
+    /** Represent the list of drone cards, which only builds cards for the rows on screen and reuses them. */
+    private final ListView<DroneCardRow> myDroneList;
 
 
     /*-- Fields --*/
@@ -113,8 +111,14 @@ public class TopRightStats extends StackPane {
     /** Represent the user selected drone data stats. */
     private int mySelectedDroneID = -1;
 
-    /** Map of all the small RegionBoxes for displaying their stats in the top-right. */
-    private final Map<Integer, VBox> myDroneBoxes = new ConcurrentHashMap<>();
+    /** Represent one row per drone, in the order the list shows them. */
+    private final ObservableList<DroneCardRow> myCardRows = FXCollections.observableArrayList();
+
+    /** Map of every drone's row, for updating its stats (Drone ID -> row). */
+    private final Map<Integer, DroneCardRow> myCardRowsByID = new HashMap<>();
+
+    /** Represent every card the list has built, only about a screen's worth however many drones there are. */
+    private final Set<DroneCard> myCards = Collections.newSetFromMap(new WeakHashMap<>());
 
     /*-- Represent the Selected Drone Listener --*/
     private DroneSelectionListener mySelectionListener;
@@ -122,11 +126,17 @@ public class TopRightStats extends StackPane {
     /** Tracks the current simulation status */
     private TimerManager.Status mySimulationStatus = TimerManager.Status.STOPPED;
 
+    /** Represent the rolling anomaly counts the detail card shows the selected drone's rate from. */
+    private final AnomalyRateAggregator myAnomalyRates;
+
 
     /**
      * Constructor to create the right stats display.
+     *
+     * @param theAnomalyRates represents the rolling anomaly counts of the simulation.
      */
-    public TopRightStats() {
+    public TopRightStats(final AnomalyRateAggregator theAnomalyRates) {
+        myAnomalyRates = Objects.requireNonNull(theAnomalyRates, "Anomaly rates can't be null");
         HBox.setHgrow(this, Priority.NEVER);
 
         //Setup for the VBox that's going to hold our small drone stats boxes.
@@ -143,31 +153,27 @@ public class TopRightStats extends StackPane {
         Label header = new Label("Live Telemetry");
         header.getStyleClass().add("stats-header");
 
-        //VBox that holds each RegionBox
-        myDroneHolder = new VBox();
-        myDroneHolder.setSpacing(10);
-
-        // Make it so we can scroll through all our stats
-        ScrollPane sPane = new ScrollPane();
-        // Scroll Pane settings
-        sPane.getStyleClass().add("stats-pane");
-        sPane.setFitToHeight(true);
-        sPane.setFitToWidth(true);
-        sPane.setContent(myDroneHolder);
-        VBox.setVgrow(sPane, Priority.ALWAYS);
+        // The list only builds cards for the rows on screen, and reuses them as we scroll
+        myDroneList = new ListView<>(myCardRows);
+        myDroneList.getStyleClass().add("stats-pane");
+        myDroneList.setCellFactory(_ -> {
+            DroneCard card = new DroneCard();
+            myCards.add(card);
+            return card;
+        });
+        VBox.setVgrow(myDroneList, Priority.ALWAYS);
 
-        // Looping through and making the # drone card inside the stat panel
+        // Making the # drone card inside the stat panel, with those default values
+        List<DroneCardRow> rows = new ArrayList<>();
         for (int i = 1; i <= DEFAULT_COUNT; i++) {
-            // Creating each stats card, with those default values
-            VBox card = createDroneCard(
-                    "DRONE-" + i
-            );
-            myDroneBoxes.put(i, card);
-            myDroneHolder.getChildren().add(card);
+            DroneCardRow row = new DroneCardRow(i);
+            myCardRowsByID.put(i, row);
+            rows.add(row);
         }
+        myCardRows.setAll(rows);
 
         //Add children to our main top-right vbox
-        myLiveTelemetry.getChildren().addAll(header, sPane);
+        myLiveTelemetry.getChildren().addAll(header, myDroneList);
 
         //Adjusting the big stats box
         myLargeStatsView = new VBox();
@@ -195,75 +201,6 @@ public class TopRightStats extends StackPane {
 
     /*-- Following methods to create either small stats, detail stats, and the stats value --*/
 
-    /**
-     * Helper method that will create the card stats itself.
-     *
-     * @param theDroneID It displays the name for the drone.
-     * @return A VBox containing the complete styled drone card.
-     */
-    private VBox createDroneCard(final String theDroneID) {
-        // Creating the Drone Stats Card
-        VBox statsCardHolder = new VBox(5);
-        statsCardHolder.setPadding(new Insets(10));
-
-        // Styling the drone statsCardHolder data itself color
-        statsCardHolder.getStyleClass().add("stats-card-holder");
-
-        // Creating the Top section of the card (aka topRow) of the stats Card: Contains the Drone ID & Drone Status
-        HBox topRow = new HBox();
-        topRow.setAlignment(Pos.CENTER_LEFT);
-
-        // Creating and Styling the Drone card ID Label
-        Label droneCardLabel = new Label(theDroneID);
-        droneCardLabel.setFont(Font.font(FONT_UI, FontWeight.BOLD, DRONE_CARD_LABEL_FONT_SIZE));
-        droneCardLabel.getStyleClass().add("stats-card-label");
-
-        // The spacer between the Drone ID label and the Status label
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, Priority.ALWAYS);
-
-        // Setting up the Label for the drone
-        Label droneStatusLabel = new Label("INACTIVE");
-        droneStatusLabel.setFont(Font.font(FONT_MONO, FontWeight.EXTRA_BOLD, DRONE_STATUS_LABEL_FONT_SIZE));
-        droneStatusLabel.getStyleClass().add("drone-status");
-
-
-        // Adding the DroneCardLabel, theSpacer, and the droneStatusLabel into one container
-        topRow.getChildren().addAll(droneCardLabel, spacer, droneStatusLabel);
-
-
-        // Creating the Stats itself
-
-        // Using a gridStats so we can organize and line up the stats together
-        GridPane gridStats = new GridPane();
-        // Setting the gaps for the gridStats
-        gridStats.getStyleClass().add("stats-grid");
-
-        // Calling a method to create each stat to the gridStats
-        addStatRow(gridStats, 0, "BATTERY : ", "0%");
-        addStatRow(gridStats, 1, "ALTITUDE : ", "0m");
-        addStatRow(gridStats, 2, "SPEED : ", "0 m/s");
-
-        // Combining everything tof form the statsCardHolder: TopRow, Separator, GridStats
-        statsCardHolder.getChildren().addAll(topRow, new Separator(), gridStats);
-
-        // Event Action when click on the statsCardHolder, it will switch over to the detail view
-        statsCardHolder.setOnMouseClicked(_ -> {
-            if (mySimulationStatus == TimerManager.Status.STOPPED) {
-                return;
-            }
-
-            int droneId = Integer.parseInt(theDroneID.replace("DRONE-", ""));
-            if (mySelectionListener != null) {
-                mySelectionListener.onDroneSelected(droneId);
-            }
-        });
-
-        // Returning the new built statsCardHolder for the drone
-        return statsCardHolder;
-    }
-
-
     /*-- Create a detailed card for large view --*/
 
     /**
@@ -315,6 +252,7 @@ public class TopRightStats extends StackPane {
         addStatRow(gridStats, 3, "LONGITUDE: ", String.valueOf(data.getLongitude()));
         addStatRow(gridStats, 4, "VELOCITY: ", data.getVelocity() + "m/s");
         addStatRow(gridStats, 5, "ORIENTATION: ", data.getOrientation() + "°");
+        addStatRow(gridStats, 6, "ANOMALIES: ", formatAnomalyRate(theClickDrone.getDroneID()));
 
         // Add topRow, separator, and grid to card
         card.getChildren().addAll(topRow, new Separator(), gridStats);
@@ -365,16 +303,18 @@ public class TopRightStats extends StackPane {
         if (theDroneFleet == null) return;
 
         // Running to clear, and updating the Drone Stats Card
-        Platform.runLater(() -> {
-            myDroneBoxes.clear();
-            myDroneHolder.getChildren().clear();
+        UpdateUIManager.onFxThread(() -> {
+            myCardRowsByID.clear();
 
-            // Looping through to the # of drones in order to make the # of stats card to make
+            // Looping through to the # of drones to make a row for each, the list builds the cards it needs
+            List<DroneCardRow> rows = new ArrayList<>(theDroneFleet.length);
             for (Drone drone : theDroneFleet) {
-                VBox card = createDroneCard("DRONE-" + drone.getDroneID());
-                myDroneBoxes.put(drone.getDroneID(), card);
-                myDroneHolder.getChildren().add(card);
+                DroneCardRow row = new DroneCardRow(drone.getDroneID());
+                myCardRowsByID.put(drone.getDroneID(), row);
+                rows.add(row);
             }
+            // One swap, so the list lays out once for the whole fleet
+            myCardRows.setAll(rows);
         });
     }
 
@@ -384,45 +324,21 @@ public class TopRightStats extends StackPane {
      * @param theDrone The drone whose data we want to display.
      */
     public void updateStatsText(final Drone theDrone) {
-        //If our drone or its data is null, return nothing
-        if (theDrone == null || theDrone.getDroneTelemetry() == null) return;
-
-        // 1. Getting the data of the drone
-        TelemetryData data = theDrone.getDroneTelemetry();
-        String battery = theDrone.getBatteryLevel() + "%";
-        String altitude = String.format("%.1f m", data.getAltitude());
-        String velocity = String.format("%.1f m/s", data.getVelocity());
-
-        // Getting the Enum value as a String
-        String droneStatusStr = theDrone.isDroneOn().toString();
+        //If our drone is null, return nothing; a drone always has telemetry, so it isn't copied just to check
+        if (theDrone == null) return;
 
         // Running the Action to update the small stats card
-        Platform.runLater(() -> {
-            //Get the box first
-            var box = myDroneBoxes.get(theDrone.getDroneID());
-
-            //Check if the box actually exists before using it
-            if (box != null) {
-                // UPDATING THE STATUS LABEL (Top Row)
-                HBox topRow = (HBox) box.getChildren().getFirst();
-                Label statusLabel = (Label) topRow.getChildren().get(POSITION_STATUS); // Index 2 is the Status Label
-
-                // Only updating if changed
-                if (!statusLabel.getText().equals(droneStatusStr)) {
-                    statusLabel.setText(droneStatusStr);
-                    statusLabel.setStyle("-fx-background-color: " + getDroneStatusColor(droneStatusStr)); // ADD THIS LINE
+        UpdateUIManager.onFxThread(() -> {
+            //Get the row first
+            DroneCardRow row = myCardRowsByID.get(theDrone.getDroneID());
+
+            // Only the values that changed get formatted, and only a card on screen gets its labels set
+            if (row != null && row.update(theDrone)) {
+                for (DroneCard card : myCards) {
+                    if (card.getItem() == row) {
+                        card.show(row);
+                    }
                 }
-
-
-                // UPDATING THE STATS GRID (Bottom Row)
-                GridPane grid = (GridPane) box.getChildren().get(INDEX_GRID);
-
-                // Update Battery
-                ((Label) grid.getChildren().get(VALUE_INDEX_BATTERY)).setText(battery);
-                // Update Altitude
-                ((Label) grid.getChildren().get(VALUE_INDEX_ALTITUDE)).setText(altitude);
-                // Update Speed
-                ((Label) grid.getChildren().get(VALUE_INDEX_SPEED)).setText(velocity);
             }
 
             // Only update the detail view if its in display, otherwise not
@@ -443,7 +359,7 @@ public class TopRightStats extends StackPane {
         // Save the ID so we know to update this specific drone later
         mySelectedDroneID = theDrone.getDroneID();
 
-        Platform.runLater(() -> {
+        UpdateUIManager.onFxThread(() -> {
             VBox detailedCard = createDetailedDroneCard(theDrone);
             myLargeStatsView.getChildren().clear();
             myLargeStatsView.getChildren().add(detailedCard);
@@ -481,8 +397,9 @@ public class TopRightStats extends StackPane {
      * @param theRow The row index in the grid to add the stats to (base on 0-index)
      * @param theStatsLabel The Text that represents the stats
      * @param theValue The text for the value of the stats itself
+     * @return the value label, so a card can update it without looking it up.
      */
-    private void addStatRow(final GridPane theGridStats, final int theRow,
+    private Label addStatRow(final GridPane theGridStats, final int theRow,
                             final String theStatsLabel, final String theValue) {
         // Creating the Stats Label on the left side
         Label statsLabel = new Label(theStatsLabel);
@@ -499,6 +416,7 @@ public class TopRightStats extends StackPane {
         // Adding both labels to the grid
         theGridStats.add(statsLabel, 0, theRow);
         theGridStats.add(statsValue, 1, theRow);
+        return statsValue;
     }
 
     /**
@@ -557,6 +475,19 @@ public class TopRightStats extends StackPane {
         updateGridLabel(grid, ROW_LONGITUDE, String.valueOf(data.getLongitude()));
         updateGridLabel(grid, ROW_VELOCITY, String.valueOf(data.getVelocity()));
         updateGridLabel(grid, ROW_ORIENTATION, data.getOrientation() + "°");
+        updateGridLabel(grid, ROW_ANOMALY_RATE, formatAnomalyRate(theDrone.getDroneID()));
+    }
+
+    /**
+     * Helper method to format a drone's anomaly rate over the last minute and the last 10 minutes.
+     *
+     * @param theDroneID represent the drone ID.
+     * @return the rates, as anomalies per minute.
+     */
+    private String formatAnomalyRate(final int theDroneID) {
+        return String.format("%.1f/min (10 min: %.1f)",
+                myAnomalyRates.getDroneRatePerMinute(theDroneID, AnomalyRateAggregator.Window.ONE_MINUTE),
+                myAnomalyRates.getDroneRatePerMinute(theDroneID, AnomalyRateAggregator.Window.TEN_MINUTES));
     }
 
     /**
@@ -599,4 +530,125 @@ public class TopRightStats extends StackPane {
             }
         }
     }
+
+
+    /*-- The small drone card --*/
+
+    /**
+     * A card in the live telemetry list. The list only makes about a screen's worth of these,
+     * and hands each one whichever row scrolls into view.
+     */
+    private final class DroneCard extends ListCell<DroneCardRow> {
+        /** Represents the whole card */
+        private final VBox myCard;
+
+        /** Represents the drone ID label */
+        private final Label myTitleLabel;
+
+        /** Represents the drone status label */
+        private final Label myStatusLabel;
+
+        /** Represents the battery value label */
+        private final Label myBatteryLabel;
+
+        /** Represents the altitude value label */
+        private final Label myAltitudeLabel;
+
+        /** Represents the speed value label */
+        private final Label mySpeedLabel;
+
+        /**
+         * Builds the card once; after that only its labels change.
+         */
+        DroneCard() {
+            // Creating the Drone Stats Card
+            myCard = new VBox(5);
+            myCard.setPadding(new Insets(10));
+
+            // Styling the drone card data itself color
+            myCard.getStyleClass().add("stats-card-holder");
+
+            // Creating the Top section of the card (aka topRow) of the stats Card: Contains the Drone ID & Drone Status
+            HBox topRow = new HBox();
+            topRow.setAlignment(Pos.CENTER_LEFT);
+
+            // Creating and Styling the Drone card ID Label
+            myTitleLabel = new Label();
+            myTitleLabel.setFont(Font.font(FONT_UI, FontWeight.BOLD, DRONE_CARD_LABEL_FONT_SIZE));
+            myTitleLabel.getStyleClass().add("stats-card-label");
+
+            // The spacer between the Drone ID label and the Status label
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            // Setting up the Label for the drone
+            myStatusLabel = new Label();
+            myStatusLabel.setFont(Font.font(FONT_MONO, FontWeight.EXTRA_BOLD, DRONE_STATUS_LABEL_FONT_SIZE));
+            myStatusLabel.getStyleClass().add("drone-status");
+
+            // Adding the title, theSpacer, and the status label into one container
+            topRow.getChildren().addAll(myTitleLabel, spacer, myStatusLabel);
+
+            // Using a gridStats so we can organize and line up the stats together
+            GridPane gridStats = new GridPane();
+            gridStats.getStyleClass().add("stats-grid");
+            myBatteryLabel = addStatRow(gridStats, 0, "BATTERY : ", "0%");
+            myAltitudeLabel = addStatRow(gridStats, 1, "ALTITUDE : ", "0m");
+            mySpeedLabel = addStatRow(gridStats, 2, "SPEED : ", "0 m/s");
+
+            // Combining everything tof form the card: TopRow, Separator, GridStats
+            myCard.getChildren().addAll(topRow, new Separator(), gridStats);
+
+            // Event Action when click on the card, it will switch over to the detail view
+            myCard.setOnMouseClicked(_ -> {
+                if (mySimulationStatus == TimerManager.Status.STOPPED || getItem() == null) {
+                    return;
+                }
+                if (mySelectionListener != null) {
+                    mySelectionListener.onDroneSelected(getItem().getDroneID());
+                }
+            });
+
+            setText(null);
+        }
+
+        @Override
+        protected void updateItem(final DroneCardRow theRow, final boolean theEmpty) {
+            super.updateItem(theRow, theEmpty);
+            if (theEmpty || theRow == null) {
+                setGraphic(null);
+            } else {
+                show(theRow);
+                setGraphic(myCard);
+            }
+        }
+
+        /**
+         * Shows a row's text, only touching the labels whose text changed.
+         *
+         * @param theRow is the row to show.
+         */
+        void show(final DroneCardRow theRow) {
+            setIfChanged(myTitleLabel, theRow.getTitle());
+            if (!myStatusLabel.getText().equals(theRow.getStatus())) {
+                myStatusLabel.setText(theRow.getStatus());
+                myStatusLabel.setStyle("-fx-background-color: " + getDroneStatusColor(theRow.getStatus()));
+            }
+            setIfChanged(myBatteryLabel, theRow.getBattery());
+            setIfChanged(myAltitudeLabel, theRow.getAltitude());
+            setIfChanged(mySpeedLabel, theRow.getSpeed());
+        }
+
+        /**
+         * Sets a label's text, unless it already shows it.
+         *
+         * @param theLabel is the label.
+         * @param theText is the text to show.
+         */
+        private void setIfChanged(final Label theLabel, final String theText) {
+            if (!theText.equals(theLabel.getText())) {
+                theLabel.setText(theText);
+            }
+        }
+    }
 }
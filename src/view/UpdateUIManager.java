@@ -2,14 +2,17 @@ package view;
 
 import Model.AnomalyRecord;
 import Model.Drone;
+import database.AnomalyPage;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import service.TimerManager;
-import java.util.List;
 import java.util.Objects;
 
 /**
  * A class that handles and manage in updating the UI with the needed data for the simulation.
  * It is used by SimulationEngine to help and assist in updating the front end with new data.
+ * Drone, time and anomaly updates go through a FrameUpdateChannel, so the FX thread applies them
+ * once per frame instead of running one task per tick (and per drone).
  *
  * @version Autumn 2025
  */
@@ -20,27 +23,42 @@ public class UpdateUIManager implements SimulationListener {
     private final MonitorDash myUI;
 
 
+    /*-- Frame Updates --*/
+
+    /** Represents the newest updates waiting for the next frame */
+    private final FrameUpdateChannel myChannel = new FrameUpdateChannel();
+
+    /** Represents the pulse that applies the waiting updates once per frame */
+    private final AnimationTimer myPulse;
+
+
     /*-- Constructor --*/
 
     /**
-     * Public constructor to initialize the UI and Drone Fleet Manager
+     * Public constructor to initialize the UI and Drone Fleet Manager.
+     * Must be called on the FX thread, since it starts the frame pulse.
      *
      * @param theUI represent the UI the Sound Manager is for.
      */
     public UpdateUIManager(final MonitorDash theUI) {
         myUI = Objects.requireNonNull(theUI, "theUI can't be null");
+
+        myPulse = new AnimationTimer() {
+            @Override
+            public void handle(final long theNow) {
+                applyFrame();
+            }
+        };
+        myPulse.start();
     }
 
     /*-- Interface methods --*/
 
     @Override
     public void onDroneUpdate(Drone[] theDroneFleet) {
-        Platform.runLater(() -> {
-            // Updating the Big Stats
-            myUI.updateStatsText(theDroneFleet);
-            // Updating the Display
-            myUI.refreshDroneDisplay(theDroneFleet);
-        });
+        if (theDroneFleet != null) {
+            myChannel.publishFleet(theDroneFleet);
+        }
     }
 
     @Override
@@ -49,7 +67,7 @@ public class UpdateUIManager implements SimulationListener {
             throw new IllegalArgumentException("theTime can't be less than 0");
         }
 
-        Platform.runLater(() -> myUI.updateTime(theTime));
+        myChannel.publishTime(theTime);
     }
 
     @Override
@@ -58,12 +76,14 @@ public class UpdateUIManager implements SimulationListener {
             throw new NullPointerException("Anomaly array cannot be null");
         }
 
-        Platform.runLater(() -> myUI.addAnomalyRecord(List.of(theAnomalies)));
+        myChannel.publishAnomalies(theAnomalies);
     }
 
     @Override
     public void onFleetReloaded(Drone[] theDroneFleet) {
         if (theDroneFleet != null) {
+            // A snapshot of the old fleet must not be drawn after the new one is built
+            myChannel.discardFleet();
             Platform.runLater(() -> myUI.reloadFleet(theDroneFleet));
         }
     }
@@ -74,7 +94,75 @@ public class UpdateUIManager implements SimulationListener {
     }
 
     @Override
-    public void databaseManagerButtonPushed(List<String[]> theRecords) {
-        Platform.runLater(() -> myUI.showDatabasePopup(theRecords));
+    public void databaseManagerButtonPushed(AnomalyPage thePage) {
+        Platform.runLater(() -> myUI.showDatabasePopup(thePage));
+    }
+
+
+    /*-- Metrics --*/
+
+    /**
+     * Getter method that returns how long the updates applied by the last frame had waited.
+     *
+     * @return the queue lag in nanoseconds.
+     */
+    public long getQueueLagNanos() {
+        return myChannel.getLastLagNanos();
+    }
+
+    /**
+     * Getter method that returns the longest any update has waited for a frame.
+     *
+     * @return the worst queue lag in nanoseconds.
+     */
+    public long getMaxQueueLagNanos() {
+        return myChannel.getMaxLagNanos();
+    }
+
+    /**
+     * Getter method that returns how many fleet updates were skipped because a newer one arrived first.
+     *
+     * @return the number of dropped fleet updates.
+     */
+    public long getDroppedFleetUpdates() {
+        return myChannel.getDroppedFleets();
+    }
+
+
+    /*-- Helper methods --*/
+
+    /**
+     * Runs a task on the FX thread: straight away when already on it, otherwise on the next pulse.
+     * Lets the per-drone updates run inline when a frame applies them, instead of queueing one task each.
+     *
+     * @param theTask represents the UI work to run.
+     */
+    static void onFxThread(final Runnable theTask) {
+        if (Platform.isFxApplicationThread()) {
+            theTask.run();
+        } else {
+            Platform.runLater(theTask);
+        }
+    }
+
+    /**
+     * Applies everything published since the last frame, newest state only.
+     */
+    private void applyFrame() {
+        FrameUpdateChannel.Frame frame = myChannel.drain();
+        if (frame == null) return;
+
+        if (frame.time() >= 0) {
+            myUI.updateTime(frame.time());
+        }
+        if (frame.fleet() != null) {
+            // Updating the Big Stats
+            myUI.updateStatsText(frame.fleet());
+            // Updating the Display
+            myUI.refreshDroneDisplay(frame.fleet());
+        }
+        if (!frame.anomalies().isEmpty()) {
+            myUI.addAnomalyRecord(frame.anomalies());
+        }
     }
-}
\ No newline at end of file
+}
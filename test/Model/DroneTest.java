@@ -50,6 +50,22 @@ class DroneTest {
         });
     }
 
+    @Test
+    void copyTelemetryIntoReusesTheTarget() {
+        TelemetryData telData = new TelemetryData(4, 3, 2, 1, 5);
+        Drone testDrone = factory.createDroneNonStatic("A");
+        testDrone.updateDroneNextMove(telData);
+        testDrone.updateDroneNextMove(telData);
+
+        TelemetryData target = new TelemetryData(9, 9, 9, 9, 9);
+        testDrone.copyTelemetryInto(target);
+
+        assertAll(() -> {
+            assertEquals(telData, target);
+            assertThrows(NullPointerException.class, () -> testDrone.copyTelemetryInto(null));
+        });
+    }
+
     @Test
     void testDroneState() {
         Drone droneTest = factory.createDroneNonStatic("A");
@@ -0,0 +1,94 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares insert and query throughput of the LEGACY and TUNED storage profiles while a
+ * writer and a reader hit the database at the same time, like the simulation and DatabasePopup do.
+ * Run it with the SQLite driver on the classpath: java database.AnomalyDBBenchmark [seconds]
+ */
+public class AnomalyDBBenchmark {
+
+    /** Rows written per batch, about what a busy tick produces. */
+    private static final int BATCH_SIZE = 200;
+
+    /** Rows loaded before timing starts, so the reader has something to scan. */
+    private static final int PRELOAD_ROWS = 20_000;
+
+    /** Rows the reader asks for per query, one popup page. */
+    private static final int PAGE_SIZE = 200;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+
+        for (StorageProfile profile : List.of(StorageProfile.LEGACY, StorageProfile.TUNED)) {
+            run(profile == StorageProfile.LEGACY ? "legacy" : "tuned", profile, seconds);
+        }
+    }
+
+    private static void run(String name, StorageProfile profile, int seconds) throws Exception {
+        Path file = Files.createTempFile("anomaly-bench-" + name, ".db");
+        AnomalyDB db = new AnomalyDB("jdbc:sqlite:" + file, profile);
+
+        for (int i = 0; i < PRELOAD_ROWS; i += BATCH_SIZE) {
+            db.saveAnomalyBatch(batch(i));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong rows = new AtomicLong();
+        AtomicLong queries = new AtomicLong();
+
+        Thread writer = new Thread(() -> {
+            int next = PRELOAD_ROWS;
+            while (running.get()) {
+                rows.addAndGet(db.saveAnomalyBatch(batch(next)));
+                next += BATCH_SIZE;
+            }
+        });
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                db.queryAnomalies(AnomalyQuery.latest(PAGE_SIZE));
+                queries.incrementAndGet();
+            }
+        });
+
+        writer.start();
+        reader.start();
+        TimeUnit.SECONDS.sleep(seconds);
+        running.set(false);
+        writer.join();
+        reader.join();
+
+        System.out.printf("%-7s inserts: %,10.0f rows/s   queries: %,8.1f /s%n",
+                name, rows.get() / (double) seconds, queries.get() / (double) seconds);
+
+        db.close();
+        deleteQuietly(file);
+    }
+
+    private static List<PendingAnomaly> batch(int start) {
+        List<PendingAnomaly> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = start; i < start + BATCH_SIZE; i++) {
+            AnomalyRecord record = new AnomalyRecord("Spoofing GPS", i % 100, i, "benchmark row " + i);
+            TelemetryData data = new TelemetryData(i % 700, i % 800, 100, 90, 30);
+            batch.add(new PendingAnomaly(record, data));
+        }
+        return batch;
+    }
+
+    private static void deleteQuietly(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+    }
+}
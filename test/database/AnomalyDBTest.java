@@ -0,0 +1,299 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyDBTest {
+
+    @TempDir
+    Path dir;
+
+    private String url(String name) {
+        return "jdbc:sqlite:" + dir.resolve(name);
+    }
+
+    private static List<PendingAnomaly> batch(int count, String type, String details) {
+        List<PendingAnomaly> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new PendingAnomaly(new AnomalyRecord(type, i % 5, i, details),
+                    new TelemetryData(47.6, -122.3, 100 + i, 90, 12)));
+        }
+        return batch;
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    @Test
+    void runsKeepTheirOwnTables() {
+        long first;
+        long second;
+        try (AnomalyDB db = new AnomalyDB(url("runs.db"), StorageProfile.TUNED)) {
+            first = db.getCurrentRunId();
+            db.saveAnomalyBatch(batch(3, "isBatteryLow", "low"));
+            second = db.startRun();
+            db.saveAnomalyBatch(batch(2, "outOfBounds", "edge"));
+
+            List<AnomalyRow> firstRows = db.queryAnomalies(first, AnomalyQuery.latest(10)).rows();
+            List<AnomalyRow> secondRows = db.queryAnomalies(AnomalyQuery.latest(10)).rows();
+            List<AnomalyRun> runs = db.listRuns();
+            boolean droppedCurrent = db.dropRun(second);
+            boolean droppedFirst = db.dropRun(first);
+            List<AnomalyRun> remaining = db.listRuns();
+
+            assertAll(() -> {
+                assertTrue(second > first);
+                assertEquals(second, db.getCurrentRunId());
+                assertEquals(3, firstRows.size());
+                assertTrue(firstRows.stream().allMatch(row -> row.anomalyType().equals("isBatteryLow")));
+                assertEquals(2, secondRows.size());
+                assertEquals(List.of(first, second), runs.stream().map(AnomalyRun::runId).toList());
+                assertFalse(droppedCurrent);
+                assertTrue(droppedFirst);
+                assertEquals(List.of(second), remaining.stream().map(AnomalyRun::runId).toList());
+                assertTrue(db.queryAnomalies(first, AnomalyQuery.latest(10)).rows().isEmpty());
+            });
+        }
+
+        // Reopening carries on writing to the newest run
+        try (AnomalyDB db = new AnomalyDB(url("runs.db"), StorageProfile.TUNED)) {
+            assertAll(() -> {
+                assertEquals(second, db.getCurrentRunId());
+                assertEquals(2, db.queryAnomalies(AnomalyQuery.latest(10)).rows().size());
+            });
+        }
+    }
+
+    @Test
+    void legacyTableBecomesRunZero() throws SQLException {
+        try (Connection raw = DriverManager.getConnection(url("legacy.db"));
+             Statement stmt = raw.createStatement()) {
+            stmt.execute("""
+            CREATE TABLE drone_anomalies (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                drone_id INTEGER,
+                anomaly_method TEXT,
+                anomaly_time REAL,
+                altitude REAL,
+                longitude REAL,
+                latitude REAL,
+                orientation REAL,
+                velocity REAL,
+                anomaly_type TEXT,
+                severity TEXT,
+                details TEXT,
+                timestamp DATETIME DEFAULT CURRENT_TIMESTAMP
+            )
+            """);
+            stmt.execute("INSERT INTO drone_anomalies (drone_id, anomaly_method, anomaly_time, altitude, longitude, "
+                    + "latitude, orientation, velocity, anomaly_type, severity, details, timestamp) VALUES "
+                    + "(4, 'outOfBounds', 12.5, 100, -122.3, 47.6, 90, 12, 'outOfBounds', 'HIGH', "
+                    + "'Drone 4 left the map near the edge', '2025-01-02 03:04:05'), "
+                    + "(7, 'isBatteryLow', 20.0, 90, -122.3, 47.6, 90, 12, 'isBatteryLow', 'LOW', "
+                    + "'Drone 7 battery low', '2025-01-02 03:04:06')");
+        }
+
+        try (AnomalyDB db = new AnomalyDB(url("legacy.db"), StorageProfile.TUNED)) {
+            List<AnomalyRow> rows = db.queryAnomalies(AnomalyDB.LEGACY_RUN_ID, AnomalyQuery.latest(10)).rows();
+            List<AnomalyRow> edge = db.searchAnomalies(AnomalyDB.LEGACY_RUN_ID,
+                    new AnomalySearch("edge", AnomalySearch.Column.DETAILS, 10));
+            List<AnomalyRun> runs = db.listRuns();
+            long legacyTables;
+            try (Connection raw = DriverManager.getConnection(url("legacy.db"))) {
+                legacyTables = count(raw, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'drone_anomalies'");
+            }
+            long expectedMillis = Instant.parse("2025-01-02T03:04:06Z").toEpochMilli();
+
+            assertAll(() -> {
+                assertEquals(List.of(AnomalyDB.LEGACY_RUN_ID), runs.stream().map(AnomalyRun::runId).toList());
+                assertEquals("2025-01-02 03:04:05", runs.get(0).startedAt());
+                assertEquals(2, rows.size());
+                assertEquals("isBatteryLow", rows.get(0).anomalyType());
+                assertEquals(7, rows.get(0).droneId());
+                assertEquals(20.0, rows.get(0).simTime());
+                assertEquals(expectedMillis, rows.get(0).recordedAt());
+                assertEquals("Drone 7 battery low", rows.get(0).details());
+                assertEquals(1, edge.size());
+                assertEquals("outOfBounds", edge.get(0).anomalyType());
+                assertEquals(0, legacyTables);
+            });
+        }
+    }
+
+    @Test
+    void searchIndexKeptByTriggersIsRebuilt() throws SQLException {
+        String table;
+        try (AnomalyDB db = new AnomalyDB(url("triggers.db"), StorageProfile.TUNED)) {
+            table = AnomalyDB.runTable(db.getCurrentRunId());
+            db.saveAnomalyBatch(batch(3, "outOfBounds", "near the edge"));
+        }
+
+        // The layout an older version left: an empty index kept up to date by triggers
+        try (Connection raw = DriverManager.getConnection(url("triggers.db"));
+             Statement stmt = raw.createStatement()) {
+            stmt.execute("DROP TABLE " + table + "_fts");
+            stmt.execute("CREATE VIRTUAL TABLE " + table + "_fts USING fts5(anomaly_type, details, content='')");
+            stmt.execute(String.format("CREATE TRIGGER %1$s_fts_insert AFTER INSERT ON %1$s BEGIN "
+                    + "INSERT INTO %1$s_fts (rowid, anomaly_type, details) VALUES (new.id, '', new.details); END", table));
+            stmt.execute(String.format("CREATE TRIGGER %1$s_fts_delete AFTER DELETE ON %1$s BEGIN "
+                    + "INSERT INTO %1$s_fts (%1$s_fts, rowid, anomaly_type, details) "
+                    + "VALUES ('delete', old.id, '', old.details); END", table));
+        }
+
+        try (AnomalyDB db = new AnomalyDB(url("triggers.db"), StorageProfile.TUNED)) {
+            db.saveAnomalyBatch(batch(2, "outOfBounds", "past the edge"));
+            List<AnomalyRow> edge = db.searchAnomalies(new AnomalySearch("edge", AnomalySearch.Column.DETAILS, 10));
+            long triggers;
+            long indexed;
+            try (Connection raw = DriverManager.getConnection(url("triggers.db"))) {
+                triggers = count(raw, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger'");
+                indexed = count(raw, "SELECT COUNT(*) FROM " + table + "_fts WHERE " + table + "_fts MATCH 'edge'");
+            }
+
+            assertAll(() -> {
+                assertEquals(0, triggers);
+                assertEquals(5, indexed);
+                assertEquals(5, edge.size());
+            });
+        }
+    }
+
+    @Test
+    void pagesStayPutWhileRowsArrive() {
+        try (AnomalyDB db = new AnomalyDB(url("pages.db"), StorageProfile.TUNED)) {
+            db.saveAnomalyBatch(batch(150, "isBatteryLow", "low"));
+            db.saveAnomalyBatch(batch(100, "outOfBounds", "edge"));
+
+            List<AnomalyRow> rows = new ArrayList<>();
+            AnomalyPage page = db.queryAnomalies(AnomalyQuery.latest(40));
+            rows.addAll(page.rows());
+            // Newer rows sort before the cursor, so they can't push rows onto later pages
+            db.saveAnomalyBatch(batch(30, "isBatteryLow", "later"));
+            for (AnomalyQuery query = page.nextQuery(); query != null; query = page.nextQuery()) {
+                page = db.queryAnomalies(query);
+                rows.addAll(page.rows());
+            }
+
+            List<AnomalyRow> bounds = new ArrayList<>();
+            for (AnomalyQuery query = AnomalyQuery.latest(40).withAnomalyType("outOfBounds").withDroneId(3);
+                 query != null; ) {
+                AnomalyPage boundsPage = db.queryAnomalies(query);
+                bounds.addAll(boundsPage.rows());
+                query = boundsPage.nextQuery();
+            }
+
+            assertAll(() -> {
+                assertEquals(250, rows.size());
+                assertEquals(250, new HashSet<>(rows.stream().map(AnomalyRow::id).toList()).size());
+                assertEquals(250, rows.get(0).id());
+                for (int i = 1; i < rows.size(); i++) {
+                    assertTrue(rows.get(i).id() < rows.get(i - 1).id());
+                }
+                assertEquals(20, bounds.size());
+                assertTrue(bounds.stream().allMatch(row -> row.droneId() == 3
+                        && row.anomalyType().equals("outOfBounds")));
+            });
+        }
+    }
+
+    @Test
+    void retentionTakesRowsOutOfTheSearchIndex() throws InterruptedException, SQLException {
+        try (AnomalyDB db = new AnomalyDB(url("retention.db"), StorageProfile.TUNED)) {
+            String table = AnomalyDB.runTable(db.getCurrentRunId());
+            db.saveAnomalyBatch(batch(5, "outOfBounds", "near the edge"));
+            List<AnomalyRow> before = db.searchAnomalies(new AnomalySearch("edge", null, 10));
+
+            Thread.sleep(20);
+            RetentionPolicy policy = new RetentionPolicy(Duration.ofMillis(1), Duration.ofDays(1), Duration.ofDays(1),
+                    2, Duration.ofSeconds(10));
+            try (RetentionManager retention = new RetentionManager(db, policy)) {
+                retention.runPass();
+                assertEquals(5, retention.getRawRowsPurged());
+            }
+            long indexed;
+            try (Connection raw = DriverManager.getConnection(url("retention.db"))) {
+                indexed = count(raw, "SELECT COUNT(*) FROM " + table + "_fts WHERE " + table + "_fts MATCH 'edge'");
+            }
+
+            assertAll(() -> {
+                assertEquals(5, before.size());
+                assertEquals(0, indexed);
+                assertTrue(db.searchAnomalies(new AnomalySearch("edge", null, 10)).isEmpty());
+            });
+        }
+    }
+
+    @Test
+    void compactLayoutRebuildsDetails() throws SQLException {
+        try (AnomalyDB db = new AnomalyDB(url("compact.db"), StorageProfile.TUNED, false)) {
+            String table = AnomalyDB.runTable(db.getCurrentRunId());
+            db.saveAnomalyBatch(batch(3, "isBatteryLow", "not stored"));
+            List<AnomalyRow> rows = db.queryAnomalies(AnomalyQuery.latest(10)).rows();
+            List<AnomalyRow> longitude = db.searchAnomalies(
+                    new AnomalySearch("longitude", AnomalySearch.Column.DETAILS, 10));
+            List<AnomalyRow> notStored = db.searchAnomalies(
+                    new AnomalySearch("stored", AnomalySearch.Column.DETAILS, 10));
+            long storedDetails;
+            try (Connection raw = DriverManager.getConnection(url("compact.db"))) {
+                storedDetails = count(raw, "SELECT COUNT(details) FROM " + table);
+            }
+
+            assertAll(() -> {
+                assertEquals(0, storedDetails);
+                assertEquals(3, rows.size());
+                for (AnomalyRow row : rows) {
+                    int i = (int) row.simTime();
+                    assertEquals(AnomalyDB.rebuildDetails(row.droneId(), row.simTime(),
+                            new TelemetryData(47.6, -122.3, 100 + i, 90, 12)), row.details());
+                }
+                assertEquals(3, longitude.size());
+                assertTrue(notStored.isEmpty());
+            });
+        }
+    }
+
+    @Test
+    void databasesDoNotShareState() {
+        AnomalyDB first = new AnomalyDB(url("first.db"), StorageProfile.TUNED);
+        try (AnomalyDB second = new AnomalyDB(url("second.db"), StorageProfile.TUNED)) {
+            first.saveAnomalyBatch(batch(4, "isBatteryLow", "low"));
+            long run = second.startRun();
+            int firstRows = first.queryAnomalies(AnomalyQuery.latest(10)).rows().size();
+            long firstRun = first.getCurrentRunId();
+
+            // Closing one database must leave the other's connections open
+            first.close();
+            int saved = second.saveAnomalyBatch(batch(1, "outOfBounds", "edge"));
+            List<AnomalyRow> secondRows = second.queryAnomalies(AnomalyQuery.latest(10)).rows();
+
+            assertAll(() -> {
+                assertEquals(4, firstRows);
+                assertEquals(1, firstRun);
+                assertEquals(2, run);
+                assertEquals(run, second.getCurrentRunId());
+                assertEquals(1, saved);
+                assertEquals(1, secondRows.size());
+                assertEquals("outOfBounds", secondRows.get(0).anomalyType());
+            });
+        }
+    }
+}
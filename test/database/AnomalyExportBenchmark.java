@@ -0,0 +1,81 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures how fast every export format streams a large columnar run to disk, and how much heap it
+ * needs while doing so, which should stay flat however many rows are exported:
+ * java database.AnomalyExportBenchmark [rows]
+ */
+public class AnomalyExportBenchmark {
+
+    /** Rows written per batch, about what a busy tick produces. */
+    private static final int BATCH_SIZE = 1_000;
+
+    /** Anomaly types, spread over the rows like the detector's. */
+    private static final String[] TYPES = {"Battery Low", "Out Of Bounds", "Too Fast", "Sharp Turn", "Sudden Drop"};
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path dir = Files.createTempDirectory("export-bench");
+
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir.resolve("columnar"), false)) {
+            for (int i = 0; i < rows; i += BATCH_SIZE) {
+                store.saveAnomalyBatch(batch(i));
+            }
+
+            System.out.printf("%-11s %12s %10s %14s%n", "format", "rows/s", "file", "peak heap");
+            for (AnomalyExport.Format format : AnomalyExport.Format.values()) {
+                Path file = dir.resolve("anomalies." + format.extension());
+                // A warm-up round, then the measured one
+                new AnomalyExport(format).writeTo(store, file, null);
+
+                System.gc();
+                long baseline = usedHeap();
+                long[] peak = {baseline};
+                long start = System.nanoTime();
+                long written = new AnomalyExport(format).writeTo(store, file,
+                        theRows -> peak[0] = Math.max(peak[0], usedHeap()));
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                System.out.printf("%-11s %,12.0f %,8dKB %,12dKB  (%,d rows)%n", format.extension(),
+                        written / seconds, Files.size(file) / 1024, (peak[0] - baseline) / 1024, written);
+            }
+        } finally {
+            deleteQuietly(dir);
+        }
+    }
+
+    private static List<PendingAnomaly> batch(int start) {
+        List<PendingAnomaly> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = start; i < start + BATCH_SIZE; i++) {
+            String type = TYPES[i % TYPES.length];
+            AnomalyRecord record = new AnomalyRecord(type, i % 1_000, i * 0.1, null);
+            TelemetryData data = new TelemetryData(47 + (i % 700) * 1e-4, -122 - (i % 800) * 1e-4, 100, 90, 30);
+            batch.add(new PendingAnomaly(record, data));
+        }
+        return batch;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void deleteQuietly(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
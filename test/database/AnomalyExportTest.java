@@ -0,0 +1,155 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyExportTest {
+
+    @TempDir
+    Path dir;
+
+    private static MemoryAnomalyStore store(int rows, String details) {
+        MemoryAnomalyStore store = new MemoryAnomalyStore(rows, true);
+        List<PendingAnomaly> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new PendingAnomaly(new AnomalyRecord(i % 2 == 0 ? "Battery Drain" : "Sharp Turn", i % 7, i, details),
+                    new TelemetryData(47.6, -122.3, 100, 90, 12)));
+        }
+        store.saveAnomalyBatch(batch);
+        return store;
+    }
+
+    @Test
+    void csvQuotesOnlyWhenNeeded() {
+        assertAll(() -> {
+            assertEquals("plain text", AnomalyExport.csvField("plain text"));
+            assertEquals("\"a, b\"", AnomalyExport.csvField("a, b"));
+            assertEquals("\"say \"\"hi\"\"\"", AnomalyExport.csvField("say \"hi\""));
+            assertEquals("\"two\nlines\"", AnomalyExport.csvField("two\nlines"));
+            assertEquals("", AnomalyExport.csvField(null));
+        });
+    }
+
+    @Test
+    void jsonEscapesQuotesAndControlCharacters() {
+        StringBuilder json = new StringBuilder();
+        AnomalyExport.appendJsonString("a\"b\\c\nd\u0001\u00e9", json);
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\u00e9\"", json.toString());
+    }
+
+    @Test
+    void csvStreamsEveryRowNewestFirst() throws IOException {
+        // More rows than one fetch, so the export has to follow the page cursor
+        MemoryAnomalyStore store = store(AnomalyExport.FETCH_SIZE * 2 + 5, "low, \"very\" low");
+        Path file = dir.resolve("anomalies.csv");
+        List<Long> progress = new ArrayList<>();
+
+        long rows = new AnomalyExport(AnomalyExport.Format.CSV).writeTo(store, file, progress::add);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        assertAll(() -> {
+            assertEquals(2_005, rows);
+            assertEquals(2_006, lines.size());
+            assertEquals("Id,Timestamp,Sim Time,Drone ID,Type,Details", lines.get(0));
+            assertTrue(lines.get(1).startsWith("2005,"));
+            assertTrue(lines.get(1).endsWith(",Battery Drain,\"low, \"\"very\"\" low\""));
+            assertEquals(List.of(2_005L), progress);
+            assertFalse(Files.exists(file.resolveSibling("anomalies.csv.part")));
+        });
+    }
+
+    @Test
+    void jsonLinesFollowTheFilter() throws IOException {
+        MemoryAnomalyStore store = store(100, "tab\there");
+        Path file = dir.resolve("anomalies.jsonl");
+
+        long rows = new AnomalyExport(AnomalyExport.Format.JSON_LINES,
+                AnomalyQuery.latest(10).withAnomalyType("Sharp Turn")).writeTo(store, file, null);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        assertAll(() -> {
+            assertEquals(50, rows);
+            assertEquals(50, lines.size());
+            assertTrue(lines.get(0).startsWith("{\"id\":100,\"timestamp\":\""));
+            assertTrue(lines.get(0).endsWith(",\"simTime\":99.0,\"droneId\":1,\"type\":\"Sharp Turn\",\"details\":\"tab\\there\"}"));
+        });
+    }
+
+    @Test
+    void binaryRoundTrips() throws IOException {
+        MemoryAnomalyStore store = store(3, "\u00dcn\u00efcode \uD83D\uDE81");
+        Path file = dir.resolve("anomalies.bin");
+
+        new AnomalyExport(AnomalyExport.Format.BINARY).writeTo(store, file, null);
+
+        try (InputStream in = Files.newInputStream(file); DataInputStream data = new DataInputStream(in)) {
+            assertEquals(AnomalyExport.BINARY_MAGIC, data.readInt());
+            assertEquals(AnomalyExport.BINARY_VERSION, data.readShort());
+
+            List<String> types = new ArrayList<>();
+            List<String> rows = new ArrayList<>();
+            for (byte tag = data.readByte(); tag != AnomalyExport.END_TAG; tag = data.readByte()) {
+                if (tag == AnomalyExport.TYPE_TAG) {
+                    assertEquals(types.size(), data.readShort());
+                    types.add(new String(data.readNBytes(data.readShort()), StandardCharsets.UTF_8));
+                } else {
+                    assertEquals(AnomalyExport.ROW_TAG, tag);
+                    long id = data.readLong();
+                    data.readLong();
+                    double simTime = data.readDouble();
+                    int droneId = data.readInt();
+                    String type = types.get(data.readShort());
+                    String details = new String(data.readNBytes(data.readInt()), StandardCharsets.UTF_8);
+                    rows.add(id + " " + simTime + " " + droneId + " " + type + " " + details);
+                }
+            }
+            long count = data.readLong();
+
+            assertAll(() -> {
+                assertEquals(List.of("Battery Drain", "Sharp Turn"), types);
+                assertEquals("3 2.0 2 Battery Drain \u00dcn\u00efcode \uD83D\uDE81", rows.get(0));
+                assertEquals("1 0.0 0 Battery Drain \u00dcn\u00efcode \uD83D\uDE81", rows.get(2));
+                assertEquals(3, count);
+                assertEquals(-1, in.read());
+            });
+        }
+    }
+
+    @Test
+    void cancelledExportLeavesNoFile() throws IOException {
+        MemoryAnomalyStore store = store(10, "low");
+        Path file = dir.resolve("anomalies.txt");
+        AnomalyExport export = new AnomalyExport(AnomalyExport.Format.TEXT);
+        export.cancel();
+
+        assertAll(() -> {
+            assertEquals(-1, export.writeTo(store, file, null));
+            assertFalse(Files.exists(file));
+            assertFalse(Files.exists(file.resolveSibling("anomalies.txt.part")));
+        });
+    }
+
+    @Test
+    void utf8LengthMatchesTheEncoder() {
+        String text = "a \u00e9 \u20ac \uD83D\uDE81 \uD800 z";
+
+        assertAll(() -> {
+            assertEquals("a \u00e9 \u20ac \uD83D\uDE81 ? z".getBytes(StandardCharsets.UTF_8).length, ChannelWriter.utf8Length(text));
+            assertEquals("\uD83D\uDE81".getBytes(StandardCharsets.UTF_8).length, ChannelWriter.utf8Length("\uD83D\uDE81"));
+        });
+    }
+}
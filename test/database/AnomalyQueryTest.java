@@ -0,0 +1,86 @@
+package database;
+
+import Model.TelemetryData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyQueryTest {
+
+    @Test
+    void latestHasNoFilters() {
+        List<Object> params = new ArrayList<>();
+
+        assertAll(() -> {
+            assertEquals("", AnomalyQuery.latest(50).whereClause(params));
+            assertTrue(params.isEmpty());
+        });
+    }
+
+    @Test
+    void filtersAndCursorBindInOrder() {
+        AnomalyRow last = new AnomalyRow(42, 1_761_991_200_000L, 12.5, 7, "Battery Drain", "");
+        AnomalyQuery query = AnomalyQuery.latest(50).withDroneId(7).withAnomalyType("Battery Drain").after(last);
+        List<Object> params = new ArrayList<>();
+
+        assertAll(() -> {
+            assertEquals(" WHERE t.drone_id = ? AND t.type_id = (SELECT type_id FROM anomaly_types WHERE name = ?)"
+                    + " AND (t.recorded_at, t.id) < (?, ?)", query.whereClause(params));
+            assertEquals(List.of(7, "Battery Drain", 1_761_991_200_000L, 42L), params);
+        });
+    }
+
+    @Test
+    void changingFilterRestartsPaging() {
+        AnomalyRow last = new AnomalyRow(42, 1_761_991_200_000L, 12.5, 7, "Battery Drain", "");
+        AnomalyQuery query = AnomalyQuery.latest(50).after(last).withDroneId(3);
+
+        assertNull(query.afterRecordedAt());
+    }
+
+    @Test
+    void lastPageHasNoNextQuery() {
+        AnomalyRow row = new AnomalyRow(1, 1_761_991_200_000L, 0.5, 1, "Battery Drain", "");
+        AnomalyQuery query = AnomalyQuery.latest(1);
+
+        assertAll(() -> {
+            assertNull(new AnomalyPage(List.of(row), query, false).nextQuery());
+            assertEquals(1, new AnomalyPage(List.of(row), query, true).nextQuery().afterId());
+        });
+    }
+
+    @Test
+    void typeSearchReadsTheDictionary() {
+        List<Object> params = new ArrayList<>();
+        String where = AnomalyQuery.latest(50).withTextContains(AnomalyQuery.TextColumn.TYPE, "battery")
+                .whereClause(params);
+
+        assertAll(() -> {
+            assertTrue(where.contains("t.type_id IN (SELECT type_id FROM anomaly_types"));
+            assertEquals(List.of("battery"), params);
+        });
+    }
+
+    @Test
+    void rowTimestampIsUtcText() {
+        AnomalyRow row = new AnomalyRow(1, 1_761_991_200_000L, 0.5, 1, "Battery Drain", "");
+
+        assertEquals("2025-11-01 10:00:00", row.timestamp());
+    }
+
+    @Test
+    void rebuiltDetailsComeFromTheTelemetry() {
+        TelemetryData data = new TelemetryData(47.6, -122.25, 120, 90, 15.5);
+
+        assertEquals("Drone 3 at 2.5 s: longitude -122.25000, latitude 47.60000, altitude 120.0, "
+                + "velocity 15.5, orientation 90.0", AnomalyDB.rebuildDetails(3, 2.5, data));
+    }
+
+    @Test
+    void limitMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> AnomalyQuery.latest(0));
+    }
+}
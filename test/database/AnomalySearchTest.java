@@ -0,0 +1,114 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalySearchTest {
+
+    @Test
+    void lastWordIsAPrefixWhileTyping() {
+        assertAll(
+                () -> assertEquals("details : \"battery\" AND details : \"dra\"*",
+                        new AnomalySearch("Battery dra", null, 10).matchExpression()),
+                () -> assertEquals("details : \"battery\" AND details : \"drain\"",
+                        new AnomalySearch("battery drain ", null, 10).matchExpression()),
+                () -> assertEquals("details : \"dra\"*",
+                        new AnomalySearch("Battery dra", null, 10).matchExpression(new boolean[] {true, false})),
+                () -> assertNull(new AnomalySearch("battery", AnomalySearch.Column.TYPE, 10).matchExpression())
+        );
+    }
+
+    @Test
+    void operatorsAndQuotesAreSearchedAsText() {
+        assertAll(
+                () -> assertEquals("details : \"alt\" AND details : \"or\" AND details : \"near\"*",
+                        new AnomalySearch("\"alt\" OR NEAR", AnomalySearch.Column.DETAILS, 10).matchExpression()),
+                () -> assertNull(new AnomalySearch(" *:-\" ", null, 10).matchExpression()),
+                () -> assertTrue(new AnomalySearch(" *:-\" ", null, 10).isEmpty()),
+                () -> assertNull(new AnomalySearch("", null, 10).matchExpression())
+        );
+    }
+
+    @Test
+    void cancelledSearchDoesNotStart() {
+        AnomalySearch search = new AnomalySearch("gps", AnomalySearch.Column.TYPE, 10);
+        search.cancel();
+
+        assertAll(
+                () -> assertTrue(search.isCancelled()),
+                () -> assertFalse(search.attach(null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new AnomalySearch("gps", null, 0))
+        );
+    }
+
+    @Test
+    void scoresWholeWordsAndTheWordBeingTyped() {
+        AnomalySearch typing = new AnomalySearch("alt", null, 10);
+        AnomalySearch whole = new AnomalySearch("alt ", null, 10);
+
+        assertAll(
+                () -> assertEquals(1, typing.score("detectSuddenDropJump", "Altitude 90.0m, fell fast")),
+                () -> assertEquals(0, whole.score("detectSuddenDropJump", "Altitude 90.0m, fell fast")),
+                () -> assertEquals(1, whole.score("detectSuddenDropJump", "ALT: 90.0m")),
+                () -> assertEquals(0, typing.score("detectSuddenDropJump", "basalt")),
+                () -> assertEquals(0, typing.score(null, null))
+        );
+    }
+
+    @Test
+    void typeWordsMatchInsideCamelCaseNames() {
+        AnomalySearch search = new AnomalySearch("battery low", null, 10);
+
+        assertAll(
+                () -> assertArrayEquals(new boolean[] {true, true}, search.wordsInType("isBatteryLow")),
+                () -> assertArrayEquals(new boolean[] {false, false}, search.wordsInType("outOfBounds")),
+                () -> assertArrayEquals(new boolean[] {false},
+                        new AnomalySearch("battery", AnomalySearch.Column.DETAILS, 10).wordsInType("isBatteryLow")),
+                () -> assertEquals(4, search.score("isBatteryLow", "")),
+                () -> assertEquals(3, search.score("isBatteryEmpty", "running low")),
+                () -> assertEquals(2, new AnomalySearch("teleport", AnomalySearch.Column.TYPE, 10).score("detectTeleport", "")),
+                () -> assertEquals(0, new AnomalySearch("bounds", AnomalySearch.Column.DETAILS, 10).score("outOfBounds", "edge"))
+        );
+    }
+
+    @Test
+    void indexFindsWhatScoringEveryRowFinds() {
+        String[] types = {"isBatteryLow", "outOfBounds", "detectSharpTurns", "detectSuddenDropJump"};
+        String[] words = {"battery", "low", "altitude", "drone", "edge", "90.5m", "turned", "\u00C9lan", "Bat"};
+        Random random = new Random(7);
+        List<String[]> rows = new ArrayList<>();
+        AnomalySearchIndex index = new AnomalySearchIndex(100);
+        for (int i = 0; i < 2_000; i++) {
+            String type = types[random.nextInt(types.length)];
+            String details = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + ", drone " + i;
+            rows.add(new String[] {type, details});
+            index.add(type, details);
+        }
+
+        for (String text : List.of("bat", "battery d", "dr", "drone 15", "\u00E9lan", "90", "turn ", "nothing")) {
+            for (AnomalySearch.Column column : Arrays.asList(null, AnomalySearch.Column.TYPE, AnomalySearch.Column.DETAILS)) {
+                AnomalySearch search = new AnomalySearch(text, column, 50);
+                long[] found = index.search(search, 600);
+
+                // The same ranking the long way: best first, newer first among equal scores
+                List<long[]> expected = new ArrayList<>();
+                for (int i = 500; i < rows.size(); i++) {
+                    int score = search.score(rows.get(i)[0], rows.get(i)[1]);
+                    if (score > 0) {
+                        expected.add(new long[] {100 + i, score});
+                    }
+                }
+                expected.sort((a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(b[0], a[0]));
+                long[] best = expected.stream().limit(50).mapToLong(pair -> pair[0]).toArray();
+
+                assertArrayEquals(best, found);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Measures every StorageBackend the same way: write throughput, query latency and footprint,
+ * so the right backend can be picked for a deployment size.
+ * Each backend gets a warm-up round before the measured one. SQLite is skipped if its driver
+ * isn't on the classpath: java database.AnomalyStoreBenchmark [rows]
+ */
+public class AnomalyStoreBenchmark {
+
+    /** Rows written per batch, about what a busy tick produces. */
+    private static final int BATCH_SIZE = 200;
+
+    /** Rows per page, one popup page. */
+    private static final int PAGE_SIZE = 200;
+
+    /** Times each query is run for its latency percentiles. */
+    private static final int QUERY_ROUNDS = 200;
+
+    /** Times each search is run, searches scan far more than a page. */
+    private static final int SEARCH_ROUNDS = 20;
+
+    /** Anomaly types, spread over the rows like the detector's. */
+    private static final String[] TYPES = {"Battery Low", "Out Of Bounds", "Too Fast", "Sharp Turn", "Sudden Drop"};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        System.out.printf("%-9s %14s %10s %10s %10s %10s %12s%n", "backend", "insert rows/s",
+                "page p50", "page p99", "drone p99", "search p50", "footprint");
+        for (StorageBackend backend : StorageBackend.values()) {
+            if (backend == StorageBackend.SQLITE && !hasSqliteDriver()) {
+                System.out.printf("%-9s skipped, no SQLite driver on the classpath%n", "sqlite");
+                continue;
+            }
+            run(backend, Math.max(BATCH_SIZE, rows / 10));
+            run(backend, rows);
+        }
+    }
+
+    private static void run(StorageBackend backend, int rows) throws IOException {
+        Path dir = Files.createTempDirectory("store-bench");
+        Properties props = new Properties();
+        props.setProperty("db.memory.capacity", Integer.toString(rows));
+        props.setProperty("db.columnar.dir", dir.resolve("columnar").toString());
+        props.setProperty("db.url", "jdbc:sqlite:" + dir.resolve("anomalies.db"));
+        props.setProperty("db.driver", "org.sqlite.JDBC");
+
+        try (AnomalyStore store = backend.open(props)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rows; i += BATCH_SIZE) {
+                store.saveAnomalyBatch(batch(i));
+            }
+            double insertSeconds = (System.nanoTime() - start) / 1e9;
+
+            long[] page = time(QUERY_ROUNDS, () -> store.queryAnomalies(AnomalyQuery.latest(PAGE_SIZE)));
+            long[] drone = time(QUERY_ROUNDS, () -> store.queryAnomalies(AnomalyQuery.latest(PAGE_SIZE).withDroneId(42)));
+            long[] search = time(SEARCH_ROUNDS, () -> store.searchAnomalies(new AnomalySearch("sharp", null, 1_000)));
+
+            System.out.printf("%-9s %,14.0f %8.2fms %8.2fms %8.2fms %8.2fms %,10dKB  (%,d rows)%n",
+                    backend.name().toLowerCase(), rows / insertSeconds, millis(page, 50), millis(page, 99),
+                    millis(drone, 99), millis(search, 50), store.getFootprintBytes() / 1024, rows);
+            store.clear();
+        } finally {
+            deleteQuietly(dir);
+        }
+    }
+
+    private static List<PendingAnomaly> batch(int start) {
+        List<PendingAnomaly> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = start; i < start + BATCH_SIZE; i++) {
+            String type = TYPES[i % TYPES.length];
+            AnomalyRecord record = new AnomalyRecord(type, i % 1_000, i * 0.1, "Drone " + (i % 1_000) + " " + type);
+            TelemetryData data = new TelemetryData(47 + (i % 700) * 1e-4, -122 - (i % 800) * 1e-4, 100, 90, 30);
+            batch.add(new PendingAnomaly(record, data));
+        }
+        return batch;
+    }
+
+    private static long[] time(int rounds, Supplier<?> work) {
+        long[] nanos = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            work.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static double millis(long[] sortedNanos, int percentile) {
+        int index = Math.min(sortedNanos.length - 1, sortedNanos.length * percentile / 100);
+        return sortedNanos[index] / 1e6;
+    }
+
+    private static boolean hasSqliteDriver() {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
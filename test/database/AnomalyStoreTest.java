@@ -0,0 +1,253 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.TelemetryData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static List<PendingAnomaly> batch(int count, String type, String details) {
+        List<PendingAnomaly> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(new PendingAnomaly(new AnomalyRecord(type, i % 5, i, details),
+                    new TelemetryData(47.6, -122.3, 100 + i, 90, 12)));
+        }
+        return batch;
+    }
+
+    private static List<AnomalyRow> allPages(AnomalyStore store, AnomalyQuery first) {
+        List<AnomalyRow> rows = new ArrayList<>();
+        for (AnomalyQuery query = first; query != null; ) {
+            AnomalyPage page = store.queryAnomalies(query);
+            rows.addAll(page.rows());
+            query = page.nextQuery();
+        }
+        return rows;
+    }
+
+    private static void pagesNewestFirst(AnomalyStore store) {
+        store.saveAnomalyBatch(batch(150, "isBatteryLow", "low"));
+        store.saveAnomalyBatch(batch(100, "outOfBounds", "edge"));
+
+        List<AnomalyRow> rows = allPages(store, AnomalyQuery.latest(40));
+        List<AnomalyRow> drone3 = allPages(store, AnomalyQuery.latest(40).withDroneId(3));
+        List<AnomalyRow> bounds = allPages(store, AnomalyQuery.latest(40).withAnomalyType("outOfBounds"));
+
+        assertAll(() -> {
+            assertEquals(250, rows.size());
+            assertEquals(250, rows.get(0).id());
+            assertEquals(1, rows.get(rows.size() - 1).id());
+            assertEquals(50, drone3.size());
+            assertTrue(drone3.stream().allMatch(row -> row.droneId() == 3));
+            assertEquals(100, bounds.size());
+        });
+    }
+
+    private static void ranksTypeMatchesFirst(AnomalyStore store) {
+        store.saveAnomalyBatch(batch(1, "isBatteryLow", "drained"));
+        store.saveAnomalyBatch(batch(1, "outOfBounds", "battery warning near the edge"));
+        store.saveAnomalyBatch(batch(1, "detectSharpTurns", "turned"));
+
+        List<AnomalyRow> matches = store.searchAnomalies(new AnomalySearch("batt", null, 10));
+        List<AnomalyRow> detailsOnly = store.searchAnomalies(new AnomalySearch("batt", AnomalySearch.Column.DETAILS, 10));
+        List<AnomalyRow> bounds = store.searchAnomalies(new AnomalySearch("bounds", AnomalySearch.Column.TYPE, 10));
+        List<AnomalyRow> typeAndDetails = store.searchAnomalies(new AnomalySearch("turns turned", null, 10));
+        List<AnomalyRow> notAWord = store.searchAnomalies(new AnomalySearch("arn ", AnomalySearch.Column.DETAILS, 10));
+
+        // Type names are single camelCase words, so words are found inside them
+        assertAll(() -> {
+            assertEquals(2, matches.size());
+            assertEquals("isBatteryLow", matches.get(0).anomalyType());
+            assertEquals("outOfBounds", matches.get(1).anomalyType());
+            assertEquals(1, detailsOnly.size());
+            assertEquals(1, bounds.size());
+            assertEquals("outOfBounds", bounds.get(0).anomalyType());
+            assertEquals(1, typeAndDetails.size());
+            assertEquals("detectSharpTurns", typeAndDetails.get(0).anomalyType());
+            assertTrue(notAWord.isEmpty());
+        });
+    }
+
+    @Test
+    void memoryPagesNewestFirst() {
+        pagesNewestFirst(new MemoryAnomalyStore(1_000, true));
+    }
+
+    @Test
+    void columnarPagesNewestFirst() throws IOException {
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir.resolve("columnar"), true)) {
+            pagesNewestFirst(store);
+        }
+    }
+
+    @Test
+    void memoryRanksTypeMatchesFirst() {
+        ranksTypeMatchesFirst(new MemoryAnomalyStore(1_000, true));
+    }
+
+    @Test
+    void columnarRanksTypeMatchesFirst() throws IOException {
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir.resolve("columnar"), true)) {
+            ranksTypeMatchesFirst(store);
+        }
+    }
+
+    @Test
+    void sqliteRanksTypeMatchesFirst() throws IOException {
+        Path file = dir.resolve("anomalies.db");
+        try (AnomalyStore store = new AnomalyDB("jdbc:sqlite:" + file, StorageProfile.TUNED, true)) {
+            ranksTypeMatchesFirst(store);
+        }
+    }
+
+    @Test
+    void memoryRingDropsTheOldestRows() {
+        MemoryAnomalyStore store = new MemoryAnomalyStore(10, false);
+        store.saveAnomalyBatch(batch(25, "isBatteryLow", "low"));
+
+        List<AnomalyRow> rows = allPages(store, AnomalyQuery.latest(100));
+
+        assertAll(() -> {
+            assertEquals(10, rows.size());
+            assertEquals(25, rows.get(0).id());
+            assertEquals(16, rows.get(rows.size() - 1).id());
+        });
+    }
+
+    @Test
+    void columnarReopensAndRebuildsDetails() throws IOException {
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir, false)) {
+            store.saveAnomalyBatch(batch(3, "isBatteryLow", "not stored"));
+        }
+
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir, false)) {
+            AnomalyRow newest = store.queryAnomalies(AnomalyQuery.latest(10)).rows().get(0);
+            long emptyRun = store.startRun();
+
+            assertAll(() -> {
+                assertEquals(3, newest.id());
+                assertEquals("isBatteryLow", newest.anomalyType());
+                assertEquals(AnomalyDB.rebuildDetails(2, 2, new TelemetryData(47.6, -122.3, 102, 90, 12)),
+                        newest.details());
+                assertEquals(2, emptyRun);
+                assertTrue(store.queryAnomalies(AnomalyQuery.latest(10)).rows().isEmpty());
+                assertTrue(store.getFootprintBytes() > 0);
+            });
+        }
+    }
+
+    @Test
+    void clearEmptiesEveryBackend() throws IOException {
+        List<AnomalyStore> stores = List.of(new MemoryAnomalyStore(100, false),
+                new ColumnarAnomalyStore(dir.resolve("columnar"), false));
+
+        for (AnomalyStore store : stores) {
+            store.saveAnomalyBatch(batch(5, "isBatteryLow", ""));
+            store.clear();
+            assertTrue(store.queryAnomalies(AnomalyQuery.latest(10)).rows().isEmpty());
+            store.close();
+        }
+    }
+
+    @Test
+    void memorySearchOnlyFindsRowsStillInTheRing() {
+        MemoryAnomalyStore store = new MemoryAnomalyStore(10, true);
+        store.saveAnomalyBatch(batch(8, "isBatteryLow", "low"));
+        List<AnomalyRow> before = store.searchAnomalies(new AnomalySearch("battery", null, 100));
+        store.saveAnomalyBatch(batch(30, "isBatteryLow", "low"));
+        List<AnomalyRow> after = store.searchAnomalies(new AnomalySearch("battery", null, 100));
+
+        assertAll(() -> {
+            assertEquals(8, before.size());
+            assertEquals(10, after.size());
+            assertEquals(38, after.get(0).id());
+            assertEquals(29, after.get(after.size() - 1).id());
+        });
+    }
+
+    @Test
+    void columnarSearchSeesRowsWrittenSinceTheLastSearch() throws IOException {
+        try (AnomalyStore store = new ColumnarAnomalyStore(dir.resolve("columnar"), true)) {
+            store.saveAnomalyBatch(batch(5, "isBatteryLow", "low"));
+            List<AnomalyRow> first = store.searchAnomalies(new AnomalySearch("edge", null, 100));
+            store.saveAnomalyBatch(batch(3, "outOfBounds", "near the edge"));
+            List<AnomalyRow> second = store.searchAnomalies(new AnomalySearch("edge", null, 100));
+            store.startRun();
+            List<AnomalyRow> newRun = store.searchAnomalies(new AnomalySearch("edge", null, 100));
+
+            assertAll(() -> {
+                assertTrue(first.isEmpty());
+                assertEquals(3, second.size());
+                assertEquals(8, second.get(0).id());
+                assertTrue(newRun.isEmpty());
+            });
+        }
+    }
+
+    @Test
+    void detailsAreStoredUnlessTurnedOff() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("db.columnar.dir", dir.resolve("columnar").toString());
+        Properties compact = new Properties();
+        compact.setProperty("db.storeDetails", "false");
+        Path file = dir.resolve("anomalies.db");
+
+        List<AnomalyStore> stores = List.of(StorageBackend.MEMORY.open(props), StorageBackend.COLUMNAR.open(props),
+                new AnomalyDB("jdbc:sqlite:" + file, StorageProfile.TUNED));
+        for (AnomalyStore store : stores) {
+            store.saveAnomalyBatch(batch(1, "isBatteryLow", "Drone 0 has a low battery (<=20) of 12"));
+            List<AnomalyRow> low = store.searchAnomalies(new AnomalySearch("low 12", AnomalySearch.Column.DETAILS, 10));
+            String details = store.queryAnomalies(AnomalyQuery.latest(1)).rows().get(0).details();
+            store.close();
+
+            assertAll(() -> {
+                assertEquals("Drone 0 has a low battery (<=20) of 12", details);
+                assertEquals(1, low.size());
+            });
+        }
+        assertFalse(AnomalyDB.readStoreDetails(compact));
+    }
+
+    @Test
+    void backendNamesDefaultToSqlite() {
+        assertAll(() -> {
+            assertEquals(StorageBackend.COLUMNAR, StorageBackend.fromName(" Columnar "));
+            assertEquals(StorageBackend.MEMORY, StorageBackend.fromName("memory"));
+            assertEquals(StorageBackend.SQLITE, StorageBackend.fromName("postgres"));
+            assertEquals(StorageBackend.SQLITE, StorageBackend.fromName(null));
+        });
+    }
+
+    @Test
+    void spillFileSitsNextToTheStore() {
+        Properties props = new Properties();
+        props.setProperty("db.url", "jdbc:sqlite:" + dir.resolve("anomalies.db") + "?journal_mode=WAL");
+        props.setProperty("db.columnar.dir", dir.resolve("columns").toString());
+        Path memorySpill = StorageBackend.MEMORY.spillFile(props);
+
+        Properties overridden = new Properties();
+        overridden.setProperty(StorageBackend.SPILL_FILE_PROPERTY, dir.resolve("custom.bin").toString());
+        Properties inMemory = new Properties();
+        inMemory.setProperty("db.url", "jdbc:sqlite::memory:");
+
+        assertAll(() -> {
+            assertEquals(dir.resolve("anomalies.db.spill"), StorageBackend.SQLITE.spillFile(props));
+            assertEquals(dir.resolve("columns").resolve("spill.bin"), StorageBackend.COLUMNAR.spillFile(props));
+            assertTrue(memorySpill.getFileName().toString().contains(Long.toString(ProcessHandle.current().pid())));
+            assertEquals(memorySpill, StorageBackend.SQLITE.spillFile(inMemory));
+            assertEquals(dir.resolve("custom.bin"), StorageBackend.SQLITE.spillFile(overridden));
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package database;
+
+import Model.AnomalyRecord;
+import Model.Drone;
+import Model.DroneFactory;
+import Model.TelemetryData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    private static Drone[] fleet(int size) {
+        Drone[] fleet = new Drone[size];
+        for (int i = 0; i < size; i++) {
+            fleet[i] = DroneFactory.createDrone("A");
+        }
+        return fleet;
+    }
+
+    @Test
+    void rollsOverAndSeeksByTick() throws IOException {
+        Drone[] fleet = fleet(50);
+
+        // Room for 700 records per segment, so 2000 ticks of 50 drones span many segments, and all are kept
+        try (FlightRecorder recorder = new FlightRecorder(dir, 700 * FlightRecorder.RECORD_SIZE, 1000)) {
+            for (long tick = 1; tick <= 2000; tick++) {
+                recorder.recordTelemetry(tick, fleet);
+            }
+        }
+
+        FlightRecordReader reader = new FlightRecordReader(dir);
+        List<Long> ticks = new ArrayList<>();
+        reader.scan(1500, 1502, record -> ticks.add(record.tick()));
+
+        assertAll(() -> {
+            assertEquals(100_000, reader.getRecordCount());
+            assertTrue(reader.getSegmentCount() > 100);
+            assertEquals(150, ticks.size());
+            assertEquals(1500L, ticks.get(0));
+            assertEquals(1502L, ticks.get(ticks.size() - 1));
+        });
+    }
+
+    @Test
+    void keepsOnlyTheNewestSegments() throws IOException {
+        Drone[] fleet = fleet(10);
+
+        // One tick per segment, so each recorder leaves a run of full segments behind
+        try (FlightRecorder recorder = new FlightRecorder(dir, 10 * FlightRecorder.RECORD_SIZE, 3)) {
+            for (long tick = 1; tick <= 5; tick++) {
+                recorder.recordTelemetry(tick, fleet);
+            }
+        }
+        try (FlightRecorder recorder = new FlightRecorder(dir, 10 * FlightRecorder.RECORD_SIZE, 3)) {
+            recorder.recordTelemetry(6, fleet);
+        }
+
+        List<Path> segments = FlightRecordReader.listSegments(dir);
+        List<Long> ticks = new ArrayList<>();
+        new FlightRecordReader(dir).scanAll(record -> ticks.add(record.tick()));
+
+        // The reopened recorder numbers after the newest segment, instead of reusing a deleted one's number
+        assertAll(() -> {
+            assertEquals(3, segments.size());
+            assertEquals(5, FlightRecorder.segmentNumber(segments.get(segments.size() - 1)));
+            assertFalse(Files.exists(FlightRecorder.indexFile(dir, 2)));
+            assertEquals(30, ticks.size());
+            assertEquals(4L, ticks.get(0));
+            assertEquals(6L, ticks.get(ticks.size() - 1));
+        });
+    }
+
+    @Test
+    void anomaliesKeepTheirType() throws IOException {
+        TelemetryData data = new TelemetryData(10, 20, 30, 40, 5);
+
+        try (FlightRecorder recorder = new FlightRecorder(dir, FlightRecorder.DEFAULT_SEGMENT_BYTES / 64)) {
+            recorder.recordAnomaly(3, new AnomalyRecord("Low Battery", 9, 3, ""), data);
+            recorder.recordAnomaly(4, new AnomalyRecord("Out Of Bounds", 9, 4, ""), data);
+        }
+
+        List<String> types = new ArrayList<>();
+        new FlightRecordReader(dir).scanAll(record -> {
+            assertTrue(record.isAnomaly());
+            assertEquals(20.0, record.longitude());
+            return types.add(record.anomalyType());
+        });
+
+        assertEquals(List.of("Low Battery", "Out Of Bounds"), types);
+    }
+
+    @Test
+    void recoversRecordsWrittenAfterLastIndex() throws IOException {
+        FlightRecorder recorder = new FlightRecorder(dir, 4096 * FlightRecorder.RECORD_SIZE);
+        Drone[] fleet = fleet(10);
+
+        recorder.recordTelemetry(1, fleet);
+        recorder.force();
+        recorder.recordTelemetry(2, fleet);
+
+        // Not closed, so the index only knows about tick 1
+        FlightRecordReader reader = new FlightRecordReader(dir);
+        List<Long> ticks = new ArrayList<>();
+        reader.scan(2, 2, record -> ticks.add(record.tick()));
+
+        assertAll(() -> {
+            assertEquals(20, reader.getRecordCount());
+            assertEquals(10, ticks.size());
+        });
+        recorder.close();
+    }
+}
@@ -0,0 +1,111 @@
+package database;
+
+import Model.TelemetryData;
+import service.TelemetryGenerator;
+
+/**
+ * Measures the compression ratio and encode/decode throughput of GorillaCodec on telemetry
+ * produced by the real TelemetryGenerator.
+ * Both the lossless layout and the one with positions rounded to TelemetryChunk.POSITION_RESOLUTION are measured.
+ * Run it with: java database.GorillaCodecBenchmark [drones] [ticks]
+ */
+public class GorillaCodecBenchmark {
+
+    /** Bytes a sample takes uncompressed: tick, five doubles and the battery level. */
+    private static final int RAW_SAMPLE_BYTES = Long.BYTES + GorillaCodec.DOUBLE_COLUMNS * Double.BYTES + Integer.BYTES;
+
+    /** Ticks per chunk, the same as the telemetry store. */
+    private static final int CHUNK_TICKS = TelemetryStore.CHUNK_TICKS;
+
+    public static void main(String[] args) {
+        int drones = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 1_024;
+
+        // Generate every drone's flight up front, so only the codec is timed
+        TelemetryGenerator generator = new TelemetryGenerator();
+        double[][] flights = new double[drones][ticks * TelemetryChunk.CHANNELS];
+        for (int d = 0; d < drones; d++) {
+            TelemetryData data = generator.generateStartPosition();
+            int battery = 100;
+            for (int t = 0; t < ticks; t++) {
+                data = generator.generateTelemetryData(data);
+                if (t % 20 == 0 && battery > 0) {
+                    battery--;
+                }
+                int base = t * TelemetryChunk.CHANNELS;
+                flights[d][base] = data.getLatitude();
+                flights[d][base + 1] = data.getLongitude();
+                flights[d][base + 2] = data.getAltitude();
+                flights[d][base + 3] = data.getOrientation();
+                flights[d][base + 4] = data.getVelocity();
+                flights[d][base + 5] = battery;
+            }
+        }
+
+        System.out.println("generated flights (a new heading and speed every tick):");
+        measure(flights, ticks);
+
+        // A drone holding its heading and speed, the common case for a real flight between waypoints
+        for (int d = 0; d < drones; d++) {
+            double heading = Math.toRadians(d % 360);
+            for (int t = 0; t < ticks; t++) {
+                int base = t * TelemetryChunk.CHANNELS;
+                flights[d][base] = 20 * t * Math.cos(heading);
+                flights[d][base + 1] = 20 * t * Math.sin(heading);
+                flights[d][base + 2] = 60;
+                flights[d][base + 3] = d % 360;
+                flights[d][base + 4] = 20;
+                flights[d][base + 5] = 100 - t / 20;
+            }
+        }
+        System.out.println("steady cruise:");
+        measure(flights, ticks);
+    }
+
+    private static void measure(double[][] flights, int ticks) {
+        for (double resolution : new double[]{0, TelemetryChunk.POSITION_RESOLUTION}) {
+            System.out.println(resolution == 0 ? "  lossless:" : "  positions to " + resolution + ":");
+            for (int round = 0; round < 3; round++) {
+                run(flights, ticks, resolution, round == 2);
+            }
+        }
+    }
+
+    private static void run(double[][] flights, int ticks, double resolution, boolean print) {
+        long encodedBytes = 0;
+        long samples = (long) flights.length * ticks;
+        byte[][] encoded = new byte[flights.length * (ticks / CHUNK_TICKS)][];
+
+        long start = System.nanoTime();
+        int index = 0;
+        for (double[] flight : flights) {
+            for (int chunkStart = 0; chunkStart + CHUNK_TICKS <= ticks; chunkStart += CHUNK_TICKS) {
+                double[] samplesOfChunk = new double[CHUNK_TICKS * TelemetryChunk.CHANNELS];
+                System.arraycopy(flight, chunkStart * TelemetryChunk.CHANNELS, samplesOfChunk, 0, samplesOfChunk.length);
+                encoded[index] = new TelemetryChunk(0, chunkStart, CHUNK_TICKS, samplesOfChunk).encode(resolution);
+                encodedBytes += encoded[index].length;
+                index++;
+            }
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        double checksum = 0;
+        for (byte[] chunk : encoded) {
+            GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(chunk, 1);
+            while (decoder.hasNext()) {
+                decoder.next();
+                checksum += decoder.value(0);
+            }
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        if (print) {
+            System.out.printf("    samples: %,d  raw: %.1f MiB  compressed: %.1f MiB  ratio: %.1fx (%.1f bytes/sample)%n",
+                    samples, samples * RAW_SAMPLE_BYTES / 1048576.0, encodedBytes / 1048576.0,
+                    samples * (double) RAW_SAMPLE_BYTES / encodedBytes, encodedBytes / (double) samples);
+            System.out.printf("    encode: %,.0f samples/s  decode: %,.0f samples/s  (checksum %.0f)%n",
+                    samples / (encodeNanos / 1e9), samples / (decodeNanos / 1e9), checksum);
+        }
+    }
+}
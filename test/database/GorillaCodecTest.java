@@ -0,0 +1,112 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GorillaCodecTest {
+
+    @Test
+    void bitsRoundTrip() {
+        BitWriter writer = new BitWriter(1);
+        writer.writeBit(true);
+        writer.writeBits(0b1011, 4);
+        writer.writeBits(-1L, 64);
+        writer.writeBits(12345, 17);
+
+        BitReader reader = new BitReader(writer.toByteArray(), 0, writer.toByteArray().length);
+        assertAll(() -> {
+            assertEquals(86, writer.bitLength());
+            assertTrue(reader.readBit());
+            assertEquals(0b1011, reader.readBits(4));
+            assertEquals(-1L, reader.readBits(64));
+            assertEquals(12345, reader.readBits(17));
+        });
+    }
+
+    @Test
+    void samplesRoundTripExactly() {
+        Random random = new Random(42);
+        long[] ticks = new long[500];
+        double[][] values = new double[500][GorillaCodec.DOUBLE_COLUMNS];
+        int[] battery = new int[500];
+
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder();
+        long tick = 1000;
+        for (int i = 0; i < ticks.length; i++) {
+            // Mostly steady ticks with the occasional jump, both directions
+            tick += random.nextInt(10) == 0 ? random.nextInt(5000) - 100 : 1;
+            ticks[i] = tick;
+            values[i][0] = random.nextGaussian() * 300;
+            values[i][1] = i == 0 ? 0 : values[i - 1][1] + random.nextInt(3);
+            values[i][2] = Double.NaN;
+            values[i][3] = -0.0;
+            values[i][4] = i % 7 == 0 ? 0x1p60 : Math.round(random.nextDouble() * 50);
+            battery[i] = 100 - i / 5 - (i == 250 ? 1_000_000 : 0);
+            encoder.append(ticks[i], values[i][0], values[i][1], values[i][2], values[i][3], values[i][4], battery[i]);
+        }
+
+        GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(encoder.finish(), 0);
+        assertEquals(500, decoder.count());
+        for (int i = 0; i < ticks.length; i++) {
+            decoder.next();
+            assertEquals(ticks[i], decoder.tick());
+            for (int c = 0; c < GorillaCodec.DOUBLE_COLUMNS; c++) {
+                assertEquals(Double.doubleToRawLongBits(values[i][c]), Double.doubleToRawLongBits(decoder.value(c)));
+            }
+            assertEquals(battery[i], decoder.battery());
+        }
+        assertFalse(decoder.hasNext());
+    }
+
+    @Test
+    void steadyTelemetryCompressesWell() {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder();
+        for (int i = 0; i < 1000; i++) {
+            encoder.append(i, 120.0, 340.0, 50.0, 90.0, 25.0, 80);
+        }
+
+        // 56 raw bytes per sample, a steady drone should cost about one bit per column
+        assertTrue(encoder.finish().length < 1000);
+    }
+
+    @Test
+    void roundedPositionsStayWithinHalfAStep() {
+        Random random = new Random(7);
+        double resolution = 0.001;
+        double[][] positions = new double[300][GorillaCodec.POSITION_COLUMNS];
+
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(resolution);
+        double latitude = 0;
+        for (int i = 0; i < positions.length; i++) {
+            latitude += random.nextDouble() * 40 - 20;
+            positions[i][0] = latitude;
+            positions[i][1] = -latitude * 3.3;
+            positions[i][2] = Math.max(0, 50 + random.nextGaussian() * 10);
+            encoder.append(i, positions[i][0], positions[i][1], positions[i][2], 1e300, 0.25, 100);
+        }
+
+        GorillaCodec.Decoder decoder = new GorillaCodec.Decoder(encoder.finish(), 0);
+        for (double[] expected : positions) {
+            decoder.next();
+            for (int c = 0; c < GorillaCodec.POSITION_COLUMNS; c++) {
+                assertEquals(expected[c], decoder.value(c), resolution / 2 + 1e-9);
+            }
+            // Columns past the positions are still exact
+            assertEquals(1e300, decoder.value(3));
+            assertEquals(0.25, decoder.value(4));
+        }
+    }
+
+    @Test
+    void roundingRejectsPositionsThatAreNotFinite() {
+        GorillaCodec.Encoder encoder = new GorillaCodec.Encoder(0.01);
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class,
+                        () -> encoder.append(0, Double.NaN, 0, 0, 0, 0, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new GorillaCodec.Encoder(-1))
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistoryConfigTest {
+
+    @Test
+    void historyIsOffUnlessTurnedOn() {
+        Properties props = new Properties();
+        props.setProperty(HistoryConfig.RECORDER_PROPERTY, " true ");
+        props.setProperty("history.recorder.dir", "/data/recorder");
+
+        HistoryConfig config = HistoryConfig.fromProperties(props);
+        assertAll(
+                () -> assertFalse(config.telemetryEnabled()),
+                () -> assertTrue(config.recorderEnabled()),
+                () -> assertEquals(Path.of("/data/recorder"), config.recorderDirectory()),
+                () -> assertEquals(HistoryConfig.DEFAULT.telemetryUrl(), config.telemetryUrl()),
+                () -> assertEquals(FlightRecorder.DEFAULT_MAX_SEGMENTS, config.recorderSegments()),
+                () -> assertEquals(HistoryConfig.DEFAULT, HistoryConfig.fromProperties(new Properties()))
+        );
+    }
+
+    @Test
+    void invalidSegmentCountsAreRejected() {
+        Properties notANumber = new Properties();
+        notANumber.setProperty("history.recorder.segments", "all");
+        Properties none = new Properties();
+        none.setProperty("history.recorder.segments", "0");
+
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> HistoryConfig.fromProperties(notANumber)),
+                () -> assertThrows(IllegalArgumentException.class, () -> HistoryConfig.fromProperties(none))
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetentionPolicyTest {
+
+    @Test
+    void missingPropertiesKeepTheDefaults() {
+        Properties props = new Properties();
+        props.setProperty("retention.raw.hours", "6");
+        props.setProperty("retention.batch.rows", " 500 ");
+
+        RetentionPolicy policy = RetentionPolicy.fromProperties(props);
+        assertAll(
+                () -> assertEquals(Duration.ofHours(6), policy.rawRetention()),
+                () -> assertEquals(500, policy.batchRows()),
+                () -> assertEquals(RetentionPolicy.DEFAULT.minuteRetention(), policy.minuteRetention()),
+                () -> assertEquals(RetentionPolicy.DEFAULT.hourRetention(), policy.hourRetention()),
+                () -> assertEquals(RetentionPolicy.DEFAULT.interval(), policy.interval()),
+                () -> assertEquals(RetentionPolicy.DEFAULT, RetentionPolicy.fromProperties(new Properties()))
+        );
+    }
+
+    @Test
+    void invalidPoliciesAreRejected() {
+        Properties notANumber = new Properties();
+        notANumber.setProperty("retention.hour.days", "forever");
+
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> RetentionPolicy.fromProperties(notANumber)),
+                // Minutes can't be purged before the raw rows they summarize
+                () -> assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy(Duration.ofDays(2),
+                        Duration.ofDays(1), Duration.ofDays(3), 100, Duration.ofSeconds(1))),
+                () -> assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy(Duration.ofDays(1),
+                        Duration.ofDays(1), Duration.ofDays(1), 0, Duration.ofSeconds(1))),
+                () -> assertThrows(IllegalArgumentException.class, () -> new RetentionPolicy(Duration.ZERO,
+                        Duration.ofDays(1), Duration.ofDays(1), 100, Duration.ofSeconds(1)))
+        );
+    }
+
+    @Test
+    void cutoffMatchesSqliteTimestamps() {
+        Instant now = Instant.parse("2025-11-03T10:15:30.750Z");
+
+        assertAll(
+                () -> assertEquals("2025-11-03 09:15:30", RetentionPolicy.cutoff(now, Duration.ofHours(1))),
+                () -> assertEquals("2025-10-27 10:15:30", RetentionPolicy.cutoff(now, Duration.ofDays(7)))
+        );
+    }
+}
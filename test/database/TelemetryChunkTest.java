@@ -0,0 +1,71 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryChunkTest {
+
+    private static TelemetryChunk chunk(long startTick, int count) {
+        double[] samples = new double[count * TelemetryChunk.CHANNELS];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = i * 1.5;
+        }
+        return new TelemetryChunk(7, startTick, count, samples);
+    }
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        TelemetryChunk original = chunk(64, 32);
+        TelemetryChunk decoded = TelemetryChunk.decode(7, 64, 32, original.encode());
+
+        assertAll(() -> {
+            assertEquals(95, decoded.endTick());
+            assertEquals(TelemetryChunk.FORMAT_GORILLA, original.encode()[0]);
+            for (int i = 0; i < 32; i++) {
+                int base = i * TelemetryChunk.CHANNELS;
+                for (int c = 0; c < 5; c++) {
+                    assertEquals(original.samples()[base + c], decoded.samples()[base + c]);
+                }
+            }
+        });
+    }
+
+    @Test
+    void decodesLegacyFloatChunks() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + TelemetryChunk.CHANNELS * Float.BYTES);
+        buffer.put(TelemetryChunk.FORMAT_FLOAT32);
+        for (int c = 0; c < TelemetryChunk.CHANNELS; c++) {
+            buffer.putFloat(c + 0.5f);
+        }
+        TelemetryChunk decoded = TelemetryChunk.decode(1, 0, 1, buffer.array());
+
+        assertAll(() -> {
+            assertEquals(0.5, decoded.samples()[0]);
+            assertEquals(5.5, decoded.samples()[5]);
+        });
+    }
+
+    @Test
+    void collectClipsToTickRange() {
+        List<TelemetrySample> samples = new ArrayList<>();
+        chunk(64, 32).collect(90, 200, samples);
+
+        assertAll(() -> {
+            assertEquals(6, samples.size());
+            assertEquals(90, samples.get(0).tick());
+            assertEquals(95, samples.get(5).tick());
+            assertEquals(7, samples.get(0).droneId());
+            assertEquals(26 * TelemetryChunk.CHANNELS * 1.5, samples.get(0).latitude(), 1e-9);
+        });
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TelemetryChunk.decode(1, 0, 1, new byte[]{9}));
+    }
+}
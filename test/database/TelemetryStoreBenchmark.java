@@ -0,0 +1,53 @@
+package database;
+
+import Model.Drone;
+import Model.DroneFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures how fast TelemetryStore can record a large fleet, to check it keeps up with
+ * 100k drones at 10 ticks a second (a million samples a second).
+ * Run it with the SQLite driver on the classpath: java database.TelemetryStoreBenchmark [drones] [ticks]
+ */
+public class TelemetryStoreBenchmark {
+
+    /** Samples per second the store has to sustain. */
+    private static final double TARGET_SAMPLES_PER_SECOND = 100_000 * 10.0;
+
+    public static void main(String[] args) throws Exception {
+        int droneCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 320;
+
+        Drone[] fleet = new Drone[droneCount];
+        for (int i = 0; i < droneCount; i++) {
+            fleet[i] = DroneFactory.createDrone(i % 2 == 0 ? "A" : "B");
+        }
+
+        Path file = Files.createTempFile("telemetry-bench", ".db");
+        TelemetryStore store = new TelemetryStore("jdbc:sqlite:" + file, StorageProfile.TUNED);
+
+        long start = System.nanoTime();
+        for (long tick = 0; tick < ticks; tick++) {
+            store.append(tick, fleet);
+        }
+        long appendNanos = System.nanoTime() - start;
+        store.flush();
+        long totalNanos = System.nanoTime() - start;
+
+        double samples = (double) droneCount * ticks;
+        double perSecond = samples / (totalNanos / 1e9);
+        System.out.printf("append only: %,.0f samples/s%n", samples / (appendNanos / 1e9));
+        System.out.printf("end to end:  %,.0f samples/s (%,d chunks, %.1f MiB) -> %s target%n",
+                perSecond, store.getChunksWritten(), Files.size(file) / 1048576.0,
+                perSecond >= TARGET_SAMPLES_PER_SECOND ? "meets" : "misses");
+
+        long queryStart = System.nanoTime();
+        int rows = store.queryDrone(fleet[0].getDroneID(), 0, ticks).size();
+        System.out.printf("one drone, all ticks: %d samples in %.2f ms%n", rows, (System.nanoTime() - queryStart) / 1e6);
+
+        store.close();
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,139 @@
+package database;
+
+import Model.Drone;
+import Model.DroneFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelemetryStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private static Drone[] fleet(int size) {
+        Drone[] fleet = new Drone[size];
+        for (int i = 0; i < size; i++) {
+            fleet[i] = DroneFactory.createDrone("A");
+        }
+        return fleet;
+    }
+
+    private static void record(TelemetryStore store, Drone[] fleet, long ticks) {
+        for (long tick = 0; tick < ticks; tick++) {
+            store.append(tick, fleet);
+        }
+        store.flush();
+    }
+
+    @Test
+    void runsStartingFromTickZeroKeepEachOthersChunks() {
+        Drone[] fleet = fleet(3);
+        int droneId = fleet[0].getDroneID();
+
+        TelemetryStore store = new TelemetryStore("jdbc:sqlite:" + dir.resolve("telemetry.db"), StorageProfile.TUNED);
+        long first = store.startRun();
+        record(store, fleet, 40);
+        long second = store.startRun();
+        record(store, fleet, 10);
+
+        List<TelemetrySample> firstRun = store.queryDrone(first, droneId, 0, 100);
+        List<TelemetrySample> secondRun = store.queryDrone(droneId, 0, 100);
+        List<TelemetrySample> firstRunStart = store.queryRange(first, 0, 9);
+        long chunks = store.getChunksWritten();
+        store.close();
+
+        // 40 ticks are two chunks per drone, 10 ticks one, and none of them replaced another
+        assertAll(() -> {
+            assertNotEquals(first, second);
+            assertEquals(second, store.getCurrentRunId());
+            assertEquals(40, firstRun.size());
+            assertEquals(10, secondRun.size());
+            assertEquals(30, firstRunStart.size());
+            assertEquals(9, chunks);
+        });
+    }
+
+    @Test
+    void keepsOnlyTheNewestRuns() {
+        Drone[] fleet = fleet(2);
+        int droneId = fleet[0].getDroneID();
+
+        TelemetryStore store = new TelemetryStore("jdbc:sqlite:" + dir.resolve("telemetry.db"), StorageProfile.TUNED);
+        long first = store.startRun();
+        record(store, fleet, 5);
+        long second = store.startRun();
+        record(store, fleet, 5);
+        for (int i = 2; i < TelemetryStore.MAX_RUNS; i++) {
+            store.startRun();
+        }
+        long beforeCut = store.queryDrone(first, droneId, 0, 10).size();
+        long last = store.startRun();
+
+        List<TelemetrySample> firstRun = store.queryDrone(first, droneId, 0, 10);
+        List<TelemetrySample> secondRun = store.queryDrone(second, droneId, 0, 10);
+        store.close();
+
+        assertAll(() -> {
+            assertEquals(first + TelemetryStore.MAX_RUNS, last);
+            assertEquals(5, beforeCut);
+            assertTrue(firstRun.isEmpty());
+            assertEquals(5, secondRun.size());
+        });
+    }
+
+    @Test
+    void chunksFromBeforeRunsBecomeTheLegacyRun() throws SQLException {
+        String url = "jdbc:sqlite:" + dir.resolve("legacy.db");
+        double[] samples = new double[4 * TelemetryChunk.CHANNELS];
+        for (int i = 0; i < 4; i++) {
+            samples[i * TelemetryChunk.CHANNELS] = 47.0 + i;
+            samples[i * TelemetryChunk.CHANNELS + 5] = 90;
+        }
+        TelemetryChunk chunk = new TelemetryChunk(5, 0, 4, samples);
+
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE telemetry_chunks (
+                    drone_id INTEGER NOT NULL,
+                    start_tick INTEGER NOT NULL,
+                    end_tick INTEGER NOT NULL,
+                    sample_count INTEGER NOT NULL,
+                    data BLOB NOT NULL,
+                    PRIMARY KEY (drone_id, start_tick)
+                ) WITHOUT ROWID
+                """);
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO telemetry_chunks VALUES (?, ?, ?, ?, ?)")) {
+                insert.setInt(1, chunk.droneId());
+                insert.setLong(2, chunk.startTick());
+                insert.setLong(3, chunk.endTick());
+                insert.setInt(4, chunk.count());
+                insert.setBytes(5, chunk.encode());
+                insert.executeUpdate();
+            }
+        }
+
+        TelemetryStore store = new TelemetryStore(url, StorageProfile.TUNED);
+        long run = store.startRun();
+        List<TelemetrySample> legacy = store.queryDrone(TelemetryStore.LEGACY_RUN_ID, 5, 0, 10);
+        List<TelemetrySample> current = store.queryDrone(5, 0, 10);
+        store.close();
+
+        assertAll(() -> {
+            assertTrue(run > TelemetryStore.LEGACY_RUN_ID);
+            assertEquals(4, legacy.size());
+            assertEquals(50.0, legacy.get(3).latitude(), TelemetryChunk.POSITION_RESOLUTION);
+            assertTrue(current.isEmpty());
+        });
+    }
+}
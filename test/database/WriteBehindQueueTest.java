@@ -0,0 +1,148 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private static final WriteBehindQueue.SpillCodec<Integer> INT_CODEC = new WriteBehindQueue.SpillCodec<>() {
+        @Override
+        public void write(DataOutputStream out, Integer item) throws IOException {
+            out.writeInt(item);
+        }
+
+        @Override
+        public Integer read(DataInputStream in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    @Test
+    void flushWritesEverythingInBatches() {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test-writer", batch -> {
+            batchSizes.add(batch.size());
+            written.addAll(batch);
+        }, 1000, 50, 1000, WriteBehindQueue.OverflowPolicy.BLOCK, null, null);
+
+        for (int i = 0; i < 500; i++) {
+            queue.add(i);
+        }
+        queue.flush();
+
+        assertAll(() -> {
+            assertEquals(500, written.size());
+            assertTrue(batchSizes.stream().allMatch(size -> size <= 50));
+            assertEquals(0, queue.getQueueDepth());
+        });
+        queue.close();
+    }
+
+    @Test
+    void dropOldestKeepsNewestItems() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test-writer", batch -> {
+            awaitQuietly(release);
+            written.addAll(batch);
+        }, 4, 1, 10);
+
+        // The first item is stuck in the writer, the rest overflow the 4 slots
+        queue.add(0);
+        Thread.sleep(100);
+        for (int i = 1; i <= 10; i++) {
+            queue.add(i);
+        }
+        release.countDown();
+        queue.flush();
+
+        assertAll(() -> {
+            assertEquals(6, queue.getDroppedCount());
+            assertEquals(List.of(0, 7, 8, 9, 10), written);
+        });
+        queue.close();
+    }
+
+    @Test
+    void spillToFileWritesOverflowLater() throws IOException, InterruptedException {
+        Path spill = dir.resolve("spill.bin");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test-writer", batch -> {
+            awaitQuietly(release);
+            written.addAll(batch);
+        }, 2, 1, 10, WriteBehindQueue.OverflowPolicy.SPILL_TO_FILE, INT_CODEC, spill);
+
+        queue.add(0);
+        Thread.sleep(100);
+        for (int i = 1; i <= 10; i++) {
+            queue.add(i);
+        }
+        release.countDown();
+        queue.flush();
+
+        assertAll(() -> {
+            assertEquals(8, queue.getSpilledCount());
+            assertEquals(11, written.size());
+            assertEquals(0, queue.getSpilledPending());
+            assertFalse(Files.exists(spill));
+        });
+        queue.close();
+    }
+
+    @Test
+    void spilledItemsAreFlushedAndWrittenBeforeNewerOnes() throws IOException, InterruptedException {
+        Path spill = dir.resolve("spill.bin");
+        Semaphore permits = new Semaphore(0);
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        WriteBehindQueue<Integer> queue = new WriteBehindQueue<>("test-writer", batch -> {
+            permits.acquireUninterruptibly();
+            written.addAll(batch);
+        }, 2, 1, 10, WriteBehindQueue.OverflowPolicy.SPILL_TO_FILE, INT_CODEC, spill);
+
+        // 0 is stuck in the writer, 1 and 2 fill the queue, 3 and 4 spill
+        queue.add(0);
+        Thread.sleep(100);
+        queue.addAll(List.of(1, 2, 3, 4));
+        long spilledBytes = Files.size(spill);
+
+        // Once 0 is written the writer is stuck on 1, and the queue has room again, but 5 is newer than 3 and 4
+        permits.release();
+        Thread.sleep(100);
+        queue.add(5);
+        permits.release(100);
+        queue.flush();
+
+        assertAll(() -> {
+            assertEquals(2 * Integer.BYTES, spilledBytes);
+            assertEquals(3, queue.getSpilledCount());
+            assertEquals(List.of(0, 1, 2, 3, 4, 5), written);
+        });
+        queue.close();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
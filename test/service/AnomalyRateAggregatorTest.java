@@ -0,0 +1,82 @@
+package service;
+
+import Model.AnomalyRecord;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyRateAggregatorTest {
+
+    private static AnomalyRecord[] anomalies(int count, String type, int droneID) {
+        AnomalyRecord[] records = new AnomalyRecord[count];
+        for (int i = 0; i < count; i++) {
+            records[i] = new AnomalyRecord(type, droneID, 0, "");
+        }
+        return records;
+    }
+
+    @Test
+    void countsByDroneTypeAndFleet() {
+        AnomalyRateAggregator rates = new AnomalyRateAggregator();
+
+        rates.record(anomalies(3, "isBatteryLow", 1), 5);
+        rates.record(anomalies(2, "outOfBounds", 2), 6);
+
+        assertAll(() -> {
+            assertEquals(3, rates.getDroneCount(1, AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(2, rates.getDroneCount(2, AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(0, rates.getDroneCount(3, AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(2, rates.getTypeCount("outOfBounds", AnomalyRateAggregator.Window.ONE_HOUR));
+            assertEquals(5, rates.getFleetCount(AnomalyRateAggregator.Window.TEN_MINUTES));
+            assertEquals(3.0, rates.getDroneRatePerMinute(1, AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(0.5, rates.getFleetRatePerMinute(AnomalyRateAggregator.Window.TEN_MINUTES));
+        });
+    }
+
+    @Test
+    void eachWindowRollsOverAtItsOwnLength() {
+        AnomalyRateAggregator rates = new AnomalyRateAggregator();
+        rates.record(anomalies(4, "isBatteryLow", 7), 0);
+
+        // An empty tick still moves the windows forward
+        rates.record(new AnomalyRecord[0], 59);
+        long minuteBefore = rates.getDroneCount(7, AnomalyRateAggregator.Window.ONE_MINUTE);
+        rates.record(null, 60);
+        long minuteAfter = rates.getDroneCount(7, AnomalyRateAggregator.Window.ONE_MINUTE);
+        long tenMinutesBefore = rates.getDroneCount(7, AnomalyRateAggregator.Window.TEN_MINUTES);
+
+        rates.record(null, 600);
+        long tenMinutesAfter = rates.getDroneCount(7, AnomalyRateAggregator.Window.TEN_MINUTES);
+        rates.record(null, 3_599);
+        long hourBefore = rates.getDroneCount(7, AnomalyRateAggregator.Window.ONE_HOUR);
+        rates.record(null, 3_600);
+        long hourAfter = rates.getDroneCount(7, AnomalyRateAggregator.Window.ONE_HOUR);
+
+        assertAll(() -> {
+            assertEquals(4, minuteBefore);
+            assertEquals(0, minuteAfter);
+            assertEquals(4, tenMinutesBefore);
+            assertEquals(0, tenMinutesAfter);
+            assertEquals(4, hourBefore);
+            assertEquals(0, hourAfter);
+            assertEquals(0, rates.getFleetCount(AnomalyRateAggregator.Window.ONE_HOUR));
+        });
+    }
+
+    @Test
+    void resetClearsEveryCounter() {
+        AnomalyRateAggregator rates = new AnomalyRateAggregator();
+        rates.record(anomalies(3, "isBatteryLow", 1), 10);
+
+        rates.reset();
+
+        assertAll(() -> {
+            assertEquals(0, rates.getDroneCount(1, AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(0, rates.getTypeCount("isBatteryLow", AnomalyRateAggregator.Window.ONE_MINUTE));
+            assertEquals(0, rates.getFleetCount(AnomalyRateAggregator.Window.ONE_HOUR));
+            assertEquals(60, AnomalyRateAggregator.Window.ONE_MINUTE.getSeconds());
+            assertEquals(600, AnomalyRateAggregator.Window.TEN_MINUTES.getSeconds());
+            assertEquals(3_600, AnomalyRateAggregator.Window.ONE_HOUR.getSeconds());
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollingCounterTest {
+
+    @Test
+    void countsInsideWindow() {
+        RollingCounter counter = new RollingCounter(60, 1);
+
+        counter.add(0, 1);
+        counter.add(10, 2);
+        counter.add(59, 3);
+
+        assertEquals(6, counter.getTotal(59));
+    }
+
+    @Test
+    void expiresOldBuckets() {
+        RollingCounter counter = new RollingCounter(60, 1);
+
+        counter.add(0, 1);
+        counter.add(30, 1);
+
+        assertAll(() -> {
+            assertEquals(2, counter.getTotal(59));
+            assertEquals(1, counter.getTotal(60));
+            assertEquals(0, counter.getTotal(90));
+        });
+    }
+
+    @Test
+    void largeJumpClearsEverything() {
+        RollingCounter counter = new RollingCounter(6, 10);
+
+        counter.add(5, 4);
+        counter.add(55, 4);
+
+        assertEquals(0, counter.getTotal(10_000));
+    }
+
+    @Test
+    void ignoresEventsOlderThanWindow() {
+        RollingCounter counter = new RollingCounter(10, 1);
+
+        counter.add(100, 1);
+        counter.add(50, 1);
+
+        assertEquals(1, counter.getTotal(100));
+    }
+
+    @Test
+    void clearResets() {
+        RollingCounter counter = new RollingCounter(10, 1);
+
+        counter.add(3, 5);
+        counter.clear();
+
+        assertAll(() -> {
+            assertEquals(0, counter.getTotal(3));
+            assertEquals(10, counter.getWindowSeconds());
+        });
+    }
+
+    @Test
+    void invalidSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingCounter(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RollingCounter(1, 0));
+    }
+}
@@ -0,0 +1,84 @@
+package service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    @Test
+    void firesOnDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 5);
+
+        assertAll(() -> {
+            assertTrue(wheel.advanceTo(4).isEmpty());
+            assertEquals(List.of("a"), wheel.advanceTo(5));
+            assertFalse(wheel.isScheduled("a"));
+        });
+    }
+
+    @Test
+    void cascadesFromHigherLevels() {
+        TimingWheel<Integer> wheel = new TimingWheel<>();
+        long[] deadlines = {63, 64, 65, 4095, 4096, 4097, 300_000};
+        for (int i = 0; i < deadlines.length; i++) {
+            wheel.schedule(i, deadlines[i]);
+        }
+
+        for (int i = 0; i < deadlines.length; i++) {
+            assertTrue(wheel.advanceTo(deadlines[i] - 1).isEmpty(), "early fire before " + deadlines[i]);
+            assertEquals(List.of(i), wheel.advanceTo(deadlines[i]));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleReplacesOldDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 10);
+        wheel.schedule("a", 20);
+
+        assertAll(() -> {
+            assertTrue(wheel.advanceTo(19).isEmpty());
+            assertEquals(List.of("a"), wheel.advanceTo(20));
+        });
+    }
+
+    @Test
+    void cancelStopsFiring() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 100);
+        wheel.cancel("a");
+
+        assertAll(() -> {
+            assertFalse(wheel.isScheduled("a"));
+            assertTrue(wheel.advanceTo(200).isEmpty());
+        });
+    }
+
+    @Test
+    void pastDeadlineFiresNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.advanceTo(50);
+        wheel.schedule("a", 10);
+
+        assertEquals(List.of("a"), wheel.advanceTo(51));
+    }
+
+    @Test
+    void clearResets() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 3);
+        wheel.advanceTo(2);
+        wheel.clear();
+
+        assertAll(() -> {
+            assertEquals(0, wheel.getCurrentTick());
+            assertEquals(0, wheel.size());
+            assertTrue(wheel.advanceTo(10).isEmpty());
+        });
+    }
+}